@@ -6,6 +6,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import com.ecosystem.service.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -13,7 +15,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @RestController
@@ -27,6 +32,8 @@ public class BuyerController {
     private final BuyerWishlistService buyerWishlistService;
     private final BuyerStatisticsService buyerStatisticsService;
     private final SalesDataService salesDataService;
+    private final SalesDataImportJobService salesDataImportJobService;
+    private final SalesDataSuggestService salesDataSuggestService;
 
     // ==================== Product Related Endpoints ====================
 
@@ -60,13 +67,42 @@ public class BuyerController {
             @RequestParam(defaultValue = "20") int limit,
             @RequestParam(defaultValue = "newest") String sort,
             @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
             Authentication authentication) {
         String userId = authentication.getName();
         ProductListResponse response = buyerProductService.getAllProducts(
-            page, limit, sort, category, userId);
+            page, limit, sort, category, cursor, includeTotal, userId);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/catalog")
+    public ResponseEntity<ProductListResponse> getCatalog(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        ProductListResponse response = buyerProductService.getCatalog(
+            page, limit, sort, category, cursor, includeTotal, userId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Typeahead completions of the search box (ItemName, ItemCode, Brand Code, Model, category),
+     * most frequent first.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        return ResponseEntity.ok(salesDataSuggestService.suggest(q, limit));
+    }
+
     @GetMapping("/products/{productId}")
     public ResponseEntity<ProductResponse> getProductDetail(
             @PathVariable String productId,
@@ -76,6 +112,14 @@ public class BuyerController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/products/{productId}/frequently-bought-together")
+    public ResponseEntity<List<CoPurchaseResponse>> getFrequentlyBoughtTogether(
+            @PathVariable String productId,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        return ResponseEntity.ok(buyerProductService.getFrequentlyBoughtTogether(productId, limit));
+    }
+
     // ==================== Cart Related Endpoints ====================
 
     @PostMapping("/cart/add")
@@ -208,6 +252,8 @@ public class BuyerController {
             // Buyer related filter parameters
             @RequestParam(required = false) String buyerCode,
             @RequestParam(required = false) String buyerName,
+            // Exact BuyerCode: with sharded sales_data only the buyer's shard is queried
+            @RequestParam(required = false) String buyerCodeExact,
             // Product related filter parameters
             @RequestParam(required = false) String itemCode,
             @RequestParam(required = false) String itemName,
@@ -229,16 +275,22 @@ public class BuyerController {
             @RequestParam(required = false) String subSector,
             // Other filter parameters
             @RequestParam(required = false) String source,
+            // Keyset pagination: cursor from the previous response's nextCursor; includeTotal toggles the COUNT
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
+            // exact (default, cached per filter set) or estimated (MySQL statistics)
+            @RequestParam(required = false) String totalMode,
             Authentication authentication) {
         SalesDataListResponse response = salesDataService.getSalesData(
             page, limit, sort, category, keyword,
             minDate, maxDate, txNo, minQty, maxQty, minPrice, maxPrice, minValue, maxValue,
-            buyerCode, buyerName,
+            buyerCode, buyerName, buyerCodeExact,
             itemCode, itemName, productHierarchy3, itemType, model, material, uom,
             brandCode, performance, performance1,
             minUnitCost, maxUnitCost, function,
             sector, subSector,
-            source
+            source,
+            cursor, includeTotal, totalMode
         );
         return ResponseEntity.ok(response);
     }
@@ -274,12 +326,180 @@ public class BuyerController {
         return ResponseEntity.ok(categories);
     }
 
+    /**
+     * Facet value counts for the filter panel (same filter parameters as /sales-data).
+     * Each facet is counted with all filters except its own.
+     */
+    @GetMapping("/sales-data/facets")
+    public ResponseEntity<SalesDataFacetsResponse> getSalesDataFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String minDate,
+            @RequestParam(required = false) String maxDate,
+            @RequestParam(required = false) String txNo,
+            @RequestParam(required = false) Integer minQty,
+            @RequestParam(required = false) Integer maxQty,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) String buyerCode,
+            @RequestParam(required = false) String buyerName,
+            @RequestParam(required = false) String itemCode,
+            @RequestParam(required = false) String itemName,
+            @RequestParam(required = false) String productHierarchy3,
+            @RequestParam(required = false) String itemType,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String material,
+            @RequestParam(required = false) String uom,
+            @RequestParam(required = false) String brandCode,
+            @RequestParam(required = false) String performance,
+            @RequestParam(required = false) String performance1,
+            @RequestParam(required = false) BigDecimal minUnitCost,
+            @RequestParam(required = false) BigDecimal maxUnitCost,
+            @RequestParam(required = false) String function,
+            @RequestParam(required = false) String sector,
+            @RequestParam(required = false) String subSector,
+            @RequestParam(required = false) String source,
+            // Values per facet, highest counts first (max 500)
+            @RequestParam(defaultValue = "50") int facetLimit,
+            Authentication authentication) {
+        SalesDataFacetsResponse response = salesDataService.getSalesDataFacets(
+            category, keyword,
+            minDate, maxDate, txNo, minQty, maxQty, minPrice, maxPrice, minValue, maxValue,
+            buyerCode, buyerName,
+            itemCode, itemName, productHierarchy3, itemType, model, material, uom,
+            brandCode, performance, performance1,
+            minUnitCost, maxUnitCost, function,
+            sector, subSector,
+            source,
+            facetLimit
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Export all rows matching the filters (same parameters as /sales-data) as xlsx (default) or csv.
+     * Rows are streamed to the response as they are read, so the export size is not limited by memory.
+     */
+    @GetMapping("/sales-data/export")
+    public void exportSalesData(
+            @RequestParam(defaultValue = "xlsx") String format,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String minDate,
+            @RequestParam(required = false) String maxDate,
+            @RequestParam(required = false) String txNo,
+            @RequestParam(required = false) Integer minQty,
+            @RequestParam(required = false) Integer maxQty,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) String buyerCode,
+            @RequestParam(required = false) String buyerName,
+            @RequestParam(required = false) String itemCode,
+            @RequestParam(required = false) String itemName,
+            @RequestParam(required = false) String productHierarchy3,
+            @RequestParam(required = false) String itemType,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String material,
+            @RequestParam(required = false) String uom,
+            @RequestParam(required = false) String brandCode,
+            @RequestParam(required = false) String performance,
+            @RequestParam(required = false) String performance1,
+            @RequestParam(required = false) BigDecimal minUnitCost,
+            @RequestParam(required = false) BigDecimal maxUnitCost,
+            @RequestParam(required = false) String function,
+            @RequestParam(required = false) String sector,
+            @RequestParam(required = false) String subSector,
+            @RequestParam(required = false) String source,
+            HttpServletResponse response,
+            Authentication authentication) throws IOException {
+        String exportFormat = SalesDataExportService.normalizeFormat(format);
+        String fileName = "Sales_Data_Export_"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + "." + exportFormat;
+        response.setContentType(SalesDataExportService.contentType(exportFormat));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        salesDataService.exportSalesData(
+            exportFormat, sort, category, keyword,
+            minDate, maxDate, txNo, minQty, maxQty, minPrice, maxPrice, minValue, maxValue,
+            buyerCode, buyerName,
+            itemCode, itemName, productHierarchy3, itemType, model, material, uom,
+            brandCode, performance, performance1,
+            minUnitCost, maxUnitCost, function,
+            sector, subSector,
+            source,
+            response.getOutputStream()
+        );
+    }
+
+    /**
+     * Create or update sales data from newline-delimited JSON (one SalesDataRequest per line).
+     * Rows are written in batches and one result line per input line is streamed back, ending
+     * with a summary line, so large payloads are never buffered on either side.
+     */
+    @PostMapping(value = "/sales-data/ndjson", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public void ingestSalesDataNdjson(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Authentication authentication) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        salesDataService.ingestNdjson(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Queue an import of the uploaded file; progress is polled with the returned job id.
+     */
     @PostMapping("/sales-data/bulk-import")
-    public ResponseEntity<BulkImportResponse> bulkImportSalesData(
+    public ResponseEntity<SalesDataImportJobResponse> bulkImportSalesData(
             @RequestParam("file") org.springframework.web.multipart.MultipartFile file,
             Authentication authentication) {
-        BulkImportResponse response = salesDataService.bulkImportFromExcel(file);
-        return ResponseEntity.ok(response);
+        String userId = authentication.getName();
+        SalesDataImportJobResponse response = salesDataImportJobService.submit(file, userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/sales-data/bulk-import/jobs")
+    public ResponseEntity<List<SalesDataImportJobResponse>> getImportJobs(Authentication authentication) {
+        String userId = authentication.getName();
+        return ResponseEntity.ok(salesDataImportJobService.getJobs(userId));
+    }
+
+    @GetMapping("/sales-data/bulk-import/jobs/{jobId}")
+    public ResponseEntity<SalesDataImportJobResponse> getImportJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        return ResponseEntity.ok(salesDataImportJobService.getJob(jobId, userId));
+    }
+
+    @GetMapping("/sales-data/bulk-import/jobs/{jobId}/errors")
+    public ResponseEntity<SalesDataImportErrorsResponse> getImportJobErrors(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        return ResponseEntity.ok(salesDataImportJobService.getErrors(jobId, userId, page, limit));
+    }
+
+    @PostMapping("/sales-data/bulk-import/jobs/{jobId}/cancel")
+    public ResponseEntity<SalesDataImportJobResponse> cancelImportJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        return ResponseEntity.ok(salesDataImportJobService.cancel(jobId, userId));
+    }
+
+    @PostMapping("/sales-data/bulk-import/jobs/{jobId}/resume")
+    public ResponseEntity<SalesDataImportJobResponse> resumeImportJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        return ResponseEntity.ok(salesDataImportJobService.resume(jobId, userId));
     }
 
     @GetMapping("/sales-data/template")
@@ -0,0 +1,511 @@
+package com.ecosystem.controller;
+
+import com.ecosystem.dto.ErrorResponse;
+import com.ecosystem.dto.buyer.BulkImportResponse;
+import com.ecosystem.service.ItemCoPurchaseService;
+import com.ecosystem.service.ItemPriceStatsService;
+import com.ecosystem.service.ProductCanonicalService;
+import com.ecosystem.service.ProductMasterMaterializer;
+import com.ecosystem.service.SalesDataBackfillService;
+import com.ecosystem.service.SalesDataColdStorageService;
+import com.ecosystem.service.SalesDataColumnarSnapshotService;
+import com.ecosystem.service.SalesDataFacetService;
+import com.ecosystem.service.SalesDataKeywordIndexService;
+import com.ecosystem.service.SalesDataPartitionService;
+import com.ecosystem.service.SalesDataQueryBenchmarkService;
+import com.ecosystem.service.SalesDataService;
+import com.ecosystem.service.SalesDataSuggestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Controller for sales_data maintenance jobs.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/sales-data")
+@RequiredArgsConstructor
+public class SalesDataAdminController {
+
+    private final SalesDataBackfillService salesDataBackfillService;
+    private final SalesDataQueryBenchmarkService salesDataQueryBenchmarkService;
+    private final SalesDataKeywordIndexService salesDataKeywordIndexService;
+    private final SalesDataColumnarSnapshotService salesDataColumnarSnapshotService;
+    private final SalesDataFacetService salesDataFacetService;
+    private final ItemPriceStatsService itemPriceStatsService;
+    private final SalesDataService salesDataService;
+    private final ProductMasterMaterializer productMasterMaterializer;
+    private final ProductCanonicalService productCanonicalService;
+    private final SalesDataPartitionService salesDataPartitionService;
+    private final SalesDataColdStorageService salesDataColdStorageService;
+    private final SalesDataSuggestService salesDataSuggestService;
+    private final ItemCoPurchaseService itemCoPurchaseService;
+
+    /**
+     * Populate the typed shadow columns (tx_date_typed, txp1_typed, ...) for existing rows.
+     *
+     * @param batchSize Optional batch size (default: 1000)
+     * @return Backfill result
+     */
+    @PostMapping("/backfill-typed-columns")
+    public ResponseEntity<?> backfillTypedColumns(
+            @RequestParam(defaultValue = "1000") int batchSize) {
+        try {
+            SalesDataBackfillService.BackfillResult result =
+                    salesDataBackfillService.backfillTypedColumns(batchSize);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Typed column backfill completed");
+            response.put("totalProcessed", result.getTotalProcessed());
+            response.put("unparsableDates", result.getUnparsableDates());
+            response.put("unparsableNumbers", result.getUnparsableNumbers());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during typed column backfill", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to backfill typed columns: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Compare the legacy findAllWithFilters query with the dynamic predicate builder
+     * for the category, buyer + date range and keyword scenarios.
+     *
+     * @param iterations Runs per scenario and variant (default: 10)
+     * @return Latency statistics per scenario
+     */
+    @PostMapping("/benchmark/filter-query")
+    public ResponseEntity<?> benchmarkFilterQuery(
+            @RequestParam(defaultValue = "10") int iterations,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String buyerCode,
+            @RequestParam(required = false) String minDate,
+            @RequestParam(required = false) String maxDate,
+            @RequestParam(required = false) String keyword) {
+        try {
+            List<SalesDataQueryBenchmarkService.ScenarioResult> results =
+                    salesDataQueryBenchmarkService.run(iterations, category, buyerCode, minDate, maxDate, keyword);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("iterations", iterations);
+            response.put("scenarios", results);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during filter query benchmark", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to run filter query benchmark: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Time a date window (default: the year up to the newest transaction) reading all partitions
+     * of sales_data versus only the partitions of the window.
+     *
+     * @param iterations Runs per variant (default: 10)
+     * @return Latency statistics and the partitions read by each variant
+     */
+    @PostMapping("/benchmark/partition-pruning")
+    public ResponseEntity<?> benchmarkPartitionPruning(
+            @RequestParam(defaultValue = "10") int iterations,
+            @RequestParam(required = false) String minDate,
+            @RequestParam(required = false) String maxDate) {
+        try {
+            SalesDataQueryBenchmarkService.PruningResult result =
+                    salesDataQueryBenchmarkService.runPartitionPruning(iterations, minDate, maxDate);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("iterations", iterations);
+            response.put("result", result);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during partition pruning benchmark", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to run partition pruning benchmark: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * List the partitions of sales_data with their upper bound and estimated row count.
+     */
+    @GetMapping("/partitions")
+    public ResponseEntity<List<Map<String, Object>>> getPartitions() {
+        return ResponseEntity.ok(salesDataPartitionService.listPartitions());
+    }
+
+    /**
+     * Add the partitions of the coming years (and archive old years when configured).
+     */
+    @PostMapping("/partitions/maintain")
+    public ResponseEntity<?> maintainPartitions() {
+        try {
+            Map<String, List<String>> result = salesDataPartitionService.maintain();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Partition maintenance completed");
+            response.put("created", result.get("created"));
+            response.put("archived", result.get("archived"));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during partition maintenance", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to maintain partitions: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Move one old partition (e.g. p2016) to its archive table sales_data_archive_2016.
+     *
+     * @param name Partition name
+     * @return Archive table and number of archived rows
+     */
+    @PostMapping("/partitions/{name}/archive")
+    public ResponseEntity<?> archivePartition(@PathVariable String name) {
+        try {
+            SalesDataPartitionService.ArchiveResult result = salesDataPartitionService.archivePartition(name);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Partition archived");
+            response.put("partition", result.getPartition());
+            response.put("archiveTable", result.getArchiveTable());
+            response.put("rows", result.getRows());
+            response.put("elapsedMillis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            log.error("Error archiving partition {}", name, e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to archive partition: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Move an archive table (e.g. sales_data_archive_2016) to compressed cold segment files.
+     * Partition archiving does this automatically; use it to retry or for older archive tables.
+     *
+     * @param table Archive table name
+     * @return Number of segments, rows and bytes written
+     */
+    @PostMapping("/cold-storage/archive")
+    public ResponseEntity<?> archiveToColdStorage(@RequestParam String table) {
+        try {
+            SalesDataColdStorageService.ColdArchiveResult result = salesDataColdStorageService.archiveTable(table);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Archive table moved to cold storage");
+            response.put("table", result.getTable());
+            response.put("segments", result.getSegments());
+            response.put("rows", result.getRows());
+            response.put("sizeBytes", result.getSizeBytes());
+            response.put("tableDropped", result.isTableDropped());
+            response.put("elapsedMillis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            log.error("Error moving {} to cold storage", table, e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to move archive table to cold storage: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Get cold storage status: segment files, rows, size and date range.
+     */
+    @GetMapping("/cold-storage/stats")
+    public ResponseEntity<Map<String, Object>> getColdStorageStats() {
+        return ResponseEntity.ok(salesDataColdStorageService.getStats());
+    }
+
+    /**
+     * Get keyword (trigram) index status: size, delta segment and last build time.
+     */
+    @GetMapping("/keyword-index/stats")
+    public ResponseEntity<Map<String, Object>> getKeywordIndexStats() {
+        return ResponseEntity.ok(salesDataKeywordIndexService.getStats());
+    }
+
+    /**
+     * Rebuild the keyword index in the background (e.g. after rows were changed outside the application).
+     */
+    @PostMapping("/keyword-index/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildKeywordIndex() {
+        boolean started = salesDataKeywordIndexService.scheduleRebuild();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", started
+                ? "Keyword index rebuild started"
+                : "Keyword index rebuild already running, another rebuild has been queued");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get suggest index status: terms, keys, memory footprint and whether writes are pending.
+     */
+    @GetMapping("/suggest/stats")
+    public ResponseEntity<Map<String, Object>> getSuggestStats() {
+        return ResponseEntity.ok(salesDataSuggestService.getStats());
+    }
+
+    /**
+     * Rebuild the suggest index in the background.
+     */
+    @PostMapping("/suggest/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSuggestIndex() {
+        boolean started = salesDataSuggestService.scheduleRebuild();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", started
+                ? "Suggest index rebuild started"
+                : "Suggest index rebuild already running, another rebuild has been queued");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get columnar snapshot status: rows, memory footprint (total and per million rows) and dictionary sizes.
+     */
+    @GetMapping("/columnar/stats")
+    public ResponseEntity<Map<String, Object>> getColumnarStats() {
+        return ResponseEntity.ok(salesDataColumnarSnapshotService.getStats());
+    }
+
+    /**
+     * Reload the columnar snapshot in the background.
+     */
+    @PostMapping("/columnar/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildColumnarSnapshot() {
+        boolean started = salesDataColumnarSnapshotService.scheduleRebuild();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", started
+                ? "Columnar snapshot reload started"
+                : "Columnar snapshot reload already running, another reload has been queued");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get facet bitmap status: rows, distinct values per facet and memory footprint.
+     */
+    @GetMapping("/facets/stats")
+    public ResponseEntity<Map<String, Object>> getFacetStats() {
+        return ResponseEntity.ok(salesDataFacetService.getStats());
+    }
+
+    /**
+     * Reload the facet bitmaps in the background.
+     */
+    @PostMapping("/facets/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildFacets() {
+        boolean started = salesDataFacetService.scheduleRebuild();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", started
+                ? "Facet bitmap reload started"
+                : "Facet bitmap reload already running, another reload has been queued");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recompute item_price_stats for every ItemCode (repairs drift, e.g. after the typed column backfill).
+     *
+     * @param batchSize Item codes per upsert statement (default: 500)
+     * @return Rebuild result
+     */
+    @PostMapping("/price-stats/rebuild")
+    public ResponseEntity<?> rebuildPriceStats(
+            @RequestParam(defaultValue = "500") int batchSize) {
+        try {
+            ItemPriceStatsService.RebuildResult result = itemPriceStatsService.rebuildAll(batchSize);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Item price statistics rebuilt");
+            response.put("itemCodes", result.getItemCodes());
+            response.put("removedRows", result.getRemovedRows());
+            response.put("elapsedMillis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during item price statistics rebuild", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to rebuild item price statistics: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Build product_master from all of sales_data and remove products that no longer occur.
+     *
+     * @return Build result
+     */
+    @PostMapping("/product-master/rebuild")
+    public ResponseEntity<?> rebuildProductMaster() {
+        return runProductMaster(productMasterMaterializer::rebuildAll, "product_master built");
+    }
+
+    /**
+     * Materialize only the sales_data rows added since the last run (above the high-water mark).
+     *
+     * @return Run result
+     */
+    @PostMapping("/product-master/refresh")
+    public ResponseEntity<?> refreshProductMaster() {
+        return runProductMaster(() -> productMasterMaterializer.refresh(List.of()), "product_master refreshed");
+    }
+
+    /**
+     * Group near-duplicate products (MinHash / LSH) and replace the canonical product mapping.
+     *
+     * @return Consolidation result
+     */
+    @PostMapping("/product-master/consolidate")
+    public ResponseEntity<?> consolidateProducts() {
+        try {
+            ProductCanonicalService.ConsolidationResult result = productCanonicalService.consolidate();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Product consolidation completed");
+            response.put("products", result.getProducts());
+            response.put("similarPairs", result.getSimilarPairs());
+            response.put("duplicates", result.getDuplicates());
+            response.put("groups", result.getGroups());
+            response.put("skippedBuckets", result.getSkippedBuckets());
+            response.put("elapsedMillis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during product consolidation", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to consolidate products: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Get canonical product mapping status: duplicates, groups and the last run.
+     */
+    @GetMapping("/product-master/canonical/stats")
+    public ResponseEntity<Map<String, Object>> getCanonicalStats() {
+        return ResponseEntity.ok(productCanonicalService.getStats());
+    }
+
+    /**
+     * Recompute the "frequently bought together" neighbours of all items from sales_data.
+     *
+     * @return Build result
+     */
+    @PostMapping("/co-purchase/rebuild")
+    public ResponseEntity<?> rebuildCoPurchase() {
+        try {
+            ItemCoPurchaseService.BuildResult result = itemCoPurchaseService.rebuild();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Co-purchase neighbours rebuilt");
+            response.put("items", result.getItems());
+            response.put("buyers", result.getBuyers());
+            response.put("countedBuyers", result.getCountedBuyers());
+            response.put("pairs", result.getPairs());
+            response.put("itemsWithNeighbours", result.getItemsWithNeighbours());
+            response.put("elapsedMillis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during co-purchase rebuild", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to rebuild co-purchase neighbours: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Get co-purchase status: items, buyers, pair counts, memory footprint and the last run.
+     */
+    @GetMapping("/co-purchase/stats")
+    public ResponseEntity<Map<String, Object>> getCoPurchaseStats() {
+        return ResponseEntity.ok(itemCoPurchaseService.getStats());
+    }
+
+    private ResponseEntity<?> runProductMaster(Supplier<ProductMasterMaterializer.MaterializeResult> run,
+                                               String message) {
+        try {
+            ProductMasterMaterializer.MaterializeResult result = run.get();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", message);
+            response.put("scannedRows", result.getScannedRows());
+            response.put("inserted", result.getInserted());
+            response.put("updated", result.getUpdated());
+            response.put("removed", result.getRemoved());
+            response.put("elapsedMillis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error during product_master materialization", e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setMessage("Failed to materialize product_master: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorResponse);
+        }
+    }
+
+    /**
+     * Load a CSV/TSV file (e.g. a nightly ERP dump) through the staging table and merge it into sales_data.
+     *
+     * @param file      .csv, .tsv or .txt file with the import template headers
+     * @param delimiter Optional "comma" or "tab" (default: by file extension)
+     * @return Success / failed / unchanged counts and row errors
+     */
+    @PostMapping("/ingest-csv")
+    public ResponseEntity<BulkImportResponse> ingestCsv(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String delimiter) {
+        return ResponseEntity.ok(salesDataService.ingestCsv(file, delimiter));
+    }
+}
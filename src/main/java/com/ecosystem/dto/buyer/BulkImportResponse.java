@@ -12,6 +12,13 @@ import java.util.List;
 public class BulkImportResponse {
     private int success;
     private int failed;
+    // Rows counted in success that matched the stored record and were not rewritten
+    private int unchanged;
     private List<String> errors;
-}
 
+    public BulkImportResponse(int success, int failed, List<String> errors) {
+        this.success = success;
+        this.failed = failed;
+        this.errors = errors;
+    }
+}
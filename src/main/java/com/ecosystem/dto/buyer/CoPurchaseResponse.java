@@ -0,0 +1,15 @@
+package com.ecosystem.dto.buyer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoPurchaseResponse {
+    private String itemCode;
+    private String itemName;
+    private Double score; // cosine or normalized PMI, see sales-data.co-purchase.scoring
+    private Integer coBuyers; // buyers who bought both items
+}
@@ -10,7 +10,17 @@ import lombok.NoArgsConstructor;
 public class PaginationResponse {
     private Integer page;
     private Integer limit;
+    // total / totalPages are null when the count was skipped (includeTotal=false)
     private Long total;
     private Integer totalPages;
+    // true when total comes from MySQL statistics (totalMode=estimated) instead of an exact COUNT
+    private Boolean totalEstimated;
+
+    public PaginationResponse(Integer page, Integer limit, Long total, Integer totalPages) {
+        this.page = page;
+        this.limit = limit;
+        this.total = total;
+        this.totalPages = totalPages;
+    }
 }
 
@@ -12,5 +12,12 @@ import java.util.List;
 public class ProductListResponse {
     private List<ProductResponse> products;
     private PaginationResponse pagination;
+    // Opaque keyset cursor for the next page; null when there are no more rows
+    private String nextCursor;
+
+    public ProductListResponse(List<ProductResponse> products, PaginationResponse pagination) {
+        this.products = products;
+        this.pagination = pagination;
+    }
 }
 
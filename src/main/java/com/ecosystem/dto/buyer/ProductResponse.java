@@ -38,6 +38,7 @@ public class ProductResponse {
     
     private BigDecimal historicalLowPrice;
     private BigDecimal lastTransactionPrice;
+    private Long transactionCount; // 历史交易笔数（仅产品目录返回）
     
     @JsonIgnore // 前端不需要这个字段
     private Boolean inWishlist; // 是否在愿望清单中（前端不需要，但后端使用）
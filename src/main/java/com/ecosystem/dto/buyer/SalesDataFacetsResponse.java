@@ -0,0 +1,32 @@
+package com.ecosystem.dto.buyer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts of the sales-data filter panel
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDataFacetsResponse {
+    // Facet name (productHierarchy3, brandCode, sector, subSector, uom, material, source) → values by count desc.
+    // Each facet is counted with every filter applied except its own, so selecting a value keeps its siblings visible.
+    private Map<String, List<FacetValue>> facets;
+    // Rows matching all filters
+    private Long total;
+    // bitmap (in-memory index) or sql (index not loaded yet)
+    private String source;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        private String value;
+        private Long count;
+    }
+}
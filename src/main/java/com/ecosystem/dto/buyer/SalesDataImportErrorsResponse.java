@@ -0,0 +1,24 @@
+package com.ecosystem.dto.buyer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDataImportErrorsResponse {
+    private String jobId;
+    private List<RowError> errors;
+    private PaginationResponse pagination;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private Integer rowNum;
+        private String message;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecosystem.dto.buyer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDataImportJobResponse {
+    private String jobId;
+    // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private String status;
+    private String fileName;
+    private Long rowsParsed;
+    // Rows inserted, updated or already up to date (rowsUnchanged)
+    private Long rowsWritten;
+    private Long rowsUnchanged;
+    private Long rowsFailed;
+    // Parsed rows per second while running, average over the run once finished
+    private Double rowsPerSecond;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,43 @@
+package com.ecosystem.dto.buyer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON ingest response: the outcome of an input line, or the final summary
+ * (status "done" with the totals).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SalesDataIngestLineResult {
+    // 1-based line of the request body
+    private Integer line;
+    private String txNo;
+    // written, unchanged, error; done for the summary
+    private String status;
+    private String error;
+    // Summary only
+    private Integer success;
+    private Integer failed;
+    private Integer unchanged;
+
+    public static SalesDataIngestLineResult written(int line, String txNo) {
+        return new SalesDataIngestLineResult(line, txNo, "written", null, null, null, null);
+    }
+
+    public static SalesDataIngestLineResult unchanged(int line, String txNo) {
+        return new SalesDataIngestLineResult(line, txNo, "unchanged", null, null, null, null);
+    }
+
+    public static SalesDataIngestLineResult error(int line, String txNo, String error) {
+        return new SalesDataIngestLineResult(line, txNo, "error", error, null, null, null);
+    }
+
+    public static SalesDataIngestLineResult done(int success, int failed, int unchanged) {
+        return new SalesDataIngestLineResult(null, null, "done", null, success, failed, unchanged);
+    }
+}
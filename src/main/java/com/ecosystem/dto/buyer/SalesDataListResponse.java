@@ -12,6 +12,13 @@ import java.util.List;
 public class SalesDataListResponse {
     private List<SalesDataResponse> data;
     private PaginationResponse pagination;
+    // Opaque keyset cursor for the next page; null when there are no more rows
+    private String nextCursor;
+
+    public SalesDataListResponse(List<SalesDataResponse> data, PaginationResponse pagination) {
+        this.data = data;
+        this.pagination = pagination;
+    }
 }
 
 
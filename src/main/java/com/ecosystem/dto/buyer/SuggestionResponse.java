@@ -0,0 +1,14 @@
+package com.ecosystem.dto.buyer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    private String text;
+    private String field; // itemName, itemCode, brandCode, model, category
+    private Long transactionCount;
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -25,10 +27,15 @@ public class CartItem {
     private User user;
 
     // 改为关联 SalesData 表，使用 Long 类型的 id
+    // 关联只在分片 0 上解析；记录在其他分片上时为 null，按 productId 查询（见 BuyerCartService）
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "product_id", nullable = false)
+    @NotFound(action = NotFoundAction.IGNORE)
     private SalesData salesData;
 
+    @Column(name = "product_id", insertable = false, updatable = false)
+    private Long productId;
+
     @Column(nullable = false)
     private Integer quantity = 1;
 
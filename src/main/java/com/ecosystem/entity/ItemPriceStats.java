@@ -0,0 +1,57 @@
+package com.ecosystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-ItemCode price statistics of sales_data (see V13 migration).
+ * Written only by ItemPriceStatsService with native upserts; read by primary key.
+ */
+@Entity
+@Table(name = "item_price_stats", schema = "ecoschema")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPriceStats {
+
+    @Id
+    @Column(name = "item_code", length = 255)
+    private String itemCode;
+
+    @Column(name = "item_name", length = 255)
+    private String itemName;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+
+    // Prices only count transactions with TXP1 > 0
+    @Column(name = "priced_count", nullable = false)
+    private Long pricedCount;
+
+    @Column(name = "min_price", precision = 18, scale = 4)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 18, scale = 4)
+    private BigDecimal maxPrice;
+
+    @Column(name = "avg_price", precision = 18, scale = 4)
+    private BigDecimal avgPrice;
+
+    @Column(name = "latest_price", precision = 18, scale = 4)
+    private BigDecimal latestPrice;
+
+    @Column(name = "latest_date")
+    private LocalDate latestDate;
+
+    @Column(name = "first_date")
+    private LocalDate firstDate;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
 @Entity
 @Table(name = "sales_data", schema = "ecoschema")
 @Data
@@ -100,6 +103,23 @@ public class SalesData {
     @Column(name = "Source", length = 255)
     private String source;
 
+    // Typed shadow columns of TXDate / TXQty / TXP1 / Unit Cost / Value (see V11 migration).
+    // Used for filtering and sorting so queries don't need STR_TO_DATE / CAST per row.
+    @Column(name = "tx_date_typed")
+    private LocalDate txDateTyped;
+
+    @Column(name = "tx_qty_typed")
+    private Integer txQtyTyped;
+
+    @Column(name = "txp1_typed", precision = 18, scale = 4)
+    private BigDecimal txP1Typed;
+
+    @Column(name = "unit_cost_typed", precision = 18, scale = 4)
+    private BigDecimal unitCostTyped;
+
+    @Column(name = "value_typed", precision = 18, scale = 4)
+    private BigDecimal valueTyped;
+
     // Note: embedding_text and embedding_hash are only in product_master table, not in sales_data
     // Mark as @Transient to avoid Hibernate trying to read them from sales_data table
     @Transient
@@ -0,0 +1,74 @@
+package com.ecosystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background bulk import of sales_data (see V14 migration).
+ * Created by SalesDataImportJobService; progress columns are updated with native statements
+ * after every written chunk.
+ */
+@Entity
+@Table(name = "sales_data_import_jobs", schema = "ecoschema")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDataImportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "user_id", length = 255)
+    private String userId;
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Column(name = "file_path", length = 1024)
+    private String filePath;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "rows_parsed", nullable = false)
+    private Long rowsParsed = 0L;
+
+    @Column(name = "rows_written", nullable = false)
+    private Long rowsWritten = 0L;
+
+    @Column(name = "rows_unchanged", nullable = false)
+    private Long rowsUnchanged = 0L;
+
+    @Column(name = "rows_failed", nullable = false)
+    private Long rowsFailed = 0L;
+
+    // Last sheet row whose outcome is committed; a resumed job skips rows up to it
+    @Column(name = "checkpoint_row", nullable = false)
+    private Integer checkpointRow = 0;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private Boolean cancelRequested = false;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
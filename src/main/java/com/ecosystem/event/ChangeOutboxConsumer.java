@@ -0,0 +1,37 @@
+package com.ecosystem.event;
+
+import java.util.List;
+
+/**
+ * Receiver of committed sales_data / product_master changes from the change outbox.
+ * Every Spring bean implementing it is registered with ChangeOutboxDispatcher.
+ *
+ * Delivery is at least once and mostly in outbox order: the consumer's position only advances
+ * after {@link #onChanges} returned, so a batch that failed (or was interrupted by a restart) is
+ * delivered again. A record whose transaction committed long after its id was allocated arrives
+ * after newer records. Implementations must therefore be idempotent and read the current state
+ * of a changed record rather than rely on the order of the records.
+ *
+ * A consumer that is registered for the first time starts at the end of the outbox; the state
+ * it derives is expected to be built once by the corresponding full job.
+ */
+public interface ChangeOutboxConsumer {
+
+    /**
+     * Stable name under which the consumer's position is stored (change_outbox_offsets.consumer).
+     */
+    String getName();
+
+    /**
+     * Whether records of the aggregate type ({@link ChangeOutboxRecord#SALES_DATA},
+     * {@link ChangeOutboxRecord#PRODUCT_MASTER}) are delivered; others are skipped.
+     */
+    default boolean accepts(String aggregateType) {
+        return true;
+    }
+
+    /**
+     * Handle a batch of changes, in id order within the batch. Throwing leaves the position unchanged.
+     */
+    void onChanges(List<ChangeOutboxRecord> changes);
+}
@@ -0,0 +1,76 @@
+package com.ecosystem.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed change read from the change outbox (V16), as handed to a ChangeOutboxConsumer.
+ */
+public class ChangeOutboxRecord {
+
+    public static final String SALES_DATA = "sales_data";
+    public static final String PRODUCT_MASTER = "product_master";
+
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+
+    private final long id;
+    private final String aggregateType;
+    // sales_data.id or product_master.product_uid
+    private final String aggregateId;
+    private final String changeType;
+    private final String itemCode;
+    // ItemCode before an update that changed it, otherwise null
+    private final String previousItemCode;
+    private final LocalDateTime createdAt;
+
+    public ChangeOutboxRecord(long id, String aggregateType, String aggregateId, String changeType,
+                              String itemCode, String previousItemCode, LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.changeType = changeType;
+        this.itemCode = itemCode;
+        this.previousItemCode = previousItemCode;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public String getPreviousItemCode() {
+        return previousItemCode;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isSalesData() {
+        return SALES_DATA.equals(aggregateType);
+    }
+
+    public boolean isProductMaster() {
+        return PRODUCT_MASTER.equals(aggregateType);
+    }
+
+    public boolean isDelete() {
+        return DELETE.equals(changeType);
+    }
+}
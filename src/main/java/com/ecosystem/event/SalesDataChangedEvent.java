@@ -0,0 +1,79 @@
+package com.ecosystem.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published by the sales_data write paths. Listeners that keep derived data in sync
+ * (in-memory indexes, aggregates) react to it after the writing transaction has committed.
+ */
+public class SalesDataChangedEvent {
+
+    private final List<Long> upsertedIds;
+    private final List<Long> deletedIds;
+    // ItemCodes of the changed rows, before and after the change (for per-item aggregates)
+    private final Set<String> itemCodes;
+    // true when an unknown set of rows changed (e.g. bulk import); listeners should resync fully
+    private final boolean bulk;
+
+    public SalesDataChangedEvent(List<Long> upsertedIds, List<Long> deletedIds, Collection<String> itemCodes,
+                                 boolean bulk) {
+        this.upsertedIds = upsertedIds != null ? upsertedIds : Collections.emptyList();
+        this.deletedIds = deletedIds != null ? deletedIds : Collections.emptyList();
+        Set<String> codes = new LinkedHashSet<>();
+        if (itemCodes != null) {
+            for (String itemCode : itemCodes) {
+                if (itemCode != null && !itemCode.trim().isEmpty()) {
+                    codes.add(itemCode);
+                }
+            }
+        }
+        this.itemCodes = Collections.unmodifiableSet(codes);
+        this.bulk = bulk;
+    }
+
+    /**
+     * @param itemCodes ItemCode of the row before and after the write
+     */
+    public static SalesDataChangedEvent upserted(Long id, String... itemCodes) {
+        return new SalesDataChangedEvent(List.of(id), null, Arrays.asList(itemCodes), false);
+    }
+
+    public static SalesDataChangedEvent deleted(Long id, String itemCode) {
+        return new SalesDataChangedEvent(null, List.of(id), Collections.singletonList(itemCode), false);
+    }
+
+    /**
+     * Many rows changed; the affected item codes are unknown.
+     */
+    public static SalesDataChangedEvent bulk() {
+        return new SalesDataChangedEvent(null, null, null, true);
+    }
+
+    /**
+     * Many rows changed, all of them with one of the given item codes (before or after the change).
+     */
+    public static SalesDataChangedEvent bulk(Collection<String> itemCodes) {
+        return new SalesDataChangedEvent(null, null, itemCodes, true);
+    }
+
+    public List<Long> getUpsertedIds() {
+        return upsertedIds;
+    }
+
+    public List<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public Set<String> getItemCodes() {
+        return itemCodes;
+    }
+
+    public boolean isBulk() {
+        return bulk;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecosystem.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of delimited text (RFC 4180 CSV, or TSV with a tab delimiter): quoted fields
+ * may contain delimiters, doubled quotes and line breaks; CRLF, LF and CR line ends are accepted
+ * and a leading byte order mark is skipped. Only the current record is held in memory.
+ */
+public final class CsvRecordReader {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+    private int pushedBack = Integer.MIN_VALUE;
+    // Line of the next character, and line at which the last returned record started
+    private int line = 1;
+    private int recordLine;
+    private boolean started;
+
+    public CsvRecordReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Next record; an empty line is returned as a single empty field.
+     *
+     * @return the fields, or null at the end of the input
+     */
+    public String[] next() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        if (c == EOF) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                c = read();
+                continue;
+            }
+
+            if (c == EOF || c == '\n' || c == '\r') {
+                fields.add(field.toString());
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                if (c != EOF) {
+                    line++;
+                }
+                return fields.toArray(new String[0]);
+            }
+            if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * 1-based line on which the last returned record started.
+     */
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != Integer.MIN_VALUE) {
+            int c = pushedBack;
+            pushedBack = Integer.MIN_VALUE;
+            return c;
+        }
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ecosystem.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * View of one line at a time of a newline-delimited byte stream, so that a streaming JSON parser
+ * can read a line straight from the request without the line being buffered first: reads return
+ * -1 at the end of the current line, and {@link #nextLine()} moves on to the next one, discarding
+ * whatever the parser left of the current line.
+ *
+ * A line longer than the limit fails while it is being read ({@link LineTooLongException}) and
+ * its remainder is skipped without being held in memory. Closing this stream does not close the
+ * underlying one.
+ */
+public final class NdjsonLineInputStream extends InputStream {
+
+    private final InputStream in;
+    private final int maxLineBytes;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    // The current line's newline (or the end of the input) has been reached
+    private boolean endOfLine = true;
+    private int lineBytes;
+    private int lineNumber;
+
+    public NdjsonLineInputStream(InputStream in, int maxLineBytes) {
+        this.in = in;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * Skip the rest of the current line and start the next one.
+     *
+     * @return false at the end of the input
+     */
+    public boolean nextLine() throws IOException {
+        while (!endOfLine) {
+            if (!fill()) {
+                endOfLine = true;
+                break;
+            }
+            int newline = indexOfNewline();
+            if (newline >= 0) {
+                position = newline + 1;
+                endOfLine = true;
+            } else {
+                position = limit;
+            }
+        }
+        if (!fill()) {
+            return false;
+        }
+        endOfLine = false;
+        lineBytes = 0;
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * 1-based number of the current line.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (endOfLine) {
+            return -1;
+        }
+        if (!fill()) {
+            endOfLine = true;
+            return -1;
+        }
+        int newline = indexOfNewline();
+        int available = (newline >= 0 ? newline : limit) - position;
+        if (available == 0) {
+            // At the newline
+            position++;
+            endOfLine = true;
+            return -1;
+        }
+        int allowed = maxLineBytes - lineBytes;
+        if (allowed <= 0) {
+            // More than maxLineBytes before the newline
+            throw new LineTooLongException(lineNumber, maxLineBytes);
+        }
+        int n = Math.min(len, Math.min(available, allowed));
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        lineBytes += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        // The underlying stream belongs to the caller
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        if (endOfInput) {
+            return false;
+        }
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            endOfInput = true;
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private int indexOfNewline() {
+        for (int i = position; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Thrown while reading a line that exceeds the limit.
+     */
+    public static final class LineTooLongException extends IOException {
+        public LineTooLongException(int lineNumber, int maxLineBytes) {
+            super("Line " + lineNumber + " exceeds " + maxLineBytes + " bytes");
+        }
+    }
+}
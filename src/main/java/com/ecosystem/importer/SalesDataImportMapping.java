@@ -0,0 +1,140 @@
+package com.ecosystem.importer;
+
+import com.ecosystem.dto.buyer.SalesDataRequest;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Header-to-field resolution of an import file, compiled once from the header row: each data
+ * row is then mapped with one array lookup per column.
+ *
+ * Headers match case- and whitespace-insensitively (e.g. "Transaction Number", "TXNo", "tx no");
+ * when two columns resolve to the same field, the leftmost one is used.
+ */
+public final class SalesDataImportMapping {
+
+    private enum Field {
+        TX_DATE("TXDate", (r, c) -> r.setTxDate(c.asDate()), "transactiondate", "txdate"),
+        TX_NO("TXNo", (r, c) -> r.setTxNo(c.asString()), "transactionnumber", "txno"),
+        TX_QTY("TXQty", (r, c) -> r.setTxQty(c.asInteger()), "transactionquantity", "txqty"),
+        TX_P1("TXP1", (r, c) -> r.setTxP1(c.asBigDecimal()), "transactionprice", "txp1"),
+        BUYER_CODE("BuyerCode", (r, c) -> r.setBuyerCode(c.asString()), "buyercode"),
+        BUYER_NAME("BuyerName", (r, c) -> r.setBuyerName(c.asString()), "buyername"),
+        ITEM_CODE("ItemCode", (r, c) -> r.setItemCode(c.asString()), "itemcode"),
+        ITEM_NAME("ItemName", (r, c) -> r.setItemName(c.asString()), "itemname"),
+        PRODUCT_HIERARCHY_3("Product Hierarchy 3", (r, c) -> r.setProductHierarchy3(c.asString()), "producthierarchy3"),
+        ITEM_TYPE("ItemType", (r, c) -> r.setItemType(c.asString()), "itemtype"),
+        MODEL("Model", (r, c) -> r.setModel(c.asString()), "model"),
+        MATERIAL("Material", (r, c) -> r.setMaterial(c.asString()), "material"),
+        UOM("UOM", (r, c) -> r.setUom(c.asString()), "uom", "unitofmeasure"),
+        BRAND_CODE("Brand Code", (r, c) -> r.setBrandCode(c.asString()), "brandcode"),
+        UNIT_COST("Unit Cost", (r, c) -> r.setUnitCost(c.asBigDecimal()), "unitcost"),
+        SECTOR("Sector", (r, c) -> r.setSector(c.asString()), "sector"),
+        SUB_SECTOR("SubSector", (r, c) -> r.setSubSector(c.asString()), "subsector"),
+        VALUE("Value", (r, c) -> r.setValue(c.asBigDecimal()), "value"),
+        FUNCTION("Function", (r, c) -> r.setFunction(c.asString()), "function"),
+        PERFORMANCE("Performance", (r, c) -> r.setPerformance(c.asString()), "performance"),
+        PERFORMANCE_1("Performance.1", (r, c) -> r.setPerformance1(c.asString()), "performance.1", "performance1"),
+        RATIONALE("Rationale", (r, c) -> r.setRationale(c.asString()), "rationale"),
+        WWW("www", (r, c) -> r.setWww(c.asString()), "www", "website"),
+        SOURCE("Source", (r, c) -> r.setSource(c.asString()), "source");
+
+        // sales_data column
+        private final String column;
+        private final BiConsumer<SalesDataRequest, SheetCell> setter;
+        // Normalized header names (lower case, no whitespace)
+        private final String[] aliases;
+
+        Field(String column, BiConsumer<SalesDataRequest, SheetCell> setter, String... aliases) {
+            this.column = column;
+            this.setter = setter;
+            this.aliases = aliases;
+        }
+    }
+
+    private static final Map<String, Field> FIELDS_BY_ALIAS = new HashMap<>();
+
+    static {
+        for (Field field : Field.values()) {
+            for (String alias : field.aliases) {
+                FIELDS_BY_ALIAS.put(alias, field);
+            }
+        }
+    }
+
+    // Field of each column, null for columns that are not imported
+    private final Field[] columns;
+
+    private SalesDataImportMapping(Field[] columns) {
+        this.columns = columns;
+    }
+
+    public static SalesDataImportMapping compile(SheetCell[] headerRow) {
+        Field[] columns = new Field[headerRow.length];
+        Set<Field> assigned = EnumSet.noneOf(Field.class);
+        for (int i = 0; i < headerRow.length; i++) {
+            String header = headerRow[i] != null ? headerRow[i].asString() : null;
+            if (header == null) {
+                continue;
+            }
+            Field field = FIELDS_BY_ALIAS.get(normalizeHeader(header));
+            if (field != null && assigned.add(field)) {
+                columns[i] = field;
+            }
+        }
+        return new SalesDataImportMapping(columns);
+    }
+
+    public SalesDataRequest toRequest(SheetCell[] row) {
+        SalesDataRequest request = new SalesDataRequest();
+        int n = Math.min(row.length, columns.length);
+        for (int i = 0; i < n; i++) {
+            if (columns[i] != null && row[i] != null) {
+                columns[i].setter.accept(request, row[i]);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Headers that were not recognized (for diagnostics).
+     */
+    public List<String> unmappedHeaders(SheetCell[] headerRow) {
+        List<String> unmapped = new ArrayList<>();
+        for (int i = 0; i < headerRow.length; i++) {
+            String header = headerRow[i] != null ? headerRow[i].asString() : null;
+            if (header != null && (i >= columns.length || columns[i] == null)) {
+                unmapped.add(header);
+            }
+        }
+        return unmapped;
+    }
+
+    /**
+     * sales_data column of an import file header, or null when the header is not recognized.
+     */
+    public static String columnForHeader(String header) {
+        Field field = header != null ? FIELDS_BY_ALIAS.get(normalizeHeader(header.trim())) : null;
+        return field != null ? field.column : null;
+    }
+
+    public static boolean isBlank(SheetCell[] row) {
+        for (SheetCell cell : row) {
+            if (cell != null && !cell.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalizeHeader(String header) {
+        return header.toLowerCase(Locale.ROOT).replaceAll("\\s+", "");
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecosystem.importer;
+
+import com.ecosystem.dto.buyer.SalesDataRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Rows of an Excel import file, parsed by a background reader thread and handed to the caller
+ * through a bounded queue. The reader blocks when the queue is full, so memory stays at
+ * {@code capacity} rows however large the file is, and parsing overlaps with saving.
+ *
+ * The first non-blank row is the header; blank rows are skipped.
+ */
+@Slf4j
+public final class SalesDataRowStream implements AutoCloseable {
+
+    private static final ImportRow END = new ImportRow(-1, null);
+
+    private final BlockingQueue<ImportRow> queue;
+    private final Thread reader;
+    private volatile Exception failure;
+    private volatile boolean closed;
+    private boolean finished;
+
+    private SalesDataRowStream(File file, boolean xlsx, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.reader = new Thread(() -> readAll(file, xlsx), "sales-data-import-reader");
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Start reading the first sheet of the file.
+     *
+     * @param xlsx     true for .xlsx (SAX), false for .xls (HSSF event model)
+     * @param capacity Parsed rows buffered ahead of the caller
+     */
+    public static SalesDataRowStream open(File file, boolean xlsx, int capacity) {
+        SalesDataRowStream stream = new SalesDataRowStream(file, xlsx, capacity);
+        stream.reader.start();
+        return stream;
+    }
+
+    /**
+     * Next data row, waiting for the reader if necessary.
+     *
+     * @return the row, or null after the last row
+     * @throws Exception the reader's failure (malformed file, I/O error)
+     */
+    public ImportRow next() throws Exception {
+        if (finished) {
+            return null;
+        }
+        ImportRow row = queue.take();
+        if (row == END) {
+            finished = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+        return row;
+    }
+
+    /**
+     * Stop the reader (when the caller gives up before the end of the file).
+     */
+    @Override
+    public void close() {
+        closed = true;
+        reader.interrupt();
+    }
+
+    private void readAll(File file, boolean xlsx) {
+        SalesDataImportMapping[] mapping = new SalesDataImportMapping[1];
+        SheetRowHandler handler = (rowNum, cells) -> {
+            if (SalesDataImportMapping.isBlank(cells)) {
+                return;
+            }
+            if (mapping[0] == null) {
+                mapping[0] = SalesDataImportMapping.compile(cells);
+                log.debug("Import header at row {}, unmapped columns: {}", rowNum, mapping[0].unmappedHeaders(cells));
+                return;
+            }
+            put(new ImportRow(rowNum, mapping[0].toRequest(cells)));
+        };
+        try {
+            if (xlsx) {
+                XlsxSheetReader.read(file, handler);
+            } else {
+                XlsSheetReader.read(file, handler);
+            }
+        } catch (Throwable e) {
+            if (!closed) {
+                failure = e instanceof Exception ? (Exception) e : new RuntimeException(e);
+            }
+        } finally {
+            if (!closed) {
+                put(END);
+            }
+        }
+    }
+
+    private void put(ImportRow row) {
+        try {
+            queue.put(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Aborts the parser; the caller has closed the stream
+            throw new IllegalStateException("Import reader interrupted", e);
+        }
+    }
+
+    /**
+     * A parsed data row
+     */
+    public static class ImportRow {
+        private final int rowNum;
+        private final SalesDataRequest request;
+
+        ImportRow(int rowNum, SalesDataRequest request) {
+            this.rowNum = rowNum;
+            this.request = request;
+        }
+
+        /**
+         * 1-based row number in the sheet
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        public SalesDataRequest getRequest() {
+            return request;
+        }
+    }
+}
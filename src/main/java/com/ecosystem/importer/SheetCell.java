@@ -0,0 +1,78 @@
+package com.ecosystem.importer;
+
+import com.ecosystem.util.SalesDataValueParser;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Value of one spreadsheet cell as delivered by the streaming readers: either text (strings,
+ * booleans, formula string results) or a number, flagged when its cell format is a date format.
+ * The conversions follow the ones of the former DOM-based import.
+ */
+public final class SheetCell {
+
+    private final String text;
+    private final double number;
+    private final boolean numeric;
+    private final boolean date;
+
+    private SheetCell(String text, double number, boolean numeric, boolean date) {
+        this.text = text;
+        this.number = number;
+        this.numeric = numeric;
+        this.date = date;
+    }
+
+    public static SheetCell text(String text) {
+        return new SheetCell(text, 0, false, false);
+    }
+
+    public static SheetCell number(double number, boolean dateFormatted) {
+        return new SheetCell(null, number, true, dateFormatted);
+    }
+
+    /**
+     * Trimmed text of the cell; null when blank. Whole numbers have no decimal part, dates are yyyy-MM-dd.
+     */
+    public String asString() {
+        String value;
+        if (!numeric) {
+            value = text;
+        } else if (date && DateUtil.isValidExcelDate(number)) {
+            value = DateUtil.getLocalDateTime(number).toLocalDate().toString();
+        } else if (number == (long) number) {
+            value = String.valueOf((long) number);
+        } else {
+            value = String.valueOf(number);
+        }
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Date cells directly, text in any of the formats of {@link SalesDataValueParser#parseDate}; null otherwise.
+     */
+    public LocalDate asDate() {
+        if (numeric && date && DateUtil.isValidExcelDate(number)) {
+            return DateUtil.getLocalDateTime(number).toLocalDate();
+        }
+        return SalesDataValueParser.parseDateOrNull(asString());
+    }
+
+    public Integer asInteger() {
+        return numeric ? Integer.valueOf((int) number) : SalesDataValueParser.parseInteger(text);
+    }
+
+    public BigDecimal asBigDecimal() {
+        return numeric ? BigDecimal.valueOf(number) : SalesDataValueParser.parseBigDecimal(text);
+    }
+
+    public boolean isBlank() {
+        return !numeric && (text == null || text.trim().isEmpty());
+    }
+}
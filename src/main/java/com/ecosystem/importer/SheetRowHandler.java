@@ -0,0 +1,14 @@
+package com.ecosystem.importer;
+
+/**
+ * Receives the rows of a sheet from the streaming readers, in sheet order.
+ */
+@FunctionalInterface
+public interface SheetRowHandler {
+
+    /**
+     * @param rowNum 1-based row number as shown by Excel
+     * @param cells  Cells by 0-based column index; null entries are empty cells. Only valid during the call.
+     */
+    void onRow(int rowNum, SheetCell[] cells);
+}
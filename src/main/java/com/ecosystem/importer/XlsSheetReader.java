@@ -0,0 +1,122 @@
+package com.ecosystem.importer;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the first sheet of an .xls file with the HSSF event user model: records are handled as
+ * they are decoded and rows are emitted at their last cell, no HSSFWorkbook is built.
+ */
+final class XlsSheetReader implements HSSFListener {
+
+    private final SheetRowHandler handler;
+    private FormatTrackingHSSFListener formats;
+
+    private SSTRecord sst;
+    // -1 before the first worksheet; records of later worksheets are ignored
+    private int sheetIndex = -1;
+    private final List<SheetCell> rowCells = new ArrayList<>();
+    // Formula with a string result: the value follows in a StringRecord
+    private int pendingStringColumn = -1;
+
+    private XlsSheetReader(SheetRowHandler handler) {
+        this.handler = handler;
+    }
+
+    static void read(File file, SheetRowHandler handler) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            XlsSheetReader reader = new XlsSheetReader(handler);
+            // Emits LastCellOfRowDummyRecord at the end of every row
+            MissingRecordAwareHSSFListener rows = new MissingRecordAwareHSSFListener(reader);
+            reader.formats = new FormatTrackingHSSFListener(rows);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(reader.formats);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    @Override
+    public void processRecord(Record record) {
+        if (record instanceof BOFRecord) {
+            if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                sheetIndex++;
+            }
+            return;
+        }
+        if (record instanceof SSTRecord) {
+            sst = (SSTRecord) record;
+            return;
+        }
+        if (sheetIndex != 0 || record instanceof EOFRecord) {
+            return;
+        }
+
+        if (record instanceof LastCellOfRowDummyRecord) {
+            handler.onRow(((LastCellOfRowDummyRecord) record).getRow() + 1, rowCells.toArray(new SheetCell[0]));
+            rowCells.clear();
+            pendingStringColumn = -1;
+        } else if (record instanceof LabelSSTRecord) {
+            LabelSSTRecord label = (LabelSSTRecord) record;
+            setCell(label.getColumn(), SheetCell.text(sst.getString(label.getSSTIndex()).getString()));
+        } else if (record instanceof LabelRecord) {
+            LabelRecord label = (LabelRecord) record;
+            setCell(label.getColumn(), SheetCell.text(label.getValue()));
+        } else if (record instanceof NumberRecord) {
+            NumberRecord number = (NumberRecord) record;
+            setCell(number.getColumn(), SheetCell.number(number.getValue(), isDateFormat(number)));
+        } else if (record instanceof BoolErrRecord) {
+            BoolErrRecord boolErr = (BoolErrRecord) record;
+            // Error values are treated as empty
+            if (boolErr.isBoolean()) {
+                setCell(boolErr.getColumn(), SheetCell.text(String.valueOf(boolErr.getBooleanValue())));
+            }
+        } else if (record instanceof FormulaRecord) {
+            FormulaRecord formula = (FormulaRecord) record;
+            CellType resultType = formula.getCachedResultTypeEnum();
+            if (resultType == CellType.NUMERIC) {
+                setCell(formula.getColumn(), SheetCell.number(formula.getValue(), isDateFormat(formula)));
+            } else if (resultType == CellType.BOOLEAN) {
+                setCell(formula.getColumn(), SheetCell.text(String.valueOf(formula.getCachedBooleanValue())));
+            } else if (resultType == CellType.STRING) {
+                pendingStringColumn = formula.getColumn();
+            }
+        } else if (record instanceof StringRecord && pendingStringColumn >= 0) {
+            setCell(pendingStringColumn, SheetCell.text(((StringRecord) record).getString()));
+            pendingStringColumn = -1;
+        }
+    }
+
+    private boolean isDateFormat(CellValueRecordInterface cell) {
+        return DateUtil.isADateFormat(formats.getFormatIndex(cell), formats.getFormatString(cell));
+    }
+
+    private void setCell(int column, SheetCell cell) {
+        while (rowCells.size() <= column) {
+            rowCells.add(null);
+        }
+        rowCells.set(column, cell);
+    }
+}
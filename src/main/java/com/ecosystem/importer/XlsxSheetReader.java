@@ -0,0 +1,183 @@
+package com.ecosystem.importer;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the first sheet of an .xlsx file with SAX (XSSFReader), without building the workbook:
+ * only the shared strings table, the styles and the current row are held in memory.
+ */
+final class XlsxSheetReader {
+
+    private XlsxSheetReader() {
+    }
+
+    static void read(File file, SheetRowHandler handler) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(strings, styles, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        } finally {
+            // Read-only package: revert() releases it without attempting to save
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Handles &lt;row&gt;, &lt;c r t s&gt;, &lt;v&gt; and inline &lt;is&gt;&lt;t&gt; elements of the sheet XML.
+     */
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final SheetRowHandler handler;
+
+        private final List<SheetCell> rowCells = new ArrayList<>();
+        private final StringBuilder value = new StringBuilder();
+        private int rowNum;
+        private int column;
+        private String cellType;
+        private int styleIndex;
+        private boolean inValue;
+        private boolean inInlineString;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, SheetRowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) : rowNum + 1;
+                    rowCells.clear();
+                    column = -1;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : 0;
+                    value.setLength(0);
+                    break;
+                case "v":
+                    inValue = true;
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineString) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                    inValue = false;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    SheetCell cell = toCell();
+                    if (cell != null) {
+                        while (rowCells.size() < column) {
+                            rowCells.add(null);
+                        }
+                        rowCells.add(cell);
+                    }
+                    break;
+                case "row":
+                    handler.onRow(rowNum, rowCells.toArray(new SheetCell[0]));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private SheetCell toCell() {
+            if (value.length() == 0) {
+                return null;
+            }
+            String text = value.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                double number = Double.parseDouble(text);
+                return SheetCell.number(number, isDateFormat(styleIndex));
+            }
+            switch (cellType) {
+                case "s":
+                    return SheetCell.text(strings.getItemAt(Integer.parseInt(text)).getString());
+                case "b":
+                    return SheetCell.text(String.valueOf("1".equals(text)));
+                case "e":
+                    // Error values (#N/A, #REF!, ...) are treated as empty, like the DOM-based import
+                    return null;
+                default:
+                    // inlineStr, str (formula result), d (ISO date)
+                    return SheetCell.text(text);
+            }
+        }
+
+        private boolean isDateFormat(int index) {
+            if (styles == null || index >= styles.getNumCellStyles()) {
+                return false;
+            }
+            XSSFCellStyle style = styles.getStyleAt(index);
+            return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+
+        /**
+         * 0-based column of a cell reference such as "AB12".
+         */
+        private static int columnIndex(String ref) {
+            int column = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
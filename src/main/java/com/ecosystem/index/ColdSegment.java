@@ -0,0 +1,610 @@
+package com.ecosystem.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, compressed, column-oriented file of archived sales_data rows (the cold tier).
+ *
+ * Rows are stored in row groups; every column of a group is one Deflate-compressed chunk:
+ * numbers as zig-zag varints (dates as epoch days, amounts fixed-point as in
+ * {@link SalesDataColumns}), strings as a per-group dictionary plus varint codes. The footer
+ * holds a zone map per group and for the whole file (min/max transaction date and min/max
+ * ItemCode key), so lookups skip files and groups without decompressing them.
+ *
+ * A reader maps the file read-only; chunks are inflated straight from the mapping and only
+ * for groups that pass the zone maps, columns only when a row of the group is read.
+ *
+ * Layout: MAGIC, VERSION, chunks..., footer, footer offset (long), MAGIC.
+ */
+public final class ColdSegment {
+
+    public static final int MAGIC = 0x45435347; // "ECSG"
+    public static final int VERSION = 1;
+
+    // Numeric columns
+    public static final int ID = 0;
+    public static final int TX_DATE = 1;
+    public static final int TX_QTY = 2;
+    public static final int TXP1 = 3;
+    public static final int UNIT_COST = 4;
+    public static final int VALUE = 5;
+    private static final int NUMERIC_COLUMNS = 6;
+
+    /**
+     * sales_data VARCHAR columns stored in the segment, in column order after the numeric ones.
+     */
+    public static final String[] STRING_COLUMNS = {
+            "TXNo", "TXDate", "TXQty", "TXP1", "BuyerCode", "BuyerName", "ItemCode", "ItemName",
+            "Product Hierarchy 3", "Function", "ItemType", "Model", "Performance", "Performance.1",
+            "Material", "UOM", "Brand Code", "Unit Cost", "Sector", "SubSector", "Value", "Rationale",
+            "www", "Source"
+    };
+    public static final int ITEM_CODE = 6; // index in STRING_COLUMNS
+    private static final int COLUMN_COUNT = NUMERIC_COLUMNS + STRING_COLUMNS.length;
+
+    private final Path path;
+    private final MappedByteBuffer mapped;
+    private final long rowCount;
+    private final Zone zone;
+    private final GroupMeta[] groups;
+
+    private ColdSegment(Path path, MappedByteBuffer mapped, long rowCount, Zone zone, GroupMeta[] groups) {
+        this.path = path;
+        this.mapped = mapped;
+        this.rowCount = rowCount;
+        this.zone = zone;
+        this.groups = groups;
+    }
+
+    /**
+     * Lookup key of an ItemCode: trailing spaces removed and upper-cased, close to the
+     * case-insensitive, PAD SPACE comparison of the sales_data column collation.
+     */
+    public static String itemKey(String itemCode) {
+        return itemCode == null ? null : itemCode.stripTrailing().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Map a segment file and read its footer.
+     *
+     * @throws IOException if the file is not a complete segment
+     */
+    public static ColdSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 20 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a cold segment (size " + size + "): " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt((int) size - 4) != MAGIC) {
+                throw new IOException("Not a cold segment (bad magic): " + path);
+            }
+            if (mapped.getInt(4) != VERSION) {
+                throw new IOException("Unsupported cold segment version " + mapped.getInt(4) + ": " + path);
+            }
+            int footerOffset = (int) mapped.getLong((int) size - 12);
+            byte[] footer = new byte[(int) size - 12 - footerOffset];
+            mapped.get(footerOffset, footer);
+
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(footer));
+            int groupCount = in.readInt();
+            long rowCount = in.readLong();
+            Zone zone = Zone.read(in);
+            GroupMeta[] groups = new GroupMeta[groupCount];
+            for (int g = 0; g < groupCount; g++) {
+                groups[g] = GroupMeta.read(in);
+            }
+            return new ColdSegment(path, mapped, rowCount, zone, groups);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getGroupCount() {
+        return groups.length;
+    }
+
+    public long getSizeBytes() {
+        return mapped.capacity();
+    }
+
+    /**
+     * Oldest transaction date (epoch day), {@link SalesDataColumns#NULL_INT} if no row is dated.
+     */
+    public int getMinDate() {
+        return zone.minDate == Integer.MAX_VALUE ? SalesDataColumns.NULL_INT : zone.minDate;
+    }
+
+    /**
+     * Newest transaction date (epoch day), {@link SalesDataColumns#NULL_INT} if no row is dated.
+     */
+    public int getMaxDate() {
+        return zone.maxDate;
+    }
+
+    public String getMinItemKey() {
+        return zone.minItemKey;
+    }
+
+    public String getMaxItemKey() {
+        return zone.maxItemKey;
+    }
+
+    /**
+     * Visit the rows with the item key (null = any) and a date within [minDate, maxDate]
+     * (epoch days, {@link SalesDataColumns#NULL_INT} = unbounded; with a bound, undated rows
+     * never match).
+     */
+    public void scan(String itemKey, int minDate, int maxDate, RowVisitor visitor) {
+        if (!zone.overlaps(itemKey, minDate, maxDate)) {
+            return;
+        }
+        for (GroupMeta meta : groups) {
+            if (!meta.zone.overlaps(itemKey, minDate, maxDate)) {
+                continue;
+            }
+            RowGroup group = new RowGroup(meta);
+            for (int row = 0; row < meta.rows; row++) {
+                if (itemKey != null && !itemKey.equals(itemKey(group.string(ITEM_CODE, row)))) {
+                    continue;
+                }
+                if (minDate != SalesDataColumns.NULL_INT || maxDate != SalesDataColumns.NULL_INT) {
+                    int date = (int) group.number(TX_DATE, row);
+                    if (date == SalesDataColumns.NULL_INT
+                            || (minDate != SalesDataColumns.NULL_INT && date < minDate)
+                            || (maxDate != SalesDataColumns.NULL_INT && date > maxDate)) {
+                        continue;
+                    }
+                }
+                visitor.visit(group, row);
+            }
+        }
+    }
+
+    /**
+     * Add the TXP1 / date aggregates of the item's rows to the summary.
+     */
+    public void summarizeItem(String itemKey, SalesDataColumns.PriceSummary summary) {
+        scan(itemKey, SalesDataColumns.NULL_INT, SalesDataColumns.NULL_INT, (group, row) ->
+                summary.accept(group.number(ID, row), (int) group.number(TX_DATE, row), group.number(TXP1, row)));
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(RowGroup group, int row);
+    }
+
+    /**
+     * One row group of a scan; columns are inflated on first access.
+     */
+    public final class RowGroup {
+        private final GroupMeta meta;
+        private final long[][] numbers = new long[NUMERIC_COLUMNS][];
+        private final String[][] strings = new String[STRING_COLUMNS.length][];
+
+        private RowGroup(GroupMeta meta) {
+            this.meta = meta;
+        }
+
+        public int size() {
+            return meta.rows;
+        }
+
+        /**
+         * Value of a numeric column (ID .. VALUE); NULL_INT / NULL_AMOUNT for SQL NULL.
+         */
+        public long number(int column, int row) {
+            if (numbers[column] == null) {
+                numbers[column] = decodeNumbers(inflate(column), meta.rows);
+            }
+            return numbers[column][row];
+        }
+
+        /**
+         * Value of STRING_COLUMNS[column].
+         */
+        public String string(int column, int row) {
+            if (strings[column] == null) {
+                strings[column] = decodeStrings(inflate(NUMERIC_COLUMNS + column), meta.rows);
+            }
+            return strings[column][row];
+        }
+
+        private byte[] inflate(int column) {
+            ByteBuffer chunk = mapped.slice((int) meta.offsets[column], meta.lengths[column]);
+            byte[] raw = new byte[meta.rawLengths[column]];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(chunk);
+                int n = 0;
+                while (n < raw.length) {
+                    int read = inflater.inflate(raw, n, raw.length - n);
+                    if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    n += read;
+                }
+                if (n != raw.length) {
+                    throw new IllegalStateException("Truncated chunk in cold segment " + path);
+                }
+                return raw;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt chunk in cold segment " + path, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Appends rows to a new segment file, buffering one row group at a time. Rows should be
+     * added sorted by ItemCode so the ItemCode zone maps of the groups do not overlap.
+     */
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final int rowGroupSize;
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final byte[] deflateBuffer = new byte[64 * 1024];
+        private final ByteArrayOutputStream footerGroups = new ByteArrayOutputStream();
+        private final DataOutputStream footerOut = new DataOutputStream(footerGroups);
+
+        private final long[][] numbers;
+        private final String[][] strings;
+        private int buffered;
+        private int groupCount;
+        private long rowCount;
+        private long position;
+        private final Zone zone = new Zone();
+        private boolean finished;
+
+        public Writer(Path path, int rowGroupSize) throws IOException {
+            this.path = path;
+            this.rowGroupSize = rowGroupSize;
+            this.numbers = new long[NUMERIC_COLUMNS][rowGroupSize];
+            this.strings = new String[STRING_COLUMNS.length][rowGroupSize];
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip();
+            write(header);
+        }
+
+        /**
+         * @param values STRING_COLUMNS values
+         */
+        public void add(long id, int txDate, int txQty, long txP1, long unitCost, long value, String[] values)
+                throws IOException {
+            int row = buffered++;
+            numbers[ID][row] = id;
+            numbers[TX_DATE][row] = txDate;
+            numbers[TX_QTY][row] = txQty;
+            numbers[TXP1][row] = txP1;
+            numbers[UNIT_COST][row] = unitCost;
+            numbers[VALUE][row] = value;
+            for (int c = 0; c < STRING_COLUMNS.length; c++) {
+                strings[c][row] = values[c];
+            }
+            if (buffered == rowGroupSize) {
+                flushGroup();
+            }
+        }
+
+        public long getRowCount() {
+            return rowCount + buffered;
+        }
+
+        /**
+         * Write the last group and the footer and force the file to disk.
+         */
+        public void finish() throws IOException {
+            if (buffered > 0) {
+                flushGroup();
+            }
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(footerBytes);
+            out.writeInt(groupCount);
+            out.writeLong(rowCount);
+            zone.write(out);
+            footerOut.flush();
+            footerGroups.writeTo(out);
+            long footerOffset = position;
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            write(ByteBuffer.wrap(footerBytes.toByteArray()));
+            channel.force(true);
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            channel.close();
+            if (!finished) {
+                java.nio.file.Files.deleteIfExists(path);
+            }
+        }
+
+        private void flushGroup() throws IOException {
+            int rows = buffered;
+            Zone groupZone = new Zone();
+            for (int row = 0; row < rows; row++) {
+                groupZone.accept((int) numbers[TX_DATE][row], itemKey(strings[ITEM_CODE][row]));
+            }
+            zone.merge(groupZone);
+
+            long[] offsets = new long[COLUMN_COUNT];
+            int[] lengths = new int[COLUMN_COUNT];
+            int[] rawLengths = new int[COLUMN_COUNT];
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                byte[] raw = c < NUMERIC_COLUMNS
+                        ? encodeNumbers(numbers[c], rows)
+                        : encodeStrings(strings[c - NUMERIC_COLUMNS], rows);
+                offsets[c] = position;
+                rawLengths[c] = raw.length;
+                lengths[c] = deflate(raw);
+            }
+
+            footerOut.writeInt(rows);
+            groupZone.write(footerOut);
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                footerOut.writeLong(offsets[c]);
+                footerOut.writeInt(lengths[c]);
+                footerOut.writeInt(rawLengths[c]);
+            }
+            groupCount++;
+            rowCount += rows;
+            buffered = 0;
+            for (String[] column : strings) {
+                java.util.Arrays.fill(column, 0, rows, null);
+            }
+        }
+
+        private int deflate(byte[] raw) throws IOException {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            int total = 0;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(deflateBuffer);
+                write(ByteBuffer.wrap(deflateBuffer, 0, n));
+                total += n;
+            }
+            return total;
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- encoding
+
+    private static byte[] encodeNumbers(long[] values, int count) {
+        ByteSink sink = new ByteSink(count * 3);
+        for (int i = 0; i < count; i++) {
+            sink.writeVarLong(zigZag(values[i]));
+        }
+        return sink.toByteArray();
+    }
+
+    private static long[] decodeNumbers(byte[] raw, int count) {
+        long[] values = new long[count];
+        int[] offset = {0};
+        for (int i = 0; i < count; i++) {
+            long v = readVarLong(raw, offset);
+            values[i] = (v >>> 1) ^ -(v & 1);
+        }
+        return values;
+    }
+
+    // Dictionary of the distinct values (in first-seen order), then one code per row (0 = NULL)
+    private static byte[] encodeStrings(String[] values, int count) {
+        java.util.Map<String, Integer> dictionary = new java.util.LinkedHashMap<>();
+        int[] codes = new int[count];
+        for (int i = 0; i < count; i++) {
+            String value = values[i];
+            codes[i] = value == null ? 0 : dictionary.computeIfAbsent(value, v -> dictionary.size() + 1);
+        }
+        ByteSink sink = new ByteSink(count * 2 + dictionary.size() * 16);
+        sink.writeVarLong(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            sink.writeVarLong(bytes.length);
+            sink.write(bytes);
+        }
+        for (int code : codes) {
+            sink.writeVarLong(code);
+        }
+        return sink.toByteArray();
+    }
+
+    private static String[] decodeStrings(byte[] raw, int count) {
+        int[] offset = {0};
+        int size = (int) readVarLong(raw, offset);
+        String[] dictionary = new String[size + 1];
+        for (int i = 1; i <= size; i++) {
+            int length = (int) readVarLong(raw, offset);
+            dictionary[i] = new String(raw, offset[0], length, StandardCharsets.UTF_8);
+            offset[0] += length;
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = dictionary[(int) readVarLong(raw, offset)];
+        }
+        return values;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long readVarLong(byte[] raw, int[] offset) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = raw[offset[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static final class ByteSink {
+        private byte[] buffer;
+        private int size;
+
+        ByteSink(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return java.util.Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = java.util.Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- zone maps
+
+    /**
+     * Date range of the dated rows and ItemCode key range of the rows with an ItemCode.
+     */
+    private static final class Zone {
+        private int minDate = Integer.MAX_VALUE;
+        private int maxDate = SalesDataColumns.NULL_INT;
+        private String minItemKey;
+        private String maxItemKey;
+        private boolean hasNullItem;
+
+        void accept(int date, String itemKey) {
+            if (date != SalesDataColumns.NULL_INT) {
+                minDate = Math.min(minDate, date);
+                maxDate = Math.max(maxDate, date);
+            }
+            if (itemKey == null) {
+                hasNullItem = true;
+            } else {
+                if (minItemKey == null || itemKey.compareTo(minItemKey) < 0) {
+                    minItemKey = itemKey;
+                }
+                if (maxItemKey == null || itemKey.compareTo(maxItemKey) > 0) {
+                    maxItemKey = itemKey;
+                }
+            }
+        }
+
+        void merge(Zone other) {
+            minDate = Math.min(minDate, other.minDate);
+            maxDate = Math.max(maxDate, other.maxDate);
+            hasNullItem |= other.hasNullItem;
+            if (other.minItemKey != null) {
+                accept(SalesDataColumns.NULL_INT, other.minItemKey);
+                accept(SalesDataColumns.NULL_INT, other.maxItemKey);
+            }
+        }
+
+        boolean overlaps(String itemKey, int from, int to) {
+            if (itemKey != null && (minItemKey == null
+                    || itemKey.compareTo(minItemKey) < 0 || itemKey.compareTo(maxItemKey) > 0)) {
+                return false;
+            }
+            if (from != SalesDataColumns.NULL_INT || to != SalesDataColumns.NULL_INT) {
+                // No dated row, or the dated rows are all outside the bounds
+                if (maxDate == SalesDataColumns.NULL_INT) {
+                    return false;
+                }
+                if ((from != SalesDataColumns.NULL_INT && maxDate < from)
+                        || (to != SalesDataColumns.NULL_INT && minDate > to)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(minDate);
+            out.writeInt(maxDate);
+            out.writeBoolean(hasNullItem);
+            out.writeBoolean(minItemKey != null);
+            if (minItemKey != null) {
+                out.writeUTF(minItemKey);
+                out.writeUTF(maxItemKey);
+            }
+        }
+
+        static Zone read(DataInputStream in) throws IOException {
+            Zone zone = new Zone();
+            zone.minDate = in.readInt();
+            zone.maxDate = in.readInt();
+            zone.hasNullItem = in.readBoolean();
+            if (in.readBoolean()) {
+                zone.minItemKey = in.readUTF();
+                zone.maxItemKey = in.readUTF();
+            }
+            return zone;
+        }
+    }
+
+    private static final class GroupMeta {
+        private int rows;
+        private Zone zone;
+        private final long[] offsets = new long[COLUMN_COUNT];
+        private final int[] lengths = new int[COLUMN_COUNT];
+        private final int[] rawLengths = new int[COLUMN_COUNT];
+
+        static GroupMeta read(DataInputStream in) throws IOException {
+            GroupMeta meta = new GroupMeta();
+            meta.rows = in.readInt();
+            meta.zone = Zone.read(in);
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                meta.offsets[c] = in.readLong();
+                meta.lengths[c] = in.readInt();
+                meta.rawLengths[c] = in.readInt();
+            }
+            return meta;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.ecosystem.index;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap of non-negative ints in the Roaring layout: values are grouped by their
+ * high 16 bits, and each group (container) is stored either as a sorted char array (up to
+ * 4096 values, 2 bytes per value) or as a 1024-word bitmap (8 KB, for dense groups).
+ *
+ * Intersections work container by container, and {@link #andCardinality} counts without
+ * materializing the result, which is what facet counting needs. Not thread-safe.
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys;
+    // char[] (array container, sorted) or long[] (bitmap container)
+    private Object[] containers;
+    private int[] cardinalities;
+    private int size;
+
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        keys = new char[Math.max(1, capacity)];
+        containers = new Object[Math.max(1, capacity)];
+        cardinalities = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+        int index;
+        // Fast path: ascending appends (index builds scan in id order)
+        if (size > 0 && keys[size - 1] == high) {
+            index = size - 1;
+        } else {
+            index = findContainer(high);
+            if (index < 0) {
+                index = -index - 1;
+                insertContainer(index, high, new char[4], 0);
+            }
+        }
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            if (words[low >>> 6] != before) {
+                cardinalities[index]++;
+            }
+            return;
+        }
+        char[] values = (char[]) container;
+        int cardinality = cardinalities[index];
+        int position = cardinality > 0 && values[cardinality - 1] < low
+                ? -(cardinality + 1)
+                : Arrays.binarySearch(values, 0, cardinality, low);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (cardinality == ARRAY_MAX) {
+            long[] words = toWords(values, cardinality);
+            words[low >>> 6] |= 1L << low;
+            containers[index] = words;
+            cardinalities[index] = cardinality + 1;
+            return;
+        }
+        if (cardinality == values.length) {
+            values = Arrays.copyOf(values, Math.min(ARRAY_MAX, values.length << 1));
+            containers[index] = values;
+        }
+        System.arraycopy(values, position, values, position + 1, cardinality - position);
+        values[position] = low;
+        cardinalities[index] = cardinality + 1;
+    }
+
+    public void remove(int value) {
+        int index = findContainer((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        char low = (char) value;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            if (words[low >>> 6] != before) {
+                cardinalities[index]--;
+                if (cardinalities[index] <= ARRAY_MAX / 2) {
+                    containers[index] = toArray(words, cardinalities[index]);
+                }
+            }
+        } else {
+            char[] values = (char[]) container;
+            int cardinality = cardinalities[index];
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+            cardinalities[index]--;
+        }
+        if (cardinalities[index] == 0) {
+            removeContainer(index);
+        }
+    }
+
+    public boolean contains(int value) {
+        int index = findContainer((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cardinalities[i];
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of values in both bitmaps, without building the intersection.
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int total = 0;
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += andCardinality(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.min(size, other.size));
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendContainer(keys[i],
+                        and(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(size + other.size);
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendContainer(keys[i], copy(containers[i], cardinalities[i]));
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], copy(other.containers[j], other.cardinalities[j]));
+                j++;
+            } else {
+                result.appendContainer(keys[i],
+                        or(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(size);
+        for (int i = 0; i < size; i++) {
+            result.appendContainer(keys[i], copy(containers[i], cardinalities[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Release unused capacity (after a build).
+     */
+    public void trim() {
+        keys = Arrays.copyOf(keys, Math.max(1, size));
+        containers = Arrays.copyOf(containers, Math.max(1, size));
+        cardinalities = Arrays.copyOf(cardinalities, Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            if (containers[i] instanceof char[] && ((char[]) containers[i]).length > cardinalities[i]) {
+                containers[i] = Arrays.copyOf((char[]) containers[i], cardinalities[i]);
+            }
+        }
+    }
+
+    /**
+     * Approximate heap size in bytes.
+     */
+    public long memoryBytes() {
+        long bytes = 48L + 2L * keys.length + 4L * containers.length + 4L * cardinalities.length;
+        for (int i = 0; i < size; i++) {
+            bytes += 16L + (containers[i] instanceof long[] ? 8L * BITMAP_WORDS : 2L * ((char[]) containers[i]).length);
+        }
+        return bytes;
+    }
+
+    private int findContainer(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insertContainer(int index, char high, Object container, int cardinality) {
+        if (size == keys.length) {
+            int capacity = keys.length << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+        keys[index] = high;
+        containers[index] = container;
+        cardinalities[index] = cardinality;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        System.arraycopy(cardinalities, index + 1, cardinalities, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Append a container with a key above every existing key; empty results are skipped.
+     */
+    private void appendContainer(char high, Object container) {
+        int cardinality = cardinalityOf(container);
+        if (cardinality > 0) {
+            insertContainer(size, high, container, cardinality);
+        }
+    }
+
+    private static int cardinalityOf(Object container) {
+        if (container instanceof long[]) {
+            int count = 0;
+            for (long word : (long[]) container) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+        return ((char[]) container).length;
+    }
+
+    private static int andCardinality(Object a, int aCardinality, Object b, int bCardinality) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            int count = 0;
+            for (int k = 0; k < BITMAP_WORDS; k++) {
+                count += Long.bitCount(x[k] & y[k]);
+            }
+            return count;
+        }
+        if (a instanceof long[]) {
+            return arrayInBitmapCount((char[]) b, bCardinality, (long[]) a);
+        }
+        if (b instanceof long[]) {
+            return arrayInBitmapCount((char[]) a, aCardinality, (long[]) b);
+        }
+        char[] x = (char[]) a;
+        char[] y = (char[]) b;
+        int i = 0, j = 0, count = 0;
+        while (i < aCardinality && j < bCardinality) {
+            if (x[i] < y[j]) {
+                i++;
+            } else if (x[i] > y[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int arrayInBitmapCount(char[] values, int cardinality, long[] words) {
+        int count = 0;
+        for (int i = 0; i < cardinality; i++) {
+            char v = values[i];
+            if ((words[v >>> 6] & (1L << v)) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Intersection of two containers; array containers in the result are exactly sized.
+     */
+    private static Object and(Object a, int aCardinality, Object b, int bCardinality) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            long[] words = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int k = 0; k < BITMAP_WORDS; k++) {
+                words[k] = x[k] & y[k];
+                count += Long.bitCount(words[k]);
+            }
+            return count <= ARRAY_MAX ? toArray(words, count) : words;
+        }
+        if (a instanceof long[] || b instanceof long[]) {
+            char[] values = (char[]) (a instanceof long[] ? b : a);
+            int cardinality = a instanceof long[] ? bCardinality : aCardinality;
+            long[] words = (long[]) (a instanceof long[] ? a : b);
+            char[] out = new char[cardinality];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                char v = values[i];
+                if ((words[v >>> 6] & (1L << v)) != 0) {
+                    out[n++] = v;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        char[] x = (char[]) a;
+        char[] y = (char[]) b;
+        char[] out = new char[Math.min(aCardinality, bCardinality)];
+        int i = 0, j = 0, n = 0;
+        while (i < aCardinality && j < bCardinality) {
+            if (x[i] < y[j]) {
+                i++;
+            } else if (x[i] > y[j]) {
+                j++;
+            } else {
+                out[n++] = x[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Object or(Object a, int aCardinality, Object b, int bCardinality) {
+        if (a instanceof long[] || b instanceof long[]) {
+            long[] words = a instanceof long[] ? ((long[]) a).clone() : toWords((char[]) a, aCardinality);
+            if (b instanceof long[]) {
+                long[] y = (long[]) b;
+                for (int k = 0; k < BITMAP_WORDS; k++) {
+                    words[k] |= y[k];
+                }
+            } else {
+                char[] values = (char[]) b;
+                for (int i = 0; i < bCardinality; i++) {
+                    words[values[i] >>> 6] |= 1L << values[i];
+                }
+            }
+            return words;
+        }
+        char[] x = (char[]) a;
+        char[] y = (char[]) b;
+        char[] out = new char[aCardinality + bCardinality];
+        int i = 0, j = 0, n = 0;
+        while (i < aCardinality || j < bCardinality) {
+            if (j >= bCardinality || (i < aCardinality && x[i] < y[j])) {
+                out[n++] = x[i++];
+            } else if (i >= aCardinality || x[i] > y[j]) {
+                out[n++] = y[j++];
+            } else {
+                out[n++] = x[i];
+                i++;
+                j++;
+            }
+        }
+        return n > ARRAY_MAX ? toWords(out, n) : Arrays.copyOf(out, n);
+    }
+
+    private static Object copy(Object container, int cardinality) {
+        return container instanceof long[]
+                ? ((long[]) container).clone()
+                : Arrays.copyOf((char[]) container, cardinality);
+    }
+
+    private static long[] toWords(char[] values, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int k = 0; k < BITMAP_WORDS; k++) {
+            long word = words[k];
+            while (word != 0) {
+                values[n++] = (char) ((k << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecosystem.index;
+
+import java.util.Arrays;
+
+/**
+ * Top-N neighbour lists of items in flat primitive arrays: per item up to n (neighbour, score,
+ * count) entries ordered by descending score, ties by lower neighbour. Not thread-safe;
+ * concurrent writers must own disjoint sets of items.
+ */
+public final class ItemNeighbours {
+
+    private final int n;
+    private int[] sizes;
+    private int[] neighbours;
+    private float[] scores;
+    private int[] counts;
+
+    public ItemNeighbours(int items, int n) {
+        this.n = Math.max(1, n);
+        this.sizes = new int[Math.max(1, items)];
+        this.neighbours = new int[sizes.length * this.n];
+        this.scores = new float[sizes.length * this.n];
+        this.counts = new int[sizes.length * this.n];
+    }
+
+    /**
+     * Make room for item ids below items (new items have empty lists).
+     */
+    public void ensureItems(int items) {
+        if (items > sizes.length) {
+            int grown = Math.max(items, sizes.length + sizes.length / 2);
+            sizes = Arrays.copyOf(sizes, grown);
+            neighbours = Arrays.copyOf(neighbours, grown * n);
+            scores = Arrays.copyOf(scores, grown * n);
+            counts = Arrays.copyOf(counts, grown * n);
+        }
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int size(int item) {
+        return item < sizes.length ? sizes[item] : 0;
+    }
+
+    public int neighbour(int item, int rank) {
+        return neighbours[item * n + rank];
+    }
+
+    public float score(int item, int rank) {
+        return scores[item * n + rank];
+    }
+
+    public int count(int item, int rank) {
+        return counts[item * n + rank];
+    }
+
+    public void clear(int item) {
+        sizes[item] = 0;
+    }
+
+    /**
+     * Insert the neighbour, replacing an existing entry of the same neighbour; it is dropped
+     * when the list is full and it scores below the last entry.
+     */
+    public void offer(int item, int neighbour, float score, int count) {
+        int base = item * n;
+        int size = sizes[item];
+        for (int r = 0; r < size; r++) {
+            if (neighbours[base + r] == neighbour) {
+                System.arraycopy(neighbours, base + r + 1, neighbours, base + r, size - r - 1);
+                System.arraycopy(scores, base + r + 1, scores, base + r, size - r - 1);
+                System.arraycopy(counts, base + r + 1, counts, base + r, size - r - 1);
+                size--;
+                break;
+            }
+        }
+        int position = size;
+        while (position > 0 && before(score, neighbour, scores[base + position - 1], neighbours[base + position - 1])) {
+            position--;
+        }
+        if (position == n) {
+            sizes[item] = size;
+            return;
+        }
+        int moved = Math.min(size, n - 1) - position;
+        if (moved > 0) {
+            System.arraycopy(neighbours, base + position, neighbours, base + position + 1, moved);
+            System.arraycopy(scores, base + position, scores, base + position + 1, moved);
+            System.arraycopy(counts, base + position, counts, base + position + 1, moved);
+        }
+        neighbours[base + position] = neighbour;
+        scores[base + position] = score;
+        counts[base + position] = count;
+        sizes[item] = Math.min(size + 1, n);
+    }
+
+    /**
+     * Approximate heap size in bytes.
+     */
+    public long memoryBytes() {
+        return 4L * sizes.length + 12L * neighbours.length;
+    }
+
+    private static boolean before(float score, int neighbour, float otherScore, int otherNeighbour) {
+        return score > otherScore || (score == otherScore && neighbour < otherNeighbour);
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecosystem.index;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures over character shingles, stored in one flat int array
+ * (signature of item i at [i * numHashes, (i + 1) * numHashes)).
+ *
+ * The fraction of equal positions in two signatures estimates the Jaccard similarity of the
+ * two shingle sets. For LSH the signature is split into bands of rowsPerBand positions: items
+ * sharing any band are candidate pairs, so pairs above roughly (1 / bands)^(1 / rowsPerBand)
+ * are found without comparing every pair.
+ *
+ * Instances are immutable and may be used from several threads.
+ */
+public final class MinHasher {
+
+    private final int numHashes;
+    private final long[] multipliers;
+    private final long[] offsets;
+
+    public MinHasher(int numHashes, long seed) {
+        this.numHashes = numHashes;
+        this.multipliers = new long[numHashes];
+        this.offsets = new long[numHashes];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < numHashes; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            offsets[i] = random.nextLong();
+        }
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Distinct hashes of the k-character shingles of the text, sorted; a text shorter than k is
+     * a single shingle, an empty text has none.
+     */
+    public static int[] shingles(CharSequence text, int k) {
+        int length = text.length();
+        if (length == 0) {
+            return new int[0];
+        }
+        int count = Math.max(1, length - k + 1);
+        int[] hashes = new int[count];
+        for (int start = 0; start < count; start++) {
+            int h = 0;
+            for (int i = start, end = Math.min(length, start + k); i < end; i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            hashes[start] = mix(h);
+        }
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+        return distinct == count ? hashes : Arrays.copyOf(hashes, distinct);
+    }
+
+    /**
+     * Write the signature of a non-empty shingle set to signatures[offset, offset + numHashes).
+     */
+    public void signature(int[] shingles, int[] signatures, int offset) {
+        for (int h = 0; h < numHashes; h++) {
+            long a = multipliers[h];
+            long b = offsets[h];
+            int min = Integer.MAX_VALUE;
+            for (int shingle : shingles) {
+                // Upper 31 bits of a 64-bit multiply-add, non-negative
+                int value = (int) ((a * shingle + b) >>> 33);
+                if (value < min) {
+                    min = value;
+                }
+            }
+            signatures[offset + h] = min;
+        }
+    }
+
+    /**
+     * Estimated Jaccard similarity of items i and j.
+     */
+    public double similarity(int[] signatures, int i, int j) {
+        int a = i * numHashes;
+        int b = j * numHashes;
+        int equal = 0;
+        for (int h = 0; h < numHashes; h++) {
+            if (signatures[a + h] == signatures[b + h]) {
+                equal++;
+            }
+        }
+        return (double) equal / numHashes;
+    }
+
+    /**
+     * Hash of one band of item i's signature.
+     */
+    public long bandHash(int[] signatures, int item, int band, int rowsPerBand) {
+        int start = item * numHashes + band * rowsPerBand;
+        long hash = 0x9E3779B97F4A7C15L * (band + 1);
+        for (int r = 0; r < rowsPerBand; r++) {
+            hash = (hash ^ signatures[start + r]) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return hash;
+    }
+
+    // Murmur3 finalizer
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
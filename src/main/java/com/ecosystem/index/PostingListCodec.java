@@ -0,0 +1,134 @@
+package com.ecosystem.index;
+
+import java.util.Arrays;
+
+/**
+ * Delta + varint coding of sorted int posting lists, plus the sorted-array set operations
+ * used to combine them.
+ */
+public final class PostingListCodec {
+
+    private PostingListCodec() {
+    }
+
+    /**
+     * Write an unsigned varint (7 bits per byte) at {@code offset}; the buffer must have 5 free bytes.
+     *
+     * @return the offset after the written bytes
+     */
+    public static int writeVarInt(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Decode {@code count} delta-encoded ids back to a sorted array.
+     */
+    public static int[] decode(byte[] encoded, int count) {
+        int[] ids = new int[count];
+        int offset = 0;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += value;
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    /**
+     * Intersection of two sorted distinct arrays.
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Union of two sorted distinct arrays.
+     */
+    public static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) {
+            out[n++] = a[i++];
+        }
+        while (j < b.length) {
+            out[n++] = b[j++];
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Intersect a sorted candidate array with an encoded posting list, decoding it on the fly
+     * instead of materializing it.
+     */
+    public static int[] intersectEncoded(int[] candidates, byte[] encoded, int count) {
+        int[] out = new int[Math.min(candidates.length, count)];
+        int n = 0;
+        int offset = 0;
+        int current = 0;
+        int decoded = 0;
+        int i = 0;
+        while (i < candidates.length && decoded < count) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += value;
+            decoded++;
+            while (i < candidates.length && candidates[i] < current) {
+                i++;
+            }
+            if (i < candidates.length && candidates[i] == current) {
+                out[n++] = current;
+                i++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
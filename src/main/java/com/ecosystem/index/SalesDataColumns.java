@@ -0,0 +1,417 @@
+package com.ecosystem.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented copy of the numeric and low-cardinality columns of sales_data, one primitive
+ * array per column indexed by row position:
+ * - dates as epoch days (int), amounts as fixed-point longs with 4 decimals (same as the
+ *   DECIMAL(18,4) typed columns), so aggregations never parse or box
+ * - ItemCode, UOM, Brand Code, Sector and Product Hierarchy 3 as dictionary codes (int)
+ *
+ * Rows are updated in place and deletions are masked, so positions are stable. Not thread-safe;
+ * the owner guards it with a read/write lock.
+ */
+public final class SalesDataColumns {
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_AMOUNT = Long.MIN_VALUE;
+    public static final int AMOUNT_SCALE = 4;
+
+    // Above this many rows an aggregation is split across the common fork-join pool
+    private static final int PARALLEL_THRESHOLD = 100_000;
+
+    private int size;
+    private long[] ids;
+    private int[] txDates;
+    private int[] txQtys;
+    private long[] txP1s;
+    private long[] unitCosts;
+    private long[] values;
+    private int[] itemCodes;
+    private int[] uoms;
+    private int[] brandCodes;
+    private int[] sectors;
+    private int[] categories;
+    private final BitSet deleted = new BitSet();
+
+    private final StringDictionary itemCodeDictionary = new StringDictionary();
+    private final StringDictionary uomDictionary = new StringDictionary();
+    private final StringDictionary brandCodeDictionary = new StringDictionary();
+    private final StringDictionary sectorDictionary = new StringDictionary();
+    private final StringDictionary categoryDictionary = new StringDictionary();
+
+    // Row positions per item code; may hold stale positions of rows whose item code changed
+    private final List<IntArrayList> rowsByItemCode = new ArrayList<>();
+
+    // ids[0..sortedCount) ascending (binary search); rows appended out of order go to the map
+    private int sortedCount;
+    private final LongIntHashMap outOfOrderRows = new LongIntHashMap(16);
+
+    public SalesDataColumns(int expectedRows) {
+        allocate(Math.max(16, expectedRows));
+    }
+
+    public static int encodeDate(LocalDate date) {
+        return date == null ? NULL_INT : (int) date.toEpochDay();
+    }
+
+    public static LocalDate decodeDate(int epochDay) {
+        return epochDay == NULL_INT ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public static long encodeAmount(BigDecimal amount) {
+        if (amount == null) {
+            return NULL_AMOUNT;
+        }
+        try {
+            return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return NULL_AMOUNT;
+        }
+    }
+
+    public static BigDecimal decodeAmount(long amount) {
+        return amount == NULL_AMOUNT ? null : BigDecimal.valueOf(amount, AMOUNT_SCALE);
+    }
+
+    /**
+     * Insert a row or overwrite the row with the same id.
+     */
+    public void upsert(long id, LocalDate txDate, Integer txQty, BigDecimal txP1, BigDecimal unitCost,
+                       BigDecimal value, String itemCode, String uom, String brandCode, String sector,
+                       String productHierarchy3) {
+        int row = rowOf(id);
+        if (row < 0) {
+            row = append(id);
+        }
+        deleted.clear(row);
+        txDates[row] = encodeDate(txDate);
+        txQtys[row] = txQty == null ? NULL_INT : txQty;
+        txP1s[row] = encodeAmount(txP1);
+        unitCosts[row] = encodeAmount(unitCost);
+        values[row] = encodeAmount(value);
+        uoms[row] = uomDictionary.encode(uom);
+        brandCodes[row] = brandCodeDictionary.encode(brandCode);
+        sectors[row] = sectorDictionary.encode(sector);
+        categories[row] = categoryDictionary.encode(productHierarchy3);
+
+        int code = itemCodeDictionary.encode(itemCode);
+        if (code != itemCodes[row]) {
+            itemCodes[row] = code;
+            if (code != StringDictionary.NULL_CODE) {
+                while (rowsByItemCode.size() <= code) {
+                    rowsByItemCode.add(new IntArrayList(2));
+                }
+                rowsByItemCode.get(code).add(row);
+            }
+        }
+    }
+
+    /**
+     * Upsert a row of another instance (e.g. rows staged from a small query).
+     */
+    public void copyRow(SalesDataColumns source, int row) {
+        upsert(source.ids[row], decodeDate(source.txDates[row]),
+                source.txQtys[row] == NULL_INT ? null : source.txQtys[row],
+                decodeAmount(source.txP1s[row]), decodeAmount(source.unitCosts[row]),
+                decodeAmount(source.values[row]), source.itemCodeDictionary.decode(source.itemCodes[row]),
+                source.getUom(row), source.getBrandCode(row), source.getSector(row),
+                source.getProductHierarchy3(row));
+    }
+
+    public void delete(long id) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            deleted.set(row);
+        }
+    }
+
+    /**
+     * Positions of the live rows with the item code (ascending).
+     */
+    public int[] rowsForItemCode(String itemCode) {
+        int code = itemCodeDictionary.lookup(itemCode);
+        if (code == StringDictionary.NULL_CODE || code >= rowsByItemCode.size()) {
+            return new int[0];
+        }
+        IntArrayList candidates = rowsByItemCode.get(code);
+        int[] rows = new int[candidates.size()];
+        int n = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            int row = candidates.get(i);
+            if (itemCodes[row] == code && !deleted.get(row)) {
+                rows[n++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, n);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Aggregate TXP1 and TXDate over the given rows; large row sets are aggregated in parallel.
+     */
+    public PriceSummary summarize(int[] rows) {
+        if (rows.length < PARALLEL_THRESHOLD) {
+            PriceSummary summary = new PriceSummary();
+            for (int row : rows) {
+                summary.accept(ids[row], txDates[row], txP1s[row]);
+            }
+            return summary;
+        }
+        return IntStream.of(rows).parallel().collect(PriceSummary::new,
+                (summary, row) -> summary.accept(ids[row], txDates[row], txP1s[row]),
+                PriceSummary::combine);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int liveRows() {
+        return size - deleted.cardinality();
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public int getTxDate(int row) {
+        return txDates[row];
+    }
+
+    public long getTxP1(int row) {
+        return txP1s[row];
+    }
+
+    public int getTxQty(int row) {
+        return txQtys[row];
+    }
+
+    public long getUnitCost(int row) {
+        return unitCosts[row];
+    }
+
+    public long getValue(int row) {
+        return values[row];
+    }
+
+    public String getUom(int row) {
+        return uomDictionary.decode(uoms[row]);
+    }
+
+    public String getBrandCode(int row) {
+        return brandCodeDictionary.decode(brandCodes[row]);
+    }
+
+    public String getSector(int row) {
+        return sectorDictionary.decode(sectors[row]);
+    }
+
+    public String getProductHierarchy3(int row) {
+        return categoryDictionary.decode(categories[row]);
+    }
+
+    /**
+     * Approximate heap size in bytes: allocated column arrays, dictionaries and the item code postings.
+     */
+    public long memoryBytes() {
+        long perRowSlot = 8L * 4 + 4L * 7;
+        long bytes = perRowSlot * ids.length + deleted.size() / 8 + outOfOrderRows.memoryBytes();
+        bytes += itemCodeDictionary.memoryBytes() + uomDictionary.memoryBytes()
+                + brandCodeDictionary.memoryBytes() + sectorDictionary.memoryBytes()
+                + categoryDictionary.memoryBytes();
+        for (IntArrayList rows : rowsByItemCode) {
+            bytes += 16L + rows.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Dictionary sizes of the encoded string columns.
+     */
+    public int[] dictionarySizes() {
+        return new int[]{itemCodeDictionary.size(), uomDictionary.size(), brandCodeDictionary.size(),
+                sectorDictionary.size(), categoryDictionary.size()};
+    }
+
+    private int rowOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, sortedCount, id);
+        if (row >= 0) {
+            return row;
+        }
+        return outOfOrderRows.size() == 0 ? -1 : outOfOrderRows.get(id, -1);
+    }
+
+    private int append(long id) {
+        if (size == ids.length) {
+            grow(size + (size >> 1));
+        }
+        int row = size++;
+        ids[row] = id;
+        itemCodes[row] = StringDictionary.NULL_CODE;
+        if (sortedCount == row && (row == 0 || id > ids[row - 1])) {
+            sortedCount++;
+        } else {
+            outOfOrderRows.put(id, row);
+        }
+        return row;
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        txDates = new int[capacity];
+        txQtys = new int[capacity];
+        txP1s = new long[capacity];
+        unitCosts = new long[capacity];
+        values = new long[capacity];
+        itemCodes = new int[capacity];
+        uoms = new int[capacity];
+        brandCodes = new int[capacity];
+        sectors = new int[capacity];
+        categories = new int[capacity];
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        txDates = Arrays.copyOf(txDates, capacity);
+        txQtys = Arrays.copyOf(txQtys, capacity);
+        txP1s = Arrays.copyOf(txP1s, capacity);
+        unitCosts = Arrays.copyOf(unitCosts, capacity);
+        values = Arrays.copyOf(values, capacity);
+        itemCodes = Arrays.copyOf(itemCodes, capacity);
+        uoms = Arrays.copyOf(uoms, capacity);
+        brandCodes = Arrays.copyOf(brandCodes, capacity);
+        sectors = Arrays.copyOf(sectors, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+    }
+
+    /**
+     * TXP1 / TXDate aggregates of a set of rows. Amounts are fixed-point (see {@link #AMOUNT_SCALE}).
+     */
+    public static final class PriceSummary {
+        private int rowCount;
+        // All non-null prices (as getPriceStatisticsByItemCode)
+        private long minPrice = Long.MAX_VALUE;
+        private long maxPrice = Long.MIN_VALUE;
+        // Prices > 0 only (as the material history statistics)
+        private int positivePriceCount;
+        private long minPositivePrice = Long.MAX_VALUE;
+        private long maxPositivePrice = Long.MIN_VALUE;
+        private long positivePriceSum;
+        // Price of the newest priced row (latest date, then highest id; undated rows last)
+        private long latestPrice = NULL_AMOUNT;
+        private int latestPriceDate = NULL_INT;
+        private long latestPriceId = Long.MIN_VALUE;
+        private int firstDate = Integer.MAX_VALUE;
+        private int lastDate = NULL_INT;
+
+        void accept(long id, int date, long price) {
+            rowCount++;
+            if (date != NULL_INT) {
+                firstDate = Math.min(firstDate, date);
+                lastDate = Math.max(lastDate, date);
+            }
+            if (price == NULL_AMOUNT) {
+                return;
+            }
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+            if (price > 0) {
+                positivePriceCount++;
+                minPositivePrice = Math.min(minPositivePrice, price);
+                maxPositivePrice = Math.max(maxPositivePrice, price);
+                positivePriceSum += price;
+            }
+            offerLatest(price, date, id);
+        }
+
+        void combine(PriceSummary other) {
+            rowCount += other.rowCount;
+            firstDate = Math.min(firstDate, other.firstDate);
+            lastDate = Math.max(lastDate, other.lastDate);
+            minPrice = Math.min(minPrice, other.minPrice);
+            maxPrice = Math.max(maxPrice, other.maxPrice);
+            positivePriceCount += other.positivePriceCount;
+            minPositivePrice = Math.min(minPositivePrice, other.minPositivePrice);
+            maxPositivePrice = Math.max(maxPositivePrice, other.maxPositivePrice);
+            positivePriceSum += other.positivePriceSum;
+            if (other.latestPrice != NULL_AMOUNT) {
+                offerLatest(other.latestPrice, other.latestPriceDate, other.latestPriceId);
+            }
+        }
+
+        private void offerLatest(long price, int date, long id) {
+            // NULL_INT is the smallest int, so undated rows lose against dated ones
+            if (latestPrice == NULL_AMOUNT || date > latestPriceDate
+                    || (date == latestPriceDate && id > latestPriceId)) {
+                latestPrice = price;
+                latestPriceDate = date;
+                latestPriceId = id;
+            }
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public boolean hasPrice() {
+            return latestPrice != NULL_AMOUNT;
+        }
+
+        public long getMinPrice() {
+            return hasPrice() ? minPrice : NULL_AMOUNT;
+        }
+
+        public long getMaxPrice() {
+            return hasPrice() ? maxPrice : NULL_AMOUNT;
+        }
+
+        public long getLatestPrice() {
+            return latestPrice;
+        }
+
+        public int getLatestPriceDate() {
+            return hasPrice() ? latestPriceDate : NULL_INT;
+        }
+
+        public long getLatestPriceId() {
+            return latestPriceId;
+        }
+
+        public int getPositivePriceCount() {
+            return positivePriceCount;
+        }
+
+        public long getMinPositivePrice() {
+            return positivePriceCount > 0 ? minPositivePrice : NULL_AMOUNT;
+        }
+
+        public long getMaxPositivePrice() {
+            return positivePriceCount > 0 ? maxPositivePrice : NULL_AMOUNT;
+        }
+
+        /**
+         * Sum of the prices > 0 in fixed-point units.
+         */
+        public long getPositivePriceSum() {
+            return positivePriceSum;
+        }
+
+        public int getFirstDate() {
+            return rowCount > 0 && firstDate != Integer.MAX_VALUE ? firstDate : NULL_INT;
+        }
+
+        public int getLastDate() {
+            return lastDate;
+        }
+    }
+}
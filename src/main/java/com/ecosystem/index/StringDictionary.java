@@ -0,0 +1,61 @@
+package com.ecosystem.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only dictionary encoding of strings to dense int codes. Null is encoded as {@link #NULL_CODE}.
+ */
+public final class StringDictionary {
+
+    public static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private long valueChars;
+
+    /**
+     * Code of the value, adding it when it is new.
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+            valueChars += value.length();
+        }
+        return code;
+    }
+
+    /**
+     * Code of the value, or {@link #NULL_CODE} when it is not in the dictionary.
+     */
+    public int lookup(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Approximate heap size in bytes (strings are counted once, shared by the map and the list).
+     */
+    public long memoryBytes() {
+        return 64L * values.size() + 2L * valueChars;
+    }
+}
@@ -0,0 +1,326 @@
+package com.ecosystem.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable prefix index for typeahead: weighted terms (distinct field values) that are looked
+ * up by the prefix of their normalized text or of one of their words.
+ *
+ * Every term is normalized once; its keys are the normalized text from the start and from each
+ * following word start, stored as (term, offset) pairs sorted by the text they point at, so no
+ * key string is materialized. A prefix is a contiguous key range found by binary search. A
+ * segment tree over the keys holds the position of the heaviest key of each node, so the top
+ * k terms of a range come out of a small heap in O(k log n) however many keys match, which
+ * keeps short prefixes as cheap as long ones.
+ */
+public final class SuggestIndex {
+
+    // Word starts after the first that get their own key; longer values are only found by their first words
+    private static final int MAX_WORD_STARTS = 8;
+    private static final int MIN_WORD_LENGTH = 2;
+
+    private final String[] texts;
+    private final String[] normalized;
+    private final byte[] fields;
+    private final long[] weights;
+    private final int[] keyTerms;
+    private final int[] keyOffsets;
+    // Segment tree of key positions, leaves at [leaves, 2 * leaves); -1 for empty leaves
+    private final int[] tree;
+    private final int leaves;
+
+    private SuggestIndex(String[] texts, String[] normalized, byte[] fields, long[] weights,
+                         int[] keyTerms, int[] keyOffsets) {
+        this.texts = texts;
+        this.normalized = normalized;
+        this.fields = fields;
+        this.weights = weights;
+        this.keyTerms = keyTerms;
+        this.keyOffsets = keyOffsets;
+        this.leaves = Integer.highestOneBit(Math.max(1, keyTerms.length - 1)) << 1;
+        this.tree = new int[2 * leaves];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < keyTerms.length; i++) {
+            tree[leaves + i] = i;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    public static SuggestIndex empty() {
+        return new Builder().build();
+    }
+
+    /**
+     * Lower-case, strip accents (like {@link TrigramIndex#normalize}) and collapse whitespace.
+     */
+    public static String normalize(String value) {
+        String lower = TrigramIndex.normalize(value).trim();
+        StringBuilder out = new StringBuilder(lower.length());
+        boolean space = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                out.append(' ');
+                space = false;
+            }
+            out.append(c);
+        }
+        return out.toString();
+    }
+
+    /**
+     * The k heaviest terms with a key starting with the normalized prefix, heaviest first; each
+     * term at most once.
+     */
+    public List<Suggestion> complete(String prefix, int k) {
+        String p = normalize(prefix);
+        if (p.isEmpty() || k <= 0 || keyTerms.length == 0) {
+            return Collections.emptyList();
+        }
+        int from = lowerBound(p, false);
+        int to = lowerBound(p, true);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+
+        // Heap entries: {key position, range start, range end}, heaviest key first
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compareKeys(b[0], a[0]));
+        ranges.add(new int[]{heaviest(from, to), from, to});
+        List<Suggestion> result = new ArrayList<>(k);
+        Set<Integer> seen = new HashSet<>();
+        while (result.size() < k && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int position = range[0];
+            int term = keyTerms[position];
+            if (seen.add(term)) {
+                result.add(new Suggestion(texts[term], fields[term], weights[term]));
+            }
+            if (range[1] < position) {
+                ranges.add(new int[]{heaviest(range[1], position), range[1], position});
+            }
+            if (position + 1 < range[2]) {
+                ranges.add(new int[]{heaviest(position + 1, range[2]), position + 1, range[2]});
+            }
+        }
+        return result;
+    }
+
+    public int getTermCount() {
+        return texts.length;
+    }
+
+    public int getKeyCount() {
+        return keyTerms.length;
+    }
+
+    /**
+     * Approximate heap size in bytes.
+     */
+    public long memoryBytes() {
+        long bytes = 4L * tree.length + 8L * keyTerms.length + 9L * texts.length;
+        for (int i = 0; i < texts.length; i++) {
+            // The normalized string is shared with the text when they are equal
+            bytes += 48L + 2L * texts[i].length() + (normalized[i] == texts[i] ? 0 : 48L + 2L * normalized[i].length());
+        }
+        return bytes;
+    }
+
+    // First key position whose text is >= p (orAfter: > p) when compared on the first p.length() chars
+    private int lowerBound(String p, boolean orAfter) {
+        int lo = 0;
+        int hi = keyTerms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePrefix(mid, p);
+            if (cmp < 0 || (orAfter && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int comparePrefix(int position, String p) {
+        String s = normalized[keyTerms[position]];
+        int offset = keyOffsets[position];
+        int n = Math.min(s.length() - offset, p.length());
+        for (int i = 0; i < n; i++) {
+            int cmp = Character.compare(s.charAt(offset + i), p.charAt(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        // A key shorter than the prefix sorts before it
+        return n < p.length() ? -1 : 0;
+    }
+
+    // Position of the heaviest key in [from, to)
+    private int heaviest(int from, int to) {
+        int best = -1;
+        for (int lo = from + leaves, hi = to + leaves; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                best = heavier(best, tree[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                best = heavier(best, tree[--hi]);
+            }
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return compareKeys(a, b) >= 0 ? a : b;
+    }
+
+    // Higher weight first, then the earlier key (alphabetical)
+    private int compareKeys(int a, int b) {
+        int cmp = Long.compare(weights[keyTerms[a]], weights[keyTerms[b]]);
+        return cmp != 0 ? cmp : Integer.compare(b, a);
+    }
+
+    public static final class Suggestion {
+        private final String text;
+        private final int field;
+        private final long weight;
+
+        public Suggestion(String text, int field, long weight) {
+            this.text = text;
+            this.field = field;
+            this.weight = weight;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getField() {
+            return field;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Accumulates weights per (field, normalized value); the display text is the first spelling
+     * added. Not thread-safe.
+     */
+    public static final class Builder {
+        // Per field: raw value -> term, so repeated values are not normalized again
+        private final List<Map<String, Term>> byValue = new ArrayList<>();
+        private final List<Map<String, Term>> byNormalized = new ArrayList<>();
+        private final List<Term> terms = new ArrayList<>();
+
+        public void add(int field, String value, long weight) {
+            if (value == null || field < 0 || field > Byte.MAX_VALUE) {
+                return;
+            }
+            while (byValue.size() <= field) {
+                byValue.add(new HashMap<>());
+                byNormalized.add(new HashMap<>());
+            }
+            Term term = byValue.get(field).get(value);
+            if (term == null) {
+                String norm = normalize(value);
+                if (norm.isEmpty()) {
+                    return;
+                }
+                term = byNormalized.get(field).get(norm);
+                if (term == null) {
+                    term = new Term(value.trim(), norm, field);
+                    byNormalized.get(field).put(norm, term);
+                    terms.add(term);
+                }
+                byValue.get(field).put(value, term);
+            }
+            term.weight += weight;
+        }
+
+        public int size() {
+            return terms.size();
+        }
+
+        public SuggestIndex build() {
+            int n = terms.size();
+            String[] texts = new String[n];
+            String[] normalized = new String[n];
+            byte[] fields = new byte[n];
+            long[] weights = new long[n];
+            List<long[]> keys = new ArrayList<>(n * 2);
+            int i = 0;
+            for (Term term : terms) {
+                texts[i] = term.text;
+                normalized[i] = term.normalized.equals(term.text) ? term.text : term.normalized;
+                fields[i] = (byte) term.field;
+                weights[i] = term.weight;
+                keys.add(new long[]{i, 0});
+                int starts = 0;
+                String norm = normalized[i];
+                for (int c = 1; c < norm.length() && starts < MAX_WORD_STARTS; c++) {
+                    if (norm.charAt(c - 1) == ' ' && norm.length() - c >= MIN_WORD_LENGTH) {
+                        keys.add(new long[]{i, c});
+                        starts++;
+                    }
+                }
+                i++;
+            }
+            keys.sort((a, b) -> compareRegions(normalized[(int) a[0]], (int) a[1],
+                    normalized[(int) b[0]], (int) b[1]));
+            int[] keyTerms = new int[keys.size()];
+            int[] keyOffsets = new int[keys.size()];
+            for (int k = 0; k < keys.size(); k++) {
+                keyTerms[k] = (int) keys.get(k)[0];
+                keyOffsets[k] = (int) keys.get(k)[1];
+            }
+            return new SuggestIndex(texts, normalized, fields, weights, keyTerms, keyOffsets);
+        }
+
+        private static int compareRegions(String a, int offsetA, String b, int offsetB) {
+            int lengthA = a.length() - offsetA;
+            int lengthB = b.length() - offsetB;
+            int n = Math.min(lengthA, lengthB);
+            for (int i = 0; i < n; i++) {
+                int cmp = Character.compare(a.charAt(offsetA + i), b.charAt(offsetB + i));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(lengthA, lengthB);
+        }
+    }
+
+    private static final class Term {
+        private final String text;
+        private final String normalized;
+        private final int field;
+        private long weight;
+
+        Term(String text, String normalized, int field) {
+            this.text = text;
+            this.normalized = normalized;
+            this.field = field;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.ecosystem.index;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable trigram inverted index: for every trigram (three consecutive characters of a
+ * normalized field value) the sorted ids of the documents containing it. Posting lists are
+ * stored delta + varint encoded, so dense lists cost about one byte per document.
+ *
+ * A document contains a substring only if it contains every trigram of that substring, so the
+ * intersection of those posting lists is a superset of the matches and has to be verified.
+ */
+public final class TrigramIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int[] EMPTY = new int[0];
+
+    private final LongIntHashMap dictionary;
+    private final byte[][] postings;
+    private final int[] documentFrequencies;
+    private final int documentCount;
+
+    private TrigramIndex(LongIntHashMap dictionary, byte[][] postings, int[] documentFrequencies,
+                         int documentCount) {
+        this.dictionary = dictionary;
+        this.postings = postings;
+        this.documentFrequencies = documentFrequencies;
+        this.documentCount = documentCount;
+    }
+
+    public static TrigramIndex empty() {
+        return new Builder().build();
+    }
+
+    /**
+     * Lower-case and strip accents, mirroring MySQL's case- and accent-insensitive LIKE.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (Normalizer.isNormalized(lower, Normalizer.Form.NFD)) {
+            return lower;
+        }
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Distinct trigrams of a normalized value; empty when it is shorter than three characters.
+     */
+    public static long[] trigrams(String normalized) {
+        int n = normalized.length() - 2;
+        if (n <= 0) {
+            return new long[0];
+        }
+        long[] grams = new long[n];
+        for (int i = 0; i < n; i++) {
+            grams[i] = pack(normalized.charAt(i), normalized.charAt(i + 1), normalized.charAt(i + 2));
+        }
+        return distinct(grams, n);
+    }
+
+    /**
+     * Add the trigrams of a normalized value to a per-document accumulator.
+     */
+    public static void collectTrigrams(String normalized, LongArrayAccumulator into) {
+        for (int i = 0; i + 2 < normalized.length(); i++) {
+            into.add(pack(normalized.charAt(i), normalized.charAt(i + 1), normalized.charAt(i + 2)));
+        }
+    }
+
+    static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    static long[] distinct(long[] values, int length) {
+        long[] sorted = Arrays.copyOf(values, length);
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+
+    /**
+     * Sorted document ids containing the trigram.
+     */
+    public int[] postings(long trigram) {
+        int slot = dictionary.get(trigram, -1);
+        if (slot < 0) {
+            return EMPTY;
+        }
+        return PostingListCodec.decode(postings[slot], documentFrequencies[slot]);
+    }
+
+    /**
+     * The subset of the sorted candidates that contain the trigram.
+     */
+    public int[] intersectPostings(long trigram, int[] candidates) {
+        int slot = dictionary.get(trigram, -1);
+        if (slot < 0) {
+            return EMPTY;
+        }
+        return PostingListCodec.intersectEncoded(candidates, postings[slot], documentFrequencies[slot]);
+    }
+
+    public int documentFrequency(long trigram) {
+        int slot = dictionary.get(trigram, -1);
+        return slot < 0 ? 0 : documentFrequencies[slot];
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getTrigramCount() {
+        return dictionary.size();
+    }
+
+    /**
+     * Approximate heap size in bytes (dictionary, posting bytes and per-trigram arrays).
+     */
+    public long memoryBytes() {
+        long bytes = dictionary.memoryBytes() + 16L + 8L * postings.length + 4L * documentFrequencies.length;
+        for (byte[] posting : postings) {
+            bytes += 16L + posting.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Streaming builder. Documents must be added in ascending id order, which lets each posting
+     * list be encoded incrementally without ever materializing it as an int array.
+     */
+    public static final class Builder {
+
+        private final LongIntHashMap dictionary = new LongIntHashMap(1 << 16);
+        private byte[][] buffers = new byte[1 << 12][];
+        private int[] lengths = new int[1 << 12];
+        private int[] lastIds = new int[1 << 12];
+        private int[] frequencies = new int[1 << 12];
+        private int slots;
+        private int documentCount;
+        private int lastDocumentId = -1;
+
+        /**
+         * @param documentId   id greater than every previously added id
+         * @param docTrigrams  distinct trigrams of the document
+         */
+        public void add(int documentId, long[] docTrigrams) {
+            if (documentId <= lastDocumentId) {
+                throw new IllegalArgumentException("Document ids must be added in ascending order");
+            }
+            lastDocumentId = documentId;
+            documentCount++;
+            for (long trigram : docTrigrams) {
+                int slot = dictionary.get(trigram, -1);
+                if (slot < 0) {
+                    slot = newSlot();
+                    dictionary.put(trigram, slot);
+                }
+                append(slot, documentId - lastIds[slot]);
+                lastIds[slot] = documentId;
+                frequencies[slot]++;
+            }
+        }
+
+        public TrigramIndex build() {
+            byte[][] postings = new byte[slots][];
+            for (int i = 0; i < slots; i++) {
+                postings[i] = Arrays.copyOf(buffers[i], lengths[i]);
+                buffers[i] = null;
+            }
+            return new TrigramIndex(dictionary, postings, Arrays.copyOf(frequencies, slots), documentCount);
+        }
+
+        private int newSlot() {
+            if (slots == buffers.length) {
+                int capacity = slots << 1;
+                buffers = Arrays.copyOf(buffers, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                lastIds = Arrays.copyOf(lastIds, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+            }
+            buffers[slots] = new byte[8];
+            return slots++;
+        }
+
+        private void append(int slot, int delta) {
+            byte[] buffer = buffers[slot];
+            if (lengths[slot] + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+                buffers[slot] = buffer;
+            }
+            lengths[slot] = PostingListCodec.writeVarInt(buffer, lengths[slot], delta);
+        }
+    }
+
+    /**
+     * Reusable per-document trigram collector (avoids allocating per field).
+     */
+    public static final class LongArrayAccumulator {
+        private long[] values = new long[256];
+        private int size;
+
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public long[] distinct() {
+            return TrigramIndex.distinct(values, size);
+        }
+    }
+}
@@ -11,8 +11,11 @@ import java.util.Optional;
 public interface CartItemRepository extends JpaRepository<CartItem, String> {
     List<CartItem> findByUser_Id(String userId);
     // 修改为使用 Long 类型的 productId（对应 sales_data.id）
-    Optional<CartItem> findByUser_IdAndSalesData_Id(String userId, Long productId);
+    // 按 product_id 列查询，不经过只在分片 0 上解析的 salesData 关联
+    Optional<CartItem> findByUser_IdAndProductId(String userId, Long productId);
     void deleteByUser_Id(String userId);
     long countByUser_Id(String userId);
+    // sales_data 分区后 cart_items 不再有外键级联删除（V19）
+    void deleteByProductId(Long productId);
 }
 
@@ -0,0 +1,9 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.ItemPriceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ItemPriceStatsRepository extends JpaRepository<ItemPriceStats, String> {
+}
@@ -0,0 +1,81 @@
+package com.ecosystem.repository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset cursor of the product catalog: like {@link SalesDataCursor}, but the tie-breaker is
+ * the product_uid of product_master instead of a sales_data id.
+ */
+public final class ProductCatalogCursor {
+
+    private static final String VERSION = "p1";
+    private static final String SEPARATOR = "|";
+
+    private final SalesDataSort sort;
+    // LocalDate for NEWEST, BigDecimal for the price sorts; null when the last product had no value
+    private final Object lastKey;
+    private final String lastUid;
+
+    private ProductCatalogCursor(SalesDataSort sort, Object lastKey, String lastUid) {
+        this.sort = sort;
+        this.lastKey = lastKey;
+        this.lastUid = lastUid;
+    }
+
+    /**
+     * Build the cursor pointing after the given product.
+     */
+    public static ProductCatalogCursor after(ProductCatalogRepository.CatalogProduct product, SalesDataSort sort) {
+        Object key = sort == SalesDataSort.NEWEST ? product.getLatestDate() : product.getLatestPrice();
+        return new ProductCatalogCursor(sort, key, product.getProductUid());
+    }
+
+    public String encode() {
+        String key = lastKey == null ? "" : (lastKey instanceof BigDecimal
+                ? ((BigDecimal) lastKey).toPlainString() : lastKey.toString());
+        String raw = VERSION + SEPARATOR + sort.name() + SEPARATOR + key + SEPARATOR + lastUid;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token previously returned as nextCursor of the catalog.
+     *
+     * @throws RuntimeException if the token is malformed or was issued for a different sort order
+     */
+    public static ProductCatalogCursor decode(String token, SalesDataSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0]) || parts[3].isEmpty()) {
+                throw new IllegalArgumentException("unexpected format");
+            }
+            SalesDataSort sort = SalesDataSort.valueOf(parts[1]);
+            Object key = null;
+            if (!parts[2].isEmpty()) {
+                key = sort == SalesDataSort.NEWEST ? LocalDate.parse(parts[2]) : new BigDecimal(parts[2]);
+            }
+            if (sort != expectedSort) {
+                throw new RuntimeException("Cursor was issued for sort '" + sort.getParam()
+                        + "' and cannot be used with sort '" + expectedSort.getParam() + "'");
+            }
+            return new ProductCatalogCursor(sort, key, parts[3]);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new RuntimeException("Malformed pagination cursor");
+        }
+    }
+
+    public SalesDataSort getSort() {
+        return sort;
+    }
+
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public String getLastUid() {
+        return lastUid;
+    }
+}
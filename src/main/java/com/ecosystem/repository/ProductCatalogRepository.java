@@ -0,0 +1,162 @@
+package com.ecosystem.repository;
+
+import lombok.Data;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product-level catalog: one row per product of product_master (V17) with the price
+ * aggregates of its ItemCode from item_price_stats (V13), instead of one row per sales_data
+ * transaction. Near-duplicates mapped to another product in product_canonical_map (V18) are
+ * left out, so every product is listed once.
+ *
+ * Pages use keyset pagination on (sort key, product_uid) like the sales_data listings
+ * ({@link SalesDataQueryBuilder}): NEWEST sorts by the latest transaction date of the item,
+ * the price sorts by its latest price. Products whose item has no statistics yet have a NULL
+ * key, which MySQL sorts first ascending and last descending.
+ */
+@Repository
+public class ProductCatalogRepository {
+
+    private static final String FROM_WHERE =
+            "FROM ecoschema.product_master pm " +
+            "LEFT JOIN ecoschema.item_price_stats s ON s.item_code = pm.item_code " +
+            "WHERE NOT EXISTS (SELECT 1 FROM ecoschema.product_canonical_map m WHERE m.product_uid = pm.product_uid)";
+    private static final String SELECT_SQL =
+            "SELECT pm.product_uid, pm.last_tx_id, pm.item_code, pm.item_name, pm.product_hierarchy_3, " +
+            "pm.function_name, pm.item_type, pm.model, pm.material, pm.brand_code, " +
+            "s.latest_price, s.min_price, s.transaction_count, s.latest_date " + FROM_WHERE;
+    private static final String COUNT_SQL = "SELECT COUNT(*) " + FROM_WHERE;
+
+    private static final RowMapper<CatalogProduct> ROW_MAPPER = (rs, rowNum) -> {
+        CatalogProduct product = new CatalogProduct();
+        product.setProductUid(rs.getString("product_uid"));
+        long lastTxId = rs.getLong("last_tx_id");
+        product.setLastTxId(rs.wasNull() ? null : lastTxId);
+        product.setItemCode(rs.getString("item_code"));
+        product.setItemName(rs.getString("item_name"));
+        product.setProductHierarchy3(rs.getString("product_hierarchy_3"));
+        product.setFunctionName(rs.getString("function_name"));
+        product.setItemType(rs.getString("item_type"));
+        product.setModel(rs.getString("model"));
+        product.setMaterial(rs.getString("material"));
+        product.setBrandCode(rs.getString("brand_code"));
+        product.setLatestPrice(rs.getBigDecimal("latest_price"));
+        product.setMinPrice(rs.getBigDecimal("min_price"));
+        long transactionCount = rs.getLong("transaction_count");
+        product.setTransactionCount(rs.wasNull() ? 0L : transactionCount);
+        product.setLatestDate(rs.getObject("latest_date", LocalDate.class));
+        return product;
+    };
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public ProductCatalogRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * One page of products, optionally restricted to a Product Hierarchy 3 category (exact,
+     * case-insensitive by collation). The offset only applies without a cursor.
+     */
+    public ProductCatalogSlice findSlice(String category, SalesDataSort sort, ProductCatalogCursor cursor,
+                                         int offset, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        appendCategory(sql, parameters, category);
+        if (cursor != null) {
+            sql.append(" AND ").append(seekPredicate(sort, cursor.getLastKey() == null));
+            if (cursor.getLastKey() != null) {
+                parameters.addValue("lastKey", cursor.getLastKey());
+            }
+            parameters.addValue("lastUid", cursor.getLastUid());
+        }
+        String direction = sort.isAscending() ? "ASC" : "DESC";
+        sql.append(" ORDER BY ").append(sortKey(sort)).append(' ').append(direction)
+                .append(", pm.product_uid ").append(direction);
+        // One extra row tells whether there is a next page
+        sql.append(" LIMIT :limit");
+        parameters.addValue("limit", limit + 1);
+        if (cursor == null && offset > 0) {
+            sql.append(" OFFSET :offset");
+            parameters.addValue("offset", offset);
+        }
+
+        List<CatalogProduct> rows = namedParameterJdbcTemplate.query(sql.toString(), parameters, ROW_MAPPER);
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            nextCursor = ProductCatalogCursor.after(rows.get(limit - 1), sort).encode();
+        }
+        return new ProductCatalogSlice(rows, nextCursor);
+    }
+
+    /**
+     * Number of listed products, with the same category restriction as {@link #findSlice}.
+     */
+    public long count(String category) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(COUNT_SQL);
+        appendCategory(sql, parameters, category);
+        Long count = namedParameterJdbcTemplate.queryForObject(sql.toString(), parameters, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    private static void appendCategory(StringBuilder sql, MapSqlParameterSource parameters, String category) {
+        if (category != null) {
+            sql.append(" AND pm.product_hierarchy_3 = :category");
+            parameters.addValue("category", category);
+        }
+    }
+
+    private static String sortKey(SalesDataSort sort) {
+        return sort == SalesDataSort.NEWEST ? "s.latest_date" : "s.latest_price";
+    }
+
+    /**
+     * Products strictly after (lastKey, lastUid), with the NULL placement of
+     * {@link SalesDataQueryBuilder}'s seek predicate.
+     */
+    private static String seekPredicate(SalesDataSort sort, boolean lastKeyIsNull) {
+        String key = sortKey(sort);
+        if (sort.isAscending()) {
+            return lastKeyIsNull
+                    ? "((" + key + " IS NULL AND pm.product_uid > :lastUid) OR " + key + " IS NOT NULL)"
+                    : "(" + key + " > :lastKey OR (" + key + " = :lastKey AND pm.product_uid > :lastUid))";
+        }
+        return lastKeyIsNull
+                ? "(" + key + " IS NULL AND pm.product_uid < :lastUid)"
+                : "(" + key + " < :lastKey OR (" + key + " = :lastKey AND pm.product_uid < :lastUid) OR "
+                        + key + " IS NULL)";
+    }
+
+    /**
+     * A product_master row with the statistics of its ItemCode; the statistics are null (count 0)
+     * while item_price_stats has no row for the item.
+     */
+    @Data
+    public static class CatalogProduct {
+        private String productUid;
+        // sales_data.id of the newest transaction of the product
+        private Long lastTxId;
+        private String itemCode;
+        private String itemName;
+        private String productHierarchy3;
+        private String functionName;
+        private String itemType;
+        private String model;
+        private String material;
+        private String brandCode;
+        private BigDecimal latestPrice;
+        private BigDecimal minPrice;
+        private long transactionCount;
+        private LocalDate latestDate;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecosystem.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of the product catalog plus the keyset cursor of the following page.
+ */
+@Data
+@AllArgsConstructor
+public class ProductCatalogSlice {
+    private List<ProductCatalogRepository.CatalogProduct> rows;
+    // null when this is the last page
+    private String nextCursor;
+}
@@ -0,0 +1,252 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+import com.ecosystem.index.ColdSegment;
+import com.ecosystem.index.SalesDataColumns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Read side of the cold tier: the {@link ColdSegment} files in
+ * {@code sales-data.cold-storage.directory}, holding sales_data rows that were archived out of
+ * the table (see SalesDataColdStorageService). Rows are returned as detached SalesData
+ * entities; they are read-only and cannot be saved back.
+ *
+ * Segments are mapped at startup and whenever the archival job registers a new one; the list
+ * is replaced copy-on-write, so readers never lock.
+ */
+@Slf4j
+@Component
+public class SalesDataColdStore {
+
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final boolean enabled;
+    private volatile List<ColdSegment> segments = Collections.emptyList();
+
+    public SalesDataColdStore(@Value("${sales-data.cold-storage.enabled:true}") boolean enabled,
+                              @Value("${sales-data.cold-storage.directory:data/cold-storage}") String directory) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        if (enabled) {
+            load();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<ColdSegment> getSegments() {
+        return segments;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Map a segment written by the archival job and include it in queries.
+     */
+    public synchronized void register(Path path) throws IOException {
+        ColdSegment segment = ColdSegment.open(path);
+        List<ColdSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        segments = Collections.unmodifiableList(updated);
+        log.info("Registered cold segment {} ({} rows)", path.getFileName(), segment.getRowCount());
+    }
+
+    /**
+     * Newest transaction date in the cold tier, null when it holds no dated row.
+     */
+    public LocalDate getNewestDate() {
+        int newest = SalesDataColumns.NULL_INT;
+        for (ColdSegment segment : segments) {
+            newest = Math.max(newest, segment.getMaxDate());
+        }
+        return newest == SalesDataColumns.NULL_INT ? null : SalesDataColumns.decodeDate(newest);
+    }
+
+    /**
+     * Whether a query over [minDate, maxDate] (yyyy-MM-dd, null = unbounded) can match cold rows.
+     */
+    public boolean overlaps(String minDate, String maxDate) {
+        if (segments.isEmpty()) {
+            return false;
+        }
+        int from = parseDate(minDate);
+        int to = parseDate(maxDate);
+        for (ColdSegment segment : segments) {
+            if (segment.getMaxDate() == SalesDataColumns.NULL_INT) {
+                // Only undated rows: they match when no date bound is set
+                if (minDate == null && maxDate == null) {
+                    return true;
+                }
+                continue;
+            }
+            if ((from == SalesDataColumns.NULL_INT || segment.getMaxDate() >= from)
+                    && (to == SalesDataColumns.NULL_INT || segment.getMinDate() <= to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Archived rows of the item (ItemCode compared case-insensitively, trailing spaces ignored).
+     */
+    public List<SalesData> findByItemCode(String itemCode) {
+        List<SalesData> rows = new ArrayList<>();
+        if (itemCode == null) {
+            return rows;
+        }
+        String key = ColdSegment.itemKey(itemCode);
+        for (ColdSegment segment : segments) {
+            segment.scan(key, SalesDataColumns.NULL_INT, SalesDataColumns.NULL_INT,
+                    (group, row) -> rows.add(toSalesData(group, row)));
+        }
+        return rows;
+    }
+
+    /**
+     * Pass the archived rows within the date bounds (yyyy-MM-dd, null = unbounded) that match the
+     * predicate to the consumer.
+     */
+    public void scan(String minDate, String maxDate, Predicate<SalesData> predicate, Consumer<SalesData> consumer) {
+        int from = parseDate(minDate);
+        int to = parseDate(maxDate);
+        for (ColdSegment segment : segments) {
+            segment.scan(null, from, to, (group, row) -> {
+                SalesData data = toSalesData(group, row);
+                if (predicate.test(data)) {
+                    consumer.accept(data);
+                }
+            });
+        }
+    }
+
+    /**
+     * TXP1 / date aggregates of the item's archived rows, computed on the compressed columns
+     * without building entities.
+     */
+    public SalesDataColumns.PriceSummary summarizeItem(String itemCode) {
+        SalesDataColumns.PriceSummary summary = new SalesDataColumns.PriceSummary();
+        if (itemCode != null) {
+            String key = ColdSegment.itemKey(itemCode);
+            for (ColdSegment segment : segments) {
+                segment.summarizeItem(key, summary);
+            }
+        }
+        return summary;
+    }
+
+    public long getRowCount() {
+        long rows = 0;
+        for (ColdSegment segment : segments) {
+            rows += segment.getRowCount();
+        }
+        return rows;
+    }
+
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (ColdSegment segment : segments) {
+            bytes += segment.getSizeBytes();
+        }
+        return bytes;
+    }
+
+    private void load() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<ColdSegment> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    loaded.add(ColdSegment.open(file));
+                } catch (IOException e) {
+                    // An incomplete file from an interrupted run; the archive table still has the rows
+                    log.warn("Skipping unreadable cold segment {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list cold segments in {}", directory, e);
+        }
+        segments = Collections.unmodifiableList(loaded);
+        log.info("Loaded {} cold segments ({} rows) from {}", loaded.size(), getRowCount(), directory);
+    }
+
+    private static SalesData toSalesData(ColdSegment.RowGroup group, int row) {
+        SalesData data = new SalesData();
+        data.setId(group.number(ColdSegment.ID, row));
+        String[] values = new String[ColdSegment.STRING_COLUMNS.length];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = group.string(c, row);
+        }
+        data.setTxNo(values[0]);
+        data.setTxDate(values[1]);
+        data.setTxQty(values[2]);
+        data.setTxP1(values[3]);
+        data.setBuyerCode(values[4]);
+        data.setBuyerName(values[5]);
+        data.setItemCode(values[6]);
+        data.setItemName(values[7]);
+        data.setProductHierarchy3(values[8]);
+        data.setFunction(values[9]);
+        data.setItemType(values[10]);
+        data.setModel(values[11]);
+        data.setPerformance(values[12]);
+        data.setPerformance1(values[13]);
+        data.setMaterial(values[14]);
+        data.setUom(values[15]);
+        data.setBrandCode(values[16]);
+        data.setUnitCost(values[17]);
+        data.setSector(values[18]);
+        data.setSubSector(values[19]);
+        data.setValue(values[20]);
+        data.setRationale(values[21]);
+        data.setWww(values[22]);
+        data.setSource(values[23]);
+
+        int date = (int) group.number(ColdSegment.TX_DATE, row);
+        data.setTxDateTyped(date == SalesDataColumns.NULL_INT ? null : SalesDataColumns.decodeDate(date));
+        int qty = (int) group.number(ColdSegment.TX_QTY, row);
+        data.setTxQtyTyped(qty == SalesDataColumns.NULL_INT ? null : qty);
+        data.setTxP1Typed(SalesDataColumns.decodeAmount(group.number(ColdSegment.TXP1, row)));
+        data.setUnitCostTyped(SalesDataColumns.decodeAmount(group.number(ColdSegment.UNIT_COST, row)));
+        data.setValueTyped(SalesDataColumns.decodeAmount(group.number(ColdSegment.VALUE, row)));
+        return data;
+    }
+
+    // yyyy-MM-dd as epoch day; NULL_INT (unbounded) when absent or not a date
+    private static int parseDate(String date) {
+        if (date == null) {
+            return SalesDataColumns.NULL_INT;
+        }
+        try {
+            return SalesDataColumns.encodeDate(LocalDate.parse(date.trim()));
+        } catch (DateTimeParseException e) {
+            return SalesDataColumns.NULL_INT;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor: the sort order plus the sort key and id of the last row
+ * of the previous page. Serialized as URL-safe Base64 so clients can pass it back unchanged.
+ */
+public final class SalesDataCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final SalesDataSort sort;
+    // LocalDate for NEWEST, BigDecimal for the price sorts; null when the last row had no value
+    private final Object lastKey;
+    private final long lastId;
+
+    private SalesDataCursor(SalesDataSort sort, Object lastKey, long lastId) {
+        this.sort = sort;
+        this.lastKey = lastKey;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Build the cursor pointing after the given row.
+     */
+    public static SalesDataCursor after(SalesData row, SalesDataSort sort) {
+        Object key = sort == SalesDataSort.NEWEST ? row.getTxDateTyped() : row.getTxP1Typed();
+        return new SalesDataCursor(sort, key, row.getId());
+    }
+
+    public String encode() {
+        String key = lastKey == null ? "" : (lastKey instanceof BigDecimal
+                ? ((BigDecimal) lastKey).toPlainString() : lastKey.toString());
+        String raw = VERSION + SEPARATOR + sort.name() + SEPARATOR + key + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token previously returned as nextCursor.
+     *
+     * @throws RuntimeException if the token is malformed or was issued for a different sort order
+     */
+    public static SalesDataCursor decode(String token, SalesDataSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("unexpected format");
+            }
+            SalesDataSort sort = SalesDataSort.valueOf(parts[1]);
+            Object key = null;
+            if (!parts[2].isEmpty()) {
+                key = sort == SalesDataSort.NEWEST ? LocalDate.parse(parts[2]) : new BigDecimal(parts[2]);
+            }
+            long id = Long.parseLong(parts[3]);
+            if (sort != expectedSort) {
+                throw new RuntimeException("Cursor was issued for sort '" + sort.getParam()
+                        + "' and cannot be used with sort '" + expectedSort.getParam() + "'");
+            }
+            return new SalesDataCursor(sort, key, id);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new RuntimeException("Malformed pagination cursor");
+        }
+    }
+
+    public SalesDataSort getSort() {
+        return sort;
+    }
+
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+}
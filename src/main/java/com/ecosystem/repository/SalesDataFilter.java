@@ -0,0 +1,58 @@
+package com.ecosystem.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Filter parameters of a sales_data listing. Null fields are not applied.
+ * String filters are case-insensitive substring matches, except categoryExact.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDataFilter {
+    private String minDate;
+    private String maxDate;
+    private String txNo;
+    private Integer minQty;
+    private Integer maxQty;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal minValue;
+    private BigDecimal maxValue;
+    private String buyerCode;
+    // Exact match on BuyerCode; routes the query to the buyer's shard only (see SalesDataShardRouter)
+    private String buyerCodeExact;
+    private String buyerName;
+    private String itemCode;
+    private String itemName;
+    private String productHierarchy3;
+    private String itemType;
+    private String model;
+    private String material;
+    private String uom;
+    private String brandCode;
+    private String performance;
+    private String performance1;
+    private BigDecimal minUnitCost;
+    private BigDecimal maxUnitCost;
+    private String function;
+    private String sector;
+    private String subSector;
+    private String source;
+    private String category;
+    private String keyword;
+    // Exact match on `Product Hierarchy 3` or `Sector` (used by /buyer/products)
+    private String categoryExact;
+    // Sorted candidate ids from the keyword index; narrows the scan, the keyword predicate still applies
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private int[] candidateIds;
+}
@@ -0,0 +1,157 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory counterpart of {@link SalesDataQueryBuilder} for rows that are not in MySQL (the
+ * cold tier): the same filters as a predicate and the same ORDER BY as a comparator.
+ *
+ * Substring filters lower-case both sides like the LIKE patterns; categoryExact and
+ * buyerCodeExact ignore case and trailing spaces as the column collation does. Date bounds are
+ * not part of the predicate, the cold store applies them with its zone maps. Candidate ids from
+ * the keyword index only cover rows in sales_data and are ignored; the keyword predicate itself
+ * still applies.
+ */
+final class SalesDataFilterMatcher {
+
+    private SalesDataFilterMatcher() {
+    }
+
+    static Predicate<SalesData> forFilter(SalesDataFilter filter) {
+        List<Predicate<SalesData>> predicates = new ArrayList<>();
+        contains(predicates, SalesData::getTxNo, filter.getTxNo());
+        range(predicates, SalesData::getTxQtyTyped, filter.getMinQty(), filter.getMaxQty());
+        range(predicates, SalesData::getTxP1Typed, filter.getMinPrice(), filter.getMaxPrice());
+        range(predicates, SalesData::getValueTyped, filter.getMinValue(), filter.getMaxValue());
+        contains(predicates, SalesData::getBuyerCode, filter.getBuyerCode());
+        if (filter.getBuyerCodeExact() != null) {
+            String buyerCode = filter.getBuyerCodeExact();
+            predicates.add(row -> equalsIgnoreCasePadded(row.getBuyerCode(), buyerCode));
+        }
+        contains(predicates, SalesData::getBuyerName, filter.getBuyerName());
+        contains(predicates, SalesData::getItemCode, filter.getItemCode());
+        contains(predicates, SalesData::getItemName, filter.getItemName());
+        contains(predicates, SalesData::getProductHierarchy3, filter.getProductHierarchy3());
+        contains(predicates, SalesData::getItemType, filter.getItemType());
+        contains(predicates, SalesData::getModel, filter.getModel());
+        contains(predicates, SalesData::getMaterial, filter.getMaterial());
+        contains(predicates, SalesData::getUom, filter.getUom());
+        contains(predicates, SalesData::getBrandCode, filter.getBrandCode());
+        contains(predicates, SalesData::getPerformance, filter.getPerformance());
+        contains(predicates, SalesData::getPerformance1, filter.getPerformance1());
+        range(predicates, SalesData::getUnitCostTyped, filter.getMinUnitCost(), filter.getMaxUnitCost());
+        contains(predicates, SalesData::getFunction, filter.getFunction());
+        contains(predicates, SalesData::getSector, filter.getSector());
+        contains(predicates, SalesData::getSubSector, filter.getSubSector());
+        contains(predicates, SalesData::getSource, filter.getSource());
+
+        String category = filter.getCategory();
+        if (category != null && !"all".equals(category)) {
+            String needle = category.toLowerCase(Locale.ROOT);
+            predicates.add(row -> containsLower(row.getProductHierarchy3(), needle)
+                    || containsLower(row.getSector(), needle));
+        }
+        String categoryExact = filter.getCategoryExact();
+        if (categoryExact != null) {
+            predicates.add(row -> equalsIgnoreCasePadded(row.getProductHierarchy3(), categoryExact)
+                    || equalsIgnoreCasePadded(row.getSector(), categoryExact));
+        }
+        if (filter.getKeyword() != null) {
+            String needle = filter.getKeyword().toLowerCase(Locale.ROOT);
+            predicates.add(row -> containsLower(row.getItemName(), needle)
+                    || containsLower(row.getItemCode(), needle)
+                    || containsLower(row.getBuyerName(), needle)
+                    || containsLower(row.getBuyerCode(), needle)
+                    || containsLower(row.getProductHierarchy3(), needle)
+                    || containsLower(row.getFunction(), needle)
+                    || containsLower(row.getBrandCode(), needle)
+                    || containsLower(row.getModel(), needle)
+                    || containsLower(row.getItemType(), needle)
+                    || containsLower(row.getMaterial(), needle)
+                    || containsLower(row.getSector(), needle)
+                    || containsLower(row.getSubSector(), needle)
+                    || containsLower(row.getTxNo(), needle));
+        }
+        return row -> {
+            for (Predicate<SalesData> predicate : predicates) {
+                if (!predicate.test(row)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * {@link SalesDataQueryBuilder#orderBy} as a comparator: NULL keys first when ascending,
+     * last when descending, id as the tie-breaker in the same direction.
+     */
+    static Comparator<SalesData> order(SalesDataSort sort) {
+        return (a, b) -> compare(sort, sortKey(a, sort), a.getId(), sortKey(b, sort), b.getId());
+    }
+
+    /**
+     * True when the row comes strictly after the cursor position in {@link #order} order.
+     */
+    static boolean isAfter(SalesData row, SalesDataSort sort, SalesDataCursor cursor) {
+        return cursor == null
+                || compare(sort, sortKey(row, sort), row.getId(), cursor.getLastKey(), cursor.getLastId()) > 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(SalesDataSort sort, Object keyA, long idA, Object keyB, long idB) {
+        int cmp;
+        if (keyA == null || keyB == null) {
+            cmp = keyA == null ? (keyB == null ? 0 : -1) : 1;
+        } else {
+            cmp = ((Comparable) keyA).compareTo(keyB);
+        }
+        if (cmp == 0) {
+            cmp = Long.compare(idA, idB);
+        }
+        return sort.isAscending() ? cmp : -cmp;
+    }
+
+    private static Object sortKey(SalesData row, SalesDataSort sort) {
+        return sort == SalesDataSort.NEWEST ? row.getTxDateTyped() : row.getTxP1Typed();
+    }
+
+    private static void contains(List<Predicate<SalesData>> predicates, Function<SalesData, String> column,
+                                 String value) {
+        if (value != null) {
+            String needle = value.toLowerCase(Locale.ROOT);
+            predicates.add(row -> containsLower(column.apply(row), needle));
+        }
+    }
+
+    private static <T extends Comparable<? super T>> void range(List<Predicate<SalesData>> predicates,
+                                                                Function<SalesData, T> column, T min, T max) {
+        if (min != null) {
+            predicates.add(row -> {
+                T value = column.apply(row);
+                return value != null && value.compareTo(min) >= 0;
+            });
+        }
+        if (max != null) {
+            predicates.add(row -> {
+                T value = column.apply(row);
+                return value != null && value.compareTo(max) <= 0;
+            });
+        }
+    }
+
+    private static boolean containsLower(String value, String needle) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private static boolean equalsIgnoreCasePadded(String value, String expected) {
+        return value != null && value.stripTrailing().equalsIgnoreCase(expected.stripTrailing());
+    }
+}
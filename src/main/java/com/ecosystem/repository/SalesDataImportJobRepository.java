@@ -0,0 +1,16 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesDataImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SalesDataImportJobRepository extends JpaRepository<SalesDataImportJob, String> {
+
+    List<SalesDataImportJob> findByStatusInOrderByCreatedAtAsc(Collection<String> statuses);
+
+    List<SalesDataImportJob> findTop20ByUserIdOrderByCreatedAtDesc(String userId);
+}
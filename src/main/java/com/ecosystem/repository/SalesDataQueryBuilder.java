@@ -0,0 +1,252 @@
+package com.ecosystem.repository;
+
+import jakarta.persistence.Query;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Composes the WHERE clause of a sales_data listing from the filters that are actually set,
+ * so MySQL plans each query for its real predicates instead of ~30 "(:x IS NULL OR ...)" terms.
+ * Matching semantics are the same as SalesDataRepository.findAllWithFilters.
+ */
+public final class SalesDataQueryBuilder {
+
+    // Columns searched by the "keyword" filter
+    public static final String[] KEYWORD_COLUMNS = {
+            "ItemName", "ItemCode", "BuyerName", "BuyerCode", "Product Hierarchy 3", "Function",
+            "Brand Code", "Model", "ItemType", "Material", "Sector", "SubSector", "TXNo"
+    };
+
+    // Columns searched by SalesDataRepository.fullTextSearch
+    public static final String[] FULL_TEXT_COLUMNS = {
+            "ItemName", "ItemCode", "BuyerName", "BuyerCode", "Product Hierarchy 3", "Function",
+            "Brand Code", "Model", "ItemType", "Material", "Sector", "SubSector"
+    };
+
+    // Columns searched by SalesDataRepository.searchByMultipleKeywords
+    public static final String[] MULTI_KEYWORD_COLUMNS = {
+            "Function", "ItemType", "Model", "Performance", "Performance.1", "Material",
+            "Brand Code", "UOM", "ItemName", "ItemCode"
+    };
+
+    private final StringBuilder where = new StringBuilder("WHERE 1=1");
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    // Candidate id restriction from the keyword index; not part of the filter identity
+    private String idRestriction = "";
+
+    private SalesDataQueryBuilder() {
+    }
+
+    public static SalesDataQueryBuilder empty() {
+        return new SalesDataQueryBuilder();
+    }
+
+    public static SalesDataQueryBuilder forFilter(SalesDataFilter filter) {
+        SalesDataQueryBuilder builder = new SalesDataQueryBuilder();
+        builder.dateRange(filter.getMinDate(), filter.getMaxDate());
+        builder.contains("TXNo", "txNo", filter.getTxNo());
+        builder.range("tx_qty_typed", "Qty", filter.getMinQty(), filter.getMaxQty());
+        builder.range("txp1_typed", "Price", filter.getMinPrice(), filter.getMaxPrice());
+        builder.range("value_typed", "Value", filter.getMinValue(), filter.getMaxValue());
+        builder.contains("BuyerCode", "buyerCode", filter.getBuyerCode());
+        builder.equalsValue("BuyerCode", "buyerCodeExact", filter.getBuyerCodeExact());
+        builder.contains("BuyerName", "buyerName", filter.getBuyerName());
+        builder.contains("ItemCode", "itemCode", filter.getItemCode());
+        builder.contains("ItemName", "itemName", filter.getItemName());
+        builder.contains("Product Hierarchy 3", "productHierarchy3", filter.getProductHierarchy3());
+        builder.contains("ItemType", "itemType", filter.getItemType());
+        builder.contains("Model", "model", filter.getModel());
+        builder.contains("Material", "material", filter.getMaterial());
+        builder.contains("UOM", "uom", filter.getUom());
+        builder.contains("Brand Code", "brandCode", filter.getBrandCode());
+        builder.contains("Performance", "performance", filter.getPerformance());
+        builder.contains("Performance.1", "performance1", filter.getPerformance1());
+        builder.range("unit_cost_typed", "UnitCost", filter.getMinUnitCost(), filter.getMaxUnitCost());
+        builder.contains("Function", "function", filter.getFunction());
+        builder.contains("Sector", "sector", filter.getSector());
+        builder.contains("SubSector", "subSector", filter.getSubSector());
+        builder.contains("Source", "source", filter.getSource());
+        builder.category(filter.getCategory());
+        builder.categoryExact(filter.getCategoryExact());
+        builder.keyword(filter.getKeyword());
+        builder.restrictToIds(filter.getCandidateIds());
+        return builder;
+    }
+
+    /**
+     * Restrict to rows after the cursor position (keyset pagination).
+     */
+    public SalesDataQueryBuilder seekAfter(SalesDataSort sort, SalesDataCursor cursor) {
+        if (cursor != null) {
+            where.append(" AND ").append(seekPredicate(sort, cursor.getLastKey() == null));
+            if (cursor.getLastKey() != null) {
+                parameters.put("lastKey", cursor.getLastKey());
+            }
+            parameters.put("lastId", cursor.getLastId());
+        }
+        return this;
+    }
+
+    public String whereClause() {
+        return where + idRestriction;
+    }
+
+    /**
+     * True when no filter predicate was added.
+     */
+    public boolean isUnfiltered() {
+        return parameters.isEmpty();
+    }
+
+    /**
+     * Normalized identity of the composed filter: equal filters (after trimming, lower-casing of
+     * LIKE patterns and numeric scale) produce the same fingerprint.
+     */
+    public String fingerprint() {
+        StringBuilder sb = new StringBuilder(where);
+        parameters.forEach((name, value) -> sb.append('|').append(name).append('=')
+                .append(value instanceof BigDecimal ? ((BigDecimal) value).stripTrailingZeros().toPlainString() : value));
+        return sb.toString();
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    public void bind(Query query) {
+        parameters.forEach(query::setParameter);
+    }
+
+    /**
+     * ORDER BY for the sort; MySQL puts NULLs first in ascending and last in descending order.
+     */
+    public static String orderBy(SalesDataSort sort) {
+        String direction = sort.isAscending() ? "ASC" : "DESC";
+        return "ORDER BY `" + sort.getColumn() + "` " + direction + ", id " + direction;
+    }
+
+    /**
+     * Range condition selecting the rows strictly after (lastKey, lastId) in {@link #orderBy} order,
+     * taking the NULL placement of MySQL into account.
+     */
+    private static String seekPredicate(SalesDataSort sort, boolean lastKeyIsNull) {
+        String col = "`" + sort.getColumn() + "`";
+        if (sort.isAscending()) {
+            // NULLs first: after a NULL key come the remaining NULLs, then every non-NULL value
+            return lastKeyIsNull
+                    ? "((" + col + " IS NULL AND id > :lastId) OR " + col + " IS NOT NULL)"
+                    : "(" + col + " > :lastKey OR (" + col + " = :lastKey AND id > :lastId))";
+        }
+        // NULLs last: after a non-NULL key come smaller values, then the NULLs
+        return lastKeyIsNull
+                ? "(" + col + " IS NULL AND id < :lastId)"
+                : "(" + col + " < :lastKey OR (" + col + " = :lastKey AND id < :lastId) OR " + col + " IS NULL)";
+    }
+
+    /**
+     * Bounds are repeated on tx_partition_date, the partitioning column (V19), so MySQL only
+     * reads the partitions of the requested years; tx_date_typed keeps the NULL semantics.
+     */
+    private void dateRange(String minDate, String maxDate) {
+        if (minDate != null) {
+            where.append(" AND `tx_date_typed` >= STR_TO_DATE(:minDate, '%Y-%m-%d')")
+                    .append(" AND `tx_partition_date` >= STR_TO_DATE(:minDate, '%Y-%m-%d')");
+            parameters.put("minDate", minDate);
+        }
+        if (maxDate != null) {
+            where.append(" AND `tx_date_typed` <= STR_TO_DATE(:maxDate, '%Y-%m-%d')")
+                    .append(" AND `tx_partition_date` <= STR_TO_DATE(:maxDate, '%Y-%m-%d')");
+            parameters.put("maxDate", maxDate);
+        }
+    }
+
+    private void range(String column, String paramSuffix, Object min, Object max) {
+        if (min != null) {
+            where.append(" AND `").append(column).append("` >= :min").append(paramSuffix);
+            parameters.put("min" + paramSuffix, min);
+        }
+        if (max != null) {
+            where.append(" AND `").append(column).append("` <= :max").append(paramSuffix);
+            parameters.put("max" + paramSuffix, max);
+        }
+    }
+
+    private void contains(String column, String param, String value) {
+        if (value != null) {
+            where.append(" AND LOWER(`").append(column).append("`) LIKE :").append(param);
+            parameters.put(param, likePattern(value));
+        }
+    }
+
+    private void equalsValue(String column, String param, String value) {
+        if (value != null) {
+            where.append(" AND `").append(column).append("` = :").append(param);
+            parameters.put(param, value);
+        }
+    }
+
+    private void category(String category) {
+        if (category != null && !"all".equals(category)) {
+            where.append(" AND (LOWER(`Product Hierarchy 3`) LIKE :category OR LOWER(`Sector`) LIKE :category)");
+            parameters.put("category", likePattern(category));
+        }
+    }
+
+    private void categoryExact(String category) {
+        if (category != null) {
+            where.append(" AND (`Product Hierarchy 3` = :categoryExact OR `Sector` = :categoryExact)");
+            parameters.put("categoryExact", category);
+        }
+    }
+
+    private void keyword(String keyword) {
+        if (keyword != null) {
+            anyColumnContains(KEYWORD_COLUMNS, "keyword", keyword);
+        }
+    }
+
+    /**
+     * Require the value to be a substring of at least one of the columns.
+     */
+    public SalesDataQueryBuilder anyColumnContains(String[] columns, String param, String value) {
+        where.append(" AND (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                where.append(" OR ");
+            }
+            where.append("LOWER(`").append(columns[i]).append("`) LIKE :").append(param);
+        }
+        where.append(')');
+        parameters.put(param, likePattern(value));
+        return this;
+    }
+
+    /**
+     * Limit the rows to the given ids (candidates from the keyword index). The ids are inlined,
+     * they are ints and cannot carry SQL.
+     */
+    public SalesDataQueryBuilder restrictToIds(int[] ids) {
+        if (ids != null) {
+            if (ids.length == 0) {
+                idRestriction = " AND 1=0";
+            } else {
+                StringBuilder sb = new StringBuilder(" AND id IN (");
+                for (int i = 0; i < ids.length; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(ids[i]);
+                }
+                idRestriction = sb.append(')').toString();
+            }
+        }
+        return this;
+    }
+
+    private static String likePattern(String value) {
+        return "%" + value.toLowerCase(Locale.ROOT) + "%";
+    }
+}
@@ -9,10 +9,11 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
+public interface SalesDataRepository extends JpaRepository<SalesData, Long>, SalesDataRepositoryCustom {
 
        // Filter by category and sort by transaction date (using native SQL, explicitly
        // specifying column names)
@@ -20,10 +21,11 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE `Product Hierarchy 3` = :category OR `Sector` = :category " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC", nativeQuery = true)
+                     "ORDER BY `tx_date_typed` DESC", nativeQuery = true)
        Page<SalesData> findByCategoryOrderByTxDateDesc(@Param("category") String category, Pageable pageable);
 
        // Filter by category and sort by price ascending (using native SQL, explicitly
@@ -32,10 +34,11 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE `Product Hierarchy 3` = :category OR `Sector` = :category " +
-                     "ORDER BY CAST(`TXP1` AS DECIMAL(10,2)) ASC", nativeQuery = true)
+                     "ORDER BY `txp1_typed` ASC", nativeQuery = true)
        Page<SalesData> findByCategoryOrderByTxP1Asc(@Param("category") String category, Pageable pageable);
 
        // Filter by category and sort by price descending (using native SQL, explicitly
@@ -44,10 +47,11 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE `Product Hierarchy 3` = :category OR `Sector` = :category " +
-                     "ORDER BY CAST(`TXP1` AS DECIMAL(10,2)) DESC", nativeQuery = true)
+                     "ORDER BY `txp1_typed` DESC", nativeQuery = true)
        Page<SalesData> findByCategoryOrderByTxP1Desc(@Param("category") String category, Pageable pageable);
 
        // Sort by transaction date (using native SQL, explicitly specifying column
@@ -56,8 +60,9 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
-                     "FROM ecoschema.sales_data ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC", nativeQuery = true)
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
+                     "FROM ecoschema.sales_data ORDER BY `tx_date_typed` DESC", nativeQuery = true)
        Page<SalesData> findAllByOrderByTxDateDesc(Pageable pageable);
 
        // Sort by price ascending (using native SQL, explicitly specifying column
@@ -66,8 +71,9 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
-                     "FROM ecoschema.sales_data ORDER BY CAST(`TXP1` AS DECIMAL(10,2)) ASC", nativeQuery = true)
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
+                     "FROM ecoschema.sales_data ORDER BY `txp1_typed` ASC", nativeQuery = true)
        Page<SalesData> findAllByOrderByTxP1Asc(Pageable pageable);
 
        // Sort by price descending (using native SQL, explicitly specifying column
@@ -76,8 +82,9 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
-                     "FROM ecoschema.sales_data ORDER BY CAST(`TXP1` AS DECIMAL(10,2)) DESC", nativeQuery = true)
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
+                     "FROM ecoschema.sales_data ORDER BY `txp1_typed` DESC", nativeQuery = true)
        Page<SalesData> findAllByOrderByTxP1Desc(Pageable pageable);
 
        // Search by product name (using native SQL)
@@ -85,12 +92,13 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE LOWER(`ItemName`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                      "OR LOWER(`ItemCode`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                      "OR LOWER(`Model`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> searchByItemName(@Param("keyword") String keyword, @Param("limit") int limit);
 
@@ -101,10 +109,11 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE `ItemCode` = :itemCode " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC", nativeQuery = true)
+                     "ORDER BY `tx_date_typed` DESC", nativeQuery = true)
        List<SalesData> findByItemCode(@Param("itemCode") String itemCode);
 
        // 2. Fuzzy search by material name keyword (supports multiple keywords
@@ -113,11 +122,12 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE LOWER(`ItemName`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                      "   OR LOWER(`ItemName`) LIKE LOWER(CONCAT('%', REPLACE(:keyword, ' ', '%'), '%')) " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> searchByItemNameKeyword(@Param("keyword") String keyword, @Param("limit") int limit);
 
@@ -127,10 +137,11 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE LOWER(TRIM(`Product Hierarchy 3`)) = LOWER(TRIM(:productHierarchy3)) " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> findByProductHierarchy3(@Param("productHierarchy3") String productHierarchy3,
                      @Param("limit") int limit);
@@ -140,10 +151,11 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE LOWER(`Function`) = LOWER(:function) " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> findByFunction(@Param("function") String function, @Param("limit") int limit);
 
@@ -152,21 +164,24 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE `Brand Code` = :brandCode " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> findByBrandCode(@Param("brandCode") String brandCode, @Param("limit") int limit);
 
        // 6. Combined criteria search (supports Unit Cost and TXP1 price fields, fuzzy
        // matching for buyer name and category)
        // 注意：暂时不包含 TXP2, Bundled, Origin（如果数据库中没有这些字段）
+       // Date bounds are repeated on tx_partition_date for partition pruning (V19)
        @Query(value = "SELECT id, `TXNo`, `TXDate`, `TXQty`, `TXP1`, `BuyerCode`, `BuyerName`, `ItemCode`, `ItemName`, "
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE (:itemNameKeyword IS NULL OR LOWER(`ItemName`) LIKE LOWER(CONCAT('%', :itemNameKeyword, '%'))) "
                      +
@@ -176,15 +191,19 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      "AND (:brandCode IS NULL OR LOWER(`Brand Code`) LIKE LOWER(CONCAT('%', :brandCode, '%'))) " +
                      "AND (:buyerName IS NULL OR LOWER(`BuyerName`) LIKE LOWER(CONCAT('%', :buyerName, '%'))) " +
                      "AND (:buyerCode IS NULL OR LOWER(`BuyerCode`) LIKE LOWER(CONCAT('%', :buyerCode, '%'))) " +
-                     "AND (:minPrice IS NULL OR CAST(`Unit Cost` AS DECIMAL(10,4)) >= :minPrice OR CAST(`TXP1` AS DECIMAL(10,2)) >= :minPrice) "
+                     "AND (:minPrice IS NULL OR `unit_cost_typed` >= :minPrice OR `txp1_typed` >= :minPrice) "
                      +
-                     "AND (:maxPrice IS NULL OR CAST(`Unit Cost` AS DECIMAL(10,4)) <= :maxPrice OR CAST(`TXP1` AS DECIMAL(10,2)) <= :maxPrice) "
+                     "AND (:maxPrice IS NULL OR `unit_cost_typed` <= :maxPrice OR `txp1_typed` <= :maxPrice) "
                      +
-                     "AND (:startDate IS NULL OR STR_TO_DATE(`TXDate`, '%Y-%m-%d') >= STR_TO_DATE(:startDate, '%Y-%m-%d')) "
+                     "AND (:startDate IS NULL OR `tx_date_typed` >= STR_TO_DATE(:startDate, '%Y-%m-%d')) "
                      +
-                     "AND (:endDate IS NULL OR STR_TO_DATE(`TXDate`, '%Y-%m-%d') <= STR_TO_DATE(:endDate, '%Y-%m-%d')) "
+                     "AND (:startDate IS NULL OR `tx_partition_date` >= STR_TO_DATE(:startDate, '%Y-%m-%d')) "
                      +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "AND (:endDate IS NULL OR `tx_date_typed` <= STR_TO_DATE(:endDate, '%Y-%m-%d')) "
+                     +
+                     "AND (:endDate IS NULL OR `tx_partition_date` <= STR_TO_DATE(:endDate, '%Y-%m-%d')) "
+                     +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> searchByCombinedCriteria(
                      @Param("itemNameKeyword") String itemNameKeyword,
@@ -206,7 +225,8 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE (:keyword1 IS NULL OR " +
                      "  LOWER(`Function`) LIKE LOWER(CONCAT('%', :keyword1, '%')) OR " +
@@ -263,7 +283,7 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      "  LOWER(`UOM`) LIKE LOWER(CONCAT('%', :keyword5, '%')) OR " +
                      "  LOWER(`ItemName`) LIKE LOWER(CONCAT('%', :keyword5, '%')) OR " +
                      "  LOWER(`ItemCode`) LIKE LOWER(CONCAT('%', :keyword5, '%'))) " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> searchByMultipleKeywords(
                      @Param("keyword1") String keyword1,
@@ -279,7 +299,9 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` "
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, "
+                     +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` "
                      +
                      "FROM ecoschema.sales_data " +
                      "WHERE LOWER(`ItemName`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
@@ -294,29 +316,84 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      "   OR LOWER(`Material`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                      "   OR LOWER(`Sector`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                      "   OR LOWER(`SubSector`) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT :limit", nativeQuery = true)
        List<SalesData> fullTextSearch(@Param("keyword") String keyword, @Param("limit") int limit);
 
+       // 7b. FULLTEXT (ngram) variants of 6 and 7, ranked by relevance.
+       // :query is a boolean-mode expression (e.g. +"safety" +"shoes"); the MATCH column lists
+       // must equal the ft_sales_data_full_text / ft_sales_data_multi_keyword indexes, which are on
+       // sales_data_search because partitioned tables cannot have FULLTEXT indexes (V19).
+       @Query(value = "SELECT d.id, d.`TXNo`, d.`TXDate`, d.`TXQty`, d.`TXP1`, d.`BuyerCode`, d.`BuyerName`, d.`ItemCode`, "
+                     +
+                     "d.`ItemName`, d.`Product Hierarchy 3`, d.`Function`, d.`ItemType`, d.`Model`, d.`Performance`, "
+                     +
+                     "d.`Performance.1`, d.`Material`, d.`UOM`, d.`Brand Code`, d.`Unit Cost`, d.`Sector`, "
+                     +
+                     "d.`SubSector`, d.`Value`, d.`Rationale`, d.`www`, d.`Source`, "
+                     +
+                     "d.`tx_date_typed`, d.`tx_qty_typed`, d.`txp1_typed`, d.`unit_cost_typed`, d.`value_typed` "
+                     +
+                     "FROM ecoschema.sales_data_search s " +
+                     "JOIN ecoschema.sales_data d ON d.id = s.id " +
+                     "WHERE MATCH(s.`ItemName`, s.`ItemCode`, s.`BuyerName`, s.`BuyerCode`, s.`Product Hierarchy 3`, " +
+                     "            s.`Function`, s.`Brand Code`, s.`Model`, s.`ItemType`, s.`Material`, s.`Sector`, " +
+                     "            s.`SubSector`) " +
+                     "      AGAINST(:query IN BOOLEAN MODE) " +
+                     "ORDER BY MATCH(s.`ItemName`, s.`ItemCode`, s.`BuyerName`, s.`BuyerCode`, s.`Product Hierarchy 3`, " +
+                     "               s.`Function`, s.`Brand Code`, s.`Model`, s.`ItemType`, s.`Material`, s.`Sector`, " +
+                     "               s.`SubSector`) " +
+                     "         AGAINST(:query IN BOOLEAN MODE) DESC, d.`tx_date_typed` DESC " +
+                     "LIMIT :limit", nativeQuery = true)
+       List<SalesData> fullTextSearchRanked(@Param("query") String query, @Param("limit") int limit);
+
+       @Query(value = "SELECT d.id, d.`TXNo`, d.`TXDate`, d.`TXQty`, d.`TXP1`, d.`BuyerCode`, d.`BuyerName`, d.`ItemCode`, "
+                     +
+                     "d.`ItemName`, d.`Product Hierarchy 3`, d.`Function`, d.`ItemType`, d.`Model`, d.`Performance`, "
+                     +
+                     "d.`Performance.1`, d.`Material`, d.`UOM`, d.`Brand Code`, d.`Unit Cost`, d.`Sector`, "
+                     +
+                     "d.`SubSector`, d.`Value`, d.`Rationale`, d.`www`, d.`Source`, "
+                     +
+                     "d.`tx_date_typed`, d.`tx_qty_typed`, d.`txp1_typed`, d.`unit_cost_typed`, d.`value_typed` "
+                     +
+                     "FROM ecoschema.sales_data_search s " +
+                     "JOIN ecoschema.sales_data d ON d.id = s.id " +
+                     "WHERE MATCH(s.`Function`, s.`ItemType`, s.`Model`, s.`Performance`, s.`Performance.1`, " +
+                     "            s.`Material`, s.`Brand Code`, s.`UOM`, s.`ItemName`, s.`ItemCode`) " +
+                     "      AGAINST(:query IN BOOLEAN MODE) " +
+                     "ORDER BY MATCH(s.`Function`, s.`ItemType`, s.`Model`, s.`Performance`, s.`Performance.1`, " +
+                     "               s.`Material`, s.`Brand Code`, s.`UOM`, s.`ItemName`, s.`ItemCode`) " +
+                     "         AGAINST(:query IN BOOLEAN MODE) DESC, d.`tx_date_typed` DESC " +
+                     "LIMIT :limit", nativeQuery = true)
+       List<SalesData> searchByMultipleKeywordsRanked(@Param("query") String query, @Param("limit") int limit);
+
        // 8. Complete filter query (supports all filter conditions)
+       // Legacy catch-all form; listings use SalesDataQueryBuilder (see SalesDataRepositoryCustomImpl).
+       // Kept as the baseline for SalesDataQueryBenchmarkService.
        @Query(value = "SELECT id, `TXNo`, `TXDate`, `TXQty`, `TXP1`, `BuyerCode`, `BuyerName`, `ItemCode`, `ItemName`, "
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE 1=1 " +
-                     "AND (:minDate IS NULL OR STR_TO_DATE(`TXDate`, '%Y-%m-%d') >= STR_TO_DATE(:minDate, '%Y-%m-%d')) "
+                     "AND (:minDate IS NULL OR `tx_date_typed` >= STR_TO_DATE(:minDate, '%Y-%m-%d')) "
+                     +
+                     "AND (:minDate IS NULL OR `tx_partition_date` >= STR_TO_DATE(:minDate, '%Y-%m-%d')) "
                      +
-                     "AND (:maxDate IS NULL OR STR_TO_DATE(`TXDate`, '%Y-%m-%d') <= STR_TO_DATE(:maxDate, '%Y-%m-%d')) "
+                     "AND (:maxDate IS NULL OR `tx_date_typed` <= STR_TO_DATE(:maxDate, '%Y-%m-%d')) "
+                     +
+                     "AND (:maxDate IS NULL OR `tx_partition_date` <= STR_TO_DATE(:maxDate, '%Y-%m-%d')) "
                      +
                      "AND (:txNo IS NULL OR LOWER(`TXNo`) LIKE LOWER(CONCAT('%', :txNo, '%'))) " +
-                     "AND (:minQty IS NULL OR CAST(`TXQty` AS UNSIGNED) >= :minQty) " +
-                     "AND (:maxQty IS NULL OR CAST(`TXQty` AS UNSIGNED) <= :maxQty) " +
-                     "AND (:minPrice IS NULL OR CAST(`TXP1` AS DECIMAL(10,2)) >= :minPrice) " +
-                     "AND (:maxPrice IS NULL OR CAST(`TXP1` AS DECIMAL(10,2)) <= :maxPrice) " +
-                     "AND (:minValue IS NULL OR CAST(`Value` AS DECIMAL(10,2)) >= :minValue) " +
-                     "AND (:maxValue IS NULL OR CAST(`Value` AS DECIMAL(10,2)) <= :maxValue) " +
+                     "AND (:minQty IS NULL OR `tx_qty_typed` >= :minQty) " +
+                     "AND (:maxQty IS NULL OR `tx_qty_typed` <= :maxQty) " +
+                     "AND (:minPrice IS NULL OR `txp1_typed` >= :minPrice) " +
+                     "AND (:maxPrice IS NULL OR `txp1_typed` <= :maxPrice) " +
+                     "AND (:minValue IS NULL OR `value_typed` >= :minValue) " +
+                     "AND (:maxValue IS NULL OR `value_typed` <= :maxValue) " +
                      "AND (:buyerCode IS NULL OR LOWER(`BuyerCode`) LIKE LOWER(CONCAT('%', :buyerCode, '%'))) " +
                      "AND (:buyerName IS NULL OR LOWER(`BuyerName`) LIKE LOWER(CONCAT('%', :buyerName, '%'))) " +
                      "AND (:itemCode IS NULL OR LOWER(`ItemCode`) LIKE LOWER(CONCAT('%', :itemCode, '%'))) " +
@@ -331,8 +408,8 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      "AND (:performance IS NULL OR LOWER(`Performance`) LIKE LOWER(CONCAT('%', :performance, '%'))) " +
                      "AND (:performance1 IS NULL OR LOWER(`Performance.1`) LIKE LOWER(CONCAT('%', :performance1, '%'))) "
                      +
-                     "AND (:minUnitCost IS NULL OR CAST(`Unit Cost` AS DECIMAL(10,4)) >= :minUnitCost) " +
-                     "AND (:maxUnitCost IS NULL OR CAST(`Unit Cost` AS DECIMAL(10,4)) <= :maxUnitCost) " +
+                     "AND (:minUnitCost IS NULL OR `unit_cost_typed` >= :minUnitCost) " +
+                     "AND (:maxUnitCost IS NULL OR `unit_cost_typed` <= :maxUnitCost) " +
                      "AND (:function IS NULL OR LOWER(`Function`) LIKE LOWER(CONCAT('%', :function, '%'))) " +
                      "AND (:sector IS NULL OR LOWER(`Sector`) LIKE LOWER(CONCAT('%', :sector, '%'))) " +
                      "AND (:subSector IS NULL OR LOWER(`SubSector`) LIKE LOWER(CONCAT('%', :subSector, '%'))) " +
@@ -355,25 +432,29 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      "     LOWER(`TXNo`) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
                      "ORDER BY " +
                      "  CASE WHEN :sort = 'newest' THEN 1 ELSE 0 END DESC, " +
-                     "  CASE WHEN :sort = 'newest' THEN STR_TO_DATE(`TXDate`, '%Y-%m-%d') END DESC, " +
+                     "  CASE WHEN :sort = 'newest' THEN `tx_date_typed` END DESC, " +
                      "  CASE WHEN :sort = 'price_asc' THEN 1 ELSE 0 END DESC, " +
-                     "  CASE WHEN :sort = 'price_asc' THEN CAST(`TXP1` AS DECIMAL(10,2)) END ASC, " +
+                     "  CASE WHEN :sort = 'price_asc' THEN `txp1_typed` END ASC, " +
                      "  CASE WHEN :sort = 'price_desc' THEN 1 ELSE 0 END DESC, " +
-                     "  CASE WHEN :sort = 'price_desc' THEN CAST(`TXP1` AS DECIMAL(10,2)) END DESC, " +
-                     "  STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC", countQuery = "SELECT COUNT(*) FROM ecoschema.sales_data "
+                     "  CASE WHEN :sort = 'price_desc' THEN `txp1_typed` END DESC, " +
+                     "  `tx_date_typed` DESC", countQuery = "SELECT COUNT(*) FROM ecoschema.sales_data "
                                    +
                                    "WHERE 1=1 " +
-                                   "AND (:minDate IS NULL OR STR_TO_DATE(`TXDate`, '%Y-%m-%d') >= STR_TO_DATE(:minDate, '%Y-%m-%d')) "
+                                   "AND (:minDate IS NULL OR `tx_date_typed` >= STR_TO_DATE(:minDate, '%Y-%m-%d')) "
+                                   +
+                                   "AND (:minDate IS NULL OR `tx_partition_date` >= STR_TO_DATE(:minDate, '%Y-%m-%d')) "
                                    +
-                                   "AND (:maxDate IS NULL OR STR_TO_DATE(`TXDate`, '%Y-%m-%d') <= STR_TO_DATE(:maxDate, '%Y-%m-%d')) "
+                                   "AND (:maxDate IS NULL OR `tx_date_typed` <= STR_TO_DATE(:maxDate, '%Y-%m-%d')) "
+                                   +
+                                   "AND (:maxDate IS NULL OR `tx_partition_date` <= STR_TO_DATE(:maxDate, '%Y-%m-%d')) "
                                    +
                                    "AND (:txNo IS NULL OR LOWER(`TXNo`) LIKE LOWER(CONCAT('%', :txNo, '%'))) " +
-                                   "AND (:minQty IS NULL OR CAST(`TXQty` AS UNSIGNED) >= :minQty) " +
-                                   "AND (:maxQty IS NULL OR CAST(`TXQty` AS UNSIGNED) <= :maxQty) " +
-                                   "AND (:minPrice IS NULL OR CAST(`TXP1` AS DECIMAL(10,2)) >= :minPrice) " +
-                                   "AND (:maxPrice IS NULL OR CAST(`TXP1` AS DECIMAL(10,2)) <= :maxPrice) " +
-                                   "AND (:minValue IS NULL OR CAST(`Value` AS DECIMAL(10,2)) >= :minValue) " +
-                                   "AND (:maxValue IS NULL OR CAST(`Value` AS DECIMAL(10,2)) <= :maxValue) " +
+                                   "AND (:minQty IS NULL OR `tx_qty_typed` >= :minQty) " +
+                                   "AND (:maxQty IS NULL OR `tx_qty_typed` <= :maxQty) " +
+                                   "AND (:minPrice IS NULL OR `txp1_typed` >= :minPrice) " +
+                                   "AND (:maxPrice IS NULL OR `txp1_typed` <= :maxPrice) " +
+                                   "AND (:minValue IS NULL OR `value_typed` >= :minValue) " +
+                                   "AND (:maxValue IS NULL OR `value_typed` <= :maxValue) " +
                                    "AND (:buyerCode IS NULL OR LOWER(`BuyerCode`) LIKE LOWER(CONCAT('%', :buyerCode, '%'))) "
                                    +
                                    "AND (:buyerName IS NULL OR LOWER(`BuyerName`) LIKE LOWER(CONCAT('%', :buyerName, '%'))) "
@@ -396,8 +477,8 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                                    +
                                    "AND (:performance1 IS NULL OR LOWER(`Performance.1`) LIKE LOWER(CONCAT('%', :performance1, '%'))) "
                                    +
-                                   "AND (:minUnitCost IS NULL OR CAST(`Unit Cost` AS DECIMAL(10,4)) >= :minUnitCost) " +
-                                   "AND (:maxUnitCost IS NULL OR CAST(`Unit Cost` AS DECIMAL(10,4)) <= :maxUnitCost) " +
+                                   "AND (:minUnitCost IS NULL OR `unit_cost_typed` >= :minUnitCost) " +
+                                   "AND (:maxUnitCost IS NULL OR `unit_cost_typed` <= :maxUnitCost) " +
                                    "AND (:function IS NULL OR LOWER(`Function`) LIKE LOWER(CONCAT('%', :function, '%'))) "
                                    +
                                    "AND (:sector IS NULL OR LOWER(`Sector`) LIKE LOWER(CONCAT('%', :sector, '%'))) " +
@@ -468,25 +549,42 @@ public interface SalesDataRepository extends JpaRepository<SalesData, Long> {
                      +
                      "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, "
                      +
-                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source` " +
+                     "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+                     "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
                      "FROM ecoschema.sales_data " +
                      "WHERE `ItemCode` = :itemCode " +
-                     "ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC " +
+                     "ORDER BY `tx_date_typed` DESC " +
                      "LIMIT 1", nativeQuery = true)
        SalesData findFirstByItemCode(@Param("itemCode") String itemCode);
 
        // Get price statistics for a product by ItemCode (min, max, latest price)
        @Query(value = "SELECT " +
-                     "COALESCE(MIN(CAST(`TXP1` AS DECIMAL(10,2))), 0) as minPrice, " +
-                     "COALESCE(MAX(CAST(`TXP1` AS DECIMAL(10,2))), 0) as maxPrice, " +
-                     "COALESCE((SELECT CAST(`TXP1` AS DECIMAL(10,2)) FROM ecoschema.sales_data " +
-                     " WHERE `ItemCode` = :itemCode AND `TXP1` IS NOT NULL AND `TXP1` != '' AND TRIM(`TXP1`) != '' " +
-                     " ORDER BY STR_TO_DATE(`TXDate`, '%Y-%m-%d') DESC LIMIT 1), 0) as latestPrice " +
+                     "COALESCE(MIN(`txp1_typed`), 0) as minPrice, " +
+                     "COALESCE(MAX(`txp1_typed`), 0) as maxPrice, " +
+                     "COALESCE((SELECT `txp1_typed` FROM ecoschema.sales_data " +
+                     " WHERE `ItemCode` = :itemCode AND `txp1_typed` IS NOT NULL " +
+                     " ORDER BY `tx_date_typed` DESC LIMIT 1), 0) as latestPrice " +
                      "FROM ecoschema.sales_data " +
-                     "WHERE `ItemCode` = :itemCode AND `TXP1` IS NOT NULL AND `TXP1` != '' AND TRIM(`TXP1`) != '' " +
+                     "WHERE `ItemCode` = :itemCode AND `txp1_typed` IS NOT NULL " +
                      "LIMIT 1", nativeQuery = true)
        Object[] getPriceStatisticsByItemCode(@Param("itemCode") String itemCode);
 
+       // Newest transaction of each ItemCode (findFirstByItemCode for a batch of item codes)
+       @Query(value = "SELECT d.id, d.`TXNo`, d.`TXDate`, d.`TXQty`, d.`TXP1`, d.`BuyerCode`, d.`BuyerName`, "
+                     +
+                     "d.`ItemCode`, d.`ItemName`, d.`Product Hierarchy 3`, d.`Function`, d.`ItemType`, d.`Model`, "
+                     +
+                     "d.`Performance`, d.`Performance.1`, d.`Material`, d.`UOM`, d.`Brand Code`, d.`Unit Cost`, "
+                     +
+                     "d.`Sector`, d.`SubSector`, d.`Value`, d.`Rationale`, d.`www`, d.`Source`, " +
+                     "d.`tx_date_typed`, d.`tx_qty_typed`, d.`txp1_typed`, d.`unit_cost_typed`, d.`value_typed` " +
+                     "FROM ecoschema.sales_data d " +
+                     "JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY `ItemCode` " +
+                     "      ORDER BY `tx_date_typed` DESC, id DESC) AS rn " +
+                     "      FROM ecoschema.sales_data WHERE `ItemCode` IN (:itemCodes)) latest " +
+                     "ON latest.id = d.id AND latest.rn = 1", nativeQuery = true)
+       List<SalesData> findLatestByItemCodes(@Param("itemCodes") Collection<String> itemCodes);
+
        // Find by TXNo
        SalesData findByTxNo(String txNo);
 }
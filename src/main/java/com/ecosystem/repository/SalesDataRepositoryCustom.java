@@ -0,0 +1,87 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom sales_data queries that are composed at runtime instead of declared with @Query.
+ */
+public interface SalesDataRepositoryCustom {
+
+    /**
+     * Fetch one page of rows matching the filter, ordered by the sort column and id.
+     *
+     * @param filter The filter to apply
+     * @param sort   The sort order
+     * @param cursor Keyset position to continue after, or null to start from the beginning (or offset)
+     * @param offset Number of rows to skip; only used when cursor is null
+     * @param limit  Maximum number of rows to return
+     * @return The rows and the cursor of the next page (null on the last page)
+     */
+    SalesDataSlice findSlice(SalesDataFilter filter, SalesDataSort sort, SalesDataCursor cursor,
+                             int offset, int limit);
+
+    /**
+     * Exact number of rows matching the filter, including archived rows when the filter reaches
+     * back into the cold tier.
+     */
+    long countMatching(SalesDataFilter filter);
+
+    /**
+     * Approximate number of rows matching the filter, taken from MySQL statistics
+     * (table statistics when unfiltered, otherwise the optimizer's EXPLAIN estimate).
+     */
+    long estimateMatching(SalesDataFilter filter);
+
+    /**
+     * Full transaction history of an item, newest first: the rows in sales_data plus the rows
+     * archived to the cold tier.
+     */
+    List<SalesData> findHistoryByItemCode(String itemCode);
+
+    /**
+     * Rows where every keyword is a substring of at least one of the columns, newest first.
+     *
+     * @param candidateIds Sorted ids the matches are known to be among (from the keyword index),
+     *                     or null to scan the whole table
+     */
+    List<SalesData> searchKeywordsInColumns(List<String> keywords, String[] columns, int[] candidateIds, int limit);
+
+    /**
+     * Price statistics of several ItemCodes, {ItemCode, minPrice, maxPrice, latestPrice} per item
+     * with priced rows, like SalesDataRepository.getPriceStatisticsByItemCode. Min and max come from
+     * window aggregates and the latest price from the item's newest row (ROW_NUMBER() as in
+     * findLatestByItemCodes); with sharding the items' statistics of every shard are combined, and
+     * archived rows of the cold tier are included from its per-item summaries.
+     */
+    List<Object[]> getPriceStatisticsByItemCodes(Collection<String> itemCodes);
+
+    /**
+     * Find a record by id on whichever shard stores it (shard 0 through JPA).
+     */
+    Optional<SalesData> findByIdOnAnyShard(Long id);
+
+    /**
+     * Find records by id on whichever shards store them: shard 0 through JPA, the ids it does not
+     * hold in one IN query per remote shard. Order is unspecified; missing ids are skipped.
+     */
+    List<SalesData> findAllByIdOnAnyShard(Collection<Long> ids);
+
+    /**
+     * Insert a new record on the shard of its BuyerCode, or update a record where it is stored.
+     * Without sharding this is save(). A write to another shard than shard 0 is committed with
+     * the caller's transaction ({@link SalesDataShardRouter#transactionalTemplate}).
+     *
+     * @throws IllegalArgumentException if an update would change the shard of the record
+     * @throws IllegalStateException    if the record belongs to another shard and no transaction is active
+     */
+    SalesData saveOnShard(SalesData entity);
+
+    /**
+     * Delete a record from the shard that stores it, with the caller's transaction like saveOnShard.
+     */
+    void deleteOnShard(SalesData entity);
+}
@@ -0,0 +1,566 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+import com.ecosystem.index.SalesDataColumns;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Keyset (seek) pagination over sales_data. Rows are ordered by the typed sort column and id,
+ * so a page continues with a range condition on (sort column, id) instead of an OFFSET scan.
+ * The WHERE clause only contains the filters that are set (see {@link SalesDataQueryBuilder}).
+ *
+ * Listings and counts that reach back into the cold tier ({@link #reachesCold}) also scan the
+ * archived rows of {@link SalesDataColdStore} and merge them in sort order.
+ *
+ * With sharding enabled ({@link SalesDataShardRouter}) every query is sent to the shards it can
+ * match in parallel (only the buyer's shard for an exact BuyerCode) and the sorted shard pages
+ * are k-way merged; counts and estimates are summed. Writes go to the shard of the BuyerCode,
+ * within the caller's transaction.
+ */
+public class SalesDataRepositoryCustomImpl implements SalesDataRepositoryCustom {
+
+    static final String SELECT_COLUMNS =
+            "SELECT id, `TXNo`, `TXDate`, `TXQty`, `TXP1`, `BuyerCode`, `BuyerName`, `ItemCode`, `ItemName`, " +
+            "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`, " +
+            "`UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, `www`, `Source`, " +
+            "`tx_date_typed`, `tx_qty_typed`, `txp1_typed`, `unit_cost_typed`, `value_typed` " +
+            "FROM ecoschema.sales_data ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Writable sales_data columns and the SalesData values of remote shard writes
+    private static final String[] WRITE_COLUMNS = {
+            "TXNo", "TXDate", "TXQty", "TXP1", "BuyerCode", "BuyerName", "ItemCode", "ItemName",
+            "Product Hierarchy 3", "Function", "ItemType", "Model", "Performance", "Performance.1",
+            "Material", "UOM", "Brand Code", "Unit Cost", "Sector", "SubSector", "Value", "Rationale",
+            "www", "Source", "tx_date_typed", "tx_qty_typed", "txp1_typed", "unit_cost_typed", "value_typed"
+    };
+    private static final String INSERT_SQL;
+    private static final String UPDATE_SQL;
+
+    static {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (int i = 0; i < WRITE_COLUMNS.length; i++) {
+            if (i > 0) {
+                columns.append(", ");
+                values.append(", ");
+                assignments.append(", ");
+            }
+            columns.append('`').append(WRITE_COLUMNS[i]).append('`');
+            values.append(":c").append(i);
+            assignments.append('`').append(WRITE_COLUMNS[i]).append("` = :c").append(i);
+        }
+        INSERT_SQL = "INSERT INTO ecoschema.sales_data (" + columns + ") VALUES (" + values + ")";
+        UPDATE_SQL = "UPDATE ecoschema.sales_data SET " + assignments + " WHERE id = :id";
+    }
+
+    // Per item: min and max over its priced rows, and the price, date and id of its newest one
+    private static final String PRICE_STATISTICS_SQL =
+            "SELECT ranked.`ItemCode`, ranked.minPrice, ranked.maxPrice, ranked.`txp1_typed`, " +
+            "ranked.`tx_date_typed`, ranked.id " +
+            "FROM (SELECT id, `ItemCode`, `txp1_typed`, `tx_date_typed`, " +
+            "      MIN(`txp1_typed`) OVER item AS minPrice, " +
+            "      MAX(`txp1_typed`) OVER item AS maxPrice, " +
+            "      ROW_NUMBER() OVER (item ORDER BY `tx_date_typed` DESC, id DESC) AS rn " +
+            "      FROM ecoschema.sales_data " +
+            "      WHERE `ItemCode` IN (:itemCodes) AND `txp1_typed` IS NOT NULL " +
+            "      WINDOW item AS (PARTITION BY `ItemCode`)) ranked " +
+            "WHERE ranked.rn = 1";
+
+    static final RowMapper<SalesData> ROW_MAPPER = (rs, rowNum) -> {
+        SalesData data = new SalesData();
+        data.setId(rs.getLong("id"));
+        data.setTxNo(rs.getString("TXNo"));
+        data.setTxDate(rs.getString("TXDate"));
+        data.setTxQty(rs.getString("TXQty"));
+        data.setTxP1(rs.getString("TXP1"));
+        data.setBuyerCode(rs.getString("BuyerCode"));
+        data.setBuyerName(rs.getString("BuyerName"));
+        data.setItemCode(rs.getString("ItemCode"));
+        data.setItemName(rs.getString("ItemName"));
+        data.setProductHierarchy3(rs.getString("Product Hierarchy 3"));
+        data.setFunction(rs.getString("Function"));
+        data.setItemType(rs.getString("ItemType"));
+        data.setModel(rs.getString("Model"));
+        data.setPerformance(rs.getString("Performance"));
+        data.setPerformance1(rs.getString("Performance.1"));
+        data.setMaterial(rs.getString("Material"));
+        data.setUom(rs.getString("UOM"));
+        data.setBrandCode(rs.getString("Brand Code"));
+        data.setUnitCost(rs.getString("Unit Cost"));
+        data.setSector(rs.getString("Sector"));
+        data.setSubSector(rs.getString("SubSector"));
+        data.setValue(rs.getString("Value"));
+        data.setRationale(rs.getString("Rationale"));
+        data.setWww(rs.getString("www"));
+        data.setSource(rs.getString("Source"));
+        data.setTxDateTyped(rs.getObject("tx_date_typed", LocalDate.class));
+        data.setTxQtyTyped(rs.getObject("tx_qty_typed", Integer.class));
+        data.setTxP1Typed(rs.getObject("txp1_typed", BigDecimal.class));
+        data.setUnitCostTyped(rs.getObject("unit_cost_typed", BigDecimal.class));
+        data.setValueTyped(rs.getObject("value_typed", BigDecimal.class));
+        return data;
+    };
+
+    private final SalesDataColdStore coldStore;
+    private final SalesDataShardRouter shardRouter;
+
+    public SalesDataRepositoryCustomImpl(SalesDataColdStore coldStore, SalesDataShardRouter shardRouter) {
+        this.coldStore = coldStore;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public SalesDataSlice findSlice(SalesDataFilter filter, SalesDataSort sort, SalesDataCursor cursor,
+                                    int offset, int limit) {
+        if (reachesCold(filter)) {
+            return findFederatedSlice(filter, sort, cursor, offset, limit);
+        }
+        return findHotSlice(filter, sort, cursor, offset, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SalesDataSlice findHotSlice(SalesDataFilter filter, SalesDataSort sort, SalesDataCursor cursor,
+                                        int offset, int limit) {
+        if (shardRouter.isEnabled()) {
+            return findShardedSlice(filter, sort, cursor, offset, limit);
+        }
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(filter).seekAfter(sort, cursor);
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append(builder.whereClause()).append(' ')
+                .append(SalesDataQueryBuilder.orderBy(sort)).append(" LIMIT :limit");
+        if (cursor == null && offset > 0) {
+            sql.append(" OFFSET :offset");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString(), SalesData.class);
+        builder.bind(query);
+        // One extra row tells whether a next page exists without counting
+        query.setParameter("limit", limit + 1);
+        if (cursor == null && offset > 0) {
+            query.setParameter("offset", offset);
+        }
+        List<SalesData> rows = query.getResultList();
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = SalesDataCursor.after(rows.get(limit - 1), sort).encode();
+        }
+        return new SalesDataSlice(rows, nextCursor);
+    }
+
+    /**
+     * Every shard returns its first offset + limit + 1 rows after the cursor; the page is cut out
+     * of their k-way merge.
+     */
+    private SalesDataSlice findShardedSlice(SalesDataFilter filter, SalesDataSort sort, SalesDataCursor cursor,
+                                            int offset, int limit) {
+        int skip = cursor == null ? Math.max(offset, 0) : 0;
+        int window = skip + limit + 1;
+        String orderBy = SalesDataQueryBuilder.orderBy(sort);
+        List<List<SalesData>> pages = shardRouter.onShards(shardRouter.shardsFor(filter), shard -> {
+            SalesDataQueryBuilder builder = SalesDataQueryBuilder
+                    .forFilter(shardRouter.filterForShard(filter, shard)).seekAfter(sort, cursor);
+            Map<String, Object> parameters = new HashMap<>(builder.getParameters());
+            parameters.put("limit", window);
+            return shardRouter.template(shard).query(
+                    SELECT_COLUMNS + builder.whereClause() + " " + orderBy + " LIMIT :limit", parameters, ROW_MAPPER);
+        });
+        return cutPage(mergeSorted(pages, SalesDataFilterMatcher.order(sort), window), skip, limit, sort);
+    }
+
+    /**
+     * Hot and cold rows merged: the first offset + limit + 1 rows of each side in sort order are
+     * enough to cut the page out of their union, including the extra row that marks a next page.
+     */
+    private SalesDataSlice findFederatedSlice(SalesDataFilter filter, SalesDataSort sort, SalesDataCursor cursor,
+                                              int offset, int limit) {
+        int skip = cursor == null ? Math.max(offset, 0) : 0;
+        int window = skip + limit + 1;
+        List<SalesData> rows = new ArrayList<>(findHotSlice(filter, sort, cursor, 0, window).getRows());
+
+        Comparator<SalesData> order = SalesDataFilterMatcher.order(sort);
+        Predicate<SalesData> matcher = SalesDataFilterMatcher.forFilter(filter);
+        // Bounded max-heap: keeps the window rows that come first
+        PriorityQueue<SalesData> cold = new PriorityQueue<>(order.reversed());
+        coldStore.scan(filter.getMinDate(), filter.getMaxDate(),
+                row -> SalesDataFilterMatcher.isAfter(row, sort, cursor) && matcher.test(row),
+                row -> {
+                    cold.add(row);
+                    if (cold.size() > window) {
+                        cold.poll();
+                    }
+                });
+        rows.addAll(cold);
+        rows.sort(order);
+        return cutPage(rows, skip, limit, sort);
+    }
+
+    // Skip the offset rows of the merged window and keep limit rows; the extra row marks a next page
+    private static SalesDataSlice cutPage(List<SalesData> window, int skip, int limit, SalesDataSort sort) {
+        List<SalesData> rows = window.subList(Math.min(skip, window.size()), window.size());
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = SalesDataCursor.after(rows.get(limit - 1), sort).encode();
+        }
+        return new SalesDataSlice(new ArrayList<>(rows), nextCursor);
+    }
+
+    /**
+     * K-way merge of lists that are each sorted by the comparator, up to max rows.
+     */
+    static List<SalesData> mergeSorted(List<List<SalesData>> lists, Comparator<SalesData> order, int max) {
+        // Heap entries: {list index, position}
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                (a, b) -> order.compare(lists.get(a[0]).get(a[1]), lists.get(b[0]).get(b[1])));
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        List<SalesData> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < max) {
+            int[] head = heads.poll();
+            List<SalesData> list = lists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (head[1] + 1 < list.size()) {
+                heads.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public long countMatching(SalesDataFilter filter) {
+        long count;
+        if (shardRouter.isEnabled()) {
+            count = shardRouter.onShards(shardRouter.shardsFor(filter), shard -> {
+                SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(shardRouter.filterForShard(filter, shard));
+                Long rows = shardRouter.template(shard).queryForObject(
+                        "SELECT COUNT(*) FROM ecoschema.sales_data " + builder.whereClause(),
+                        builder.getParameters(), Long.class);
+                return rows != null ? rows : 0L;
+            }).stream().mapToLong(Long::longValue).sum();
+        } else {
+            SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(filter);
+            Query query = entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM ecoschema.sales_data " + builder.whereClause());
+            builder.bind(query);
+            count = ((Number) query.getSingleResult()).longValue();
+        }
+        if (reachesCold(filter)) {
+            Predicate<SalesData> matcher = SalesDataFilterMatcher.forFilter(filter);
+            long[] cold = {0};
+            coldStore.scan(filter.getMinDate(), filter.getMaxDate(), matcher, row -> cold[0]++);
+            count += cold[0];
+        }
+        return count;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SalesData> findHistoryByItemCode(String itemCode) {
+        String sql = SELECT_COLUMNS + "WHERE `ItemCode` = :itemCode ORDER BY `tx_date_typed` DESC";
+        List<SalesData> rows;
+        if (shardRouter.isEnabled()) {
+            // An item is bought by buyers on every shard
+            Map<String, Object> parameters = Collections.singletonMap("itemCode", itemCode);
+            rows = mergeSorted(shardRouter.onShards(shardRouter.allShards(),
+                            shard -> shardRouter.template(shard).query(sql, parameters, ROW_MAPPER)),
+                    SalesDataFilterMatcher.order(SalesDataSort.NEWEST), Integer.MAX_VALUE);
+        } else {
+            Query query = entityManager.createNativeQuery(sql, SalesData.class);
+            query.setParameter("itemCode", itemCode);
+            rows = query.getResultList();
+        }
+        List<SalesData> cold = coldStore.findByItemCode(itemCode);
+        if (cold.isEmpty()) {
+            return rows;
+        }
+        List<SalesData> merged = new ArrayList<>(rows.size() + cold.size());
+        merged.addAll(rows);
+        merged.addAll(cold);
+        merged.sort(SalesDataFilterMatcher.order(SalesDataSort.NEWEST));
+        return merged;
+    }
+
+    /**
+     * A query reaches back into the cold tier when the tier has rows within its date bounds and
+     * it either sets a date bound or looks up an item. Unbounded listings without an item filter
+     * are served from sales_data alone, so the default pages never scan the archive.
+     */
+    private boolean reachesCold(SalesDataFilter filter) {
+        return (filter.getMinDate() != null || filter.getMaxDate() != null || filter.getItemCode() != null)
+                && coldStore.overlaps(filter.getMinDate(), filter.getMaxDate());
+    }
+
+    @Override
+    public long estimateMatching(SalesDataFilter filter) {
+        if (shardRouter.isEnabled()) {
+            return shardRouter.onShards(shardRouter.shardsFor(filter),
+                    shard -> estimateOnShard(shardRouter.filterForShard(filter, shard), shard))
+                    .stream().mapToLong(Long::longValue).sum();
+        }
+        return estimateOnShard(filter, 0);
+    }
+
+    // EXPLAIN columns are read by label: their positions differ between MySQL versions
+    private long estimateOnShard(SalesDataFilter filter, int shard) {
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(filter);
+        if (builder.isUnfiltered()) {
+            List<Long> rows = shardRouter.template(shard).queryForList(
+                    "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                    "WHERE TABLE_SCHEMA = 'ecoschema' AND TABLE_NAME = 'sales_data'", Map.of(), Long.class);
+            return rows.isEmpty() || rows.get(0) == null ? 0L : rows.get(0);
+        }
+        Map<String, Object> plan = shardRouter.template(shard).queryForList(
+                "EXPLAIN SELECT id FROM ecoschema.sales_data " + builder.whereClause(), builder.getParameters()).get(0);
+        double rows = plan.get("rows") != null ? ((Number) plan.get("rows")).doubleValue() : 0d;
+        double filtered = plan.get("filtered") != null ? ((Number) plan.get("filtered")).doubleValue() : 100d;
+        return Math.round(rows * filtered / 100d);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SalesData> searchKeywordsInColumns(List<String> keywords, String[] columns, int[] candidateIds,
+                                                   int limit) {
+        if (shardRouter.isEnabled()) {
+            String orderBy = SalesDataQueryBuilder.orderBy(SalesDataSort.NEWEST);
+            List<List<SalesData>> pages = shardRouter.onShards(shardRouter.allShards(), shard -> {
+                // The candidate ids come from the keyword index of shard 0
+                SalesDataQueryBuilder builder = SalesDataQueryBuilder.empty()
+                        .restrictToIds(shard == 0 ? candidateIds : null);
+                for (int i = 0; i < keywords.size(); i++) {
+                    builder.anyColumnContains(columns, "keyword" + i, keywords.get(i));
+                }
+                Map<String, Object> parameters = new HashMap<>(builder.getParameters());
+                parameters.put("limit", limit);
+                return shardRouter.template(shard).query(
+                        SELECT_COLUMNS + builder.whereClause() + " " + orderBy + " LIMIT :limit", parameters, ROW_MAPPER);
+            });
+            return mergeSorted(pages, SalesDataFilterMatcher.order(SalesDataSort.NEWEST), limit);
+        }
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.empty().restrictToIds(candidateIds);
+        for (int i = 0; i < keywords.size(); i++) {
+            builder.anyColumnContains(columns, "keyword" + i, keywords.get(i));
+        }
+        Query query = entityManager.createNativeQuery(SELECT_COLUMNS + builder.whereClause() + " " +
+                SalesDataQueryBuilder.orderBy(SalesDataSort.NEWEST) + " LIMIT :limit", SalesData.class);
+        builder.bind(query);
+        query.setParameter("limit", limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public Optional<SalesData> findByIdOnAnyShard(Long id) {
+        SalesData found = entityManager.find(SalesData.class, id);
+        if (found != null || !shardRouter.isEnabled()) {
+            return Optional.ofNullable(found);
+        }
+        List<Integer> remote = shardRouter.allShards().subList(1, shardRouter.getShardCount());
+        return shardRouter.onShards(remote, shard -> shardRouter.template(shard).query(
+                        SELECT_COLUMNS + "WHERE id = :id", Map.of("id", id), ROW_MAPPER))
+                .stream().flatMap(List::stream).findFirst();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SalesData> findAllByIdOnAnyShard(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = entityManager.createNativeQuery(SELECT_COLUMNS + "WHERE id IN (:ids)", SalesData.class);
+        query.setParameter("ids", ids);
+        List<SalesData> rows = new ArrayList<>(query.getResultList());
+        if (!shardRouter.isEnabled()) {
+            return rows;
+        }
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        for (SalesData row : rows) {
+            missing.remove(row.getId());
+        }
+        if (missing.isEmpty()) {
+            return rows;
+        }
+        Map<String, Object> parameters = Map.of("ids", missing);
+        List<Integer> remote = shardRouter.allShards().subList(1, shardRouter.getShardCount());
+        for (List<SalesData> shardRows : shardRouter.onShards(remote, shard -> shardRouter.template(shard).query(
+                SELECT_COLUMNS + "WHERE id IN (:ids)", parameters, ROW_MAPPER))) {
+            rows.addAll(shardRows);
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> getPriceStatisticsByItemCodes(Collection<String> itemCodes) {
+        if (itemCodes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Object> parameters = Map.of("itemCodes", itemCodes);
+        List<List<ItemPriceRow>> shardRows = shardRouter.onShards(shardRouter.allShards(),
+                shard -> shardRouter.template(shard).query(PRICE_STATISTICS_SQL, parameters, (rs, rowNum) ->
+                        new ItemPriceRow(rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getBigDecimal(4),
+                                rs.getObject(5, LocalDate.class), rs.getLong(6))));
+        // An item's rows can be spread over several shards; ItemCode compares like its collation
+        Map<String, ItemPriceRow> byItem = new LinkedHashMap<>();
+        for (List<ItemPriceRow> rows : shardRows) {
+            for (ItemPriceRow row : rows) {
+                byItem.merge(row.itemCode.stripTrailing().toUpperCase(Locale.ROOT), row, ItemPriceRow::combine);
+            }
+        }
+        // Archived rows count towards the full price history of the item
+        if (!coldStore.isEmpty()) {
+            for (String itemCode : itemCodes) {
+                SalesDataColumns.PriceSummary cold = coldStore.summarizeItem(itemCode);
+                if (cold.hasPrice()) {
+                    byItem.merge(itemCode.stripTrailing().toUpperCase(Locale.ROOT), ItemPriceRow.of(itemCode, cold),
+                            ItemPriceRow::combine);
+                }
+            }
+        }
+        List<Object[]> statistics = new ArrayList<>(byItem.size());
+        for (ItemPriceRow row : byItem.values()) {
+            statistics.add(new Object[]{row.itemCode, row.minPrice, row.maxPrice, row.latestPrice});
+        }
+        return statistics;
+    }
+
+    @Override
+    public SalesData saveOnShard(SalesData entity) {
+        int target = shardRouter.shardFor(entity.getBuyerCode());
+        if (entity.getId() == null) {
+            if (target == 0) {
+                entityManager.persist(entity);
+                return entity;
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            shardRouter.transactionalTemplate(target).update(INSERT_SQL, writeParameters(entity), keyHolder,
+                    new String[]{"id"});
+            entity.setId(keyHolder.getKey().longValue());
+            return entity;
+        }
+
+        int current = entityManager.contains(entity) ? 0 : locate(entity.getId());
+        if (current != target) {
+            throw new IllegalArgumentException("BuyerCode " + entity.getBuyerCode() + " belongs to shard " + target
+                    + " but record " + entity.getId() + " is stored on shard " + current
+                    + "; the BuyerCode of a stored record cannot move it to another shard");
+        }
+        if (current == 0) {
+            return entityManager.merge(entity);
+        }
+        shardRouter.transactionalTemplate(current).update(UPDATE_SQL,
+                writeParameters(entity).addValue("id", entity.getId()));
+        return entity;
+    }
+
+    @Override
+    public void deleteOnShard(SalesData entity) {
+        int shard = entityManager.contains(entity) ? 0 : locate(entity.getId());
+        if (shard == 0) {
+            entityManager.remove(entityManager.contains(entity) ? entity : entityManager.merge(entity));
+        } else if (shard > 0) {
+            shardRouter.transactionalTemplate(shard).update("DELETE FROM ecoschema.sales_data WHERE id = :id",
+                    Map.of("id", entity.getId()));
+        }
+    }
+
+    // Shard holding the id, 0 when sharding is off, -1 when no shard has it
+    private int locate(long id) {
+        if (!shardRouter.isEnabled()) {
+            return 0;
+        }
+        List<Boolean> found = shardRouter.onShards(shardRouter.allShards(), shard -> {
+            Long rows = shardRouter.template(shard).queryForObject(
+                    "SELECT COUNT(*) FROM ecoschema.sales_data WHERE id = :id", Map.of("id", id), Long.class);
+            return rows != null && rows > 0;
+        });
+        return found.indexOf(Boolean.TRUE);
+    }
+
+    /**
+     * Price statistics of an item on one shard or in the cold tier, combined across them.
+     */
+    private static final class ItemPriceRow {
+        private final String itemCode;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+        private final BigDecimal latestPrice;
+        private final LocalDate latestDate;
+        private final long latestId;
+
+        ItemPriceRow(String itemCode, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal latestPrice,
+                     LocalDate latestDate, long latestId) {
+            this.itemCode = itemCode;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.latestPrice = latestPrice;
+            this.latestDate = latestDate;
+            this.latestId = latestId;
+        }
+
+        static ItemPriceRow of(String itemCode, SalesDataColumns.PriceSummary summary) {
+            return new ItemPriceRow(itemCode, SalesDataColumns.decodeAmount(summary.getMinPrice()),
+                    SalesDataColumns.decodeAmount(summary.getMaxPrice()),
+                    SalesDataColumns.decodeAmount(summary.getLatestPrice()),
+                    SalesDataColumns.decodeDate(summary.getLatestPriceDate()), summary.getLatestPriceId());
+        }
+
+        // Newest by date DESC (NULL dates last, as MySQL sorts them), then id DESC
+        ItemPriceRow combine(ItemPriceRow other) {
+            boolean otherNewer = latestDate == null
+                    ? other.latestDate != null || other.latestId > latestId
+                    : other.latestDate != null && (other.latestDate.isAfter(latestDate)
+                            || other.latestDate.equals(latestDate) && other.latestId > latestId);
+            ItemPriceRow newest = otherNewer ? other : this;
+            return new ItemPriceRow(itemCode, minPrice.min(other.minPrice), maxPrice.max(other.maxPrice),
+                    newest.latestPrice, newest.latestDate, newest.latestId);
+        }
+    }
+
+    private static MapSqlParameterSource writeParameters(SalesData entity) {
+        Object[] values = {
+                entity.getTxNo(), entity.getTxDate(), entity.getTxQty(), entity.getTxP1(), entity.getBuyerCode(),
+                entity.getBuyerName(), entity.getItemCode(), entity.getItemName(), entity.getProductHierarchy3(),
+                entity.getFunction(), entity.getItemType(), entity.getModel(), entity.getPerformance(),
+                entity.getPerformance1(), entity.getMaterial(), entity.getUom(), entity.getBrandCode(),
+                entity.getUnitCost(), entity.getSector(), entity.getSubSector(), entity.getValue(),
+                entity.getRationale(), entity.getWww(), entity.getSource(),
+                entity.getTxDateTyped() != null ? java.sql.Date.valueOf(entity.getTxDateTyped()) : null,
+                entity.getTxQtyTyped(), entity.getTxP1Typed(), entity.getUnitCostTyped(), entity.getValueTyped()
+        };
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        for (int i = 0; i < values.length; i++) {
+            parameters.addValue("c" + i, values[i]);
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,389 @@
+package com.ecosystem.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Routes sales_data rows to shards by BuyerCode.
+ *
+ * Shard 0 is the application's own DataSource, which also holds every other table and the change
+ * outbox; shards 1..N-1 are the MySQL nodes in
+ * {@code sales-data.sharding.shard-urls}, each with its own ecoschema.sales_data. A BuyerCode
+ * (trailing spaces removed, upper-cased, like the column collation compares it) maps to one
+ * shard by CRC32 hash or by ascending range bounds. The BuyerCode of a stored row is its shard
+ * key and cannot move it to another shard.
+ *
+ * Ids stay unique across shards through interleaved AUTO_INCREMENT values: shard i must use
+ * auto_increment_increment = N and auto_increment_offset = i + 1. The pools of shards 1..N-1
+ * set this per session; shard 0 must be configured on the server (or with
+ * spring.datasource.hikari.connection-init-sql) and is checked at startup.
+ *
+ * Writes to shards 1..N-1, single rows and import chunks alike, join the caller's transaction
+ * through {@link #transactionalTemplate}: the shard commits right after shard 0 has committed
+ * and rolls back with it, so a change is never committed without its outbox record. A failing
+ * shard commit after that leaves an outbox record for a change that did not happen, which the
+ * consumers tolerate because they re-read the current rows.
+ *
+ * The in-memory read models (facets, columnar snapshot, suggestions, co-purchase,
+ * item_price_stats, product_master) are built from sales_data on one server; they turn
+ * themselves off while sharding is on and the reads fall back to queries over every shard.
+ * The keyword index only narrows shard 0 (see {@link #filterForShard}).
+ *
+ * With sharding disabled (the default) there is a single shard and nothing is routed.
+ */
+@Slf4j
+@Component
+public class SalesDataShardRouter {
+
+    private static final String SELECT_AUTO_INCREMENT_SQL =
+            "SELECT @@auto_increment_increment, @@auto_increment_offset";
+
+    private final boolean enabled;
+    private final boolean rangeStrategy;
+    private final String[] rangeBounds;
+    private final List<NamedParameterJdbcTemplate> templates = new ArrayList<>();
+    private final List<HikariDataSource> ownedDataSources = new ArrayList<>();
+    // Keys of the shard connections bound to a transaction, by shard
+    private final List<Object> transactionKeys = new ArrayList<>();
+    private final ExecutorService executor;
+
+    public SalesDataShardRouter(NamedParameterJdbcTemplate primaryTemplate,
+                                @Value("${sales-data.sharding.enabled:false}") boolean enabled,
+                                @Value("${sales-data.sharding.shard-urls:}") String shardUrls,
+                                @Value("${sales-data.sharding.username:${spring.datasource.username:}}") String username,
+                                @Value("${sales-data.sharding.password:${spring.datasource.password:}}") String password,
+                                @Value("${sales-data.sharding.strategy:hash}") String strategy,
+                                @Value("${sales-data.sharding.range-bounds:}") String rangeBounds,
+                                @Value("${sales-data.sharding.pool-size:10}") int poolSize,
+                                @Value("${sales-data.sharding.query-threads:8}") int queryThreads) {
+        List<String> urls = split(shardUrls);
+        this.enabled = enabled && !urls.isEmpty();
+        this.rangeStrategy = "range".equalsIgnoreCase(strategy);
+        this.rangeBounds = split(rangeBounds).stream().map(SalesDataShardRouter::shardKey).toArray(String[]::new);
+
+        templates.add(primaryTemplate);
+        if (!this.enabled) {
+            if (enabled) {
+                log.warn("sales-data.sharding.enabled is set but no shard-urls are configured; sharding is off");
+            }
+            this.executor = null;
+            return;
+        }
+
+        int shardCount = urls.size() + 1;
+        if (rangeStrategy && this.rangeBounds.length != shardCount - 1) {
+            throw new IllegalStateException("sales-data.sharding.range-bounds needs " + (shardCount - 1)
+                    + " bounds for " + shardCount + " shards, got " + this.rangeBounds.length);
+        }
+        for (int i = 1; i < this.rangeBounds.length; i++) {
+            if (this.rangeBounds[i - 1].compareTo(this.rangeBounds[i]) >= 0) {
+                throw new IllegalStateException("sales-data.sharding.range-bounds must be ascending");
+            }
+        }
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("sales-data-shard-" + (i + 1));
+            dataSource.setJdbcUrl(urls.get(i));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            // Interleaved ids: shard i generates i + 1, i + 1 + N, i + 1 + 2N, ...
+            dataSource.setConnectionInitSql("SET SESSION auto_increment_increment = " + shardCount
+                    + ", auto_increment_offset = " + (i + 2));
+            ownedDataSources.add(dataSource);
+            transactionKeys.add(new Object());
+            templates.add(new NamedParameterJdbcTemplate(dataSource));
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, queryThreads), runnable -> {
+            Thread thread = new Thread(runnable, "sales-data-shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkAutoIncrement();
+        log.info("sales_data sharded over {} shards by BuyerCode ({})", shardCount, rangeStrategy ? "range" : "hash");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return templates.size();
+    }
+
+    /**
+     * Whether a read model that is built from sales_data on shard 0 alone may run: never while
+     * sharding is on, since it would miss the rows of the other shards.
+     *
+     * @param readModel  Name for the log
+     * @param configured The read model's enabled setting
+     */
+    public boolean allowsReadModel(String readModel, boolean configured) {
+        if (configured && enabled) {
+            log.warn("{} is built from shard 0 only and stays off while sales_data is sharded", readModel);
+            return false;
+        }
+        return configured;
+    }
+
+    /**
+     * Refuse a manual build of such a read model while sharding is on.
+     *
+     * @throws IllegalStateException if sales_data is sharded
+     */
+    public void requireSingleShard(String readModel) {
+        if (enabled) {
+            throw new IllegalStateException(readModel + " is built from shard 0 only and is disabled while "
+                    + "sales_data is sharded");
+        }
+    }
+
+    /**
+     * Shard of a BuyerCode; rows without BuyerCode live on shard 0.
+     */
+    public int shardFor(String buyerCode) {
+        if (!enabled) {
+            return 0;
+        }
+        String key = shardKey(buyerCode);
+        if (key == null || key.isEmpty()) {
+            return 0;
+        }
+        if (rangeStrategy) {
+            int shard = 0;
+            while (shard < rangeBounds.length && key.compareTo(rangeBounds[shard]) >= 0) {
+                shard++;
+            }
+            return shard;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(key.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % templates.size());
+    }
+
+    /**
+     * Shards a filter has to be run on: only the buyer's shard for an exact BuyerCode, else all.
+     */
+    public List<Integer> shardsFor(SalesDataFilter filter) {
+        if (filter.getBuyerCodeExact() != null) {
+            return List.of(shardFor(filter.getBuyerCodeExact()));
+        }
+        return allShards();
+    }
+
+    public List<Integer> allShards() {
+        List<Integer> shards = new ArrayList<>(templates.size());
+        for (int i = 0; i < templates.size(); i++) {
+            shards.add(i);
+        }
+        return shards;
+    }
+
+    /**
+     * The filter as run on a shard: candidate ids come from the keyword index, which is built
+     * from shard 0 only, so other shards apply the keyword predicate without them.
+     */
+    public SalesDataFilter filterForShard(SalesDataFilter filter, int shard) {
+        if (shard == 0 || filter.getCandidateIds() == null) {
+            return filter;
+        }
+        return filter.toBuilder().candidateIds(null).build();
+    }
+
+    public NamedParameterJdbcTemplate template(int shard) {
+        return templates.get(shard);
+    }
+
+    /**
+     * Template of a shard for writes that belong to the caller's transaction. Shard 0 is the
+     * primary template, which takes part in the transaction as usual. Another shard gets one
+     * connection per transaction with auto-commit off; it is committed after shard 0 has
+     * committed and rolled back when shard 0 rolls back.
+     *
+     * @throws IllegalStateException when no transaction is active: the write would be committed
+     *                               on its own
+     */
+    public NamedParameterJdbcTemplate transactionalTemplate(int shard) {
+        if (shard == 0) {
+            return templates.get(0);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Writes to sales_data shard " + shard + " must run in a transaction");
+        }
+        Object key = transactionKeys.get(shard - 1);
+        ShardTransaction transaction = (ShardTransaction) TransactionSynchronizationManager.getResource(key);
+        if (transaction == null) {
+            transaction = new ShardTransaction(shard, key, ownedDataSources.get(shard - 1));
+            TransactionSynchronizationManager.bindResource(key, transaction);
+            TransactionSynchronizationManager.registerSynchronization(transaction);
+        }
+        return transaction.template;
+    }
+
+    /**
+     * Run the task on the shards in parallel and return the results in shard order.
+     * A single shard is queried on the calling thread.
+     */
+    public <T> List<T> onShards(List<Integer> shards, IntFunction<T> task) {
+        if (shards.size() == 1 || executor == null) {
+            List<T> results = new ArrayList<>(shards.size());
+            for (int shard : shards) {
+                results.add(task.apply(shard));
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(executor.submit(() -> task.apply(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying sales_data shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("sales_data shard query failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        ownedDataSources.forEach(HikariDataSource::close);
+    }
+
+    /**
+     * Normalized BuyerCode as compared for routing.
+     */
+    static String shardKey(String buyerCode) {
+        return buyerCode == null ? null : buyerCode.stripTrailing().toUpperCase(Locale.ROOT);
+    }
+
+    // Refuses to start when two shards could generate the same id
+    private void checkAutoIncrement() {
+        int shardCount = templates.size();
+        Set<Integer> offsets = new HashSet<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            Map<String, Object> row = templates.get(shard).getJdbcTemplate().queryForMap(SELECT_AUTO_INCREMENT_SQL);
+            Object[] values = row.values().toArray();
+            int increment = ((Number) values[0]).intValue();
+            int offset = ((Number) values[1]).intValue();
+            if (increment < shardCount || offset < 1 || offset > increment || !offsets.add(offset)) {
+                throw new IllegalStateException(String.format(
+                        "sales_data shard %d has auto_increment_increment=%d, auto_increment_offset=%d; "
+                                + "with %d shards every shard needs increment %d and its own offset (shard 0: 1)",
+                        shard, increment, offset, shardCount, shardCount));
+            }
+        }
+    }
+
+    /**
+     * Connection of a shard enlisted in a shard 0 transaction.
+     */
+    private static final class ShardTransaction implements TransactionSynchronization {
+
+        private final int shard;
+        private final Object key;
+        private final Connection connection;
+        private final NamedParameterJdbcTemplate template;
+        private boolean committed;
+
+        ShardTransaction(int shard, Object key, HikariDataSource dataSource) {
+            this.shard = shard;
+            this.key = key;
+            try {
+                this.connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot open a transaction on sales_data shard " + shard, e);
+            }
+            this.template = new NamedParameterJdbcTemplate(new SingleConnectionDataSource(connection, true));
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(key);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(key, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                connection.commit();
+                committed = true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("sales_data shard " + shard + " failed to commit after shard 0 committed", e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            try {
+                if (!committed) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                log.warn("Failed to roll back sales_data shard {}: {}", shard, e.getMessage());
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("Failed to close connection of sales_data shard {}: {}", shard, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> parts = new ArrayList<>();
+        Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).forEach(parts::add);
+        return parts;
+    }
+}
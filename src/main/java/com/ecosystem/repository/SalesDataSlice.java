@@ -0,0 +1,18 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of sales_data rows plus the keyset cursor of the following page.
+ */
+@Data
+@AllArgsConstructor
+public class SalesDataSlice {
+    private List<SalesData> rows;
+    // null when this is the last page
+    private String nextCursor;
+}
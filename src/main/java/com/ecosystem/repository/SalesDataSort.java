@@ -0,0 +1,51 @@
+package com.ecosystem.repository;
+
+/**
+ * Supported sort orders for sales_data listings. Every order is made total by using id
+ * as the tie-breaker, which is what keyset pagination relies on.
+ */
+public enum SalesDataSort {
+
+    NEWEST("newest", "tx_date_typed", false),
+    PRICE_ASC("price_asc", "txp1_typed", true),
+    PRICE_DESC("price_desc", "txp1_typed", false);
+
+    private final String param;
+    private final String column;
+    private final boolean ascending;
+
+    SalesDataSort(String param, String column, boolean ascending) {
+        this.param = param;
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * The typed sort column (see V11 migration).
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Resolve the request "sort" parameter, falling back to NEWEST for empty or unknown values.
+     */
+    public static SalesDataSort fromParam(String sort) {
+        if (sort != null) {
+            for (SalesDataSort value : values()) {
+                if (value.param.equals(sort)) {
+                    return value;
+                }
+            }
+        }
+        return NEWEST;
+    }
+}
@@ -15,7 +15,10 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -71,11 +74,40 @@ public class BuyerCartService {
         return product;
     }
 
+    /**
+     * 购物车项对应的交易记录
+     * 关联只在分片 0 上解析，其他分片上的记录按 product_id 一次批量查询；已删除的记录返回只有 id 的占位
+     */
+    private Map<Long, SalesData> loadSalesData(List<CartItem> cartItems) {
+        Map<Long, SalesData> byId = new HashMap<>();
+        List<Long> remoteIds = new ArrayList<>();
+        for (CartItem cartItem : cartItems) {
+            if (cartItem.getSalesData() != null) {
+                byId.put(cartItem.getProductId(), cartItem.getSalesData());
+            } else {
+                remoteIds.add(cartItem.getProductId());
+            }
+        }
+        if (!remoteIds.isEmpty()) {
+            for (SalesData salesData : salesDataRepository.findAllByIdOnAnyShard(remoteIds)) {
+                byId.put(salesData.getId(), salesData);
+            }
+            for (Long productId : remoteIds) {
+                byId.computeIfAbsent(productId, id -> {
+                    SalesData missing = new SalesData();
+                    missing.setId(id);
+                    return missing;
+                });
+            }
+        }
+        return byId;
+    }
+
     /**
      * 将 CartItem 转换为 CartItemResponse
      */
-    private CartItemResponse toCartItemResponse(CartItem cartItem) {
-        CartProductResponse product = toCartProductResponse(cartItem.getSalesData());
+    private CartItemResponse toCartItemResponse(CartItem cartItem, SalesData salesData) {
+        CartProductResponse product = toCartProductResponse(salesData);
         return new CartItemResponse(
             cartItem.getId(),
             product,
@@ -102,8 +134,8 @@ public class BuyerCartService {
                 "Invalid productId format. Must be a number.");
         }
         
-        // 验证商品是否存在
-        SalesData salesData = salesDataRepository.findById(productId)
+        // 验证商品是否存在（记录可能在任一分片上）
+        SalesData salesData = salesDataRepository.findByIdOnAnyShard(productId)
             .orElseThrow(() -> new ProductNotFoundException(
                 String.format("Product with id %s does not exist", request.getProductId())));
         
@@ -118,7 +150,7 @@ public class BuyerCartService {
         BigDecimal price = getProductPrice(salesData);
         
         // 检查购物车中是否已有该商品
-        CartItem cartItem = cartItemRepository.findByUser_IdAndSalesData_Id(userId, productId)
+        CartItem cartItem = cartItemRepository.findByUser_IdAndProductId(userId, productId)
             .orElse(null);
         
         if (cartItem != null) {
@@ -153,10 +185,11 @@ public class BuyerCartService {
      */
     public CartResponse getCart(String userId) {
         List<CartItem> cartItems = cartItemRepository.findByUser_Id(userId);
+        Map<Long, SalesData> salesData = loadSalesData(cartItems);
         
         // 转换为响应格式
         List<CartItemResponse> items = cartItems.stream()
-            .map(this::toCartItemResponse)
+            .map(cartItem -> toCartItemResponse(cartItem, salesData.get(cartItem.getProductId())))
             .collect(Collectors.toList());
         
         // 计算总金额
@@ -196,12 +229,13 @@ public class BuyerCartService {
         // 更新数量
         cartItem.setQuantity(request.getQuantity());
         // 更新价格为最新价格
-        BigDecimal latestPrice = getProductPrice(cartItem.getSalesData());
+        SalesData salesData = loadSalesData(List.of(cartItem)).get(cartItem.getProductId());
+        BigDecimal latestPrice = getProductPrice(salesData);
         cartItem.setPrice(latestPrice);
         
         cartItem = cartItemRepository.save(cartItem);
         
-        return toCartItemResponse(cartItem);
+        return toCartItemResponse(cartItem, salesData);
     }
 
     /**
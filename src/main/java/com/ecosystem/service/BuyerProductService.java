@@ -1,11 +1,19 @@
 package com.ecosystem.service;
 
 import com.ecosystem.dto.buyer.*;
+import com.ecosystem.entity.ItemPriceStats;
 import com.ecosystem.entity.Product;
 import com.ecosystem.entity.SalesData;
 import com.ecosystem.exception.ProductNotFoundException;
+import com.ecosystem.repository.ProductCatalogCursor;
+import com.ecosystem.repository.ProductCatalogRepository;
+import com.ecosystem.repository.ProductCatalogSlice;
 import com.ecosystem.repository.ProductRepository;
+import com.ecosystem.repository.SalesDataCursor;
+import com.ecosystem.repository.SalesDataFilter;
 import com.ecosystem.repository.SalesDataRepository;
+import com.ecosystem.repository.SalesDataSlice;
+import com.ecosystem.repository.SalesDataSort;
 import com.ecosystem.repository.WishlistItemRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -20,7 +28,10 @@ import lombok.extern.slf4j.Slf4j;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,7 +41,12 @@ import java.util.stream.Collectors;
 public class BuyerProductService {
 
     private final ProductRepository productRepository;
+    private final ProductCatalogRepository productCatalogRepository;
     private final SalesDataRepository salesDataRepository;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ProductDetailAssembler productDetailAssembler;
+    private final ItemCoPurchaseService itemCoPurchaseService;
+    private final ItemPriceStatsService itemPriceStatsService;
     private final WishlistItemRepository wishlistItemRepository;
     private final ObjectMapper objectMapper;
 
@@ -68,41 +84,78 @@ public class BuyerProductService {
         return new ProductListResponse(products, null);
     }
 
-    public ProductListResponse getAllProducts(int page, int limit, String sort, 
-                                            String category, String userId) {
+    public ProductListResponse getAllProducts(int page, int limit, String sort, String category,
+                                            String cursor, Boolean includeTotal, String userId) {
+        if (page < 1) page = 1;
+        if (limit < 1) limit = 20;
+
         // 从 sales_data 表查询，而不是 products 表
-        Page<SalesData> salesDataPage;
-        Pageable pageable = createSalesDataPageable(page, limit, sort);
-        
+        SalesDataFilter filter = new SalesDataFilter();
+        SalesDataSort salesDataSort;
         if (category != null && !category.isEmpty() && !"all".equals(category)) {
-            // 按分类查询
-            salesDataPage = salesDataRepository.findByCategoryOrderByTxDateDesc(category, pageable);
+            // 按分类查询（按交易日期倒序）
+            filter.setCategoryExact(category);
+            salesDataSort = SalesDataSort.NEWEST;
         } else {
-            // 查询所有，根据排序方式选择不同的查询方法
-            switch (sort) {
-                case "price_asc":
-                    salesDataPage = salesDataRepository.findAllByOrderByTxP1Asc(pageable);
-                    break;
-                case "price_desc":
-                    salesDataPage = salesDataRepository.findAllByOrderByTxP1Desc(pageable);
-                    break;
-                case "newest":
-                default:
-                    salesDataPage = salesDataRepository.findAllByOrderByTxDateDesc(pageable);
-                    break;
-            }
+            salesDataSort = SalesDataSort.fromParam(sort);
         }
-        
+
+        // 游标模式（keyset 分页）默认不统计总数，页码模式保持原有行为
+        String normalizedCursor = cursor != null && !cursor.trim().isEmpty() ? cursor.trim() : null;
+        boolean withTotal = includeTotal != null ? includeTotal : normalizedCursor == null;
+        SalesDataCursor position = normalizedCursor != null
+            ? SalesDataCursor.decode(normalizedCursor, salesDataSort) : null;
+
+        SalesDataSlice slice = salesDataRepository.findSlice(
+            filter, salesDataSort, position, position == null ? (page - 1) * limit : 0, limit);
+
         // 将 SalesData 转换为 ProductResponse
-        List<ProductResponse> products = salesDataPage.getContent().stream()
+        List<ProductResponse> products = slice.getRows().stream()
             .map(this::toProductResponseFromSalesData)
             .collect(Collectors.toList());
-        
-        PaginationResponse pagination = new PaginationResponse(
-            page, limit, salesDataPage.getTotalElements(), salesDataPage.getTotalPages()
-        );
-        
-        return new ProductListResponse(products, pagination);
+
+        PaginationResponse pagination = new PaginationResponse(page, limit, null, null);
+        if (withTotal) {
+            long total = salesDataCountCache.getExactCount(filter);
+            pagination.setTotal(total);
+            pagination.setTotalPages((int) ((total + limit - 1) / limit));
+        }
+
+        return new ProductListResponse(products, pagination, slice.getNextCursor());
+    }
+
+    /**
+     * 产品级目录：每个产品（product_master）一行，附带该物料的最新价、历史最低价和交易笔数，
+     * 而不是每笔交易一行。分类、排序和游标分页参数与 getAllProducts 相同。
+     */
+    public ProductListResponse getCatalog(int page, int limit, String sort, String category,
+                                          String cursor, Boolean includeTotal, String userId) {
+        if (page < 1) page = 1;
+        if (limit < 1) limit = 20;
+
+        String categoryExact = category != null && !category.isEmpty() && !"all".equals(category) ? category : null;
+        SalesDataSort catalogSort = SalesDataSort.fromParam(sort);
+
+        String normalizedCursor = cursor != null && !cursor.trim().isEmpty() ? cursor.trim() : null;
+        boolean withTotal = includeTotal != null ? includeTotal : normalizedCursor == null;
+        ProductCatalogCursor position = normalizedCursor != null
+            ? ProductCatalogCursor.decode(normalizedCursor, catalogSort) : null;
+
+        ProductCatalogSlice slice = productCatalogRepository.findSlice(
+            categoryExact, catalogSort, position, position == null ? (page - 1) * limit : 0, limit);
+
+        List<ProductResponse> products = slice.getRows().stream()
+            .map(this::toProductResponseFromCatalog)
+            .collect(Collectors.toList());
+
+        PaginationResponse pagination = new PaginationResponse(page, limit, null, null);
+        if (withTotal) {
+            long total = productCatalogRepository.count(categoryExact);
+            pagination.setTotal(total);
+            pagination.setTotalPages((int) ((total + limit - 1) / limit));
+        }
+
+        return new ProductListResponse(products, pagination, slice.getNextCursor());
     }
 
     public ProductResponse getProductDetail(String productId, String userId) {
@@ -111,198 +164,122 @@ public class BuyerProductService {
             throw new ProductNotFoundException("Product ID cannot be empty");
         }
         
+        // 通过 id（数字）查询，或通过 ItemCode 查询（向后兼容）
         String trimmedProductId = productId.trim();
-        SalesData salesData = null;
-        String itemCode = null;
-        
-        // 优先通过 id（数字）查询（新的主键）
-        try {
-            Long id = Long.parseLong(trimmedProductId);
-            salesData = salesDataRepository.findById(id).orElse(null);
-            if (salesData != null) {
-                itemCode = salesData.getItemCode(); // 使用查询到的 ItemCode 进行价格统计
-            }
-        } catch (NumberFormatException e) {
-            // 如果不是数字，尝试通过 ItemCode 查询（向后兼容）
-            salesData = salesDataRepository.findFirstByItemCode(trimmedProductId);
-            if (salesData != null) {
-                itemCode = trimmedProductId; // 使用传入的 ItemCode 进行价格统计
-            }
-        }
+        ProductResponse response = productDetailAssembler.assemble(List.of(trimmedProductId)).get(trimmedProductId);
         
         // 如果找不到产品，抛出异常
-        if (salesData == null) {
+        if (response == null) {
             throw new ProductNotFoundException(
                 String.format("Product not found with ID: %s. Please use a valid product ID (number) or item code.", trimmedProductId)
             );
         }
-        
-        // 获取价格统计信息（基于 ItemCode）
-        Object[] priceStats = null;
-        if (itemCode != null && !itemCode.trim().isEmpty()) {
-            priceStats = salesDataRepository.getPriceStatisticsByItemCode(itemCode);
+        return response;
+    }
+
+    /**
+     * 经常一起购买的商品（预计算的共同购买近邻，按得分降序）
+     * productId 为 sales_data.id（数字）或 ItemCode
+     */
+    public List<CoPurchaseResponse> getFrequentlyBoughtTogether(String productId, int limit) {
+        if (productId == null || productId.trim().isEmpty()) {
+            throw new ProductNotFoundException("Product ID cannot be empty");
         }
-        
-        // 构建 ProductResponse
-        ProductResponse response = new ProductResponse();
-        // 使用 id（数字）作为唯一的产品 ID
-        // 确保 id 字段有值
-        Long productIdLong = salesData.getId();
-        
-        // 添加日志以诊断问题
-        log.debug("Product detail query - productId: {}, salesData.getId(): {}, itemCode: {}", 
-                  trimmedProductId, productIdLong, salesData.getItemCode());
-        
-        // 如果 id 为 null 或无效，尝试重新查询获取 id
-        if (productIdLong == null || productIdLong <= 0) {
-            log.warn("salesData.getId() is null or invalid ({}), attempting to retrieve id by ItemCode", productIdLong);
-            // 如果通过 ItemCode 查询且 id 为 null，尝试通过 ItemCode 重新查询获取 id
-            if (itemCode != null && !itemCode.trim().isEmpty()) {
-                SalesData retrySalesData = salesDataRepository.findFirstByItemCode(itemCode);
-                if (retrySalesData != null && retrySalesData.getId() != null && retrySalesData.getId() > 0) {
-                    productIdLong = retrySalesData.getId();
-                    log.info("Retrieved id {} from retry query", productIdLong);
-                }
-            }
+        String trimmedProductId = productId.trim();
+        String itemCode = trimmedProductId;
+        try {
+            Long id = Long.parseLong(trimmedProductId);
+            itemCode = salesDataRepository.findByIdOnAnyShard(id)
+                    .map(SalesData::getItemCode)
+                    .orElseThrow(() -> new ProductNotFoundException(
+                            String.format("Product not found with ID: %s", trimmedProductId)));
+        } catch (NumberFormatException e) {
+            // 非数字按 ItemCode 处理
         }
-        
-        // 设置 id 字段，确保始终有值
-        if (productIdLong != null && productIdLong > 0) {
-            response.setId(productIdLong.toString());
-            log.debug("Setting response id to: {}", productIdLong.toString());
+
+        List<ItemCoPurchaseService.Neighbour> neighbours =
+                itemCoPurchaseService.getNeighbours(itemCode, Math.max(1, Math.min(limit, 50)));
+        if (neighbours.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 名称取自 item_price_stats，一次主键 IN 查询
+        Map<String, String> names = new HashMap<>();
+        List<String> itemCodes = neighbours.stream()
+                .map(ItemCoPurchaseService.Neighbour::getItemCode)
+                .collect(Collectors.toList());
+        for (ItemPriceStats stats : itemPriceStatsService.findByItemCodes(itemCodes)) {
+            names.put(stats.getItemCode().trim().toUpperCase(Locale.ROOT), stats.getItemName());
+        }
+        List<CoPurchaseResponse> result = new ArrayList<>(neighbours.size());
+        for (ItemCoPurchaseService.Neighbour neighbour : neighbours) {
+            result.add(new CoPurchaseResponse(neighbour.getItemCode(),
+                    names.get(neighbour.getItemCode().trim().toUpperCase(Locale.ROOT)),
+                    neighbour.getScore(), neighbour.getCoBuyers()));
+        }
+        return result;
+    }
+    
+    /**
+     * 将目录产品转换为 ProductResponse
+     * id 使用该产品最新一笔交易的 sales_data.id，详情接口可直接使用
+     */
+    private ProductResponse toProductResponseFromCatalog(ProductCatalogRepository.CatalogProduct product) {
+        ProductResponse response = new ProductResponse();
+        if (product.getLastTxId() != null && product.getLastTxId() > 0) {
+            response.setId(product.getLastTxId().toString());
         } else {
-            // 如果仍然无法获取 id，使用 productId（如果是数字）或 ItemCode
-            log.warn("Unable to retrieve valid id, using productId: {}", trimmedProductId);
-            response.setId(trimmedProductId);
+            // 尚未记录最新交易时使用 ItemCode（详情接口支持按 ItemCode 查询）
+            response.setId(product.getItemCode() != null ? product.getItemCode() : product.getProductUid());
         }
-        response.setName(salesData.getItemName() != null ? salesData.getItemName() : "Unknown Product");
-        
+        response.setName(product.getItemName() != null ? product.getItemName() : "Unknown Product");
+
         // 构建描述
         List<String> descParts = new ArrayList<>();
-        if (salesData.getItemType() != null && !salesData.getItemType().trim().isEmpty()) {
-            descParts.add(salesData.getItemType());
+        if (product.getItemType() != null && !product.getItemType().trim().isEmpty()) {
+            descParts.add(product.getItemType());
         }
-        if (salesData.getModel() != null && !salesData.getModel().trim().isEmpty()) {
-            descParts.add(salesData.getModel());
+        if (product.getModel() != null && !product.getModel().trim().isEmpty()) {
+            descParts.add(product.getModel());
         }
-        if (salesData.getMaterial() != null && !salesData.getMaterial().trim().isEmpty()) {
-            descParts.add(salesData.getMaterial());
+        if (product.getMaterial() != null && !product.getMaterial().trim().isEmpty()) {
+            descParts.add(product.getMaterial());
         }
         response.setDescription(descParts.isEmpty() ? null : String.join(" - ", descParts));
-        
-        // 价格信息 - 优先从当前记录获取
-        BigDecimal latestPrice = BigDecimal.ZERO;
-        if (salesData.getTxP1() != null && !salesData.getTxP1().trim().isEmpty()) {
-            try {
-                String priceStr = salesData.getTxP1().trim();
-                if (!priceStr.isEmpty()) {
-                    BigDecimal parsedPrice = new BigDecimal(priceStr);
-                    if (parsedPrice.compareTo(BigDecimal.ZERO) >= 0) {
-                        latestPrice = parsedPrice;
-                    }
-                }
-            } catch (NumberFormatException e) {
-                latestPrice = BigDecimal.ZERO;
-            }
-        }
-        
-        // 如果价格统计有最新价格，使用统计中的最新价格
-        if (priceStats != null && priceStats.length >= 3 && priceStats[2] != null) {
-            try {
-                Object latestPriceObj = priceStats[2];
-                if (latestPriceObj != null) {
-                    BigDecimal statsLatestPrice = new BigDecimal(latestPriceObj.toString());
-                    if (statsLatestPrice.compareTo(BigDecimal.ZERO) > 0) {
-                        latestPrice = statsLatestPrice;
-                    }
-                }
-            } catch (Exception e) {
-                // 如果转换失败，使用之前获取的价格
-            }
-        }
-        
-        // 确保 latestPrice 不为 null 且 >= 0
-        if (latestPrice == null) {
-            latestPrice = BigDecimal.ZERO;
-        }
-        if (latestPrice.compareTo(BigDecimal.ZERO) < 0) {
-            latestPrice = BigDecimal.ZERO;
-        }
-        
-        // 设置价格字段，确保都不为 null
+
+        // 价格信息来自 item_price_stats，统计缺失时为 0
+        BigDecimal latestPrice = product.getLatestPrice() != null && product.getLatestPrice().compareTo(BigDecimal.ZERO) > 0
+            ? product.getLatestPrice() : BigDecimal.ZERO;
+        BigDecimal historicalLowPrice = product.getMinPrice() != null && product.getMinPrice().compareTo(BigDecimal.ZERO) > 0
+            ? product.getMinPrice() : latestPrice;
         response.setPrice(latestPrice);
         response.setCurrency("USD");
-        
-        // 历史最低价 - 默认使用当前价格
-        BigDecimal historicalLowPrice = latestPrice;
-        if (priceStats != null && priceStats.length >= 1 && priceStats[0] != null) {
-            try {
-                Object minPriceObj = priceStats[0];
-                if (minPriceObj != null) {
-                    String minPriceStr = minPriceObj.toString();
-                    if (minPriceStr != null && !minPriceStr.trim().isEmpty()) {
-                        BigDecimal minPrice = new BigDecimal(minPriceStr);
-                        if (minPrice.compareTo(BigDecimal.ZERO) > 0) {
-                            historicalLowPrice = minPrice;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                // 如果转换失败，使用默认值 latestPrice
-                historicalLowPrice = latestPrice;
-            }
-        }
         response.setHistoricalLowPrice(historicalLowPrice);
-        
-        // 最近交易价（使用最新价格，确保不为 null）
-        response.setLastTransactionPrice(latestPrice != null ? latestPrice : BigDecimal.ZERO);
-        
+        response.setLastTransactionPrice(latestPrice);
+        response.setTransactionCount(product.getTransactionCount());
+
         // 分类
-        response.setCategory(salesData.getProductHierarchy3());
-        
+        response.setCategory(product.getProductHierarchy3());
+
         // 构建标签
         List<String> tags = new ArrayList<>();
-        if (salesData.getItemType() != null && !salesData.getItemType().trim().isEmpty()) {
-            tags.add(salesData.getItemType());
+        if (product.getItemType() != null && !product.getItemType().trim().isEmpty()) {
+            tags.add(product.getItemType());
         }
-        if (salesData.getBrandCode() != null && !salesData.getBrandCode().trim().isEmpty()) {
-            tags.add(salesData.getBrandCode());
+        if (product.getBrandCode() != null && !product.getBrandCode().trim().isEmpty()) {
+            tags.add(product.getBrandCode());
         }
-        if (salesData.getSector() != null && !salesData.getSector().trim().isEmpty()) {
-            tags.add(salesData.getSector());
-        }
-        if (salesData.getFunction() != null && !salesData.getFunction().trim().isEmpty()) {
-            tags.add(salesData.getFunction());
+        if (product.getFunctionName() != null && !product.getFunctionName().trim().isEmpty()) {
+            tags.add(product.getFunctionName());
         }
         response.setTags(tags.isEmpty() ? null : tags);
-        
-        // 卖家信息
-        if (salesData.getBuyerName() != null && !salesData.getBuyerName().trim().isEmpty()) {
-            response.setSeller(new SellerResponse(
-                salesData.getBuyerCode() != null ? salesData.getBuyerCode() : "unknown",
-                salesData.getBuyerName(),
-                false, // verified
-                null   // rating
-            ));
-        }
-        
-        // 设置时间戳
+
         response.setCreatedAt(LocalDateTime.now());
         response.setUpdatedAt(LocalDateTime.now());
-        
-        // 其他可选字段保持为 null
-        response.setImage(null);
-        response.setImages(null);
-        response.setStock(null);
-        response.setRating(null);
-        response.setReviewsCount(null);
-        response.setCertification(null);
-        response.setSpecifications(null);
         response.setInWishlist(false);
-        
+
         return response;
     }
-    
+
     /**
      * 将 SalesData 转换为 ProductResponse（用于产品列表）
      * 这是简化版本，不包含价格统计信息
@@ -423,11 +400,6 @@ public class BuyerProductService {
         }
         return PageRequest.of(page - 1, limit, sortObj);
     }
-    
-    private Pageable createSalesDataPageable(int page, int limit, String sort) {
-        // 对于 sales_data 表，排序已经在 native query 中处理，这里只需要分页
-        return PageRequest.of(page - 1, limit);
-    }
 
     private Set<String> getWishlistProductIds(String userId) {
         if (userId == null) {
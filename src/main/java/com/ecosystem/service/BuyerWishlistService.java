@@ -4,6 +4,7 @@ import com.ecosystem.dto.buyer.*;
 import com.ecosystem.entity.Product;
 import com.ecosystem.entity.User;
 import com.ecosystem.entity.WishlistItem;
+import com.ecosystem.exception.ProductNotFoundException;
 import com.ecosystem.repository.ProductRepository;
 import com.ecosystem.repository.UserRepository;
 import com.ecosystem.repository.WishlistItemRepository;
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +27,7 @@ public class BuyerWishlistService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final BuyerProductService buyerProductService;
+    private final ProductDetailAssembler productDetailAssembler;
 
     @Transactional
     public WishlistItemResponse addToWishlist(String userId, String productId) {
@@ -56,10 +59,21 @@ public class BuyerWishlistService {
         Pageable pageable = PageRequest.of(page - 1, limit);
         Page<WishlistItem> wishlistPage = wishlistItemRepository.findByUser_Id(userId, pageable);
         
+        // 整页产品详情一次批量组装，查询次数与愿望清单条目数无关
+        Map<String, ProductResponse> products = productDetailAssembler.assemble(
+            wishlistPage.getContent().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toList()));
+        
         List<WishlistItemResponse> items = wishlistPage.getContent().stream()
             .map(item -> {
-                ProductResponse product = buyerProductService.getProductDetail(
-                    item.getProduct().getId(), userId);
+                String productId = item.getProduct().getId();
+                ProductResponse product = productId != null ? products.get(productId.trim()) : null;
+                if (product == null) {
+                    throw new ProductNotFoundException(
+                        String.format("Product not found with ID: %s. Please use a valid product ID (number) or item code.", productId)
+                    );
+                }
                 return new WishlistItemResponse(
                     item.getId(),
                     product,
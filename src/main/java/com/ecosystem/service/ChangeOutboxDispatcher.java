@@ -0,0 +1,418 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.ChangeOutboxConsumer;
+import com.ecosystem.event.ChangeOutboxRecord;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers the change outbox (V16) to the registered ChangeOutboxConsumer beans.
+ *
+ * Every poll reads the records after each consumer's position in id order, hands them over in
+ * batches and stores the new position once the consumer returned. A record whose id is not
+ * directly after the previous one may still have a lower id in flight (an uncommitted append).
+ * Such a gap is passed once the record behind it is older than gap-wait-seconds, but it is not
+ * given up: the missing ids are kept in change_outbox_gaps (V23) and looked up again on every
+ * poll, and records that commit there later (a long merge window, a lock wait) are delivered
+ * then, after newer ones. Ids still missing after gap-retention-minutes are taken to be rolled
+ * back.
+ *
+ * Only one instance dispatches at a time: the poll holds the lease row of change_outbox_lease
+ * (V23) and renews it in the transaction that advances a position, so an instance that lost the
+ * lease cannot move a consumer's position. sales-data.outbox.dispatch=false turns dispatching
+ * off on an instance altogether.
+ */
+@Slf4j
+@Service
+public class ChangeOutboxDispatcher {
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT id, aggregate_type, aggregate_id, change_type, item_code, previous_item_code, created_at, " +
+            "created_at < NOW(3) - INTERVAL ? SECOND AS settled " +
+            "FROM ecoschema.change_outbox WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_POSITION_SQL =
+            "SELECT last_id FROM ecoschema.change_outbox_offsets WHERE consumer = ?";
+    // A new consumer starts at the end of the outbox
+    private static final String INSERT_POSITION_SQL =
+            "INSERT IGNORE INTO ecoschema.change_outbox_offsets (consumer, last_id) " +
+            "SELECT ?, COALESCE(MAX(id), 0) FROM ecoschema.change_outbox";
+    private static final String UPDATE_POSITION_SQL =
+            "UPDATE ecoschema.change_outbox_offsets SET last_id = ? WHERE consumer = ? AND last_id < ?";
+    private static final String MIN_POSITION_SQL =
+            "SELECT MIN(last_id) FROM ecoschema.change_outbox_offsets WHERE consumer IN (:consumers)";
+    private static final int PURGE_BATCH_SIZE = 10_000;
+    private static final String PURGE_SQL =
+            "DELETE FROM ecoschema.change_outbox WHERE id <= ? AND created_at < NOW() - INTERVAL ? HOUR " +
+            "ORDER BY id LIMIT " + PURGE_BATCH_SIZE;
+
+    private static final String SELECT_GAPS_SQL =
+            "SELECT from_id, to_id, skipped_at, skipped_at < NOW(3) - INTERVAL ? MINUTE AS expired " +
+            "FROM ecoschema.change_outbox_gaps WHERE consumer = ? ORDER BY from_id";
+    private static final String SELECT_GAP_RECORDS_SQL =
+            "SELECT o.id, o.aggregate_type, o.aggregate_id, o.change_type, o.item_code, o.previous_item_code, " +
+            "o.created_at, 1 AS settled " +
+            "FROM ecoschema.change_outbox_gaps g " +
+            "JOIN ecoschema.change_outbox o ON o.id BETWEEN g.from_id AND g.to_id " +
+            "WHERE g.consumer = ? ORDER BY o.id";
+    private static final String INSERT_GAP_SQL =
+            "INSERT INTO ecoschema.change_outbox_gaps (consumer, from_id, to_id, skipped_at) " +
+            "VALUES (?, ?, ?, COALESCE(?, NOW(3)))";
+    private static final String DELETE_GAP_SQL =
+            "DELETE FROM ecoschema.change_outbox_gaps WHERE consumer = ? AND from_id = ?";
+
+    private static final String LEASE_NAME = "dispatcher";
+    private static final String RENEW_LEASE_SQL =
+            "UPDATE ecoschema.change_outbox_lease SET owner = ?, expires_at = NOW(3) + INTERVAL ? SECOND " +
+            "WHERE name = '" + LEASE_NAME + "' AND (owner = ? OR owner IS NULL OR expires_at < NOW(3))";
+    private static final String RELEASE_LEASE_SQL =
+            "UPDATE ecoschema.change_outbox_lease SET owner = NULL " +
+            "WHERE name = '" + LEASE_NAME + "' AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeOutboxWriter changeOutboxWriter;
+    private final List<ChangeOutboxConsumer> consumers;
+    // Lease owner id of this instance
+    private final String instanceId;
+
+    @Value("${sales-data.outbox.dispatch:true}")
+    private boolean dispatchEnabled;
+
+    @Value("${sales-data.outbox.batch-size:500}")
+    private int batchSize;
+
+    // Upper bound of batches per consumer and poll, so one busy consumer does not starve the others
+    @Value("${sales-data.outbox.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Value("${sales-data.outbox.gap-wait-seconds:30}")
+    private int gapWaitSeconds;
+
+    // How long ids missing behind a passed gap are looked up again before they count as rolled back
+    @Value("${sales-data.outbox.gap-retention-minutes:1440}")
+    private int gapRetentionMinutes;
+
+    // Gaps are looked up again at most this often per consumer
+    @Value("${sales-data.outbox.gap-recheck-seconds:10}")
+    private int gapRecheckSeconds;
+
+    @Value("${sales-data.outbox.lease-seconds:60}")
+    private int leaseSeconds;
+
+    // Consumer name -> time of the last gap lookup (dispatching thread only)
+    private final Map<String, Long> lastGapCheck = new HashMap<>();
+
+    @Value("${sales-data.outbox.retention-hours:72}")
+    private int retentionHours;
+
+    public ChangeOutboxDispatcher(JdbcTemplate jdbcTemplate,
+                                  NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ChangeOutboxWriter changeOutboxWriter,
+                                  ObjectProvider<ChangeOutboxConsumer> consumers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeOutboxWriter = changeOutboxWriter;
+        this.consumers = consumers.orderedStream().collect(Collectors.toList());
+        this.instanceId = hostName() + "/" + UUID.randomUUID();
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        if (!dispatchEnabled || !changeOutboxWriter.isEnabled()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(RELEASE_LEASE_SQL, instanceId);
+        } catch (DataAccessException e) {
+            log.debug("Failed to release the change outbox lease: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sales-data.outbox.poll-interval-ms:1000}",
+            initialDelayString = "${sales-data.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        if (!dispatchEnabled || consumers.isEmpty() || !changeOutboxWriter.isEnabled()) {
+            return;
+        }
+        try {
+            if (!renewLease()) {
+                // Another instance is dispatching
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to acquire the change outbox lease (migration V23 not applied?): {}", e.getMessage());
+            return;
+        }
+        for (ChangeOutboxConsumer consumer : consumers) {
+            try {
+                redeliverGaps(consumer);
+                dispatch(consumer);
+            } catch (LeaseLostException e) {
+                log.warn("Change outbox lease lost while dispatching to {}; another instance took over",
+                        consumer.getName());
+                return;
+            } catch (RuntimeException e) {
+                // Position unchanged: the batch is delivered again on the next poll
+                log.warn("Change outbox consumer {} failed, retrying on the next poll: {}",
+                        consumer.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Remove records that every consumer has handled and that are older than the retention period.
+     */
+    @Scheduled(cron = "${sales-data.outbox.purge-cron:0 15 * * * *}")
+    public void purge() {
+        if (!dispatchEnabled || !changeOutboxWriter.isEnabled()) {
+            return;
+        }
+        try {
+            long upTo = Long.MAX_VALUE;
+            if (!consumers.isEmpty()) {
+                List<String> names = consumers.stream().map(ChangeOutboxConsumer::getName).collect(Collectors.toList());
+                Long minPosition = namedParameterJdbcTemplate.queryForObject(MIN_POSITION_SQL,
+                        new MapSqlParameterSource("consumers", names), Long.class);
+                if (minPosition == null) {
+                    return;
+                }
+                upTo = minPosition;
+            }
+            long purged = 0;
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(PURGE_SQL, upTo, retentionHours);
+                purged += deleted;
+            } while (deleted == PURGE_BATCH_SIZE);
+            if (purged > 0) {
+                log.info("Purged {} change outbox records", purged);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Change outbox purge failed: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(ChangeOutboxConsumer consumer) {
+        String name = consumer.getName();
+        long position = position(name);
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            List<OutboxRow> rows = jdbcTemplate.query(SELECT_BATCH_SQL, (rs, rowNum) -> toRow(rs),
+                    gapWaitSeconds, position, batchSize);
+
+            long last = position;
+            List<ChangeOutboxRecord> batch = new ArrayList<>();
+            List<long[]> gaps = new ArrayList<>();
+            for (OutboxRow row : rows) {
+                long id = row.record.getId();
+                if (id != last + 1) {
+                    if (!row.settled) {
+                        break;
+                    }
+                    gaps.add(new long[]{last + 1, id - 1});
+                }
+                last = id;
+                if (consumer.accepts(row.record.getAggregateType())) {
+                    batch.add(row.record);
+                }
+            }
+            if (last == position) {
+                return;
+            }
+            if (!batch.isEmpty()) {
+                long started = System.currentTimeMillis();
+                consumer.onChanges(batch);
+                log.debug("Change outbox consumer {} handled {} records up to id {} in {} ms",
+                        name, batch.size(), last, System.currentTimeMillis() - started);
+            }
+            long newPosition = last;
+            inLease(() -> {
+                for (long[] gap : gaps) {
+                    jdbcTemplate.update(INSERT_GAP_SQL, name, gap[0], gap[1], null);
+                }
+                jdbcTemplate.update(UPDATE_POSITION_SQL, newPosition, name, newPosition);
+            });
+            position = last;
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver the records that committed inside gaps passed earlier, and keep looking for the ids
+     * still missing until their gap expires.
+     */
+    private void redeliverGaps(ChangeOutboxConsumer consumer) {
+        String name = consumer.getName();
+        long now = System.currentTimeMillis();
+        Long lastCheck = lastGapCheck.get(name);
+        if (lastCheck != null && now - lastCheck < gapRecheckSeconds * 1000L) {
+            return;
+        }
+        lastGapCheck.put(name, now);
+        List<Gap> gaps = jdbcTemplate.query(SELECT_GAPS_SQL, (rs, rowNum) -> new Gap(
+                rs.getLong("from_id"), rs.getLong("to_id"), rs.getTimestamp("skipped_at"), rs.getBoolean("expired")),
+                gapRetentionMinutes, name);
+        if (gaps.isEmpty()) {
+            return;
+        }
+        List<ChangeOutboxRecord> found = jdbcTemplate.query(SELECT_GAP_RECORDS_SQL,
+                (rs, rowNum) -> toRow(rs).record, name);
+        List<ChangeOutboxRecord> accepted = found.stream()
+                .filter(record -> consumer.accepts(record.getAggregateType()))
+                .collect(Collectors.toList());
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            consumer.onChanges(accepted.subList(from, Math.min(from + batchSize, accepted.size())));
+        }
+
+        // Each gap is replaced by the ranges of its ids that are still missing
+        List<Gap> remaining = new ArrayList<>();
+        long expiredIds = 0;
+        for (Gap gap : gaps) {
+            if (gap.expired) {
+                expiredIds += gap.toId - gap.fromId + 1;
+                continue;
+            }
+            long start = gap.fromId;
+            for (ChangeOutboxRecord record : found) {
+                long id = record.getId();
+                if (id >= gap.fromId && id <= gap.toId) {
+                    if (id > start) {
+                        remaining.add(new Gap(start, id - 1, gap.skippedAt, false));
+                    }
+                    start = id + 1;
+                }
+            }
+            if (start <= gap.toId) {
+                remaining.add(new Gap(start, gap.toId, gap.skippedAt, false));
+            }
+        }
+        if (found.isEmpty() && expiredIds == 0) {
+            return;
+        }
+        inLease(() -> {
+            for (Gap gap : gaps) {
+                jdbcTemplate.update(DELETE_GAP_SQL, name, gap.fromId);
+            }
+            for (Gap gap : remaining) {
+                jdbcTemplate.update(INSERT_GAP_SQL, name, gap.fromId, gap.toId, gap.skippedAt);
+            }
+        });
+        if (!found.isEmpty()) {
+            log.info("Change outbox consumer {} received {} records that committed after their gap was passed",
+                    name, found.size());
+        }
+        if (expiredIds > 0) {
+            log.info("Change outbox consumer {}: {} ids still missing after {} minutes, taken as rolled back",
+                    name, expiredIds, gapRetentionMinutes);
+        }
+    }
+
+    /**
+     * Run the writes in one transaction that first renews the lease, so they are only committed
+     * while this instance holds it.
+     */
+    private void inLease(Runnable writes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!renewLease()) {
+                throw new LeaseLostException();
+            }
+            writes.run();
+        });
+    }
+
+    private boolean renewLease() {
+        return jdbcTemplate.update(RENEW_LEASE_SQL, instanceId, leaseSeconds, instanceId) == 1;
+    }
+
+    private long position(String consumer) {
+        List<Long> positions = jdbcTemplate.queryForList(SELECT_POSITION_SQL, Long.class, consumer);
+        if (!positions.isEmpty()) {
+            return positions.get(0);
+        }
+        jdbcTemplate.update(INSERT_POSITION_SQL, consumer);
+        long position = jdbcTemplate.queryForObject(SELECT_POSITION_SQL, Long.class, consumer);
+        log.info("Registered change outbox consumer {} at id {}", consumer, position);
+        return position;
+    }
+
+    private static OutboxRow toRow(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new OutboxRow(new ChangeOutboxRecord(
+                rs.getLong("id"),
+                rs.getString("aggregate_type"),
+                rs.getString("aggregate_id"),
+                rs.getString("change_type"),
+                rs.getString("item_code"),
+                rs.getString("previous_item_code"),
+                createdAt != null ? createdAt.toLocalDateTime() : null),
+                rs.getBoolean("settled"));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Ids passed while missing: from_id..to_id of change_outbox_gaps
+     */
+    private static final class Gap {
+        private final long fromId;
+        private final long toId;
+        private final Timestamp skippedAt;
+        private final boolean expired;
+
+        Gap(long fromId, long toId, Timestamp skippedAt, boolean expired) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.skippedAt = skippedAt;
+            this.expired = expired;
+        }
+    }
+
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super("Change outbox lease is held by another instance");
+        }
+    }
+
+    private static final class OutboxRow {
+        private final ChangeOutboxRecord record;
+        // Older than the gap wait: a lower id still missing before it is not waited for
+        private final boolean settled;
+
+        OutboxRow(ChangeOutboxRecord record, boolean settled) {
+            this.record = record;
+            this.settled = settled;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.ChangeOutboxRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Appends change records to the change outbox (V16) in the caller's transaction, so a record
+ * exists exactly when the write it describes was committed.
+ *
+ * Callers append as the last statement of their transaction: outbox ids are allocated when the
+ * row is inserted, and ChangeOutboxDispatcher waits a short while for a lower id that is not
+ * visible yet, so the time between the append and the commit should stay short.
+ *
+ * When the outbox is disabled, or the table does not exist (V16 not applied), appends do nothing.
+ */
+@Slf4j
+@Service
+public class ChangeOutboxWriter {
+
+    // Column list of every append; a select handed to appendSelect returns these columns in this order
+    public static final String INSERT_PREFIX = "INSERT INTO ecoschema.change_outbox "
+            + "(aggregate_type, aggregate_id, change_type, item_code, previous_item_code) ";
+
+    private static final String INSERT_SQL = INSERT_PREFIX + "VALUES (?, ?, ?, ?, ?)";
+    private static final String PROBE_SQL = "SELECT id FROM ecoschema.change_outbox LIMIT 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${sales-data.outbox.enabled:true}")
+    private boolean enabled;
+
+    // null until the table was probed
+    private volatile Boolean tableAvailable;
+
+    public ChangeOutboxWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void probeOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            isEnabled();
+        } catch (DataAccessException e) {
+            log.warn("Could not check the change_outbox table, checking again on the first write: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Whether appends are written (outbox enabled and table present).
+     */
+    public boolean isEnabled() {
+        if (!enabled) {
+            return false;
+        }
+        Boolean available = tableAvailable;
+        return available != null ? available : probe();
+    }
+
+    public void appendSalesDataUpsert(Long id, String itemCode, String previousItemCode) {
+        append(List.of(Change.salesDataUpsert(id, itemCode, previousItemCode)));
+    }
+
+    public void appendSalesDataDelete(Long id, String itemCode) {
+        append(List.of(Change.salesDataDelete(id, itemCode)));
+    }
+
+    public void append(List<Change> changes) {
+        if (changes.isEmpty() || !isEnabled()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            rows.add(new Object[]{change.aggregateType, change.aggregateId, change.changeType,
+                    change.itemCode, change.previousItemCode});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Set-based append: {@link #INSERT_PREFIX} followed by the select, which returns
+     * aggregate_type, aggregate_id, change_type, item_code, previous_item_code.
+     *
+     * @return number of appended records
+     */
+    public int appendSelect(String selectSql, Object... args) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        return jdbcTemplate.update(INSERT_PREFIX + selectSql, args);
+    }
+
+    private synchronized boolean probe() {
+        if (tableAvailable != null) {
+            return tableAvailable;
+        }
+        try {
+            jdbcTemplate.queryForList(PROBE_SQL, Long.class);
+            tableAvailable = true;
+        } catch (BadSqlGrammarException e) {
+            log.warn("Table ecoschema.change_outbox not found (migration V16 not applied); "
+                    + "sales_data changes are not recorded in the outbox");
+            tableAvailable = false;
+        }
+        return tableAvailable;
+    }
+
+    /**
+     * A change record to append
+     */
+    public static final class Change {
+        private final String aggregateType;
+        private final String aggregateId;
+        private final String changeType;
+        private final String itemCode;
+        private final String previousItemCode;
+
+        private Change(String aggregateType, String aggregateId, String changeType, String itemCode,
+                       String previousItemCode) {
+            this.aggregateType = aggregateType;
+            this.aggregateId = aggregateId;
+            this.changeType = changeType;
+            this.itemCode = itemCode;
+            this.previousItemCode = previousItemCode;
+        }
+
+        /**
+         * @param previousItemCode ItemCode before the write; only recorded when it differs
+         */
+        public static Change salesDataUpsert(Long id, String itemCode, String previousItemCode) {
+            return new Change(ChangeOutboxRecord.SALES_DATA, String.valueOf(id), ChangeOutboxRecord.UPSERT,
+                    itemCode, Objects.equals(itemCode, previousItemCode) ? null : previousItemCode);
+        }
+
+        public static Change salesDataDelete(Long id, String itemCode) {
+            return new Change(ChangeOutboxRecord.SALES_DATA, String.valueOf(id), ChangeOutboxRecord.DELETE,
+                    itemCode, null);
+        }
+
+        public static Change productMasterUpsert(String productUid, String itemCode) {
+            return new Change(ChangeOutboxRecord.PRODUCT_MASTER, productUid, ChangeOutboxRecord.UPSERT,
+                    itemCode, null);
+        }
+
+        public static Change productMasterDelete(String productUid, String itemCode) {
+            return new Change(ChangeOutboxRecord.PRODUCT_MASTER, productUid, ChangeOutboxRecord.DELETE,
+                    itemCode, null);
+        }
+    }
+}
@@ -382,7 +382,7 @@ public class ChatService {
         // 4. 使用 LLM 基于搜索结果生成智能回答
         String responseText;
         if (criteria.hasItemCode() && salesDataList.size() > 0) {
-            MaterialSearchService.MaterialHistoryStats stats = materialSearchService.getMaterialHistory(criteria.getItemCode());
+            MaterialSearchService.MaterialHistoryStats stats = materialSearchService.getMaterialHistory(criteria.getItemCode(), false);
             if (stats != null) {
                 responseText = String.format(
                     "Found %d historical transactions for Item Code: %s (%s). " +
@@ -0,0 +1,798 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.ChangeOutboxConsumer;
+import com.ecosystem.event.ChangeOutboxRecord;
+import com.ecosystem.index.IntArrayList;
+import com.ecosystem.index.ItemNeighbours;
+import com.ecosystem.index.LongIntHashMap;
+import com.ecosystem.index.StringDictionary;
+import com.ecosystem.repository.SalesDataShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * "Frequently bought together" recommendations from the BuyerCode x ItemCode co-occurrence in
+ * sales_data: two items co-occur once for every buyer that bought both. Each item keeps its
+ * top-N neighbours, scored by cosine similarity (co-buyers / sqrt(buyers(a) * buyers(b))) or by
+ * normalized PMI, in item_co_purchase (V21) and in memory for O(1) lookups.
+ *
+ * The full build streams the distinct (BuyerCode, ItemCode) pairs in idx_buyer_item order into
+ * per-buyer baskets of int item ids, splits the buyers into ranges of about equal pair work and
+ * counts the item pairs of every range on its own thread into a primitive long -> int map. The
+ * partial maps are merged into shards by the lower item id, and each item's neighbour list is
+ * ranked by the one thread that owns the item. Buyers with more than max-items-per-buyer items
+ * (distributors, catch-all accounts) are left out: they relate everything to everything and
+ * cost quadratic work.
+ *
+ * New transactions arrive through the change outbox: an item that is new in a buyer's basket
+ * increments its pair counts with the rest of the basket, and the lists of the touched items
+ * are updated. Counts never decrease incrementally; deletes, ItemCode changes and the scores of
+ * untouched lists that contain a touched item are corrected by the nightly full build.
+ *
+ * Off with sharded sales_data (no recommendations are returned).
+ */
+@Slf4j
+@Service
+public class ItemCoPurchaseService implements ChangeOutboxConsumer {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final int SELECT_CHUNK_SIZE = 1000;
+
+    private static final String SELECT_BASKETS_SQL =
+            "SELECT `BuyerCode`, `ItemCode` FROM ecoschema.sales_data " +
+            "WHERE `BuyerCode` IS NOT NULL AND `BuyerCode` != '' AND `ItemCode` IS NOT NULL AND `ItemCode` != '' " +
+            "ORDER BY `BuyerCode`, `ItemCode`";
+    private static final String SELECT_BY_IDS_SQL =
+            "SELECT `BuyerCode`, `ItemCode` FROM ecoschema.sales_data WHERE id IN (:ids)";
+    private static final String SELECT_NEIGHBOURS_SQL =
+            "SELECT item_code, neighbour_item_code, score, co_buyers FROM ecoschema.item_co_purchase " +
+            "ORDER BY item_code, rank_no";
+    private static final String DELETE_ALL_SQL = "DELETE FROM ecoschema.item_co_purchase";
+    private static final String DELETE_ITEMS_SQL =
+            "DELETE FROM ecoschema.item_co_purchase WHERE item_code IN (:itemCodes)";
+    private static final String INSERT_SQL =
+            "INSERT INTO ecoschema.item_co_purchase (item_code, rank_no, neighbour_item_code, score, co_buyers) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final ExecutorService buildExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Guards model, building and pendingIds
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final SalesDataShardRouter shardRouter;
+    private final boolean enabled;
+
+    @Value("${sales-data.co-purchase.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    @Value("${sales-data.co-purchase.top-n:20}")
+    private int topN;
+
+    // Pairs bought together by fewer buyers are not recommended
+    @Value("${sales-data.co-purchase.min-co-buyers:2}")
+    private int minCoBuyers;
+
+    @Value("${sales-data.co-purchase.max-items-per-buyer:500}")
+    private int maxItemsPerBuyer;
+
+    // cosine or pmi (normalized PMI)
+    @Value("${sales-data.co-purchase.scoring:cosine}")
+    private String scoring;
+
+    // Item key (ItemCode without trailing spaces, upper case) -> neighbours, strongest first
+    private volatile Map<String, List<Neighbour>> neighboursByItem = new ConcurrentHashMap<>();
+    private volatile BuildResult lastResult;
+
+    // Guarded by lock
+    private Model model;
+    private boolean building;
+    private final List<Long> pendingIds = new ArrayList<>();
+
+    public ItemCoPurchaseService(JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 SalesDataShardRouter shardRouter,
+                                 @Value("${sales-data.co-purchase.enabled:true}") boolean enabled,
+                                 @Value("${sales-data.co-purchase.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.enabled = shardRouter.allowsReadModel("Co-purchase model", enabled);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.buildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "item-co-purchase");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Serve the stored neighbours right away, then build the counts that incremental updates
+     * need in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, List<Neighbour>> loaded = new ConcurrentHashMap<>();
+            jdbcTemplate.query(SELECT_NEIGHBOURS_SQL, rs -> {
+                loaded.computeIfAbsent(itemKey(rs.getString(1)), k -> new ArrayList<>())
+                        .add(new Neighbour(rs.getString(2), rs.getDouble(3), rs.getInt(4)));
+            });
+            loaded.replaceAll((item, neighbours) -> Collections.unmodifiableList(neighbours));
+            neighboursByItem = loaded;
+            log.info("Loaded co-purchase neighbours of {} items", loaded.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load item_co_purchase (migration V21 not applied?): {}", e.getMessage());
+            return;
+        }
+        if (buildOnStartup) {
+            buildExecutor.submit(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("Co-purchase build on startup failed", e);
+                }
+            });
+        }
+    }
+
+    @Scheduled(cron = "${sales-data.co-purchase.rebuild-cron:0 0 5 * * *}")
+    public void scheduledRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Nightly co-purchase build failed", e);
+        }
+    }
+
+    /**
+     * Items most often bought together with the item, strongest first (O(1) map lookup).
+     */
+    public List<Neighbour> getNeighbours(String itemCode, int limit) {
+        if (!enabled || itemCode == null || itemCode.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Neighbour> neighbours = neighboursByItem.get(itemKey(itemCode));
+        if (neighbours == null) {
+            return Collections.emptyList();
+        }
+        return neighbours.size() <= limit ? neighbours : neighbours.subList(0, Math.max(0, limit));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running.get());
+        stats.put("scoring", scoring);
+        stats.put("itemsWithNeighbours", neighboursByItem.size());
+        lock.lock();
+        try {
+            stats.put("incremental", model != null);
+            if (model != null) {
+                stats.put("items", model.itemCodes.size());
+                stats.put("buyers", model.baskets.size());
+                stats.put("countedBuyers", model.countedBuyers);
+                stats.put("pairs", model.pairCount());
+                stats.put("memoryBytes", model.memoryBytes());
+            }
+        } finally {
+            lock.unlock();
+        }
+        stats.put("lastRun", lastResult);
+        return stats;
+    }
+
+    /**
+     * Recompute all neighbour lists from sales_data and replace the stored ones.
+     */
+    public BuildResult rebuild() {
+        shardRouter.requireSingleShard("Co-purchase model");
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Co-purchase build is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            lock.lock();
+            try {
+                // Changes from here on may be missing from the scan; they are applied again afterwards
+                pendingIds.clear();
+                building = true;
+            } finally {
+                lock.unlock();
+            }
+
+            Model built = new Model(pool.getParallelism(), topN);
+            List<int[]> counted = loadBaskets(built);
+            long loaded = System.currentTimeMillis();
+            countPairs(built, counted);
+            long paired = System.currentTimeMillis();
+            rankNeighbours(built);
+
+            Map<String, List<Neighbour>> serving = new ConcurrentHashMap<>();
+            List<Object[]> rows = new ArrayList<>();
+            for (int item = 0; item < built.itemCodes.size(); item++) {
+                List<Neighbour> neighbours = built.neighboursOf(item);
+                if (!neighbours.isEmpty()) {
+                    serving.put(itemKey(built.itemCodes.get(item)), neighbours);
+                    addRows(rows, built.itemCodes.get(item), neighbours);
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_ALL_SQL);
+                for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(i, Math.min(i + INSERT_BATCH_SIZE, rows.size())));
+                }
+            });
+
+            List<Long> pending;
+            lock.lock();
+            try {
+                model = built;
+                neighboursByItem = serving;
+                building = false;
+                pending = new ArrayList<>(pendingIds);
+                pendingIds.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (!pending.isEmpty()) {
+                applyChanges(pending);
+            }
+
+            BuildResult result = new BuildResult(built.itemCodes.size(), built.baskets.size(), built.countedBuyers,
+                    built.pairCount(), serving.size(), loaded - started, paired - loaded,
+                    System.currentTimeMillis() - started);
+            lastResult = result;
+            log.info("Co-purchase build: {} items, {} buyers ({} counted), {} item pairs, {} items with neighbours "
+                            + "(baskets {} ms, pairs {} ms, total {} ms)",
+                    result.getItems(), result.getBuyers(), result.getCountedBuyers(), result.getPairs(),
+                    result.getItemsWithNeighbours(), result.getLoadMillis(), result.getPairMillis(),
+                    result.getElapsedMillis());
+            return result;
+        } finally {
+            lock.lock();
+            try {
+                building = false;
+            } finally {
+                lock.unlock();
+            }
+            running.set(false);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "item-co-purchase";
+    }
+
+    @Override
+    public boolean accepts(String aggregateType) {
+        return ChangeOutboxRecord.SALES_DATA.equals(aggregateType);
+    }
+
+    /**
+     * Fold new and updated transactions into the counts. Replaying a batch changes nothing: an
+     * item already in the buyer's basket is skipped.
+     */
+    @Override
+    public void onChanges(List<ChangeOutboxRecord> changes) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (ChangeOutboxRecord change : changes) {
+            if (!change.isDelete()) {
+                ids.add(Long.parseLong(change.getAggregateId()));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (building) {
+                pendingIds.addAll(ids);
+            }
+            if (model == null) {
+                // Nothing to update yet; the running or next full build covers these rows
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        applyChanges(ids);
+    }
+
+    private void applyChanges(List<Long> ids) {
+        List<String[]> rows = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SELECT_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SELECT_CHUNK_SIZE, ids.size()));
+            namedParameterJdbcTemplate.query(SELECT_BY_IDS_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+                rows.add(new String[]{rs.getString(1), rs.getString(2)});
+            });
+        }
+
+        Map<String, List<Neighbour>> updated = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            Model current = model;
+            if (current == null) {
+                return;
+            }
+            Set<Integer> touchedItems = new LinkedHashSet<>();
+            Set<Long> touchedPairs = new LinkedHashSet<>();
+            for (String[] row : rows) {
+                String buyer = itemKey(row[0]);
+                String itemKey = itemKey(row[1]);
+                if (buyer.isEmpty() || itemKey.isEmpty()) {
+                    continue;
+                }
+                int item = current.itemId(itemKey, row[1].trim());
+                int[] basket = current.baskets.get(buyer);
+                if (basket != null && Arrays.binarySearch(basket, item) >= 0) {
+                    continue;
+                }
+                current.baskets.put(buyer, insertSorted(basket, item));
+                // A buyer over the limit keeps the pairs counted so far until the next full build
+                if (basket != null && basket.length >= maxItemsPerBuyer) {
+                    continue;
+                }
+                if (basket == null) {
+                    current.countedBuyers++;
+                }
+                current.frequencies[item]++;
+                touchedItems.add(item);
+                if (basket != null) {
+                    for (int other : basket) {
+                        long key = pairKey(item, other);
+                        current.shardOf(key).addTo(key, 1);
+                        touchedPairs.add(key);
+                    }
+                }
+            }
+            for (long key : touchedPairs) {
+                int count = current.shardOf(key).get(key, 0);
+                if (count >= minCoBuyers) {
+                    int a = (int) (key >>> 32);
+                    int b = (int) key;
+                    float score = score(current, count, a, b);
+                    current.neighbours.offer(a, b, score, count);
+                    current.neighbours.offer(b, a, score, count);
+                    touchedItems.add(a);
+                    touchedItems.add(b);
+                }
+            }
+            for (int item : touchedItems) {
+                rescore(current, item);
+                updated.put(current.itemCodes.get(item), current.neighboursOf(item));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        updated.forEach((itemCode, neighbours) -> addRows(inserts, itemCode, neighbours));
+        List<String> itemCodes = new ArrayList<>(updated.keySet());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < itemCodes.size(); i += INSERT_BATCH_SIZE) {
+                namedParameterJdbcTemplate.update(DELETE_ITEMS_SQL, new MapSqlParameterSource("itemCodes",
+                        itemCodes.subList(i, Math.min(i + INSERT_BATCH_SIZE, itemCodes.size()))));
+            }
+            for (int i = 0; i < inserts.size(); i += INSERT_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts.subList(i, Math.min(i + INSERT_BATCH_SIZE, inserts.size())));
+            }
+        });
+        Map<String, List<Neighbour>> serving = neighboursByItem;
+        updated.forEach((itemCode, neighbours) -> {
+            if (neighbours.isEmpty()) {
+                serving.remove(itemKey(itemCode));
+            } else {
+                serving.put(itemKey(itemCode), neighbours);
+            }
+        });
+        log.debug("Co-purchase neighbours of {} items updated from {} transactions", updated.size(), rows.size());
+    }
+
+    /**
+     * Stream the distinct buyer / item pairs into baskets; returns the baskets that are counted.
+     */
+    private List<int[]> loadBaskets(Model built) {
+        Map<String, IntArrayList> collecting = new HashMap<>();
+        BasketCursor cursor = new BasketCursor();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_BASKETS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams rows one by one with this fetch size
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            String buyer = itemKey(rs.getString(1));
+            String itemCode = rs.getString(2);
+            String itemKey = itemKey(itemCode);
+            if (buyer.isEmpty() || itemKey.isEmpty()) {
+                return;
+            }
+            if (!buyer.equals(cursor.buyer)) {
+                cursor.buyer = buyer;
+                // Usually new; the same key again when the collation orders spellings apart
+                cursor.items = collecting.computeIfAbsent(buyer, k -> new IntArrayList(16));
+            }
+            cursor.items.add(built.itemId(itemKey, itemCode.trim()));
+        });
+
+        List<int[]> counted = new ArrayList<>();
+        for (Map.Entry<String, IntArrayList> entry : collecting.entrySet()) {
+            int[] basket = entry.getValue().toSortedDistinctArray();
+            built.baskets.put(entry.getKey(), basket);
+            if (basket.length <= maxItemsPerBuyer) {
+                counted.add(basket);
+                built.countedBuyers++;
+                for (int item : basket) {
+                    built.frequencies[item]++;
+                }
+            }
+        }
+        return counted;
+    }
+
+    /**
+     * Count the item pairs of each buyer range on its own thread, then merge the partial maps
+     * into the shards (one thread per shard).
+     */
+    private void countPairs(Model built, List<int[]> baskets) {
+        int partitions = pool.getParallelism();
+        long work = 0;
+        for (int[] basket : baskets) {
+            work += (long) basket.length * (basket.length - 1) / 2;
+        }
+        long perPartition = work / partitions + 1;
+        List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+        long accumulated = 0;
+        for (int i = 0; i < baskets.size(); i++) {
+            int length = baskets.get(i).length;
+            accumulated += (long) length * (length - 1) / 2;
+            if (accumulated >= perPartition || i == baskets.size() - 1) {
+                ranges.add(new int[]{start, i + 1});
+                start = i + 1;
+                accumulated = 0;
+            }
+        }
+
+        List<LongIntHashMap> partials = pool.submit(() -> ranges.parallelStream().map(range -> {
+            LongIntHashMap local = new LongIntHashMap();
+            for (int b = range[0]; b < range[1]; b++) {
+                int[] basket = baskets.get(b);
+                for (int x = 0; x < basket.length; x++) {
+                    for (int y = x + 1; y < basket.length; y++) {
+                        local.addTo(pairKey(basket[x], basket[y]), 1);
+                    }
+                }
+            }
+            return local;
+        }).toList()).join();
+
+        int shards = built.pairs.length;
+        pool.submit(() -> IntStream.range(0, shards).parallel().forEach(shard -> {
+            LongIntHashMap target = built.pairs[shard];
+            for (LongIntHashMap partial : partials) {
+                partial.forEach((key, count) -> {
+                    if (built.shardIndex(key) == shard) {
+                        target.addTo(key, count);
+                    }
+                });
+            }
+        })).join();
+    }
+
+    /**
+     * Fill the neighbour lists; item i is ranked by the thread of shard i % shards only.
+     */
+    private void rankNeighbours(Model built) {
+        int shards = built.pairs.length;
+        pool.submit(() -> IntStream.range(0, shards).parallel().forEach(shard -> {
+            for (LongIntHashMap pairs : built.pairs) {
+                pairs.forEach((key, count) -> {
+                    if (count < minCoBuyers) {
+                        return;
+                    }
+                    int a = (int) (key >>> 32);
+                    int b = (int) key;
+                    boolean ownsA = a % shards == shard;
+                    boolean ownsB = b % shards == shard;
+                    if (!ownsA && !ownsB) {
+                        return;
+                    }
+                    float score = score(built, count, a, b);
+                    if (ownsA) {
+                        built.neighbours.offer(a, b, score, count);
+                    }
+                    if (ownsB) {
+                        built.neighbours.offer(b, a, score, count);
+                    }
+                });
+            }
+        })).join();
+    }
+
+    // Recompute the scores of an item's list after its buyer count changed
+    private void rescore(Model current, int item) {
+        int size = current.neighbours.size(item);
+        int[] neighbours = new int[size];
+        for (int r = 0; r < size; r++) {
+            neighbours[r] = current.neighbours.neighbour(item, r);
+        }
+        current.neighbours.clear(item);
+        for (int neighbour : neighbours) {
+            long key = pairKey(item, neighbour);
+            int count = current.shardOf(key).get(key, 0);
+            current.neighbours.offer(item, neighbour, score(current, count, item, neighbour), count);
+        }
+    }
+
+    private float score(Model current, int coBuyers, int a, int b) {
+        double buyersA = current.frequencies[a];
+        double buyersB = current.frequencies[b];
+        if ("pmi".equalsIgnoreCase(scoring)) {
+            double total = Math.max(1, current.countedBuyers);
+            double joint = coBuyers / total;
+            if (joint >= 1) {
+                return 1f;
+            }
+            double pmi = Math.log(joint / ((buyersA / total) * (buyersB / total)));
+            // Normalized to [-1, 1]
+            return (float) (pmi / -Math.log(joint));
+        }
+        return (float) (coBuyers / Math.sqrt(buyersA * buyersB));
+    }
+
+    private static void addRows(List<Object[]> rows, String itemCode, List<Neighbour> neighbours) {
+        for (int r = 0; r < neighbours.size(); r++) {
+            Neighbour neighbour = neighbours.get(r);
+            rows.add(new Object[]{itemCode, r + 1, neighbour.getItemCode(),
+                    BigDecimal.valueOf(neighbour.getScore()).setScale(6, RoundingMode.HALF_UP),
+                    neighbour.getCoBuyers()});
+        }
+    }
+
+    private static int[] insertSorted(int[] basket, int item) {
+        if (basket == null) {
+            return new int[]{item};
+        }
+        int position = -Arrays.binarySearch(basket, item) - 1;
+        int[] grown = new int[basket.length + 1];
+        System.arraycopy(basket, 0, grown, 0, position);
+        grown[position] = item;
+        System.arraycopy(basket, position, grown, position + 1, basket.length - position);
+        return grown;
+    }
+
+    // Lower item id in the high half
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    /**
+     * Normalized BuyerCode / ItemCode as the column collation compares it.
+     */
+    private static String itemKey(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static final class BasketCursor {
+        private String buyer;
+        private IntArrayList items;
+    }
+
+    /**
+     * Baskets, buyer counts per item, pair counts and neighbour lists; built by one full build
+     * and then only changed under the lock.
+     */
+    private static final class Model {
+        private final StringDictionary itemIds = new StringDictionary();
+        // Display ItemCode (first spelling seen) by item id
+        private final List<String> itemCodes = new ArrayList<>();
+        private final Map<String, int[]> baskets = new HashMap<>();
+        // Pair counts sharded by the lower item id
+        private final LongIntHashMap[] pairs;
+        private final ItemNeighbours neighbours;
+        private int[] frequencies = new int[1024];
+        private int countedBuyers;
+
+        Model(int shards, int topN) {
+            pairs = new LongIntHashMap[Math.max(1, shards)];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = new LongIntHashMap();
+            }
+            neighbours = new ItemNeighbours(1024, topN);
+        }
+
+        int itemId(String key, String itemCode) {
+            int id = itemIds.lookup(key);
+            if (id == StringDictionary.NULL_CODE) {
+                id = itemIds.encode(key);
+                itemCodes.add(itemCode);
+                if (id >= frequencies.length) {
+                    frequencies = Arrays.copyOf(frequencies, frequencies.length * 2);
+                }
+                neighbours.ensureItems(id + 1);
+            }
+            return id;
+        }
+
+        int shardIndex(long key) {
+            return (int) (key >>> 32) % pairs.length;
+        }
+
+        LongIntHashMap shardOf(long key) {
+            return pairs[shardIndex(key)];
+        }
+
+        long pairCount() {
+            long count = 0;
+            for (LongIntHashMap shard : pairs) {
+                count += shard.size();
+            }
+            return count;
+        }
+
+        long memoryBytes() {
+            long bytes = itemIds.memoryBytes() + neighbours.memoryBytes() + 4L * frequencies.length;
+            for (LongIntHashMap shard : pairs) {
+                bytes += shard.memoryBytes();
+            }
+            for (int[] basket : baskets.values()) {
+                bytes += 64L + 4L * basket.length;
+            }
+            return bytes;
+        }
+
+        List<Neighbour> neighboursOf(int item) {
+            int size = neighbours.size(item);
+            if (size == 0) {
+                return Collections.emptyList();
+            }
+            List<Neighbour> list = new ArrayList<>(size);
+            for (int r = 0; r < size; r++) {
+                list.add(new Neighbour(itemCodes.get(neighbours.neighbour(item, r)),
+                        neighbours.score(item, r), neighbours.count(item, r)));
+            }
+            return Collections.unmodifiableList(list);
+        }
+    }
+
+    public static class Neighbour {
+        private final String itemCode;
+        private final double score;
+        private final int coBuyers;
+
+        public Neighbour(String itemCode, double score, int coBuyers) {
+            this.itemCode = itemCode;
+            this.score = score;
+            this.coBuyers = coBuyers;
+        }
+
+        public String getItemCode() {
+            return itemCode;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getCoBuyers() {
+            return coBuyers;
+        }
+    }
+
+    /**
+     * Result of a full build
+     */
+    public static class BuildResult {
+        private final int items;
+        private final int buyers;
+        private final int countedBuyers;
+        private final long pairs;
+        private final int itemsWithNeighbours;
+        private final long loadMillis;
+        private final long pairMillis;
+        private final long elapsedMillis;
+
+        public BuildResult(int items, int buyers, int countedBuyers, long pairs, int itemsWithNeighbours,
+                           long loadMillis, long pairMillis, long elapsedMillis) {
+            this.items = items;
+            this.buyers = buyers;
+            this.countedBuyers = countedBuyers;
+            this.pairs = pairs;
+            this.itemsWithNeighbours = itemsWithNeighbours;
+            this.loadMillis = loadMillis;
+            this.pairMillis = pairMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getItems() {
+            return items;
+        }
+
+        public int getBuyers() {
+            return buyers;
+        }
+
+        public int getCountedBuyers() {
+            return countedBuyers;
+        }
+
+        public long getPairs() {
+            return pairs;
+        }
+
+        public int getItemsWithNeighbours() {
+            return itemsWithNeighbours;
+        }
+
+        public long getLoadMillis() {
+            return loadMillis;
+        }
+
+        public long getPairMillis() {
+            return pairMillis;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.ecosystem.service;
+
+import com.ecosystem.entity.ItemPriceStats;
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.repository.ItemPriceStatsRepository;
+import com.ecosystem.repository.SalesDataShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains item_price_stats (V13): one row of price statistics per ItemCode.
+ *
+ * A write recomputes the rows of the item codes it touched (one grouped upsert over the
+ * item's transactions, served by the ItemCode index), so reads are a primary-key lookup.
+ * A nightly full recomputation repairs drift from writes made outside the application.
+ *
+ * The rows are aggregated on the server that holds the table, so with sharded sales_data the
+ * service is off and callers aggregate over the shards instead.
+ */
+@Slf4j
+@Service
+public class ItemPriceStatsService {
+
+    private static final int REFRESH_CHUNK_SIZE = 500;
+
+    private static final String REFRESH_SQL =
+            "INSERT INTO ecoschema.item_price_stats " +
+            "(item_code, item_name, transaction_count, priced_count, min_price, max_price, avg_price, " +
+            " latest_price, latest_date, first_date) " +
+            "SELECT d.`ItemCode`, " +
+            "  (SELECT n.`ItemName` FROM ecoschema.sales_data n WHERE n.`ItemCode` = d.`ItemCode` " +
+            "    ORDER BY n.`tx_date_typed` DESC, n.id DESC LIMIT 1), " +
+            "  COUNT(*), " +
+            "  COUNT(CASE WHEN d.`txp1_typed` > 0 THEN 1 END), " +
+            "  MIN(CASE WHEN d.`txp1_typed` > 0 THEN d.`txp1_typed` END), " +
+            "  MAX(CASE WHEN d.`txp1_typed` > 0 THEN d.`txp1_typed` END), " +
+            "  AVG(CASE WHEN d.`txp1_typed` > 0 THEN d.`txp1_typed` END), " +
+            "  (SELECT p.`txp1_typed` FROM ecoschema.sales_data p " +
+            "    WHERE p.`ItemCode` = d.`ItemCode` AND p.`txp1_typed` > 0 " +
+            "    ORDER BY p.`tx_date_typed` DESC, p.id DESC LIMIT 1), " +
+            "  MAX(d.`tx_date_typed`), " +
+            "  MIN(d.`tx_date_typed`) " +
+            "FROM ecoschema.sales_data d " +
+            "WHERE d.`ItemCode` IN (:itemCodes) " +
+            "GROUP BY d.`ItemCode` " +
+            "ON DUPLICATE KEY UPDATE " +
+            "  item_name = VALUES(item_name), transaction_count = VALUES(transaction_count), " +
+            "  priced_count = VALUES(priced_count), min_price = VALUES(min_price), max_price = VALUES(max_price), " +
+            "  avg_price = VALUES(avg_price), latest_price = VALUES(latest_price), " +
+            "  latest_date = VALUES(latest_date), first_date = VALUES(first_date), updated_at = CURRENT_TIMESTAMP";
+
+    // Items whose last transaction was deleted or moved to another ItemCode
+    private static final String DELETE_ORPHANS_IN_SQL =
+            "DELETE s FROM ecoschema.item_price_stats s " +
+            "WHERE s.item_code IN (:itemCodes) " +
+            "AND NOT EXISTS (SELECT 1 FROM ecoschema.sales_data d WHERE d.`ItemCode` = s.item_code)";
+
+    private static final String DELETE_ALL_ORPHANS_SQL =
+            "DELETE s FROM ecoschema.item_price_stats s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM ecoschema.sales_data d WHERE d.`ItemCode` = s.item_code)";
+
+    private static final String SELECT_ITEM_CODES_SQL =
+            "SELECT DISTINCT `ItemCode` FROM ecoschema.sales_data " +
+            "WHERE `ItemCode` > ? ORDER BY `ItemCode` LIMIT ?";
+
+    private final ItemPriceStatsRepository itemPriceStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ExecutorService refreshExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final AtomicBoolean tableMissing = new AtomicBoolean(false);
+
+    private final SalesDataShardRouter shardRouter;
+    private final boolean enabled;
+
+    public ItemPriceStatsService(ItemPriceStatsRepository itemPriceStatsRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 SalesDataShardRouter shardRouter,
+                                 @Value("${sales-data.price-stats.enabled:true}") boolean enabled) {
+        this.itemPriceStatsRepository = itemPriceStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.enabled = shardRouter.allowsReadModel("item_price_stats", enabled);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "item-price-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Price statistics of an item (primary-key lookup).
+     *
+     * @return the statistics, or empty when disabled or the item has no row (yet)
+     */
+    public Optional<ItemPriceStats> findByItemCode(String itemCode) {
+        if (!enabled || tableMissing.get() || itemCode == null || itemCode.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return itemPriceStatsRepository.findById(itemCode);
+        } catch (DataAccessException e) {
+            // Callers fall back to aggregating sales_data
+            checkTableMissing(e);
+            log.warn("Failed to read item price statistics of {}: {}", itemCode, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Price statistics of several items in one primary-key IN query.
+     *
+     * @return the rows found; empty when disabled, items without a row are left out
+     */
+    public List<ItemPriceStats> findByItemCodes(Collection<String> itemCodes) {
+        if (!enabled || tableMissing.get() || itemCodes == null || itemCodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return itemPriceStatsRepository.findAllById(itemCodes);
+        } catch (DataAccessException e) {
+            // Callers fall back to aggregating sales_data
+            checkTableMissing(e);
+            log.warn("Failed to read item price statistics of {} items: {}", itemCodes.size(), e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Recompute the rows of the changed item codes once the write has committed.
+     * Single-row writes are applied right away; imports are applied in the background.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesDataChanged(SalesDataChangedEvent event) {
+        if (!enabled || tableMissing.get()) {
+            return;
+        }
+        if (event.isBulk() && event.getItemCodes().isEmpty()) {
+            scheduleRebuild();
+            return;
+        }
+        List<String> itemCodes = new ArrayList<>(event.getItemCodes());
+        if (itemCodes.isEmpty()) {
+            return;
+        }
+        if (event.isBulk()) {
+            refreshExecutor.submit(() -> refreshQuietly(itemCodes));
+        } else {
+            refreshQuietly(itemCodes);
+        }
+    }
+
+    /**
+     * Recompute the statistics of the given item codes (rows of items without transactions are removed).
+     */
+    public void refresh(Collection<String> itemCodes) {
+        List<String> codes = new ArrayList<>(itemCodes);
+        for (int from = 0; from < codes.size(); from += REFRESH_CHUNK_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, codes.size()));
+            MapSqlParameterSource params = new MapSqlParameterSource("itemCodes", chunk);
+            namedParameterJdbcTemplate.update(REFRESH_SQL, params);
+            namedParameterJdbcTemplate.update(DELETE_ORPHANS_IN_SQL, params);
+        }
+    }
+
+    /**
+     * Nightly recomputation of every item to repair drift.
+     */
+    @Scheduled(cron = "${sales-data.price-stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (enabled && !tableMissing.get()) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Recompute every item in the background. Returns false if a rebuild is already running.
+     */
+    public boolean scheduleRebuild() {
+        if (rebuilding.get()) {
+            return false;
+        }
+        refreshExecutor.submit(() -> {
+            try {
+                rebuildAll(REFRESH_CHUNK_SIZE);
+            } catch (Exception e) {
+                log.error("Failed to rebuild item price statistics", e);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Recompute the statistics of every item code, in ItemCode order, and remove rows of
+     * item codes that no longer exist.
+     *
+     * @param batchSize Item codes per upsert statement
+     * @return Rebuild result with statistics
+     * @throws IllegalStateException if sales_data is sharded
+     */
+    public RebuildResult rebuildAll(int batchSize) {
+        if (batchSize < 1) {
+            batchSize = REFRESH_CHUNK_SIZE;
+        }
+        shardRouter.requireSingleShard("item_price_stats");
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new RuntimeException("Item price statistics rebuild is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            log.info("Rebuilding item price statistics (batch size: {})", batchSize);
+            String lastItemCode = "";
+            int itemCodes = 0;
+            while (true) {
+                List<String> batch = jdbcTemplate.queryForList(SELECT_ITEM_CODES_SQL, String.class,
+                        lastItemCode, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                refresh(batch);
+                itemCodes += batch.size();
+                lastItemCode = batch.get(batch.size() - 1);
+            }
+            int removed = jdbcTemplate.update(DELETE_ALL_ORPHANS_SQL);
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("Item price statistics rebuilt: {} item codes, {} stale rows removed in {} ms",
+                    itemCodes, removed, elapsed);
+            return new RebuildResult(itemCodes, removed, elapsed);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void refreshQuietly(List<String> itemCodes) {
+        try {
+            refresh(itemCodes);
+        } catch (DataAccessException e) {
+            if (!checkTableMissing(e)) {
+                log.error("Failed to refresh price statistics of {} item codes", itemCodes.size(), e);
+            }
+        } catch (Exception e) {
+            // The nightly rebuild repairs the missed items
+            log.error("Failed to refresh price statistics of {} item codes", itemCodes.size(), e);
+        }
+    }
+
+    /**
+     * Stop using the table when it does not exist (migration V13 not applied).
+     */
+    private boolean checkTableMissing(DataAccessException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        if (message != null && message.contains("item_price_stats") && message.contains("doesn't exist")) {
+            if (tableMissing.compareAndSet(false, true)) {
+                log.warn("Table item_price_stats not found (migration V13 not applied?), price statistics are "
+                        + "aggregated from sales_data: {}", message);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Result of a full rebuild
+     */
+    public static class RebuildResult {
+        private final int itemCodes;
+        private final int removedRows;
+        private final long elapsedMillis;
+
+        public RebuildResult(int itemCodes, int removedRows, long elapsedMillis) {
+            this.itemCodes = itemCodes;
+            this.removedRows = removedRows;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getItemCodes() {
+            return itemCodes;
+        }
+
+        public int getRemovedRows() {
+            return removedRows;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -3,11 +3,18 @@ package com.ecosystem.service;
 import com.ecosystem.dto.chat.MaterialSearchCriteria;
 import com.ecosystem.dto.search.ProductCard;
 import com.ecosystem.dto.search.WebSearchResponse;
+import com.ecosystem.entity.ItemPriceStats;
 import com.ecosystem.entity.SalesData;
+import com.ecosystem.index.SalesDataColumns;
+import com.ecosystem.repository.SalesDataColdStore;
+import com.ecosystem.repository.SalesDataQueryBuilder;
 import com.ecosystem.repository.SalesDataRepository;
+import com.ecosystem.util.SalesDataValueParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -15,7 +22,11 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -28,11 +39,29 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MaterialSearchService {
 
+    // FULLTEXT 关键词：仅字母/数字（任意语言）与空格，不含布尔模式运算符
+    private static final Pattern FULLTEXT_KEYWORD = Pattern.compile("[\\p{L}\\p{N}]+(\\s+[\\p{L}\\p{N}]+)*");
+    private static final Pattern CONTAINS_DIGIT = Pattern.compile(".*\\p{N}.*");
+
     private final SalesDataRepository salesDataRepository;
+    private final SalesDataKeywordIndexService salesDataKeywordIndexService;
+    private final SalesDataColumnarSnapshotService salesDataColumnarSnapshotService;
+    private final ItemPriceStatsService itemPriceStatsService;
+    private final SalesDataColdStore salesDataColdStore;
     
     @Autowired(required = false)
     private WebSearchService webSearchService;
 
+    @Value("${sales-data.fulltext.enabled:true}")
+    private boolean fullTextEnabled;
+
+    // 与 MySQL ngram_token_size 一致，更短的词无法通过 ngram 索引命中
+    @Value("${sales-data.fulltext.min-token-length:2}")
+    private int fullTextMinTokenLength;
+
+    // FULLTEXT 索引（V12，V19 起位于 sales_data_search）不存在时置位，之后直接使用 LIKE 搜索
+    private final AtomicBoolean fullTextIndexMissing = new AtomicBoolean(false);
+
     /**
      * 执行物料搜索
      */
@@ -44,7 +73,7 @@ public class MaterialSearchService {
         // 1. 精确物料编码搜索
         if (criteria.hasItemCode()) {
             log.info("Searching by exact ItemCode: {}", criteria.getItemCode());
-            results = salesDataRepository.findByItemCode(criteria.getItemCode());
+            results = salesDataRepository.findHistoryByItemCode(criteria.getItemCode());
             log.info("Found {} results by ItemCode", results.size());
             return results;
         }
@@ -139,7 +168,7 @@ public class MaterialSearchService {
             
             if (searchKeyword != null && !searchKeyword.trim().isEmpty() && searchKeyword.trim().length() > 1) {
                 log.info("No results from specific search, trying full-text search with keyword: '{}'", searchKeyword);
-                results = salesDataRepository.fullTextSearch(searchKeyword.trim(), 100);
+                results = fullTextSearch(searchKeyword.trim(), 100);
                 log.info("Full-text search found {} results", results.size());
             }
         }
@@ -179,6 +208,27 @@ public class MaterialSearchService {
             limitedKeywords.add(null);
         }
         
+        List<String> presentKeywords = limitedKeywords.stream()
+            .filter(k -> k != null)
+            .collect(Collectors.toList());
+        
+        // 关键词适合 FULLTEXT 时按相关度排序返回
+        String booleanQuery = toFullTextQuery(presentKeywords);
+        if (booleanQuery != null) {
+            List<SalesData> ranked = runFullText(
+                () -> salesDataRepository.searchByMultipleKeywordsRanked(booleanQuery, 100));
+            if (ranked != null) {
+                return ranked;
+            }
+        }
+        
+        // 否则优先使用 trigram 索引缩小候选范围，索引不可用时回退到全表 LIKE 扫描
+        int[] candidateIds = salesDataKeywordIndexService.candidateIds(presentKeywords);
+        if (candidateIds != null) {
+            return salesDataRepository.searchKeywordsInColumns(
+                presentKeywords, SalesDataQueryBuilder.MULTI_KEYWORD_COLUMNS, candidateIds, 100);
+        }
+        
         return salesDataRepository.searchByMultipleKeywords(
             limitedKeywords.get(0),
             limitedKeywords.get(1),
@@ -189,6 +239,82 @@ public class MaterialSearchService {
         );
     }
     
+    /**
+     * 全文搜索：关键词适合时使用 FULLTEXT（按相关度排序）；
+     * 否则通过 trigram 索引得到候选行，再在候选行上执行与 fullTextSearch 相同的 LIKE 匹配
+     */
+    private List<SalesData> fullTextSearch(String keyword, int limit) {
+        String booleanQuery = toFullTextQuery(List.of(keyword));
+        if (booleanQuery != null) {
+            List<SalesData> ranked = runFullText(() -> salesDataRepository.fullTextSearchRanked(booleanQuery, limit));
+            if (ranked != null) {
+                return ranked;
+            }
+        }
+        int[] candidateIds = salesDataKeywordIndexService.candidateIds(List.of(keyword));
+        if (candidateIds != null) {
+            return salesDataRepository.searchKeywordsInColumns(
+                List.of(keyword), SalesDataQueryBuilder.FULL_TEXT_COLUMNS, candidateIds, limit);
+        }
+        return salesDataRepository.fullTextSearch(keyword, limit);
+    }
+    
+    /**
+     * 将关键词转换为布尔模式查询（每个关键词作为必须出现的短语：+"k1" +"k2"）。
+     * 以下情况返回 null，由调用方回退到 LIKE：
+     * - FULLTEXT 已关闭或索引不存在
+     * - 含标点/运算符的关键词（如 "A-100/2"）
+     * - 含数字的单个词，视为物料编码片段（编码需要任意位置的子串匹配）
+     * - 任一词短于 ngram 长度
+     */
+    private String toFullTextQuery(List<String> keywords) {
+        if (!fullTextEnabled || fullTextIndexMissing.get() || keywords.isEmpty()) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String keyword : keywords) {
+            String trimmed = keyword == null ? "" : keyword.trim();
+            if (!FULLTEXT_KEYWORD.matcher(trimmed).matches()) {
+                return null;
+            }
+            String[] words = trimmed.split("\\s+");
+            if (words.length == 1 && CONTAINS_DIGIT.matcher(trimmed).matches()) {
+                return null;
+            }
+            for (String word : words) {
+                if (word.codePointCount(0, word.length()) < fullTextMinTokenLength) {
+                    return null;
+                }
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append("+\"").append(String.join(" ", words)).append('"');
+        }
+        return query.toString();
+    }
+    
+    /**
+     * 执行 FULLTEXT 查询；失败时返回 null 以回退到 LIKE。
+     * 若失败原因是 FULLTEXT 索引或 sales_data_search 表不存在（V12 / V19 未执行），之后不再尝试。
+     */
+    private List<SalesData> runFullText(Supplier<List<SalesData>> search) {
+        try {
+            return search.get();
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message != null && (message.contains("FULLTEXT") || message.contains("sales_data_search"))) {
+                if (fullTextIndexMissing.compareAndSet(false, true)) {
+                    log.warn("FULLTEXT index on sales_data_search not found (migration V19 not applied?), using LIKE search: {}",
+                        message);
+                }
+            } else {
+                log.warn("FULLTEXT search failed, falling back to LIKE search: {}", message);
+            }
+            return null;
+        }
+    }
+    
     /**
      * 组合搜索
      */
@@ -214,61 +340,35 @@ public class MaterialSearchService {
     
     /**
      * 应用价格和日期过滤
+     * 优先使用实体上已解析的类型列（unit_cost_typed / txp1_typed / tx_date_typed），未回填时再解析字符串
      */
     private List<SalesData> applyFilters(List<SalesData> results, MaterialSearchCriteria criteria) {
         return results.stream()
             .filter(item -> {
                 // 价格过滤（优先使用 Unit Cost，如果没有则使用 TXP1）
                 if (criteria.hasPriceRange()) {
-                    boolean priceMatch = false;
-                    
-                    // 尝试使用 Unit Cost
-                    if (item.getUnitCost() != null && !item.getUnitCost().trim().isEmpty()) {
-                        try {
-                            BigDecimal unitCost = new BigDecimal(item.getUnitCost());
-                            boolean minOk = criteria.getMinPrice() == null || unitCost.compareTo(criteria.getMinPrice()) >= 0;
-                            boolean maxOk = criteria.getMaxPrice() == null || unitCost.compareTo(criteria.getMaxPrice()) <= 0;
-                            if (minOk && maxOk) {
-                                priceMatch = true;
-                            }
-                        } catch (Exception e) {
-                            log.warn("Failed to parse Unit Cost: {}", item.getUnitCost());
-                        }
-                    }
-                    
+                    BigDecimal unitCost = item.getUnitCostTyped() != null
+                        ? item.getUnitCostTyped() : SalesDataValueParser.parseBigDecimal(item.getUnitCost());
                     // 如果 Unit Cost 不匹配或为空，尝试使用 TXP1
-                    if (!priceMatch && item.getTxP1() != null && !item.getTxP1().trim().isEmpty()) {
-                        try {
-                            BigDecimal price = new BigDecimal(item.getTxP1());
-                            boolean minOk = criteria.getMinPrice() == null || price.compareTo(criteria.getMinPrice()) >= 0;
-                            boolean maxOk = criteria.getMaxPrice() == null || price.compareTo(criteria.getMaxPrice()) <= 0;
-                            if (minOk && maxOk) {
-                                priceMatch = true;
-                            }
-                        } catch (Exception e) {
-                            log.warn("Failed to parse TXP1: {}", item.getTxP1());
+                    if (!inPriceRange(unitCost, criteria)) {
+                        BigDecimal price = item.getTxP1Typed() != null
+                            ? item.getTxP1Typed() : SalesDataValueParser.parseBigDecimal(item.getTxP1());
+                        if (!inPriceRange(price, criteria)) {
+                            return false;
                         }
                     }
-                    
-                    if (!priceMatch) {
-                        return false;
-                    }
                 }
                 
                 // 日期过滤
                 if (criteria.hasDateRange()) {
-                    try {
-                        LocalDate txDate = parseDate(item.getTxDate());
-                        if (txDate != null) {
-                            if (criteria.getStartDate() != null && txDate.isBefore(criteria.getStartDate())) {
-                                return false;
-                            }
-                            if (criteria.getEndDate() != null && txDate.isAfter(criteria.getEndDate())) {
-                                return false;
-                            }
+                    LocalDate txDate = item.getTxDateTyped() != null ? item.getTxDateTyped() : parseDate(item.getTxDate());
+                    if (txDate != null) {
+                        if (criteria.getStartDate() != null && txDate.isBefore(criteria.getStartDate())) {
+                            return false;
+                        }
+                        if (criteria.getEndDate() != null && txDate.isAfter(criteria.getEndDate())) {
+                            return false;
                         }
-                    } catch (Exception e) {
-                        log.warn("Failed to parse date: {}", item.getTxDate());
                     }
                 }
                 
@@ -277,6 +377,15 @@ public class MaterialSearchService {
             .collect(Collectors.toList());
     }
     
+    private boolean inPriceRange(BigDecimal price, MaterialSearchCriteria criteria) {
+        if (price == null) {
+            return false;
+        }
+        boolean minOk = criteria.getMinPrice() == null || price.compareTo(criteria.getMinPrice()) >= 0;
+        boolean maxOk = criteria.getMaxPrice() == null || price.compareTo(criteria.getMaxPrice()) <= 0;
+        return minOk && maxOk;
+    }
+    
     private LocalDate parseDate(String dateStr) {
         if (dateStr == null || dateStr.isEmpty()) {
             return null;
@@ -297,7 +406,36 @@ public class MaterialSearchService {
      * 获取物料的历史交易统计
      */
     public MaterialHistoryStats getMaterialHistory(String itemCode) {
-        List<SalesData> history = salesDataRepository.findByItemCode(itemCode);
+        return getMaterialHistory(itemCode, true);
+    }
+    
+    /**
+     * 获取物料的历史交易统计
+     * @param includeHistory 是否加载交易明细；为 false 时统计来自 item_price_stats 主键查询，
+     *                       表中尚无该物料时使用列式快照（history 为空列表）。
+     *                       两者只覆盖 sales_data，冷存储中的归档交易在压缩列上汇总后合并
+     */
+    public MaterialHistoryStats getMaterialHistory(String itemCode, boolean includeHistory) {
+        if (!includeHistory) {
+            SalesDataColumns.PriceSummary cold = salesDataColdStore.isEmpty()
+                ? null : salesDataColdStore.summarizeItem(itemCode);
+            ItemPriceStats itemStats = itemPriceStatsService.findByItemCode(itemCode).orElse(null);
+            if (itemStats != null) {
+                MaterialHistoryStats stats = toMaterialHistoryStats(itemStats);
+                return cold != null && cold.getRowCount() > 0 ? withColdRows(stats, itemStats, cold) : stats;
+            }
+            // 有归档交易但热表统计缺失时走明细路径，保证统计覆盖完整历史
+            if (cold == null || cold.getRowCount() == 0) {
+                SalesDataColumnarSnapshotService.ItemStatistics columnar =
+                    salesDataColumnarSnapshotService.getItemStatistics(itemCode);
+                if (columnar != null) {
+                    return toMaterialHistoryStats(itemCode, columnar);
+                }
+            }
+        }
+        
+        // 热表与冷存储的完整交易历史
+        List<SalesData> history = salesDataRepository.findHistoryByItemCode(itemCode);
         
         if (history.isEmpty()) {
             return null;
@@ -344,6 +482,72 @@ public class MaterialSearchService {
         return stats;
     }
     
+    private MaterialHistoryStats toMaterialHistoryStats(ItemPriceStats itemStats) {
+        MaterialHistoryStats stats = new MaterialHistoryStats();
+        stats.setItemCode(itemStats.getItemCode());
+        stats.setItemName(itemStats.getItemName());
+        stats.setTotalTransactions(itemStats.getTransactionCount().intValue());
+        stats.setMinPrice(itemStats.getMinPrice());
+        stats.setMaxPrice(itemStats.getMaxPrice());
+        stats.setAvgPrice(itemStats.getAvgPrice() != null
+            ? itemStats.getAvgPrice().setScale(2, java.math.RoundingMode.HALF_UP) : null);
+        stats.setFirstTransactionDate(itemStats.getFirstDate());
+        stats.setLastTransactionDate(itemStats.getLatestDate());
+        stats.setHistory(Collections.emptyList());
+        return stats;
+    }
+    
+    /**
+     * 将冷存储中归档交易的汇总合并到 item_price_stats 的统计（价格只计 > 0，与明细路径一致）
+     */
+    private MaterialHistoryStats withColdRows(MaterialHistoryStats stats, ItemPriceStats itemStats,
+                                              SalesDataColumns.PriceSummary cold) {
+        stats.setTotalTransactions(stats.getTotalTransactions() + cold.getRowCount());
+        if (cold.getPositivePriceCount() > 0) {
+            BigDecimal coldMin = SalesDataColumns.decodeAmount(cold.getMinPositivePrice());
+            BigDecimal coldMax = SalesDataColumns.decodeAmount(cold.getMaxPositivePrice());
+            BigDecimal coldSum = SalesDataColumns.decodeAmount(cold.getPositivePriceSum());
+            long hotCount = itemStats.getPricedCount() != null ? itemStats.getPricedCount() : 0L;
+            BigDecimal hotSum = itemStats.getAvgPrice() != null
+                ? itemStats.getAvgPrice().multiply(BigDecimal.valueOf(hotCount)) : BigDecimal.ZERO;
+            stats.setMinPrice(stats.getMinPrice() == null ? coldMin : stats.getMinPrice().min(coldMin));
+            stats.setMaxPrice(stats.getMaxPrice() == null ? coldMax : stats.getMaxPrice().max(coldMax));
+            stats.setAvgPrice(hotSum.add(coldSum).divide(
+                BigDecimal.valueOf(hotCount + cold.getPositivePriceCount()), 2, java.math.RoundingMode.HALF_UP));
+        }
+        LocalDate coldFirst = SalesDataColumns.decodeDate(cold.getFirstDate());
+        LocalDate coldLast = SalesDataColumns.decodeDate(cold.getLastDate());
+        if (coldFirst != null && (stats.getFirstTransactionDate() == null
+                || coldFirst.isBefore(stats.getFirstTransactionDate()))) {
+            stats.setFirstTransactionDate(coldFirst);
+        }
+        if (coldLast != null && (stats.getLastTransactionDate() == null
+                || coldLast.isAfter(stats.getLastTransactionDate()))) {
+            stats.setLastTransactionDate(coldLast);
+        }
+        return stats;
+    }
+    
+    private MaterialHistoryStats toMaterialHistoryStats(String itemCode,
+                                                        SalesDataColumnarSnapshotService.ItemStatistics columnar) {
+        if (columnar.getTotalTransactions() == 0) {
+            return null;
+        }
+        MaterialHistoryStats stats = new MaterialHistoryStats();
+        stats.setItemCode(itemCode);
+        // 与明细路径一致：取最新一条交易的物料名称
+        SalesData latest = salesDataRepository.findFirstByItemCode(itemCode);
+        stats.setItemName(latest != null ? latest.getItemName() : null);
+        stats.setTotalTransactions(columnar.getTotalTransactions());
+        stats.setMinPrice(columnar.getMinPositivePrice());
+        stats.setMaxPrice(columnar.getMaxPositivePrice());
+        stats.setAvgPrice(columnar.getAvgPositivePrice());
+        stats.setFirstTransactionDate(columnar.getFirstTransactionDate());
+        stats.setLastTransactionDate(columnar.getLastTransactionDate());
+        stats.setHistory(Collections.emptyList());
+        return stats;
+    }
+    
     /**
      * 物料历史统计
      */
@@ -0,0 +1,456 @@
+package com.ecosystem.service;
+
+import com.ecosystem.entity.ProductMaster;
+import com.ecosystem.index.MinHasher;
+import com.ecosystem.index.TrigramIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Groups near-duplicate product_master rows (same product, ItemName or Model spelled with
+ * different spacing, casing or abbreviations) and maps each group to one canonical product
+ * (product_canonical_map, V18).
+ *
+ * The EmbeddingService text of each product is reduced to its values (letters and digits,
+ * lower case, accents stripped), cut into character shingles and MinHashed into a flat int
+ * array, in parallel chunks while product_master is streamed. LSH banding (one sort per band,
+ * bands in parallel) yields candidate pairs; pairs whose estimated Jaccard similarity reaches
+ * the threshold are joined with union-find. Grouping is transitive. The canonical product of a
+ * group is the one with the most complete text.
+ *
+ * The mapping is kept in memory for lookups by search, dedup and the embedding pipeline.
+ */
+@Slf4j
+@Service
+public class ProductCanonicalService {
+
+    private static final int SHINGLE_SIZE = 4;
+    private static final int NUM_HASHES = 64;
+    // 16 bands of 4 rows: pairs above ~0.5 similarity become candidates with high probability
+    private static final int ROWS_PER_BAND = 4;
+    private static final long SEED = 0x5EEDL;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int INSERT_BATCH_SIZE = 1000;
+    // Products are packed into the low bits of the band keys
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM ecoschema.product_master";
+    private static final String SELECT_PRODUCTS_SQL =
+            "SELECT product_uid, item_code, item_name, product_hierarchy_3, function_name, item_type, model, " +
+            "performance_micron, performance_efficiency, material, uom, brand_code FROM ecoschema.product_master";
+    private static final String SELECT_MAP_SQL =
+            "SELECT product_uid, canonical_uid FROM ecoschema.product_canonical_map";
+    private static final String DELETE_MAP_SQL = "DELETE FROM ecoschema.product_canonical_map";
+    private static final String INSERT_MAP_SQL =
+            "INSERT INTO ecoschema.product_canonical_map (product_uid, canonical_uid, similarity) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingService embeddingService;
+    private final MinHasher minHasher = new MinHasher(NUM_HASHES, SEED);
+    private final ForkJoinPool pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${sales-data.canonical.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sales-data.canonical.similarity-threshold:0.8}")
+    private double similarityThreshold;
+
+    // Larger buckets (very generic texts) are skipped instead of compared pair by pair
+    @Value("${sales-data.canonical.max-bucket-size:200}")
+    private int maxBucketSize;
+
+    // Duplicate product_uid → canonical product_uid
+    private volatile Map<String, String> canonicalByUid = Collections.emptyMap();
+    private volatile ConsolidationResult lastResult;
+
+    public ProductCanonicalService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   EmbeddingService embeddingService,
+                                   @Value("${sales-data.canonical.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.embeddingService = embeddingService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, String> loaded = new HashMap<>();
+            jdbcTemplate.query(SELECT_MAP_SQL, rs -> {
+                loaded.put(rs.getString(1), rs.getString(2));
+            });
+            canonicalByUid = loaded;
+            log.info("Loaded {} canonical product mappings", loaded.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load product_canonical_map (migration V18 not applied?): {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${sales-data.canonical.cron:0 30 4 * * *}")
+    public void scheduledConsolidate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            consolidate();
+        } catch (Exception e) {
+            log.error("Nightly product consolidation failed", e);
+        }
+    }
+
+    /**
+     * Canonical product of a product; a product that is not a known duplicate is its own.
+     */
+    public String canonicalUid(String productUid) {
+        return canonicalByUid.getOrDefault(productUid, productUid);
+    }
+
+    public boolean isCanonical(String productUid) {
+        return !canonicalByUid.containsKey(productUid);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, String> map = canonicalByUid;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("duplicates", map.size());
+        stats.put("canonicalProducts", map.values().stream().distinct().count());
+        stats.put("similarityThreshold", similarityThreshold);
+        stats.put("running", running.get());
+        stats.put("lastRun", lastResult);
+        return stats;
+    }
+
+    /**
+     * Recompute the canonical mapping of all products and replace the stored one.
+     */
+    public ConsolidationResult consolidate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Product consolidation is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Products products = computeSignatures();
+            long signed = System.currentTimeMillis();
+            AtomicInteger skippedBuckets = new AtomicInteger();
+            long[] pairs = findSimilarPairs(products, skippedBuckets);
+            long paired = System.currentTimeMillis();
+
+            int[] parent = new int[products.size];
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = i;
+            }
+            for (long pair : pairs) {
+                union(parent, (int) (pair >>> 32), (int) pair);
+            }
+            // Canonical member of each group: most complete text, then lowest product_uid
+            int[] canonical = new int[products.size];
+            Arrays.fill(canonical, -1);
+            for (int i = 0; i < products.size; i++) {
+                int root = find(parent, i);
+                int best = canonical[root];
+                if (best < 0 || products.weights[i] > products.weights[best]
+                        || (products.weights[i] == products.weights[best]
+                        && products.uids[i].compareTo(products.uids[best]) < 0)) {
+                    canonical[root] = i;
+                }
+            }
+            Map<String, String> mapping = new HashMap<>();
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < products.size; i++) {
+                int target = canonical[find(parent, i)];
+                if (target != i) {
+                    mapping.put(products.uids[i], products.uids[target]);
+                    rows.add(new Object[]{products.uids[i], products.uids[target],
+                            BigDecimal.valueOf(minHasher.similarity(products.signatures, i, target))
+                                    .setScale(4, RoundingMode.HALF_UP)});
+                }
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_MAP_SQL);
+                for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_MAP_SQL, rows.subList(i, Math.min(i + INSERT_BATCH_SIZE, rows.size())));
+                }
+            });
+            canonicalByUid = mapping;
+
+            ConsolidationResult result = new ConsolidationResult(products.size, pairs.length, mapping.size(),
+                    (int) mapping.values().stream().distinct().count(), skippedBuckets.get(),
+                    signed - started, paired - signed, System.currentTimeMillis() - started);
+            lastResult = result;
+            log.info("Product consolidation: {} products, {} similar pairs, {} duplicates in {} groups, "
+                            + "{} oversized buckets skipped (signatures {} ms, LSH {} ms, total {} ms)",
+                    result.getProducts(), result.getSimilarPairs(), result.getDuplicates(), result.getGroups(),
+                    result.getSkippedBuckets(), result.getSignatureMillis(), result.getLshMillis(),
+                    result.getElapsedMillis());
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Stream product_master and MinHash each chunk of products on the pool.
+     */
+    private Products computeSignatures() {
+        Integer count = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class);
+        Products products = new Products(count != null ? count + count / 16 + CHUNK_SIZE : CHUNK_SIZE);
+        List<ProductMaster> chunk = new ArrayList<>(CHUNK_SIZE);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_PRODUCTS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams rows one by one with this fetch size
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            ProductMaster productMaster = new ProductMaster();
+            productMaster.setProductUid(rs.getString(1));
+            productMaster.setItemCode(rs.getString(2));
+            productMaster.setItemName(rs.getString(3));
+            productMaster.setProductHierarchy3(rs.getString(4));
+            productMaster.setFunctionName(rs.getString(5));
+            productMaster.setItemType(rs.getString(6));
+            productMaster.setModel(rs.getString(7));
+            productMaster.setPerformanceMicron(rs.getString(8));
+            productMaster.setPerformanceEfficiency(rs.getString(9));
+            productMaster.setMaterial(rs.getString(10));
+            productMaster.setUom(rs.getString(11));
+            productMaster.setBrandCode(rs.getString(12));
+            chunk.add(productMaster);
+            if (chunk.size() == CHUNK_SIZE) {
+                signChunk(products, chunk);
+            }
+        });
+        signChunk(products, chunk);
+        return products;
+    }
+
+    private void signChunk(Products products, List<ProductMaster> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int base = products.size;
+        products.ensureCapacity(base + chunk.size());
+        pool.submit(() -> IntStream.range(0, chunk.size()).parallel().forEach(i -> {
+            ProductMaster productMaster = chunk.get(i);
+            String text = shingleText(embeddingService.generateEmbeddingText(productMaster));
+            int[] shingles = MinHasher.shingles(text, SHINGLE_SIZE);
+            products.uids[base + i] = productMaster.getProductUid();
+            // Products without text (no ItemName) are never grouped
+            products.weights[base + i] = shingles.length == 0 ? -1 : text.length();
+            if (shingles.length > 0) {
+                minHasher.signature(shingles, products.signatures, (base + i) * NUM_HASHES);
+            }
+        })).join();
+        products.size = base + chunk.size();
+        chunk.clear();
+    }
+
+    /**
+     * Verified pairs (i << 32 | j, i < j) from all bands; a pair found by several bands repeats.
+     */
+    private long[] findSimilarPairs(Products products, AtomicInteger skippedBuckets) {
+        if (products.size > INDEX_MASK) {
+            throw new IllegalStateException("Too many products for consolidation: " + products.size);
+        }
+        int bands = NUM_HASHES / ROWS_PER_BAND;
+        List<long[]> perBand = pool.submit(() -> IntStream.range(0, bands).parallel().mapToObj(band -> {
+            long[] keys = new long[products.size];
+            int n = 0;
+            for (int i = 0; i < products.size; i++) {
+                if (products.weights[i] >= 0) {
+                    keys[n++] = (minHasher.bandHash(products.signatures, i, band, ROWS_PER_BAND) & ~INDEX_MASK) | i;
+                }
+            }
+            Arrays.sort(keys, 0, n);
+            LongStream.Builder pairs = LongStream.builder();
+            int start = 0;
+            while (start < n) {
+                int end = start + 1;
+                while (end < n && (keys[end] & ~INDEX_MASK) == (keys[start] & ~INDEX_MASK)) {
+                    end++;
+                }
+                if (end - start > maxBucketSize) {
+                    skippedBuckets.incrementAndGet();
+                } else {
+                    for (int a = start; a < end; a++) {
+                        int i = (int) (keys[a] & INDEX_MASK);
+                        for (int b = a + 1; b < end; b++) {
+                            int j = (int) (keys[b] & INDEX_MASK);
+                            if (minHasher.similarity(products.signatures, i, j) >= similarityThreshold) {
+                                pairs.add(((long) Math.min(i, j) << 32) | Math.max(i, j));
+                            }
+                        }
+                    }
+                }
+                start = end;
+            }
+            return pairs.build().toArray();
+        }).toList()).join();
+
+        return perBand.stream().flatMapToLong(LongStream::of).distinct().toArray();
+    }
+
+    /**
+     * Values of the embedding text ("Label: value; ..."), lower case without accents, reduced to
+     * letters and digits so spacing and punctuation do not matter; fields separated by '|'.
+     */
+    static String shingleText(String embeddingText) {
+        if (embeddingText == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(embeddingText.length());
+        for (String part : embeddingText.split("; ")) {
+            int colon = part.indexOf(": ");
+            String value = TrigramIndex.normalize(colon >= 0 ? part.substring(colon + 2) : part);
+            if (text.length() > 0) {
+                text.append('|');
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    text.append(c);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Products in stream order with their signatures (flat, NUM_HASHES per product)
+     */
+    private static final class Products {
+        private String[] uids;
+        // Length of the shingle text, -1 without text
+        private int[] weights;
+        private int[] signatures;
+        private int size;
+
+        Products(int capacity) {
+            uids = new String[capacity];
+            weights = new int[capacity];
+            signatures = new int[capacity * NUM_HASHES];
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity > uids.length) {
+                int grown = Math.max(capacity, uids.length + uids.length / 2);
+                uids = Arrays.copyOf(uids, grown);
+                weights = Arrays.copyOf(weights, grown);
+                signatures = Arrays.copyOf(signatures, grown * NUM_HASHES);
+            }
+        }
+    }
+
+    /**
+     * Result of a consolidation run
+     */
+    public static class ConsolidationResult {
+        private final int products;
+        private final int similarPairs;
+        private final int duplicates;
+        private final int groups;
+        private final int skippedBuckets;
+        private final long signatureMillis;
+        private final long lshMillis;
+        private final long elapsedMillis;
+
+        public ConsolidationResult(int products, int similarPairs, int duplicates, int groups, int skippedBuckets,
+                                   long signatureMillis, long lshMillis, long elapsedMillis) {
+            this.products = products;
+            this.similarPairs = similarPairs;
+            this.duplicates = duplicates;
+            this.groups = groups;
+            this.skippedBuckets = skippedBuckets;
+            this.signatureMillis = signatureMillis;
+            this.lshMillis = lshMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getProducts() {
+            return products;
+        }
+
+        public int getSimilarPairs() {
+            return similarPairs;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getGroups() {
+            return groups;
+        }
+
+        public int getSkippedBuckets() {
+            return skippedBuckets;
+        }
+
+        public long getSignatureMillis() {
+            return signatureMillis;
+        }
+
+        public long getLshMillis() {
+            return lshMillis;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.ProductResponse;
+import com.ecosystem.dto.buyer.SellerResponse;
+import com.ecosystem.entity.ItemPriceStats;
+import com.ecosystem.entity.SalesData;
+import com.ecosystem.repository.SalesDataColdStore;
+import com.ecosystem.repository.SalesDataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量组装产品详情（ProductResponse）
+ * 不论一次组装多少个产品，查询次数都是常数：
+ * 一次 IN 查询取交易记录（数字 id），一次查询取各 ItemCode 的最新交易（ItemCode 形式的 id），
+ * 一次主键 IN 查询取 item_price_stats，统计表缺失且列式快照未就绪的物料再做一次分组聚合。
+ * 单个产品详情、愿望清单等多产品视图共用此组装逻辑。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductDetailAssembler {
+
+    private final SalesDataRepository salesDataRepository;
+    private final ItemPriceStatsService itemPriceStatsService;
+    private final SalesDataColumnarSnapshotService salesDataColumnarSnapshotService;
+    private final SalesDataColdStore salesDataColdStore;
+
+    /**
+     * 组装一批产品详情
+     *
+     * @param productIds 产品 ID：sales_data.id（数字），或 ItemCode（向后兼容）
+     * @return 按传入 ID（去除首尾空格）索引的产品详情，找不到的产品不包含在结果中
+     */
+    public Map<String, ProductResponse> assemble(Collection<String> productIds) {
+        Map<String, SalesData> rows = loadSalesData(productIds);
+        if (rows.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        Set<String> itemCodes = new LinkedHashSet<>();
+        for (SalesData salesData : rows.values()) {
+            if (salesData.getItemCode() != null && !salesData.getItemCode().trim().isEmpty()) {
+                itemCodes.add(salesData.getItemCode());
+            }
+        }
+        Map<String, Object[]> priceStatistics = loadPriceStatistics(itemCodes);
+
+        Map<String, ProductResponse> responses = new LinkedHashMap<>();
+        for (Map.Entry<String, SalesData> entry : rows.entrySet()) {
+            SalesData salesData = entry.getValue();
+            Object[] priceStats = salesData.getItemCode() != null
+                ? priceStatistics.get(itemKey(salesData.getItemCode())) : null;
+            responses.put(entry.getKey(), toProductResponse(entry.getKey(), salesData, priceStats));
+        }
+        return responses;
+    }
+
+    /**
+     * 按 ID 查询交易记录：数字 ID 一次 IN 查询，其余按 ItemCode 一次查询各物料的最新交易
+     */
+    private Map<String, SalesData> loadSalesData(Collection<String> productIds) {
+        Map<String, Long> numericIds = new LinkedHashMap<>();
+        Map<String, String> itemCodeIds = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            if (productId == null || productId.trim().isEmpty()) {
+                continue;
+            }
+            String trimmed = productId.trim();
+            try {
+                numericIds.put(trimmed, Long.parseLong(trimmed));
+            } catch (NumberFormatException e) {
+                itemCodeIds.put(trimmed, itemKey(trimmed));
+            }
+        }
+
+        Map<Long, SalesData> byId = new HashMap<>();
+        if (!numericIds.isEmpty()) {
+            for (SalesData salesData : salesDataRepository.findAllByIdOnAnyShard(new LinkedHashSet<>(numericIds.values()))) {
+                byId.put(salesData.getId(), salesData);
+            }
+        }
+        Map<String, SalesData> byItemCode = new HashMap<>();
+        if (!itemCodeIds.isEmpty()) {
+            for (SalesData salesData : salesDataRepository.findLatestByItemCodes(itemCodeIds.keySet())) {
+                byItemCode.put(itemKey(salesData.getItemCode()), salesData);
+            }
+        }
+
+        // 保持传入顺序
+        Map<String, SalesData> rows = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            if (productId == null || productId.trim().isEmpty()) {
+                continue;
+            }
+            String trimmed = productId.trim();
+            SalesData salesData = numericIds.containsKey(trimmed)
+                ? byId.get(numericIds.get(trimmed))
+                : byItemCode.get(itemCodeIds.get(trimmed));
+            if (salesData != null) {
+                rows.put(trimmed, salesData);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 各物料的价格统计 {minPrice, maxPrice, latestPrice}，按 {@link #itemKey} 索引
+     * 优先 item_price_stats；统计表尚未包含的物料在列式快照就绪时于内存中统计，否则一次分组聚合。
+     * 统计表和快照只覆盖 sales_data，冷存储中有归档交易的物料直接走分组聚合（合并冷存储汇总）
+     */
+    private Map<String, Object[]> loadPriceStatistics(Set<String> itemCodes) {
+        Map<String, Object[]> statistics = new HashMap<>();
+        if (itemCodes.isEmpty()) {
+            return statistics;
+        }
+        List<String> missing = new ArrayList<>();
+        Set<String> hotOnly = new LinkedHashSet<>();
+        for (String itemCode : itemCodes) {
+            if (!salesDataColdStore.isEmpty() && salesDataColdStore.summarizeItem(itemCode).getRowCount() > 0) {
+                missing.add(itemCode);
+            } else {
+                hotOnly.add(itemCode);
+            }
+        }
+        for (ItemPriceStats itemStats : itemPriceStatsService.findByItemCodes(hotOnly)) {
+            statistics.put(itemKey(itemStats.getItemCode()),
+                new Object[]{itemStats.getMinPrice(), itemStats.getMaxPrice(), itemStats.getLatestPrice()});
+        }
+
+        for (String itemCode : hotOnly) {
+            if (statistics.containsKey(itemKey(itemCode))) {
+                continue;
+            }
+            SalesDataColumnarSnapshotService.ItemStatistics columnar =
+                salesDataColumnarSnapshotService.getItemStatistics(itemCode);
+            if (columnar != null) {
+                statistics.put(itemKey(itemCode), columnar.toPriceStatisticsArray());
+            } else {
+                missing.add(itemCode);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // 每行：{ItemCode, minPrice, maxPrice, latestPrice}
+            for (Object[] row : salesDataRepository.getPriceStatisticsByItemCodes(missing)) {
+                if (row[0] != null) {
+                    statistics.put(itemKey(row[0].toString()), new Object[]{row[1], row[2], row[3]});
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * 构建单个产品的 ProductResponse
+     * id 使用交易记录的 sales_data.id，缺失时使用传入的 ID
+     */
+    private ProductResponse toProductResponse(String requestedId, SalesData salesData, Object[] priceStats) {
+        ProductResponse response = new ProductResponse();
+        Long productIdLong = salesData.getId();
+        if (productIdLong != null && productIdLong > 0) {
+            response.setId(productIdLong.toString());
+        } else {
+            log.warn("Unable to retrieve valid id, using productId: {}", requestedId);
+            response.setId(requestedId);
+        }
+        response.setName(salesData.getItemName() != null ? salesData.getItemName() : "Unknown Product");
+        
+        // 构建描述
+        List<String> descParts = new ArrayList<>();
+        if (salesData.getItemType() != null && !salesData.getItemType().trim().isEmpty()) {
+            descParts.add(salesData.getItemType());
+        }
+        if (salesData.getModel() != null && !salesData.getModel().trim().isEmpty()) {
+            descParts.add(salesData.getModel());
+        }
+        if (salesData.getMaterial() != null && !salesData.getMaterial().trim().isEmpty()) {
+            descParts.add(salesData.getMaterial());
+        }
+        response.setDescription(descParts.isEmpty() ? null : String.join(" - ", descParts));
+        
+        // 价格信息 - 优先从当前记录获取
+        BigDecimal latestPrice = BigDecimal.ZERO;
+        if (salesData.getTxP1() != null && !salesData.getTxP1().trim().isEmpty()) {
+            try {
+                String priceStr = salesData.getTxP1().trim();
+                if (!priceStr.isEmpty()) {
+                    BigDecimal parsedPrice = new BigDecimal(priceStr);
+                    if (parsedPrice.compareTo(BigDecimal.ZERO) >= 0) {
+                        latestPrice = parsedPrice;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                latestPrice = BigDecimal.ZERO;
+            }
+        }
+        
+        // 如果价格统计有最新价格，使用统计中的最新价格
+        if (priceStats != null && priceStats.length >= 3 && priceStats[2] != null) {
+            try {
+                Object latestPriceObj = priceStats[2];
+                if (latestPriceObj != null) {
+                    BigDecimal statsLatestPrice = new BigDecimal(latestPriceObj.toString());
+                    if (statsLatestPrice.compareTo(BigDecimal.ZERO) > 0) {
+                        latestPrice = statsLatestPrice;
+                    }
+                }
+            } catch (Exception e) {
+                // 如果转换失败，使用之前获取的价格
+            }
+        }
+        
+        // 确保 latestPrice 不为 null 且 >= 0
+        if (latestPrice == null) {
+            latestPrice = BigDecimal.ZERO;
+        }
+        if (latestPrice.compareTo(BigDecimal.ZERO) < 0) {
+            latestPrice = BigDecimal.ZERO;
+        }
+        
+        // 设置价格字段，确保都不为 null
+        response.setPrice(latestPrice);
+        response.setCurrency("USD");
+        
+        // 历史最低价 - 默认使用当前价格
+        BigDecimal historicalLowPrice = latestPrice;
+        if (priceStats != null && priceStats.length >= 1 && priceStats[0] != null) {
+            try {
+                Object minPriceObj = priceStats[0];
+                if (minPriceObj != null) {
+                    String minPriceStr = minPriceObj.toString();
+                    if (minPriceStr != null && !minPriceStr.trim().isEmpty()) {
+                        BigDecimal minPrice = new BigDecimal(minPriceStr);
+                        if (minPrice.compareTo(BigDecimal.ZERO) > 0) {
+                            historicalLowPrice = minPrice;
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // 如果转换失败，使用默认值 latestPrice
+                historicalLowPrice = latestPrice;
+            }
+        }
+        response.setHistoricalLowPrice(historicalLowPrice);
+        
+        // 最近交易价（使用最新价格，确保不为 null）
+        response.setLastTransactionPrice(latestPrice != null ? latestPrice : BigDecimal.ZERO);
+        
+        // 分类
+        response.setCategory(salesData.getProductHierarchy3());
+        
+        // 构建标签
+        List<String> tags = new ArrayList<>();
+        if (salesData.getItemType() != null && !salesData.getItemType().trim().isEmpty()) {
+            tags.add(salesData.getItemType());
+        }
+        if (salesData.getBrandCode() != null && !salesData.getBrandCode().trim().isEmpty()) {
+            tags.add(salesData.getBrandCode());
+        }
+        if (salesData.getSector() != null && !salesData.getSector().trim().isEmpty()) {
+            tags.add(salesData.getSector());
+        }
+        if (salesData.getFunction() != null && !salesData.getFunction().trim().isEmpty()) {
+            tags.add(salesData.getFunction());
+        }
+        response.setTags(tags.isEmpty() ? null : tags);
+        
+        // 卖家信息
+        if (salesData.getBuyerName() != null && !salesData.getBuyerName().trim().isEmpty()) {
+            response.setSeller(new SellerResponse(
+                salesData.getBuyerCode() != null ? salesData.getBuyerCode() : "unknown",
+                salesData.getBuyerName(),
+                false, // verified
+                null   // rating
+            ));
+        }
+        
+        // 设置时间戳
+        response.setCreatedAt(LocalDateTime.now());
+        response.setUpdatedAt(LocalDateTime.now());
+        
+        // 其他可选字段保持为 null
+        response.setImage(null);
+        response.setImages(null);
+        response.setStock(null);
+        response.setRating(null);
+        response.setReviewsCount(null);
+        response.setCertification(null);
+        response.setSpecifications(null);
+        response.setInWishlist(false);
+        
+        return response;
+    }
+
+    /**
+     * ItemCode 的比较键：与列排序规则一致，忽略大小写和尾部空格
+     */
+    private static String itemKey(String itemCode) {
+        return itemCode.stripTrailing().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecosystem.service;
+
+import com.ecosystem.entity.ProductMaster;
+import com.ecosystem.event.ChangeOutboxConsumer;
+import com.ecosystem.event.ChangeOutboxRecord;
+import com.ecosystem.repository.ProductMasterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps embedding_text / embedding_hash and the Qdrant vectors of product_master up to date
+ * from the change outbox, instead of the full-table jobs of EmbeddingBatchService and
+ * VectorEmbeddingService (which remain for the initial build and for repairs).
+ *
+ * Only products whose embedding hash actually changed are re-embedded. Vectors are stored
+ * before the new hash is saved, so a failed Qdrant write is retried with the redelivered batch.
+ * Deleted products are left to the full jobs.
+ */
+@Slf4j
+@Service
+public class ProductMasterEmbeddingConsumer implements ChangeOutboxConsumer {
+
+    private final ProductMasterRepository productMasterRepository;
+    private final EmbeddingService embeddingService;
+    // Only present when cohere.enabled=true
+    private final ObjectProvider<VectorEmbeddingService> vectorEmbeddingService;
+
+    public ProductMasterEmbeddingConsumer(ProductMasterRepository productMasterRepository,
+                                          EmbeddingService embeddingService,
+                                          ObjectProvider<VectorEmbeddingService> vectorEmbeddingService) {
+        this.productMasterRepository = productMasterRepository;
+        this.embeddingService = embeddingService;
+        this.vectorEmbeddingService = vectorEmbeddingService;
+    }
+
+    @Override
+    public String getName() {
+        return "product-master-embedding";
+    }
+
+    @Override
+    public boolean accepts(String aggregateType) {
+        return ChangeOutboxRecord.PRODUCT_MASTER.equals(aggregateType);
+    }
+
+    @Override
+    public void onChanges(List<ChangeOutboxRecord> changes) {
+        Set<String> productUids = new LinkedHashSet<>();
+        for (ChangeOutboxRecord change : changes) {
+            if (!change.isDelete()) {
+                productUids.add(change.getAggregateId());
+            }
+        }
+        if (productUids.isEmpty()) {
+            return;
+        }
+
+        List<ProductMaster> changed = new ArrayList<>();
+        for (ProductMaster productMaster : productMasterRepository.findAllById(productUids)) {
+            String[] result = embeddingService.generateEmbeddingTextAndHash(productMaster);
+            // null when ItemName is empty
+            if (result[0] == null || result[1] == null || result[1].equals(productMaster.getEmbeddingHash())) {
+                continue;
+            }
+            productMaster.setEmbeddingText(result[0]);
+            productMaster.setEmbeddingHash(result[1]);
+            changed.add(productMaster);
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        VectorEmbeddingService vectors = vectorEmbeddingService.getIfAvailable();
+        if (vectors != null && !vectors.storeVectors(changed)) {
+            throw new IllegalStateException("Storing vectors in Qdrant failed for " + changed.size() + " products");
+        }
+        productMasterRepository.saveAll(changed);
+        log.info("Refreshed embedding text of {} of {} changed products{}", changed.size(), productUids.size(),
+                vectors != null ? " and their vectors" : "");
+    }
+}
@@ -0,0 +1,570 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.ChangeOutboxConsumer;
+import com.ecosystem.event.ChangeOutboxRecord;
+import com.ecosystem.index.LongIntHashMap;
+import com.ecosystem.repository.SalesDataShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Builds product_master (V17) from sales_data: one row per distinct product fingerprint.
+ *
+ * A full build streams sales_data newest first with a forward-only cursor, so the first row
+ * of each fingerprint is the newest one and every later row of it is skipped after a hash
+ * lookup. Products are compared with the stored rows and upserted in batches; products that
+ * no longer occur in sales_data are removed.
+ *
+ * An incremental run only reads the rows above the high-water mark (materializer_state) and
+ * the rows reported as changed through the change outbox. It does not remove products whose
+ * last transaction was deleted or re-keyed; the nightly full build does.
+ *
+ * Inserted, changed and removed products are appended to the change outbox, which drives the
+ * embedding refresh (ProductMasterEmbeddingConsumer).
+ *
+ * Off with sharded sales_data: product_master is then left as it is.
+ */
+@Slf4j
+@Service
+public class ProductMasterMaterializer implements ChangeOutboxConsumer {
+
+    private static final String STATE_NAME = "product_master";
+    private static final int FLUSH_SIZE = 1000;
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final int MAX_FINGERPRINT_LENGTH = 255;
+
+    // sales_data columns of the fingerprint, in fingerprint order, and the product_master columns they fill
+    private static final String[] SOURCE_COLUMNS = {
+            "ItemCode", "ItemName", "Product Hierarchy 3", "Function", "ItemType", "Model",
+            "Performance", "Performance.1", "Material", "UOM", "Brand Code"
+    };
+    private static final String[] TARGET_COLUMNS = {
+            "item_code", "item_name", "product_hierarchy_3", "function_name", "item_type", "model",
+            "performance_micron", "performance_efficiency", "material", "uom", "brand_code"
+    };
+    private static final int[] TARGET_LENGTHS = {64, 255, 255, 255, 255, 255, 255, 255, 255, 64, 255};
+
+    private static final String SOURCE_SELECT;
+    private static final String SELECT_FULL_SQL;
+    private static final String SELECT_AFTER_SQL;
+    private static final String SELECT_BY_IDS_SQL;
+    private static final String SELECT_EXISTING_SQL;
+    private static final String INSERT_SQL;
+    private static final String UPDATE_SQL;
+
+    private static final String SELECT_MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM ecoschema.sales_data";
+    private static final String SELECT_STATE_SQL =
+            "SELECT high_water_mark FROM ecoschema.materializer_state WHERE name = ?";
+    private static final String SAVE_STATE_SQL =
+            "INSERT INTO ecoschema.materializer_state (name, high_water_mark, full_build_at) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE high_water_mark = GREATEST(high_water_mark, VALUES(high_water_mark)), " +
+            "full_build_at = COALESCE(VALUES(full_build_at), full_build_at)";
+    private static final String SELECT_PRODUCT_KEYS_SQL =
+            "SELECT product_uid, product_fingerprint, item_code FROM ecoschema.product_master";
+    private static final String DELETE_PRODUCTS_SQL =
+            "DELETE FROM ecoschema.product_master WHERE product_uid IN (:uids)";
+
+    static {
+        StringBuilder source = new StringBuilder("SELECT id");
+        for (String column : SOURCE_COLUMNS) {
+            source.append(", `").append(column).append('`');
+        }
+        SOURCE_SELECT = source.append(" FROM ecoschema.sales_data ").toString();
+        SELECT_FULL_SQL = SOURCE_SELECT + "WHERE id <= ? ORDER BY id DESC";
+        SELECT_AFTER_SQL = SOURCE_SELECT + "WHERE id > ? AND id <= ? ORDER BY id DESC";
+        SELECT_BY_IDS_SQL = SOURCE_SELECT + "WHERE id IN (:ids)";
+
+        String targets = String.join(", ", TARGET_COLUMNS);
+        SELECT_EXISTING_SQL = "SELECT product_uid, product_fingerprint, " + targets + ", last_tx_id " +
+                "FROM ecoschema.product_master WHERE product_fingerprint IN (:fingerprints)";
+        // IGNORE: fingerprints that differ only in accents are one key under the column collation
+        INSERT_SQL = "INSERT IGNORE INTO ecoschema.product_master (product_uid, product_fingerprint, " + targets +
+                ", last_tx_id) VALUES (?, ?" + ", ?".repeat(TARGET_COLUMNS.length) + ", ?)";
+        StringBuilder assignments = new StringBuilder();
+        for (String column : TARGET_COLUMNS) {
+            assignments.append(column).append(" = ?, ");
+        }
+        UPDATE_SQL = "UPDATE ecoschema.product_master SET " + assignments + "last_tx_id = ? WHERE product_uid = ?";
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeOutboxWriter changeOutboxWriter;
+    // Full builds and incremental runs never overlap
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final SalesDataShardRouter shardRouter;
+    private final boolean enabled;
+
+    private volatile boolean schemaWarningLogged;
+
+    public ProductMasterMaterializer(JdbcTemplate jdbcTemplate,
+                                     NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ChangeOutboxWriter changeOutboxWriter,
+                                     SalesDataShardRouter shardRouter,
+                                     @Value("${sales-data.product-master.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeOutboxWriter = changeOutboxWriter;
+        this.shardRouter = shardRouter;
+        this.enabled = shardRouter.allowsReadModel("product_master materializer", enabled);
+    }
+
+    @Override
+    public String getName() {
+        return "product-master-materializer";
+    }
+
+    @Override
+    public boolean accepts(String aggregateType) {
+        return ChangeOutboxRecord.SALES_DATA.equals(aggregateType);
+    }
+
+    /**
+     * Upserted sales_data rows are re-read; deleted ones are left to the next full build.
+     */
+    @Override
+    public void onChanges(List<ChangeOutboxRecord> changes) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (ChangeOutboxRecord change : changes) {
+            if (!change.isDelete()) {
+                ids.add(Long.valueOf(change.getAggregateId()));
+            }
+        }
+        try {
+            refresh(ids);
+        } catch (BadSqlGrammarException e) {
+            // V17 not applied: nothing to maintain, and the first full build covers these rows
+            if (!schemaWarningLogged) {
+                schemaWarningLogged = true;
+                log.warn("product_master materialization tables missing (migration V17 not applied): {}",
+                        e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${sales-data.product-master.rebuild-cron:0 0 4 * * *}")
+    public void scheduledRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuildAll();
+        } catch (Exception e) {
+            log.error("Nightly product_master build failed", e);
+        }
+    }
+
+    /**
+     * Full build: materialize every product of sales_data and remove the ones that no longer occur.
+     */
+    public MaterializeResult rebuildAll() {
+        shardRouter.requireSingleShard("product_master materializer");
+        lock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            long maxId = jdbcTemplate.queryForObject(SELECT_MAX_ID_SQL, Long.class);
+            Counts counts = new Counts();
+            // 64-bit hashes of the fingerprints seen so far; the stream is newest first
+            LongIntHashMap seen = new LongIntHashMap(1 << 16);
+            Map<String, ProductRow> pending = new LinkedHashMap<>();
+
+            stream(SELECT_FULL_SQL, rs -> {
+                counts.scanned++;
+                String[] values = readValues(rs);
+                String fingerprint = fingerprint(values);
+                long hash = hash64(fingerprint);
+                if (seen.get(hash, 0) != 0) {
+                    return;
+                }
+                seen.put(hash, 1);
+                pending.put(fingerprint, new ProductRow(fingerprint, values, rs.getLong(1)));
+                if (pending.size() >= FLUSH_SIZE) {
+                    flush(pending, true, counts);
+                }
+            }, maxId);
+            flush(pending, true, counts);
+
+            counts.removed = removeMissing(seen);
+            saveState(maxId, true);
+            MaterializeResult result = counts.toResult(System.currentTimeMillis() - started);
+            log.info("product_master full build: {} transactions, {} products ({} inserted, {} updated, {} removed) in {} ms",
+                    result.getScannedRows(), seen.size(), result.getInserted(), result.getUpdated(),
+                    result.getRemoved(), result.getElapsedMillis());
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Incremental run: rows above the high-water mark, plus the given changed rows below it.
+     * Does nothing before the first full build, which covers every row.
+     */
+    public MaterializeResult refresh(Collection<Long> changedIds) {
+        shardRouter.requireSingleShard("product_master materializer");
+        lock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            List<Long> highWaterMark = jdbcTemplate.queryForList(SELECT_STATE_SQL, Long.class, STATE_NAME);
+            if (highWaterMark.isEmpty()) {
+                log.debug("product_master has not been built yet, skipping incremental run");
+                return new Counts().toResult(0);
+            }
+            long from = highWaterMark.get(0);
+            long maxId = jdbcTemplate.queryForObject(SELECT_MAX_ID_SQL, Long.class);
+            Counts counts = new Counts();
+            Map<String, ProductRow> pending = new LinkedHashMap<>();
+
+            if (maxId > from) {
+                stream(SELECT_AFTER_SQL, rs -> {
+                    counts.scanned++;
+                    addPending(pending, readValues(rs), rs.getLong(1));
+                }, from, maxId);
+            }
+            List<Long> older = changedIds.stream().filter(id -> id <= from).distinct().toList();
+            for (int i = 0; i < older.size(); i += ID_CHUNK_SIZE) {
+                List<Long> chunk = older.subList(i, Math.min(i + ID_CHUNK_SIZE, older.size()));
+                namedParameterJdbcTemplate.query(SELECT_BY_IDS_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+                    counts.scanned++;
+                    addPending(pending, readValues(rs), rs.getLong(1));
+                });
+            }
+            // Flushed at the end: unlike the full build, rows of one product are not in a known order
+            List<ProductRow> rows = new ArrayList<>(pending.values());
+            for (int i = 0; i < rows.size(); i += FLUSH_SIZE) {
+                Map<String, ProductRow> batch = new LinkedHashMap<>();
+                for (ProductRow row : rows.subList(i, Math.min(i + FLUSH_SIZE, rows.size()))) {
+                    batch.put(row.fingerprint, row);
+                }
+                flush(batch, false, counts);
+            }
+
+            if (maxId > from) {
+                saveState(maxId, false);
+            }
+            MaterializeResult result = counts.toResult(System.currentTimeMillis() - started);
+            if (result.getInserted() + result.getUpdated() > 0) {
+                log.info("product_master incremental run: {} transactions, {} inserted, {} updated in {} ms",
+                        result.getScannedRows(), result.getInserted(), result.getUpdated(), result.getElapsedMillis());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void stream(String sql, RowHandler handler, Object... args) {
+        // Writes during the stream (flush) run on other pooled connections
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams rows one by one with this fetch size
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, handler::handle);
+    }
+
+    private static void addPending(Map<String, ProductRow> pending, String[] values, long id) {
+        String fingerprint = fingerprint(values);
+        ProductRow current = pending.get(fingerprint);
+        if (current == null || id > current.lastTxId) {
+            pending.put(fingerprint, new ProductRow(fingerprint, values, id));
+        }
+    }
+
+    /**
+     * Compare the pending products with their stored rows and write the new and changed ones
+     * in one transaction, together with their outbox records.
+     *
+     * @param newest whether each pending row is the newest transaction of its product (full build)
+     */
+    private void flush(Map<String, ProductRow> pending, boolean newest, Counts counts) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, ExistingProduct> existing = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_EXISTING_SQL,
+                new MapSqlParameterSource("fingerprints", pending.keySet()), rs -> {
+                    String[] values = new String[TARGET_COLUMNS.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getString(3 + i);
+                    }
+                    long lastTxId = rs.getLong(3 + values.length);
+                    existing.put(rs.getString(2), new ExistingProduct(rs.getString(1), values,
+                            rs.wasNull() ? null : lastTxId));
+                });
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<ChangeOutboxWriter.Change> changes = new ArrayList<>();
+        for (ProductRow row : pending.values()) {
+            ExistingProduct product = existing.get(row.fingerprint);
+            if (product == null) {
+                String productUid = productUid(row.fingerprint);
+                Object[] args = new Object[TARGET_COLUMNS.length + 3];
+                args[0] = productUid;
+                args[1] = row.fingerprint;
+                System.arraycopy(row.values, 0, args, 2, row.values.length);
+                args[args.length - 1] = row.lastTxId;
+                inserts.add(args);
+                changes.add(ChangeOutboxWriter.Change.productMasterUpsert(productUid, row.values[0]));
+                continue;
+            }
+            // An older transaction does not overwrite the spelling of a newer one
+            if (!newest && product.lastTxId != null && row.lastTxId < product.lastTxId) {
+                continue;
+            }
+            boolean valuesChanged = !Arrays.equals(row.values, product.values);
+            if (!valuesChanged && Objects.equals(product.lastTxId, row.lastTxId)) {
+                continue;
+            }
+            Object[] args = new Object[TARGET_COLUMNS.length + 2];
+            System.arraycopy(row.values, 0, args, 0, row.values.length);
+            args[args.length - 2] = row.lastTxId;
+            args[args.length - 1] = product.productUid;
+            updates.add(args);
+            if (valuesChanged) {
+                changes.add(ChangeOutboxWriter.Change.productMasterUpsert(product.productUid, row.values[0]));
+            }
+        }
+        pending.clear();
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            }
+            changeOutboxWriter.append(changes);
+        });
+        counts.inserted += inserts.size();
+        counts.updated += updates.size();
+    }
+
+    /**
+     * Delete the products whose fingerprint was not seen by the full build.
+     */
+    private int removeMissing(LongIntHashMap seen) {
+        List<String[]> missing = new ArrayList<>();
+        stream(SELECT_PRODUCT_KEYS_SQL, rs -> {
+            if (seen.get(hash64(rs.getString(2)), 0) == 0) {
+                missing.add(new String[]{rs.getString(1), rs.getString(3)});
+            }
+        });
+        for (int i = 0; i < missing.size(); i += ID_CHUNK_SIZE) {
+            List<String[]> chunk = missing.subList(i, Math.min(i + ID_CHUNK_SIZE, missing.size()));
+            List<String> uids = new ArrayList<>(chunk.size());
+            List<ChangeOutboxWriter.Change> changes = new ArrayList<>(chunk.size());
+            for (String[] product : chunk) {
+                uids.add(product[0]);
+                changes.add(ChangeOutboxWriter.Change.productMasterDelete(product[0], product[1]));
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                namedParameterJdbcTemplate.update(DELETE_PRODUCTS_SQL, new MapSqlParameterSource("uids", uids));
+                changeOutboxWriter.append(changes);
+            });
+        }
+        return missing.size();
+    }
+
+    private void saveState(long highWaterMark, boolean fullBuild) {
+        jdbcTemplate.update(SAVE_STATE_SQL, STATE_NAME, highWaterMark,
+                fullBuild ? new Timestamp(System.currentTimeMillis()) : null);
+    }
+
+    /**
+     * Product attribute values of a sales_data row (column 1 is the id): trimmed, blank as null.
+     */
+    private static String[] readValues(ResultSet rs) throws SQLException {
+        String[] values = new String[SOURCE_COLUMNS.length];
+        for (int i = 0; i < values.length; i++) {
+            String value = trimSpaces(rs.getString(i + 2));
+            if (value != null && value.length() > TARGET_LENGTHS[i]) {
+                value = value.substring(0, TARGET_LENGTHS[i]);
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /**
+     * UPPER(TRIM(COALESCE(value, ''))) of each attribute, each followed by '|'. A fingerprint
+     * longer than the column keeps its prefix and ends with the SHA-256 of the whole.
+     */
+    static String fingerprint(String[] values) {
+        StringBuilder fingerprint = new StringBuilder(128);
+        for (String value : values) {
+            if (value != null) {
+                fingerprint.append(value.toUpperCase(Locale.ROOT));
+            }
+            fingerprint.append('|');
+        }
+        if (fingerprint.length() <= MAX_FINGERPRINT_LENGTH) {
+            return fingerprint.toString();
+        }
+        String digest = sha256(fingerprint.toString());
+        return fingerprint.substring(0, MAX_FINGERPRINT_LENGTH - digest.length() - 1) + '#' + digest;
+    }
+
+    /**
+     * product_uid of a new product: the first 16 hex digits of the fingerprint's SHA-256.
+     */
+    static String productUid(String fingerprint) {
+        return sha256(fingerprint).substring(0, 16);
+    }
+
+    // MySQL TRIM removes spaces only
+    private static String trimSpaces(String value) {
+        if (value == null) {
+            return null;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return start == end ? null : value.substring(start, end);
+    }
+
+    // FNV-1a over the UTF-16 code units
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Long.MIN_VALUE is the empty marker of LongIntHashMap
+        return hash == Long.MIN_VALUE ? 0 : hash;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    private static final class ProductRow {
+        private final String fingerprint;
+        private final String[] values;
+        private final long lastTxId;
+
+        ProductRow(String fingerprint, String[] values, long lastTxId) {
+            this.fingerprint = fingerprint;
+            this.values = values;
+            this.lastTxId = lastTxId;
+        }
+    }
+
+    private static final class ExistingProduct {
+        private final String productUid;
+        private final String[] values;
+        private final Long lastTxId;
+
+        ExistingProduct(String productUid, String[] values, Long lastTxId) {
+            this.productUid = productUid;
+            this.values = values;
+            this.lastTxId = lastTxId;
+        }
+    }
+
+    private static final class Counts {
+        private long scanned;
+        private int inserted;
+        private int updated;
+        private int removed;
+
+        MaterializeResult toResult(long elapsedMillis) {
+            return new MaterializeResult(scanned, inserted, updated, removed, elapsedMillis);
+        }
+    }
+
+    /**
+     * Result of a materializer run
+     */
+    public static class MaterializeResult {
+        private final long scannedRows;
+        private final int inserted;
+        private final int updated;
+        private final int removed;
+        private final long elapsedMillis;
+
+        public MaterializeResult(long scannedRows, int inserted, int updated, int removed, long elapsedMillis) {
+            this.scannedRows = scannedRows;
+            this.inserted = inserted;
+            this.updated = updated;
+            this.removed = removed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getScannedRows() {
+            return scannedRows;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.util.SalesDataValueParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-time backfill of the typed shadow columns of sales_data (tx_date_typed, tx_qty_typed,
+ * txp1_typed, unit_cost_typed, value_typed) from the VARCHAR source columns.
+ * Walks the table in primary key order so each batch is a cheap range scan.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesDataBackfillService {
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT id, `TXDate`, `TXQty`, `TXP1`, `Unit Cost`, `Value` " +
+            "FROM ecoschema.sales_data WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_SQL =
+            "UPDATE ecoschema.sales_data SET tx_date_typed = ?, tx_qty_typed = ?, txp1_typed = ?, " +
+            "unit_cost_typed = ?, value_typed = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Populate the typed columns for all rows.
+     *
+     * @param batchSize The number of rows to read and update per batch
+     * @return Backfill result with statistics
+     */
+    public BackfillResult backfillTypedColumns(int batchSize) {
+        if (batchSize < 1) {
+            batchSize = 1000;
+        }
+        log.info("Starting typed column backfill for sales_data (batch size: {})", batchSize);
+
+        long lastId = 0;
+        int totalProcessed = 0;
+        int unparsableDates = 0;
+        int unparsableNumbers = 0;
+
+        while (true) {
+            List<RawRow> rows = jdbcTemplate.query(SELECT_BATCH_SQL, (rs, rowNum) -> new RawRow(
+                    rs.getLong("id"),
+                    rs.getString("TXDate"),
+                    rs.getString("TXQty"),
+                    rs.getString("TXP1"),
+                    rs.getString("Unit Cost"),
+                    rs.getString("Value")), lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> batchArgs = new ArrayList<>(rows.size());
+            for (RawRow row : rows) {
+                LocalDate txDate = SalesDataValueParser.parseDateOrNull(row.txDate);
+                Integer txQty = SalesDataValueParser.parseInteger(row.txQty);
+                BigDecimal txP1 = SalesDataValueParser.parseBigDecimal(row.txP1);
+                BigDecimal unitCost = SalesDataValueParser.parseBigDecimal(row.unitCost);
+                BigDecimal value = SalesDataValueParser.parseBigDecimal(row.value);
+
+                if (txDate == null && !isBlank(row.txDate)) {
+                    unparsableDates++;
+                }
+                if ((txQty == null && !isBlank(row.txQty)) || (txP1 == null && !isBlank(row.txP1))
+                        || (unitCost == null && !isBlank(row.unitCost)) || (value == null && !isBlank(row.value))) {
+                    unparsableNumbers++;
+                }
+
+                batchArgs.add(new Object[]{
+                        txDate != null ? java.sql.Date.valueOf(txDate) : null,
+                        txQty, txP1, unitCost, value, row.id});
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batchArgs);
+
+            totalProcessed += rows.size();
+            lastId = rows.get(rows.size() - 1).id;
+            // Typed columns drive the date / numeric filters, so counts change while backfilling
+            salesDataCountCache.invalidate();
+            log.debug("Backfilled {} rows (last id: {})", totalProcessed, lastId);
+        }
+
+        log.info("Typed column backfill completed. Processed: {}, unparsable dates: {}, rows with unparsable numbers: {}",
+                totalProcessed, unparsableDates, unparsableNumbers);
+        // Derived data built from the typed columns (columnar snapshot, item price statistics) has to resync
+        if (totalProcessed > 0) {
+            eventPublisher.publishEvent(SalesDataChangedEvent.bulk());
+        }
+        return new BackfillResult(totalProcessed, unparsableDates, unparsableNumbers);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private record RawRow(long id, String txDate, String txQty, String txP1, String unitCost, String value) {
+    }
+
+    /**
+     * Result class for the backfill operation.
+     */
+    public static class BackfillResult {
+        private final int totalProcessed;
+        private final int unparsableDates;
+        private final int unparsableNumbers;
+
+        public BackfillResult(int totalProcessed, int unparsableDates, int unparsableNumbers) {
+            this.totalProcessed = totalProcessed;
+            this.unparsableDates = unparsableDates;
+            this.unparsableNumbers = unparsableNumbers;
+        }
+
+        public int getTotalProcessed() {
+            return totalProcessed;
+        }
+
+        public int getUnparsableDates() {
+            return unparsableDates;
+        }
+
+        public int getUnparsableNumbers() {
+            return unparsableNumbers;
+        }
+    }
+}
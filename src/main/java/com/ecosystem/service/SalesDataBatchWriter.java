@@ -0,0 +1,502 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.SalesDataRequest;
+import com.ecosystem.repository.SalesDataShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chunked write path of the bulk import: one chunk of rows costs one lookup query, one batched
+ * INSERT and one batched UPDATE in a single transaction, instead of a lookup, a save and a commit per row.
+ *
+ * Rows are matched to existing records by TXNo (one IN query per chunk). Each existing record's
+ * row hash (SHA-1 of the imported columns, computed by MySQL) is compared with the incoming row's
+ * hash, and unchanged rows are not written. When a chunk fails, it is bisected and the halves are
+ * retried, so a bad row only fails itself and is reported with its row number.
+ *
+ * Several writers (import workers, NDJSON and CSV ingest) can insert the same new TXNo between
+ * their lookups and their inserts. The unique key on (TXNo, tx_partition_date) makes the second
+ * insert an update of the first writer's record instead of a duplicate.
+ *
+ * With sharded sales_data the TXNo lookup runs on every shard and each row is written to the
+ * shard of its BuyerCode. A chunk's shard joins the transaction on shard 0
+ * (SalesDataShardRouter.transactionalTemplate), which also holds its change outbox records.
+ */
+@Slf4j
+@Service
+public class SalesDataBatchWriter {
+
+    // Columns written by the import, in hash order; the hash input is value(0x01)value..., NULL as 0x00
+    private static final String[] COLUMNS = {
+            "TXNo", "TXDate", "TXQty", "TXP1", "BuyerCode", "BuyerName", "ItemCode", "ItemName",
+            "Product Hierarchy 3", "Function", "ItemType", "Model", "Performance", "Performance.1",
+            "Material", "UOM", "Brand Code", "Unit Cost", "Sector", "SubSector", "Value", "Rationale",
+            "www", "Source"
+    };
+    private static final String[] TYPED_COLUMNS = {
+            "tx_date_typed", "tx_qty_typed", "txp1_typed", "unit_cost_typed", "value_typed"
+    };
+
+    private static final String SELECT_EXISTING_SQL;
+    private static final String SELECT_INSERTED_SQL;
+    private static final String INSERT_SQL;
+    private static final String UPDATE_SQL;
+
+    static {
+        StringBuilder hash = new StringBuilder("SHA1(CONCAT_WS(CHAR(1)");
+        StringBuilder insertColumns = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        StringBuilder upsertAssignments = new StringBuilder();
+        for (String column : COLUMNS) {
+            hash.append(", IFNULL(`").append(column).append("`, CHAR(0))");
+        }
+        hash.append("))");
+        for (String column : concat(COLUMNS, TYPED_COLUMNS)) {
+            if (insertColumns.length() > 0) {
+                insertColumns.append(", ");
+                placeholders.append(", ");
+                assignments.append(", ");
+                upsertAssignments.append(", ");
+            }
+            insertColumns.append('`').append(column).append('`');
+            placeholders.append('?');
+            assignments.append('`').append(column).append("` = ?");
+            upsertAssignments.append('`').append(column).append("` = VALUES(`").append(column).append("`)");
+        }
+        SELECT_EXISTING_SQL = "SELECT id, `TXNo`, `ItemCode`, " + hash + " AS row_hash "
+                + "FROM ecoschema.sales_data WHERE `TXNo` IN (:txNos)";
+        // Ids of the inserted rows (a batched INSERT does not return them)
+        SELECT_INSERTED_SQL = "SELECT id, `ItemCode` FROM ecoschema.sales_data WHERE `TXNo` IN (:txNos)";
+        // A record inserted by a concurrent writer since the lookup is updated instead (uk_sales_data_tx_no, V22)
+        INSERT_SQL = "INSERT INTO ecoschema.sales_data (" + insertColumns + ") VALUES (" + placeholders + ") "
+                + "ON DUPLICATE KEY UPDATE " + upsertAssignments;
+        UPDATE_SQL = "UPDATE ecoschema.sales_data SET " + assignments + " WHERE id = ?";
+    }
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeOutboxWriter changeOutboxWriter;
+    private final SalesDataShardRouter shardRouter;
+
+    public SalesDataBatchWriter(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ChangeOutboxWriter changeOutboxWriter,
+                                SalesDataShardRouter shardRouter) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.changeOutboxWriter = changeOutboxWriter;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Each chunk commits on its own, whatever the caller's transaction
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Insert or update a chunk of validated rows (TXNo present).
+     *
+     * A TXNo that occurs several times in the chunk is written once with its last occurrence,
+     * like sequential saves would leave it.
+     */
+    public ChunkResult write(List<PendingRow> rows) {
+        ChunkResult result = new ChunkResult();
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        // Last occurrence of each TXNo wins; earlier ones are superseded and share its outcome
+        Map<String, PendingRow> byTxNo = new LinkedHashMap<>();
+        Map<String, List<PendingRow>> superseded = new HashMap<>();
+        for (PendingRow row : rows) {
+            PendingRow previous = byTxNo.put(row.getTxNo(), row);
+            if (previous != null) {
+                superseded.computeIfAbsent(row.getTxNo(), k -> new ArrayList<>()).add(previous);
+            }
+        }
+
+        Map<String, List<ExistingRecord>> existing = findExisting(byTxNo.keySet());
+        Map<Integer, List<PlannedWrite>> writesByShard = new LinkedHashMap<>();
+        for (PendingRow row : byTxNo.values()) {
+            List<ExistingRecord> matches = existing.getOrDefault(row.getTxNo(), List.of());
+            if (matches.size() > 1) {
+                // TXNo is not unique in the table; an ambiguous match is not overwritten
+                result.addError(row.getRowNum(),
+                        String.format("%d records exist with TXNo %s", matches.size(), row.getTxNo()));
+                continue;
+            }
+            ExistingRecord match = matches.isEmpty() ? null : matches.get(0);
+            int shard = shardRouter.shardFor(row.getRequest().getBuyerCode());
+            if (match != null && match.shard != shard) {
+                result.addError(row.getRowNum(), String.format(
+                        "TXNo %s is stored on shard %d, BuyerCode %s belongs to shard %d; "
+                                + "the BuyerCode of a stored record cannot move it to another shard",
+                        row.getTxNo(), match.shard, row.getRequest().getBuyerCode(), shard));
+                continue;
+            }
+            String hash = rowHash(row.getRequest());
+            if (match != null && hash.equals(match.rowHash)) {
+                result.unchanged++;
+                result.succeeded++;
+                result.unchangedRows.add(row.getRowNum());
+                continue;
+            }
+            writesByShard.computeIfAbsent(shard, k -> new ArrayList<>()).add(new PlannedWrite(row, match));
+        }
+
+        writesByShard.forEach((shard, writes) -> writeWithBisect(shard, writes, result));
+
+        superseded.forEach((txNo, earlier) -> {
+            PendingRow winner = byTxNo.get(txNo);
+            String error = result.errors.get(winner.getRowNum());
+            for (PendingRow row : earlier) {
+                if (error != null) {
+                    result.addError(row.getRowNum(), String.format(
+                            "Superseded by row %d with the same TXNo, which failed: %s", winner.getRowNum(), error));
+                } else if (result.unchangedRows.contains(winner.getRowNum())) {
+                    result.succeeded++;
+                    result.unchanged++;
+                    result.unchangedRows.add(row.getRowNum());
+                } else {
+                    result.succeeded++;
+                    result.itemCodes.add(row.getRequest().getItemCode());
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Row checks of every import path, applied before a row is handed to {@link #write}.
+     *
+     * @return the validation error of the row, or null when it can be written
+     */
+    public static String validate(SalesDataRequest request) {
+        if (request.getTxNo() == null || request.getTxNo().trim().isEmpty()) {
+            return "Transaction Number (TXNo) is required";
+        }
+        if (request.getTxQty() != null && request.getTxQty() < 0) {
+            return "TXQty cannot be negative";
+        }
+        if (request.getTxP1() != null && request.getTxP1().compareTo(BigDecimal.ZERO) < 0) {
+            return "TXP1 cannot be negative";
+        }
+        if (request.getUnitCost() != null && request.getUnitCost().compareTo(BigDecimal.ZERO) < 0) {
+            return "Unit Cost cannot be negative";
+        }
+        if (request.getValue() != null && request.getValue().compareTo(BigDecimal.ZERO) < 0) {
+            return "Value cannot be negative";
+        }
+        return null;
+    }
+
+    /**
+     * Write the rows in one transaction; on failure split the rows in halves and retry each,
+     * down to single rows, which are then reported as failed.
+     */
+    private void writeWithBisect(int shard, List<PlannedWrite> writes, ChunkResult result) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> execute(shard, writes));
+            result.writtenIds.addAll(ids);
+            for (PlannedWrite write : writes) {
+                result.succeeded++;
+                result.itemCodes.add(write.row.getRequest().getItemCode());
+                if (write.existing != null) {
+                    result.itemCodes.add(write.existing.itemCode);
+                }
+            }
+        } catch (DataAccessException | TransactionException e) {
+            bisect(shard, writes, result, e);
+        }
+    }
+
+    private void bisect(int shard, List<PlannedWrite> writes, ChunkResult result, RuntimeException failure) {
+        if (writes.size() == 1) {
+            PlannedWrite write = writes.get(0);
+            String message = NestedExceptionUtils.getMostSpecificCause(failure).getMessage();
+            log.warn("Import row {} (TXNo {}) failed: {}", write.row.getRowNum(), write.row.getTxNo(), message);
+            result.addError(write.row.getRowNum(), message);
+            return;
+        }
+        log.debug("Import chunk of {} rows failed, bisecting: {}", writes.size(), failure.getMessage());
+        int middle = writes.size() / 2;
+        writeWithBisect(shard, writes.subList(0, middle), result);
+        writeWithBisect(shard, writes.subList(middle, writes.size()), result);
+    }
+
+    /**
+     * Write the rows to the shard and append their outbox records on shard 0, in the current
+     * transaction.
+     *
+     * @return ids of the written rows
+     */
+    private List<Long> execute(int shard, List<PlannedWrite> writes) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<String> insertedTxNos = new ArrayList<>();
+        List<ChangeOutboxWriter.Change> changes = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (PlannedWrite write : writes) {
+            Object[] values = columnValues(write.row.getRequest());
+            if (write.existing == null) {
+                inserts.add(values);
+                insertedTxNos.add(write.row.getTxNo());
+            } else {
+                changes.add(ChangeOutboxWriter.Change.salesDataUpsert(write.existing.id,
+                        write.row.getRequest().getItemCode(), write.existing.itemCode));
+                ids.add(write.existing.id);
+                Object[] withId = new Object[values.length + 1];
+                System.arraycopy(values, 0, withId, 0, values.length);
+                withId[values.length] = write.existing.id;
+                updates.add(withId);
+            }
+        }
+        NamedParameterJdbcTemplate target = shard == 0 ? namedParameterJdbcTemplate
+                : shardRouter.transactionalTemplate(shard);
+        if (!inserts.isEmpty()) {
+            target.getJdbcTemplate().batchUpdate(INSERT_SQL, inserts);
+            target.query(SELECT_INSERTED_SQL, new MapSqlParameterSource("txNos", insertedTxNos), rs -> {
+                ids.add(rs.getLong(1));
+                changes.add(ChangeOutboxWriter.Change.salesDataUpsert(rs.getLong(1), rs.getString(2), null));
+            });
+        }
+        if (!updates.isEmpty()) {
+            target.getJdbcTemplate().batchUpdate(UPDATE_SQL, updates);
+        }
+        // Outbox records commit with the chunk (and are rolled back with it before a bisect)
+        changeOutboxWriter.append(changes);
+        return ids;
+    }
+
+    private Map<String, List<ExistingRecord>> findExisting(Set<String> txNos) {
+        MapSqlParameterSource params = new MapSqlParameterSource("txNos", txNos);
+        Map<String, List<ExistingRecord>> existing = new HashMap<>();
+        if (!shardRouter.isEnabled()) {
+            collectExisting(namedParameterJdbcTemplate, 0, params, existing);
+            return existing;
+        }
+        List<Map<String, List<ExistingRecord>>> perShard = shardRouter.onShards(shardRouter.allShards(), shard -> {
+            Map<String, List<ExistingRecord>> found = new HashMap<>();
+            collectExisting(shardRouter.template(shard), shard, params, found);
+            return found;
+        });
+        perShard.forEach(found -> found.forEach((txNo, records) ->
+                existing.computeIfAbsent(txNo, k -> new ArrayList<>()).addAll(records)));
+        return existing;
+    }
+
+    private static void collectExisting(NamedParameterJdbcTemplate template, int shard, MapSqlParameterSource params,
+                                        Map<String, List<ExistingRecord>> existing) {
+        template.query(SELECT_EXISTING_SQL, params, rs -> {
+            ExistingRecord record = new ExistingRecord(shard, rs.getLong(1), rs.getString(3), rs.getString(4));
+            existing.computeIfAbsent(rs.getString(2), k -> new ArrayList<>()).add(record);
+        });
+    }
+
+    /**
+     * Column values as stored by the entity write paths: raw VARCHAR columns, then typed columns.
+     */
+    private static Object[] columnValues(SalesDataRequest request) {
+        String[] raw = rawValues(request);
+        Object[] values = new Object[raw.length + TYPED_COLUMNS.length];
+        System.arraycopy(raw, 0, values, 0, raw.length);
+        int i = raw.length;
+        values[i++] = request.getTxDate() != null ? Date.valueOf(request.getTxDate()) : null;
+        values[i++] = request.getTxQty();
+        values[i++] = request.getTxP1();
+        values[i++] = request.getUnitCost();
+        values[i] = request.getValue();
+        return values;
+    }
+
+    private static String[] rawValues(SalesDataRequest request) {
+        return new String[]{
+                request.getTxNo(),
+                request.getTxDate() != null ? request.getTxDate().toString() : null,
+                request.getTxQty() != null ? request.getTxQty().toString() : null,
+                request.getTxP1() != null ? request.getTxP1().toString() : null,
+                request.getBuyerCode(),
+                request.getBuyerName(),
+                request.getItemCode(),
+                request.getItemName(),
+                request.getProductHierarchy3(),
+                request.getFunction(),
+                request.getItemType(),
+                request.getModel(),
+                request.getPerformance(),
+                request.getPerformance1(),
+                request.getMaterial(),
+                request.getUom(),
+                request.getBrandCode(),
+                request.getUnitCost() != null ? request.getUnitCost().toString() : null,
+                request.getSector(),
+                request.getSubSector(),
+                request.getValue() != null ? request.getValue().toString() : null,
+                request.getRationale(),
+                request.getWww(),
+                request.getSource()
+        };
+    }
+
+    /**
+     * Same digest as the SQL expression in SELECT_EXISTING_SQL, over the values the row would be stored with.
+     */
+    static String rowHash(SalesDataRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String[] values = rawValues(request);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                digest.update((byte) 1);
+            }
+            if (values[i] == null) {
+                digest.update((byte) 0);
+            } else {
+                digest.update(values[i].getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String[] concat(String[] a, String[] b) {
+        String[] result = new String[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static final class ExistingRecord {
+        private final int shard;
+        private final long id;
+        private final String itemCode;
+        private final String rowHash;
+
+        ExistingRecord(int shard, long id, String itemCode, String rowHash) {
+            this.shard = shard;
+            this.id = id;
+            this.itemCode = itemCode;
+            this.rowHash = rowHash;
+        }
+    }
+
+    private static final class PlannedWrite {
+        private final PendingRow row;
+        // null for an insert
+        private final ExistingRecord existing;
+
+        PlannedWrite(PendingRow row, ExistingRecord existing) {
+            this.row = row;
+            this.existing = existing;
+        }
+    }
+
+    /**
+     * A validated import row waiting for its chunk to be written
+     */
+    public static class PendingRow {
+        private final int rowNum;
+        private final String txNo;
+        private final SalesDataRequest request;
+
+        public PendingRow(int rowNum, SalesDataRequest request) {
+            this.rowNum = rowNum;
+            this.request = request;
+            this.txNo = request.getTxNo().trim();
+            request.setTxNo(txNo);
+        }
+
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        public String getTxNo() {
+            return txNo;
+        }
+
+        public SalesDataRequest getRequest() {
+            return request;
+        }
+    }
+
+    /**
+     * Outcome of one chunk
+     */
+    public static class ChunkResult {
+        private int succeeded;
+        private int unchanged;
+        private final Map<Integer, String> errors = new LinkedHashMap<>();
+        private final Set<Integer> unchangedRows = new HashSet<>();
+        // sales_data ids of the inserted or updated rows, on whichever shard they are stored
+        private final Set<Long> writtenIds = new LinkedHashSet<>();
+        // ItemCodes of the written rows, before and after the write
+        private final Set<String> itemCodes = new LinkedHashSet<>();
+
+        private void addError(int rowNum, String message) {
+            errors.put(rowNum, message);
+        }
+
+        /**
+         * Rows written or already up to date
+         */
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        /**
+         * Rows skipped because the stored record already has the same values
+         */
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * Row number → error message
+         */
+        public Map<Integer, String> getErrors() {
+            return errors;
+        }
+
+        public Set<String> getItemCodes() {
+            return itemCodes;
+        }
+
+        /**
+         * Whether the row was skipped because the stored record already has its values
+         */
+        public boolean isUnchanged(int rowNum) {
+            return unchangedRows.contains(rowNum);
+        }
+
+        public Set<Long> getWrittenIds() {
+            return writtenIds;
+        }
+    }
+}
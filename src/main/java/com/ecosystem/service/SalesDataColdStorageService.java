@@ -0,0 +1,338 @@
+package com.ecosystem.service;
+
+import com.ecosystem.index.ColdSegment;
+import com.ecosystem.index.SalesDataColumns;
+import com.ecosystem.repository.SalesDataColdStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Moves archived sales_data rows to the cold tier: an archive table left behind by
+ * SalesDataPartitionService (sales_data_archive_&lt;year&gt;) is streamed into compressed
+ * {@link ColdSegment} files, which {@link SalesDataColdStore} maps and the repository merges
+ * into history queries. Rows are written sorted by ItemCode so the per-group ItemCode zone
+ * maps are narrow and an item lookup decompresses only a few groups.
+ *
+ * Files are written under a temporary name and renamed once complete; the archive table is
+ * only dropped (optional) after the written row count matched the table.
+ */
+@Slf4j
+@Service
+public class SalesDataColdStorageService {
+
+    private static final Pattern ARCHIVE_TABLE = Pattern.compile("sales_data_archive_[A-Za-z0-9_]+");
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String TABLE_EXISTS_SQL =
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'ecoschema' AND TABLE_NAME = ?";
+    private static final String SELECT_COLUMNS =
+            "SELECT id, tx_date_typed, tx_qty_typed, txp1_typed, unit_cost_typed, value_typed, " +
+            "`TXNo`, `TXDate`, `TXQty`, `TXP1`, `BuyerCode`, `BuyerName`, `ItemCode`, `ItemName`, " +
+            "`Product Hierarchy 3`, `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, " +
+            "`Material`, `UOM`, `Brand Code`, `Unit Cost`, `Sector`, `SubSector`, `Value`, `Rationale`, " +
+            "`www`, `Source` FROM ecoschema.";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SalesDataColdStore coldStore;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Value("${sales-data.cold-storage.row-group-size:8192}")
+    private int rowGroupSize;
+
+    // A new segment file is started after this many rows
+    @Value("${sales-data.cold-storage.rows-per-file:1000000}")
+    private int rowsPerFile;
+
+    // Drop the archive table once its rows are verified in the cold tier
+    @Value("${sales-data.cold-storage.drop-archived-tables:false}")
+    private boolean dropArchivedTables;
+
+    public SalesDataColdStorageService(JdbcTemplate jdbcTemplate, SalesDataColdStore coldStore,
+                                       SalesDataCountCache salesDataCountCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.coldStore = coldStore;
+        this.salesDataCountCache = salesDataCountCache;
+    }
+
+    public boolean isEnabled() {
+        return coldStore.isEnabled();
+    }
+
+    /**
+     * Write the rows of an archive table to cold segments and register them.
+     *
+     * @param table sales_data_archive_&lt;suffix&gt;
+     * @throws IllegalArgumentException if the name is not an archive table or it does not exist
+     * @throws IllegalStateException    if cold storage is disabled, the table was already moved or
+     *                                  the written rows do not match the table
+     */
+    public ColdArchiveResult archiveTable(String table) {
+        if (!coldStore.isEnabled()) {
+            throw new IllegalStateException("Cold storage is disabled (sales-data.cold-storage.enabled)");
+        }
+        if (table == null || !ARCHIVE_TABLE.matcher(table).matches()) {
+            throw new IllegalArgumentException("Not an archive table: " + table);
+        }
+        lock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            Integer exists = jdbcTemplate.queryForObject(TABLE_EXISTS_SQL, Integer.class, table);
+            if (exists == null || exists == 0) {
+                throw new IllegalArgumentException("Archive table not found: " + table);
+            }
+            Path directory = coldStore.getDirectory();
+            Files.createDirectories(directory);
+            if (!existingSegments(directory, table).isEmpty()) {
+                throw new IllegalStateException("Cold segments of " + table + " already exist in " + directory);
+            }
+
+            List<Path> written = new ArrayList<>();
+            long rows;
+            try {
+                rows = writeSegments(table, directory, written);
+                Long expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ecoschema." + table, Long.class);
+                if (expected == null || expected != rows) {
+                    throw new IllegalStateException("Wrote " + rows + " rows of " + table + " but the table has "
+                            + expected + "; keeping the table");
+                }
+            } catch (RuntimeException e) {
+                deleteQuietly(written);
+                throw e;
+            }
+
+            long bytes = 0;
+            for (Path segment : written) {
+                coldStore.register(segment);
+                bytes += Files.size(segment);
+            }
+            salesDataCountCache.invalidate();
+
+            boolean dropped = false;
+            if (dropArchivedTables) {
+                jdbcTemplate.execute("DROP TABLE ecoschema." + table);
+                dropped = true;
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("Moved {} rows of {} to {} cold segments ({} KB) in {} ms{}", rows, table, written.size(),
+                    bytes / 1024, elapsed, dropped ? ", table dropped" : "");
+            return new ColdArchiveResult(table, written.size(), rows, bytes, dropped, elapsed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cold segments of " + table, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Segments, rows, size and date range of the cold tier.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", coldStore.isEnabled());
+        stats.put("directory", coldStore.getDirectory().toAbsolutePath().toString());
+        stats.put("rows", coldStore.getRowCount());
+        stats.put("sizeBytes", coldStore.getSizeBytes());
+        stats.put("newestDate", coldStore.getNewestDate());
+        List<Map<String, Object>> segments = new ArrayList<>();
+        for (ColdSegment segment : coldStore.getSegments()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("file", segment.getPath().getFileName().toString());
+            info.put("rows", segment.getRowCount());
+            info.put("rowGroups", segment.getGroupCount());
+            info.put("sizeBytes", segment.getSizeBytes());
+            info.put("minDate", SalesDataColumns.decodeDate(segment.getMinDate()));
+            info.put("maxDate", SalesDataColumns.decodeDate(segment.getMaxDate()));
+            segments.add(info);
+        }
+        stats.put("segments", segments);
+        return stats;
+    }
+
+    /**
+     * Stream the table into &lt;table&gt;-&lt;n&gt;.seg files; completed files are added to written.
+     */
+    private long writeSegments(String table, Path directory, List<Path> written) {
+        String sql = SELECT_COLUMNS + table + " ORDER BY `ItemCode`, tx_date_typed, id";
+        SegmentRoller roller = new SegmentRoller(table, directory, written);
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL Connector/J streams rows one by one with this fetch size
+                ps.setFetchSize(Integer.MIN_VALUE);
+                return ps;
+            }, roller::add);
+            roller.finish();
+            return roller.rows;
+        } finally {
+            roller.abort();
+        }
+    }
+
+    private static List<Path> existingSegments(Path directory, String table) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, table + "-*")) {
+            files.forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static void deleteQuietly(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Writes rows to the current segment and starts a new file every rows-per-file rows.
+     */
+    private final class SegmentRoller {
+        private final String table;
+        private final Path directory;
+        private final List<Path> written;
+        private final String[] values = new String[ColdSegment.STRING_COLUMNS.length];
+        private ColdSegment.Writer writer;
+        private Path tmpPath;
+        private long rows;
+
+        SegmentRoller(String table, Path directory, List<Path> written) {
+            this.table = table;
+            this.directory = directory;
+            this.written = written;
+        }
+
+        void add(ResultSet rs) throws SQLException {
+            try {
+                if (writer == null) {
+                    tmpPath = directory.resolve(segmentName(written.size()) + TMP_SUFFIX);
+                    writer = new ColdSegment.Writer(tmpPath, rowGroupSize);
+                }
+                int qty = rs.getInt(3);
+                boolean qtyNull = rs.wasNull();
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = rs.getString(7 + c);
+                }
+                writer.add(rs.getLong(1),
+                        SalesDataColumns.encodeDate(rs.getObject(2, LocalDate.class)),
+                        qtyNull ? SalesDataColumns.NULL_INT : qty,
+                        SalesDataColumns.encodeAmount(rs.getBigDecimal(4)),
+                        SalesDataColumns.encodeAmount(rs.getBigDecimal(5)),
+                        SalesDataColumns.encodeAmount(rs.getBigDecimal(6)),
+                        values);
+                rows++;
+                if (writer.getRowCount() >= rowsPerFile) {
+                    finish();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.finish();
+                writer.close();
+                writer = null;
+                Path target = directory.resolve(segmentName(written.size()));
+                Files.move(tmpPath, target, StandardCopyOption.ATOMIC_MOVE);
+                written.add(target);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Removes the unfinished file after a failure, also a finished one the move did not take
+        void abort() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    log.warn("Could not close {}", tmpPath, e);
+                }
+                writer = null;
+            }
+            if (tmpPath != null) {
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}", tmpPath, e);
+                }
+                tmpPath = null;
+            }
+        }
+
+        private String segmentName(int index) {
+            return String.format("%s-%04d%s", table, index, SalesDataColdStore.SEGMENT_SUFFIX);
+        }
+    }
+
+    public static class ColdArchiveResult {
+        private final String table;
+        private final int segments;
+        private final long rows;
+        private final long sizeBytes;
+        private final boolean tableDropped;
+        private final long elapsedMillis;
+
+        public ColdArchiveResult(String table, int segments, long rows, long sizeBytes, boolean tableDropped,
+                                 long elapsedMillis) {
+            this.table = table;
+            this.segments = segments;
+            this.rows = rows;
+            this.sizeBytes = sizeBytes;
+            this.tableDropped = tableDropped;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        public boolean isTableDropped() {
+            return tableDropped;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
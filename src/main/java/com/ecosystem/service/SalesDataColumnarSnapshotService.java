@@ -0,0 +1,332 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.index.SalesDataColumns;
+import com.ecosystem.repository.SalesDataShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-optimized columnar snapshot of sales_data (see {@link SalesDataColumns}) for the per-item
+ * history and price statistics, which otherwise load full entities and aggregate VARCHAR values.
+ *
+ * Built in the background at startup from the typed columns (V11) and kept in sync with
+ * committed writes through {@link SalesDataChangedEvent}. Callers fall back to SQL while it is
+ * not ready (null results), and always with sharded sales_data, where it is off.
+ */
+@Slf4j
+@Service
+public class SalesDataColumnarSnapshotService {
+
+    private static final String COLUMN_LIST = "id, `tx_date_typed`, `tx_qty_typed`, `txp1_typed`, "
+            + "`unit_cost_typed`, `value_typed`, `ItemCode`, `UOM`, `Brand Code`, `Sector`, `Product Hierarchy 3`";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMN_LIST + " FROM ecoschema.sales_data ORDER BY id";
+    private static final String SELECT_BY_IDS_SQL = "SELECT " + COLUMN_LIST + " FROM ecoschema.sales_data WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ExecutorService rebuildExecutor;
+
+    private final SalesDataShardRouter shardRouter;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile boolean rebuildRequested;
+
+    // Guarded by lock
+    private SalesDataColumns columns;
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+    private long lastBuildMillis;
+    private long lastBuildAt;
+
+    public SalesDataColumnarSnapshotService(JdbcTemplate jdbcTemplate,
+                                            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                            SalesDataShardRouter shardRouter,
+                                            @Value("${sales-data.columnar.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.enabled = shardRouter.allowsReadModel("Columnar snapshot", enabled);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "sales-data-columnar-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Reload the snapshot in the background. Returns false if a reload is already running
+     * (a follow-up reload is then queued).
+     */
+    public boolean scheduleRebuild() {
+        shardRouter.requireSingleShard("Columnar snapshot");
+        rebuildRequested = true;
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildExecutor.submit(this::rebuild);
+        return true;
+    }
+
+    /**
+     * Transaction count, price and date aggregates of an item code.
+     *
+     * @return the statistics, or null when the snapshot is not loaded yet
+     */
+    public ItemStatistics getItemStatistics(String itemCode) {
+        if (!enabled || itemCode == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (columns == null) {
+                return null;
+            }
+            return new ItemStatistics(columns.summarize(columns.rowsForItemCode(itemCode)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesDataChanged(SalesDataChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleRebuild();
+            return;
+        }
+        try {
+            applyChanges(event.getUpsertedIds(), event.getDeletedIds());
+        } catch (Exception e) {
+            log.error("Failed to apply sales_data change to columnar snapshot, scheduling reload", e);
+            scheduleRebuild();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ready", columns != null);
+            stats.put("rebuilding", rebuilding.get());
+            if (columns != null) {
+                int liveRows = columns.liveRows();
+                long memoryBytes = columns.memoryBytes();
+                int[] dictionarySizes = columns.dictionarySizes();
+                stats.put("rows", liveRows);
+                stats.put("allocatedRows", columns.size());
+                stats.put("memoryBytes", memoryBytes);
+                stats.put("memoryBytesPerMillionRows", liveRows > 0 ? memoryBytes * 1_000_000L / liveRows : 0);
+                Map<String, Object> dictionaries = new LinkedHashMap<>();
+                dictionaries.put("itemCode", dictionarySizes[0]);
+                dictionaries.put("uom", dictionarySizes[1]);
+                dictionaries.put("brandCode", dictionarySizes[2]);
+                dictionaries.put("sector", dictionarySizes[3]);
+                dictionaries.put("productHierarchy3", dictionarySizes[4]);
+                stats.put("dictionarySizes", dictionaries);
+            }
+            stats.put("lastBuildMillis", lastBuildMillis);
+            stats.put("lastBuildAt", lastBuildAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        try {
+            rebuildRequested = false;
+            rebuildOnce();
+        } catch (Exception e) {
+            log.error("Failed to load sales_data columnar snapshot", e);
+        } finally {
+            rebuilding.set(false);
+        }
+        if (rebuildRequested) {
+            scheduleRebuild();
+        }
+    }
+
+    private void rebuildOnce() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Integer rowCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ecoschema.sales_data", Integer.class);
+        SalesDataColumns built = new SalesDataColumns(rowCount != null ? rowCount + rowCount / 16 : 0);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ALL_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams rows one by one with this fetch size
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            upsertRow(built, rs);
+        });
+
+        List<Long> changed;
+        lock.writeLock().lock();
+        try {
+            columns = built;
+            // Rows written while the scan was running may be missing from its snapshot
+            changed = new ArrayList<>(changedDuringRebuild);
+            changedDuringRebuild.clear();
+            lastBuildMillis = System.currentTimeMillis() - start;
+            lastBuildAt = System.currentTimeMillis();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!changed.isEmpty()) {
+            applyChanges(changed, List.of());
+        }
+        log.info("Columnar snapshot loaded: {} rows, ~{} MB in {} ms",
+                built.liveRows(), built.memoryBytes() / (1024 * 1024), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-read the changed rows; rows that no longer exist are removed from the snapshot.
+     */
+    private void applyChanges(List<Long> upsertedIds, List<Long> deletedIds) {
+        // Load into a small staging copy first so the lock is not held during the queries
+        SalesDataColumns loaded = new SalesDataColumns(upsertedIds.size());
+        for (int from = 0; from < upsertedIds.size(); from += 1000) {
+            List<Long> chunk = upsertedIds.subList(from, Math.min(from + 1000, upsertedIds.size()));
+            namedParameterJdbcTemplate.query(SELECT_BY_IDS_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+                upsertRow(loaded, rs);
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                Set<Long> found = new HashSet<>();
+                for (int row = 0; row < loaded.size(); row++) {
+                    columns.copyRow(loaded, row);
+                    found.add(loaded.getId(row));
+                }
+                for (Long id : upsertedIds) {
+                    if (!found.contains(id)) {
+                        columns.delete(id);
+                    }
+                }
+                for (Long id : deletedIds) {
+                    columns.delete(id);
+                }
+            }
+            if (rebuilding.get()) {
+                changedDuringRebuild.addAll(upsertedIds);
+                changedDuringRebuild.addAll(deletedIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void upsertRow(SalesDataColumns target, ResultSet rs) throws SQLException {
+        int qty = rs.getInt(3);
+        Integer txQty = rs.wasNull() ? null : qty;
+        target.upsert(rs.getLong(1), rs.getObject(2, LocalDate.class), txQty, rs.getBigDecimal(4),
+                rs.getBigDecimal(5), rs.getBigDecimal(6), rs.getString(7), rs.getString(8),
+                rs.getString(9), rs.getString(10), rs.getString(11));
+    }
+
+    /**
+     * Aggregates of one item code, with the same semantics as the SQL / entity based versions:
+     * min/max/latest over all non-null TXP1 (getPriceStatisticsByItemCode) and min/max/avg over
+     * TXP1 > 0 (material history).
+     */
+    public static class ItemStatistics {
+        private final int totalTransactions;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+        private final BigDecimal latestPrice;
+        private final BigDecimal minPositivePrice;
+        private final BigDecimal maxPositivePrice;
+        private final BigDecimal avgPositivePrice;
+        private final LocalDate firstTransactionDate;
+        private final LocalDate lastTransactionDate;
+
+        ItemStatistics(SalesDataColumns.PriceSummary summary) {
+            this.totalTransactions = summary.getRowCount();
+            this.minPrice = SalesDataColumns.decodeAmount(summary.getMinPrice());
+            this.maxPrice = SalesDataColumns.decodeAmount(summary.getMaxPrice());
+            this.latestPrice = SalesDataColumns.decodeAmount(summary.getLatestPrice());
+            this.minPositivePrice = SalesDataColumns.decodeAmount(summary.getMinPositivePrice());
+            this.maxPositivePrice = SalesDataColumns.decodeAmount(summary.getMaxPositivePrice());
+            this.avgPositivePrice = summary.getPositivePriceCount() > 0
+                    ? BigDecimal.valueOf(summary.getPositivePriceSum(), SalesDataColumns.AMOUNT_SCALE)
+                            .divide(BigDecimal.valueOf(summary.getPositivePriceCount()), 2, RoundingMode.HALF_UP)
+                    : null;
+            this.firstTransactionDate = SalesDataColumns.decodeDate(summary.getFirstDate());
+            this.lastTransactionDate = SalesDataColumns.decodeDate(summary.getLastDate());
+        }
+
+        /**
+         * Same shape as SalesDataRepository.getPriceStatisticsByItemCode: {minPrice, maxPrice, latestPrice},
+         * 0 when the item has no price.
+         */
+        public Object[] toPriceStatisticsArray() {
+            return new Object[]{
+                    minPrice != null ? minPrice : BigDecimal.ZERO,
+                    maxPrice != null ? maxPrice : BigDecimal.ZERO,
+                    latestPrice != null ? latestPrice : BigDecimal.ZERO
+            };
+        }
+
+        public int getTotalTransactions() { return totalTransactions; }
+        public BigDecimal getMinPrice() { return minPrice; }
+        public BigDecimal getMaxPrice() { return maxPrice; }
+        public BigDecimal getLatestPrice() { return latestPrice; }
+        public BigDecimal getMinPositivePrice() { return minPositivePrice; }
+        public BigDecimal getMaxPositivePrice() { return maxPositivePrice; }
+        public BigDecimal getAvgPositivePrice() { return avgPositivePrice; }
+        public LocalDate getFirstTransactionDate() { return firstTransactionDate; }
+        public LocalDate getLastTransactionDate() { return lastTransactionDate; }
+    }
+}
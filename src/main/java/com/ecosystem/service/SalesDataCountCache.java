@@ -0,0 +1,107 @@
+package com.ecosystem.service;
+
+import com.ecosystem.repository.SalesDataFilter;
+import com.ecosystem.repository.SalesDataQueryBuilder;
+import com.ecosystem.repository.SalesDataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches filtered sales_data row counts so paging through one filter set costs a single COUNT.
+ * Entries are keyed by the normalized filter fingerprint and tagged with the global write version;
+ * every write to sales_data bumps the version, which makes all older entries stale at once.
+ * At most MAX_ENTRIES fingerprints are kept, the least recently used one is evicted first.
+ *
+ * The write version is per instance: invalidate() only reaches the cache of the instance that
+ * made the write. With several instances behind a load balancer, counts cached by the others stay
+ * in use until they are evicted or that instance writes itself, so exact totals can lag writes
+ * made elsewhere.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesDataCountCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final SalesDataRepository salesDataRepository;
+
+    private final AtomicLong writeVersion = new AtomicLong();
+    // Access-ordered LRU; guarded by its own monitor
+    private final Map<String, CachedCount> counts = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCount> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Exact number of rows matching the filter, from cache when no write happened since it was counted.
+     */
+    public long getExactCount(SalesDataFilter filter) {
+        String fingerprint = SalesDataQueryBuilder.forFilter(filter).fingerprint();
+        // Read the version before counting: a write committed during the COUNT leaves the entry stale
+        long version = writeVersion.get();
+
+        CachedCount cached;
+        synchronized (counts) {
+            cached = counts.get(fingerprint);
+        }
+        if (cached != null && cached.version == version) {
+            return cached.count;
+        }
+
+        long count = salesDataRepository.countMatching(filter);
+        synchronized (counts) {
+            counts.put(fingerprint, new CachedCount(version, count));
+        }
+        return count;
+    }
+
+    /**
+     * Approximate number of matching rows from MySQL statistics (no table scan).
+     */
+    public long getEstimatedCount(SalesDataFilter filter) {
+        return salesDataRepository.estimateMatching(filter);
+    }
+
+    /**
+     * Mark all cached counts stale. When called inside a transaction the version is bumped
+     * again after completion, so counts taken while the transaction was open are not reused.
+     */
+    public void invalidate() {
+        writeVersion.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SalesDataCountCache.this);
+                    writeVersion.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public long getWriteVersion() {
+        return writeVersion.get();
+    }
+
+    private static class CachedCount {
+        final long version;
+        final long count;
+
+        CachedCount(long version, long count) {
+            this.version = version;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.BulkImportResponse;
+import com.ecosystem.event.ChangeOutboxRecord;
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.importer.CsvRecordReader;
+import com.ecosystem.importer.SalesDataImportMapping;
+import com.ecosystem.repository.SalesDataShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * CSV/TSV ingest of sales_data for large machine-generated files (e.g. nightly ERP dumps).
+ *
+ * The file is streamed into sales_data_staging (V15) with LOAD DATA LOCAL INFILE, or with
+ * multi-row INSERTs when the server or driver does not allow local infile. Set-based statements
+ * then normalize dates and numbers, validate the rows, resolve each TXNo against sales_data and
+ * merge the valid rows: one joined UPDATE for existing records and one INSERT ... SELECT for new
+ * ones per window of rows. Per-row work in Java is limited to splitting the file.
+ *
+ * The merge statements join staging and sales_data on one server, so this path is not available
+ * when sales_data is sharded; the import job and NDJSON paths route rows to their shards.
+ */
+@Slf4j
+@Service
+public class SalesDataCsvIngestService {
+
+    // Staged and merged columns, in staging file order
+    private static final String[] COLUMNS = {
+            "TXNo", "TXDate", "TXQty", "TXP1", "BuyerCode", "BuyerName", "ItemCode", "ItemName",
+            "Product Hierarchy 3", "Function", "ItemType", "Model", "Performance", "Performance.1",
+            "Material", "UOM", "Brand Code", "Unit Cost", "Sector", "SubSector", "Value", "Rationale",
+            "www", "Source"
+    };
+    private static final String[] TYPED_COLUMNS = {
+            "tx_date_typed", "tx_qty_typed", "txp1_typed", "unit_cost_typed", "value_typed"
+    };
+
+    // sales_data columns are VARCHAR(255); staging keeps one more character to detect longer values
+    private static final int MAX_VALUE_LENGTH = 255;
+    private static final int INSERT_ROWS_PER_STATEMENT = 500;
+    private static final int DELETE_BATCH_SIZE = 50_000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Above this many affected item codes listeners are told to resync fully
+    private static final int MAX_EVENT_ITEM_CODES = 10_000;
+
+    private static final String COLUMN_LIST = Arrays.stream(COLUMNS)
+            .map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+    private static final String TYPED_COLUMN_LIST = String.join(", ", TYPED_COLUMNS);
+
+    // Date part before a space, in the formats of SalesDataValueParser
+    private static final String DATE_PART = "SUBSTRING_INDEX(`TXDate`, ' ', 1)";
+    private static final String DECIMAL_PATTERN = "'^[+-]?([0-9]{1,14}([.][0-9]*)?|[.][0-9]+)$'";
+
+    // UPDATE IGNORE: an impossible date (2024-02-30) yields NULL instead of failing the statement.
+    // Assignments run left to right, so the raw columns are rewritten from the parsed values.
+    private static final String NORMALIZE_SQL =
+            "UPDATE IGNORE ecoschema.sales_data_staging SET " +
+            "tx_date_typed = COALESCE(" +
+            "  IF(" + DATE_PART + " REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$', STR_TO_DATE(" + DATE_PART + ", '%Y-%m-%d'), NULL), " +
+            "  IF(" + DATE_PART + " REGEXP '^[0-9]{4}/[0-9]{2}/[0-9]{2}$', STR_TO_DATE(" + DATE_PART + ", '%Y/%m/%d'), NULL), " +
+            "  IF(" + DATE_PART + " REGEXP '^[0-9]{2}/[0-9]{2}/[0-9]{4}$', " +
+            "     COALESCE(STR_TO_DATE(" + DATE_PART + ", '%d/%m/%Y'), STR_TO_DATE(" + DATE_PART + ", '%m/%d/%Y')), NULL)), " +
+            "`TXDate` = IF(tx_date_typed IS NOT NULL, DATE_FORMAT(tx_date_typed, '%Y-%m-%d'), `TXDate`), " +
+            "tx_qty_typed = IF(`TXQty` REGEXP '^[+-]?[0-9]{1,10}$' " +
+            "  AND CAST(`TXQty` AS SIGNED) BETWEEN -2147483648 AND 2147483647, CAST(`TXQty` AS SIGNED), NULL), " +
+            "`TXQty` = IF(tx_qty_typed IS NOT NULL, CAST(tx_qty_typed AS CHAR), `TXQty`), " +
+            "txp1_typed = IF(`TXP1` REGEXP " + DECIMAL_PATTERN + ", CAST(`TXP1` AS DECIMAL(18,4)), NULL), " +
+            "`TXP1` = IF(txp1_typed IS NOT NULL, TRIM(LEADING '+' FROM `TXP1`), `TXP1`), " +
+            "unit_cost_typed = IF(`Unit Cost` REGEXP " + DECIMAL_PATTERN + ", CAST(`Unit Cost` AS DECIMAL(18,4)), NULL), " +
+            "`Unit Cost` = IF(unit_cost_typed IS NOT NULL, TRIM(LEADING '+' FROM `Unit Cost`), `Unit Cost`), " +
+            "value_typed = IF(`Value` REGEXP " + DECIMAL_PATTERN + ", CAST(`Value` AS DECIMAL(18,4)), NULL), " +
+            "`Value` = IF(value_typed IS NOT NULL, TRIM(LEADING '+' FROM `Value`), `Value`) " +
+            "WHERE load_id = ?";
+
+    private static final String VALIDATE_SQL;
+
+    // Earlier rows of a TXNo that occurs several times in the file: the last one is merged
+    private static final String MARK_SUPERSEDED_SQL =
+            "UPDATE ecoschema.sales_data_staging s " +
+            "JOIN (SELECT `TXNo`, MAX(row_num) AS last_row FROM ecoschema.sales_data_staging " +
+            "      WHERE load_id = ? AND error_message IS NULL GROUP BY `TXNo` HAVING COUNT(*) > 1) l " +
+            "  ON l.`TXNo` = s.`TXNo` " +
+            "SET s.superseded = 1 " +
+            "WHERE s.load_id = ? AND s.error_message IS NULL AND s.row_num < l.last_row";
+
+    // TXNo is not unique in sales_data: a TXNo with several records is not overwritten
+    private static final String RESOLVE_TARGETS_SQL =
+            "UPDATE ecoschema.sales_data_staging s " +
+            "JOIN (SELECT d.`TXNo`, MIN(d.id) AS id, MIN(d.`ItemCode`) AS item_code, COUNT(*) AS records " +
+            "      FROM ecoschema.sales_data d " +
+            "      JOIN ecoschema.sales_data_staging k ON k.`TXNo` = d.`TXNo` " +
+            "        AND k.load_id = ? AND k.error_message IS NULL AND k.superseded = 0 " +
+            "      GROUP BY d.`TXNo`) m ON m.`TXNo` = s.`TXNo` " +
+            "SET s.target_id = IF(m.records = 1, m.id, NULL), " +
+            "    s.previous_item_code = IF(m.records = 1, m.item_code, NULL), " +
+            "    s.error_message = IF(m.records > 1, CONCAT(m.records, ' records exist with TXNo ', s.`TXNo`), NULL) " +
+            "WHERE s.load_id = ? AND s.error_message IS NULL AND s.superseded = 0";
+
+    private static final String MARK_UNCHANGED_SQL;
+    private static final String MERGE_UPDATE_SQL;
+    private static final String MERGE_INSERT_SQL;
+
+    private static final String MERGEABLE = "s.error_message IS NULL AND s.superseded = 0";
+
+    // Outbox records of a merged window (selects for ChangeOutboxWriter.appendSelect)
+    private static final String OUTBOX_UPDATED_SQL =
+            "SELECT '" + ChangeOutboxRecord.SALES_DATA + "', s.target_id, '" + ChangeOutboxRecord.UPSERT + "', " +
+            "s.`ItemCode`, IF(s.previous_item_code <=> s.`ItemCode`, NULL, s.previous_item_code) " +
+            "FROM ecoschema.sales_data_staging s " +
+            "WHERE s.load_id = ? AND s.row_num >= ? AND s.row_num < ? AND " + MERGEABLE + " " +
+            "AND s.unchanged = 0 AND s.target_id IS NOT NULL";
+    private static final String OUTBOX_INSERTED_SQL =
+            "SELECT '" + ChangeOutboxRecord.SALES_DATA + "', d.id, '" + ChangeOutboxRecord.UPSERT + "', d.`ItemCode`, NULL " +
+            "FROM ecoschema.sales_data_staging s JOIN ecoschema.sales_data d ON d.`TXNo` = s.`TXNo` " +
+            "WHERE s.load_id = ? AND s.row_num >= ? AND s.row_num < ? AND " + MERGEABLE + " " +
+            "AND s.target_id IS NULL";
+
+    private static final String MAX_ROW_SQL =
+            "SELECT MAX(row_num) FROM ecoschema.sales_data_staging WHERE load_id = ?";
+    private static final String REPORT_SQL =
+            "SELECT COUNT(*) AS total, COUNT(error_message) AS failed, " +
+            "COALESCE(SUM(error_message IS NULL AND unchanged = 1), 0) AS unchanged, " +
+            "COALESCE(SUM(error_message IS NULL AND superseded = 0 AND unchanged = 0), 0) AS changed " +
+            "FROM ecoschema.sales_data_staging WHERE load_id = ?";
+    private static final String SELECT_ERRORS_SQL =
+            "SELECT row_num, error_message FROM ecoschema.sales_data_staging " +
+            "WHERE load_id = ? AND error_message IS NOT NULL ORDER BY row_num LIMIT " + MAX_REPORTED_ERRORS;
+    private static final String SELECT_ITEM_CODES_SQL =
+            "SELECT code FROM (" +
+            "  SELECT `ItemCode` AS code FROM ecoschema.sales_data_staging s " +
+            "  WHERE s.load_id = ? AND " + MERGEABLE + " AND s.unchanged = 0 " +
+            "  UNION " +
+            "  SELECT previous_item_code FROM ecoschema.sales_data_staging s " +
+            "  WHERE s.load_id = ? AND " + MERGEABLE + " AND s.unchanged = 0" +
+            ") codes WHERE code IS NOT NULL LIMIT " + (MAX_EVENT_ITEM_CODES + 1);
+    private static final String DELETE_STAGING_SQL =
+            "DELETE FROM ecoschema.sales_data_staging WHERE load_id = ? LIMIT " + DELETE_BATCH_SIZE;
+
+    static {
+        StringBuilder validate = new StringBuilder("UPDATE ecoschema.sales_data_staging SET error_message = CASE ")
+                .append("WHEN `TXNo` IS NULL THEN 'Transaction Number (TXNo) is required' ")
+                .append("WHEN `TXDate` IS NOT NULL AND tx_date_typed IS NULL ")
+                .append("  THEN 'Invalid date format for TXDate. Expected YYYY-MM-DD' ")
+                .append("WHEN `TXQty` IS NOT NULL AND tx_qty_typed IS NULL THEN 'TXQty must be a whole number' ")
+                .append("WHEN tx_qty_typed < 0 THEN 'TXQty cannot be negative' ")
+                .append("WHEN `TXP1` IS NOT NULL AND txp1_typed IS NULL THEN 'TXP1 must be a number' ")
+                .append("WHEN txp1_typed < 0 THEN 'TXP1 cannot be negative' ")
+                .append("WHEN `Unit Cost` IS NOT NULL AND unit_cost_typed IS NULL THEN 'Unit Cost must be a number' ")
+                .append("WHEN unit_cost_typed < 0 THEN 'Unit Cost cannot be negative' ")
+                .append("WHEN `Value` IS NOT NULL AND value_typed IS NULL THEN 'Value must be a number' ")
+                .append("WHEN value_typed < 0 THEN 'Value cannot be negative' ");
+        for (String column : COLUMNS) {
+            validate.append("WHEN CHAR_LENGTH(`").append(column).append("`) > ").append(MAX_VALUE_LENGTH)
+                    .append(" THEN '").append(column).append(" exceeds ").append(MAX_VALUE_LENGTH)
+                    .append(" characters' ");
+        }
+        validate.append("END WHERE load_id = ?");
+        VALIDATE_SQL = validate.toString();
+
+        StringBuilder same = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (String column : COLUMNS) {
+            same.append(" AND d.`").append(column).append("` <=> s.`").append(column).append('`');
+            assignments.append(assignments.length() > 0 ? ", " : "")
+                    .append("d.`").append(column).append("` = s.`").append(column).append('`');
+        }
+        for (String column : TYPED_COLUMNS) {
+            assignments.append(", d.").append(column).append(" = s.").append(column);
+        }
+        MARK_UNCHANGED_SQL = "UPDATE ecoschema.sales_data_staging s " +
+                "JOIN ecoschema.sales_data d ON d.id = s.target_id " +
+                "SET s.unchanged = 1 WHERE s.load_id = ? AND " + MERGEABLE + same;
+        MERGE_UPDATE_SQL = "UPDATE ecoschema.sales_data d " +
+                "JOIN ecoschema.sales_data_staging s ON d.id = s.target_id " +
+                "SET " + assignments + " " +
+                "WHERE s.load_id = ? AND s.row_num >= ? AND s.row_num < ? AND " + MERGEABLE + " AND s.unchanged = 0";
+        String selectColumns = Arrays.stream(COLUMNS).map(c -> "s.`" + c + "`").collect(Collectors.joining(", "))
+                + ", " + Arrays.stream(TYPED_COLUMNS).map(c -> "s." + c).collect(Collectors.joining(", "));
+        MERGE_INSERT_SQL = "INSERT INTO ecoschema.sales_data (" + COLUMN_LIST + ", " + TYPED_COLUMN_LIST + ") " +
+                "SELECT " + selectColumns + " FROM ecoschema.sales_data_staging s " +
+                "WHERE s.load_id = ? AND s.row_num >= ? AND s.row_num < ? AND " + MERGEABLE + " " +
+                "AND s.target_id IS NULL ORDER BY s.row_num " +
+                // A record another writer inserted since RESOLVE is updated (uk_sales_data_tx_no, V22)
+                "ON DUPLICATE KEY UPDATE " + Stream.concat(Arrays.stream(COLUMNS).map(c -> "`" + c + "`"),
+                        Arrays.stream(TYPED_COLUMNS)).map(c -> c + " = VALUES(" + c + ")").collect(Collectors.joining(", "));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ChangeOutboxWriter changeOutboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SalesDataShardRouter shardRouter;
+
+    @Value("${sales-data.csv-ingest.local-infile:true}")
+    private boolean localInfileEnabled;
+
+    // Rows merged per transaction
+    @Value("${sales-data.csv-ingest.merge-batch-size:50000}")
+    private int mergeBatchSize;
+
+    // Set after the first refused LOAD DATA LOCAL INFILE; later loads go straight to INSERTs
+    private volatile boolean localInfileUnavailable;
+
+    public SalesDataCsvIngestService(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     SalesDataCountCache salesDataCountCache,
+                                     ChangeOutboxWriter changeOutboxWriter,
+                                     ApplicationEventPublisher eventPublisher,
+                                     SalesDataShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.salesDataCountCache = salesDataCountCache;
+        this.changeOutboxWriter = changeOutboxWriter;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Load a delimited file into sales_data.
+     *
+     * @param file      UTF-8 file whose first non-empty line is the header (import template names)
+     * @param delimiter ',' for CSV, '\t' for TSV
+     * @return success / failed / unchanged counts and the first row errors
+     * @throws IllegalStateException if sales_data is sharded
+     */
+    public BulkImportResponse ingest(Path file, char delimiter) {
+        if (shardRouter.isEnabled()) {
+            throw new IllegalStateException("CSV ingest merges on a single server and is disabled while sales_data "
+                    + "is sharded; use the import job or the NDJSON ingest instead");
+        }
+        String loadId = UUID.randomUUID().toString();
+        long started = System.currentTimeMillis();
+        try {
+            int staged = stage(file, delimiter, loadId);
+            if (staged == 0) {
+                throw new IllegalArgumentException("File must have a header row and at least one data row");
+            }
+            log.info("CSV ingest {}: staged {} rows in {} ms", loadId, staged, System.currentTimeMillis() - started);
+
+            jdbcTemplate.update(NORMALIZE_SQL, loadId);
+            jdbcTemplate.update(VALIDATE_SQL, loadId);
+            jdbcTemplate.update(MARK_SUPERSEDED_SQL, loadId, loadId);
+            jdbcTemplate.update(RESOLVE_TARGETS_SQL, loadId, loadId);
+            jdbcTemplate.update(MARK_UNCHANGED_SQL, loadId);
+            merge(loadId);
+
+            BulkImportResponse response = report(loadId);
+            log.info("CSV ingest {} completed in {} ms: success={} ({} unchanged), failed={}", loadId,
+                    System.currentTimeMillis() - started, response.getSuccess(), response.getUnchanged(),
+                    response.getFailed());
+            return response;
+        } catch (Exception e) {
+            log.error("CSV ingest {} failed: {}", loadId, e.getMessage(), e);
+            List<String> errors = new ArrayList<>();
+            errors.add("Error processing file: " + e.getMessage());
+            return new BulkImportResponse(0, 1, errors);
+        } finally {
+            deleteStaging(loadId);
+        }
+    }
+
+    private void merge(String loadId) {
+        Integer maxRow = jdbcTemplate.queryForObject(MAX_ROW_SQL, Integer.class, loadId);
+        if (maxRow == null) {
+            return;
+        }
+        int window = Math.max(1, mergeBatchSize);
+        for (long from = 1; from <= maxRow; from += window) {
+            long to = from + window;
+            long windowStart = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(MERGE_UPDATE_SQL, loadId, windowStart, to);
+                jdbcTemplate.update(MERGE_INSERT_SQL, loadId, windowStart, to);
+                changeOutboxWriter.appendSelect(OUTBOX_UPDATED_SQL, loadId, windowStart, to);
+                changeOutboxWriter.appendSelect(OUTBOX_INSERTED_SQL, loadId, windowStart, to);
+            });
+        }
+    }
+
+    private BulkImportResponse report(String loadId) {
+        long[] counts = jdbcTemplate.queryForObject(REPORT_SQL, (rs, rowNum) -> new long[]{
+                rs.getLong("total"), rs.getLong("failed"), rs.getLong("unchanged"), rs.getLong("changed")
+        }, loadId);
+        long failed = counts[1];
+        List<String> errors = jdbcTemplate.query(SELECT_ERRORS_SQL,
+                (rs, rowNum) -> String.format("Row %d: %s", rs.getInt(1), rs.getString(2)), loadId);
+        if (failed > errors.size()) {
+            errors.add(String.format("... %d more row errors not listed", failed - errors.size()));
+        }
+
+        if (counts[3] > 0) {
+            List<String> itemCodes = jdbcTemplate.queryForList(SELECT_ITEM_CODES_SQL, String.class, loadId, loadId);
+            salesDataCountCache.invalidate();
+            eventPublisher.publishEvent(itemCodes.size() > MAX_EVENT_ITEM_CODES
+                    ? SalesDataChangedEvent.bulk()
+                    : SalesDataChangedEvent.bulk(itemCodes));
+        }
+        return new BulkImportResponse((int) (counts[0] - failed), (int) failed, (int) counts[2], errors);
+    }
+
+    /**
+     * Copy the data rows of the file into the staging table.
+     *
+     * @return number of staged rows
+     */
+    private int stage(Path file, char delimiter, String loadId) throws IOException {
+        if (localInfileEnabled && !localInfileUnavailable) {
+            try {
+                return stageWithLoadData(file, delimiter, loadId);
+            } catch (DataAccessException e) {
+                // local_infile is off on the server, or not allowed by the driver for this path
+                localInfileUnavailable = true;
+                log.warn("LOAD DATA LOCAL INFILE unavailable, staging with INSERTs: {}",
+                        e.getMostSpecificCause().getMessage());
+                deleteStaging(loadId);
+            }
+        }
+        return stageWithInserts(file, delimiter, loadId);
+    }
+
+    private int stageWithLoadData(Path file, char delimiter, String loadId) throws IOException {
+        Path spool = Files.createTempFile("sales-data-staging-", ".tsv");
+        try {
+            int rows;
+            try (Writer writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                rows = readRows(file, delimiter, (rowNum, values) -> writeTsvLine(writer, rowNum, values));
+            }
+            if (rows == 0) {
+                return 0;
+            }
+            // Default LOAD DATA format: tab-separated, backslash escapes, \N for NULL
+            String path = spool.toAbsolutePath().toString().replace('\\', '/').replace("'", "\\'");
+            jdbcTemplate.execute("LOAD DATA LOCAL INFILE '" + path + "' " +
+                    "INTO TABLE ecoschema.sales_data_staging CHARACTER SET utf8mb4 " +
+                    "(row_num, " + COLUMN_LIST + ") SET load_id = '" + loadId + "'");
+            return rows;
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private int stageWithInserts(Path file, char delimiter, String loadId) throws IOException {
+        List<Object[]> pending = new ArrayList<>(INSERT_ROWS_PER_STATEMENT);
+        String fullStatement = insertStatement(INSERT_ROWS_PER_STATEMENT);
+        int rows = readRows(file, delimiter, (rowNum, values) -> {
+            Object[] row = new Object[COLUMNS.length + 2];
+            row[0] = loadId;
+            row[1] = rowNum;
+            System.arraycopy(values, 0, row, 2, values.length);
+            pending.add(row);
+            if (pending.size() == INSERT_ROWS_PER_STATEMENT) {
+                jdbcTemplate.update(fullStatement, flatten(pending));
+                pending.clear();
+            }
+        });
+        if (!pending.isEmpty()) {
+            jdbcTemplate.update(insertStatement(pending.size()), flatten(pending));
+        }
+        return rows;
+    }
+
+    private static String insertStatement(int rows) {
+        String placeholders = "(?, ?" + ", ?".repeat(COLUMNS.length) + ")";
+        StringBuilder sql = new StringBuilder("INSERT INTO ecoschema.sales_data_staging (load_id, row_num, ")
+                .append(COLUMN_LIST).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i > 0 ? ", " : "").append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    private static Object[] flatten(List<Object[]> rows) {
+        Object[] args = new Object[rows.size() * (COLUMNS.length + 2)];
+        int i = 0;
+        for (Object[] row : rows) {
+            System.arraycopy(row, 0, args, i, row.length);
+            i += row.length;
+        }
+        return args;
+    }
+
+    /**
+     * Parse the file and hand each non-blank data row to the sink, as staging column values
+     * (trimmed, blank as null, at most one character longer than sales_data allows).
+     *
+     * @return number of data rows
+     */
+    private int readRows(Path file, char delimiter, RowSink sink) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+            int[] targets = null;
+            int rows = 0;
+            String[] record;
+            while ((record = records.next()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                if (targets == null) {
+                    targets = compileHeader(record);
+                    continue;
+                }
+                String[] values = new String[COLUMNS.length];
+                for (int i = 0; i < record.length && i < targets.length; i++) {
+                    if (targets[i] >= 0) {
+                        values[targets[i]] = normalizeValue(record[i]);
+                    }
+                }
+                sink.accept(records.getRecordLine(), values);
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Staging column index of each file column, -1 for columns that are not imported.
+     */
+    private static int[] compileHeader(String[] header) {
+        List<String> columns = Arrays.asList(COLUMNS);
+        int[] targets = new int[header.length];
+        boolean[] assigned = new boolean[COLUMNS.length];
+        boolean hasTxNo = false;
+        for (int i = 0; i < header.length; i++) {
+            String column = SalesDataImportMapping.columnForHeader(header[i]);
+            int target = column != null ? columns.indexOf(column) : -1;
+            // Leftmost column wins, like the Excel import
+            if (target >= 0 && !assigned[target]) {
+                assigned[target] = true;
+                targets[i] = target;
+                hasTxNo |= "TXNo".equals(column);
+            } else {
+                targets[i] = -1;
+            }
+        }
+        if (!hasTxNo) {
+            throw new IllegalArgumentException("Header has no Transaction Number (TXNo) column");
+        }
+        return targets;
+    }
+
+    private static String normalizeValue(String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        return trimmed.length() > MAX_VALUE_LENGTH + 1 ? trimmed.substring(0, MAX_VALUE_LENGTH + 1) : trimmed;
+    }
+
+    private static boolean isBlank(String[] record) {
+        for (String field : record) {
+            if (!field.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeTsvLine(Writer writer, int rowNum, String[] values) throws IOException {
+        writer.write(Integer.toString(rowNum));
+        for (String value : values) {
+            writer.write('\t');
+            if (value == null) {
+                writer.write("\\N");
+                continue;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        writer.write("\\\\");
+                        break;
+                    case '\t':
+                        writer.write("\\t");
+                        break;
+                    case '\n':
+                        writer.write("\\n");
+                        break;
+                    case '\r':
+                        writer.write("\\r");
+                        break;
+                    case '\0':
+                        writer.write("\\0");
+                        break;
+                    default:
+                        writer.write(c);
+                }
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void deleteStaging(String loadId) {
+        try {
+            // Bounded deletes keep each transaction small
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(DELETE_STAGING_SQL, loadId);
+            } while (deleted == DELETE_BATCH_SIZE);
+        } catch (DataAccessException e) {
+            log.warn("Failed to clean up staging rows of CSV ingest {}: {}", loadId, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(int rowNum, String[] values) throws IOException;
+    }
+}
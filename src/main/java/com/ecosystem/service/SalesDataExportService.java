@@ -0,0 +1,271 @@
+package com.ecosystem.service;
+
+import com.ecosystem.repository.SalesDataFilter;
+import com.ecosystem.repository.SalesDataQueryBuilder;
+import com.ecosystem.repository.SalesDataSort;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Exports a filtered sales_data result set as XLSX or CSV.
+ *
+ * Rows are streamed from a forward-only MySQL cursor and written as they arrive: CSV straight to
+ * the output stream, XLSX through POI's SXSSF workbook, which keeps a small window of rows in
+ * memory and flushes the rest to a compressed temp file. Heap usage does not depend on the row count.
+ *
+ * The columns and headers are those of the import template, so an export can be re-imported.
+ */
+@Slf4j
+@Service
+public class SalesDataExportService {
+
+    public static final String FORMAT_XLSX = "xlsx";
+    public static final String FORMAT_CSV = "csv";
+
+    // Rows of the XLSX workbook kept in memory; older rows are flushed to disk
+    private static final int XLSX_ROW_WINDOW = 200;
+    // A sheet holds at most 1,048,576 rows including the header; larger exports continue on a new sheet
+    private static final int XLSX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Export columns: header (import template name), raw column, typed column (V11) or null.
+     * Typed values are preferred and written as numbers in XLSX; the raw text is the fallback.
+     */
+    private static final String[][] COLUMNS = {
+            {"Transaction Date", "TXDate", "tx_date_typed"},
+            {"Transaction Number", "TXNo", null},
+            {"Transaction Quantity", "TXQty", "tx_qty_typed"},
+            {"Transaction Price", "TXP1", "txp1_typed"},
+            {"Buyer Code", "BuyerCode", null},
+            {"Buyer Name", "BuyerName", null},
+            {"Item Code", "ItemCode", null},
+            {"Item Name", "ItemName", null},
+            {"Product Hierarchy 3", "Product Hierarchy 3", null},
+            {"Item Type", "ItemType", null},
+            {"Model", "Model", null},
+            {"Material", "Material", null},
+            {"Unit of Measure", "UOM", null},
+            {"Brand Code", "Brand Code", null},
+            {"Unit Cost", "Unit Cost", "unit_cost_typed"},
+            {"Sector", "Sector", null},
+            {"Sub Sector", "SubSector", null},
+            {"Value", "Value", "value_typed"},
+            {"Function", "Function", null},
+            {"Performance", "Performance", null},
+            {"Performance.1", "Performance.1", null},
+            {"Rationale", "Rationale", null},
+            {"Website", "www", null},
+            {"Source", "Source", null}
+    };
+
+    private static final String SELECT_LIST;
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (String[] column : COLUMNS) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append('`').append(column[1]).append('`');
+            if (column[2] != null) {
+                sb.append(", `").append(column[2]).append('`');
+            }
+        }
+        SELECT_LIST = sb.toString();
+    }
+
+    // Dedicated template: MySQL Connector/J streams rows one by one with fetch size Integer.MIN_VALUE
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    public SalesDataExportService(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Resolve the request "format" parameter: xlsx (default) or csv.
+     */
+    public static String normalizeFormat(String format) {
+        if (format == null || format.trim().isEmpty()) {
+            return FORMAT_XLSX;
+        }
+        String normalized = format.trim().toLowerCase(Locale.ROOT);
+        if (!FORMAT_XLSX.equals(normalized) && !FORMAT_CSV.equals(normalized)) {
+            throw new RuntimeException("Unsupported export format: " + format + " (expected xlsx or csv)");
+        }
+        return normalized;
+    }
+
+    public static String contentType(String format) {
+        return FORMAT_CSV.equals(format)
+                ? "text/csv; charset=UTF-8"
+                : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+
+    /**
+     * Write every row matching the filter, in the listing's sort order, to the output stream.
+     *
+     * @param format xlsx or csv (see {@link #normalizeFormat})
+     * @return Number of exported rows
+     */
+    public long export(SalesDataFilter filter, SalesDataSort sort, String format, OutputStream out) throws IOException {
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(filter);
+        String sql = "SELECT " + SELECT_LIST + " FROM ecoschema.sales_data "
+                + builder.whereClause() + " " + SalesDataQueryBuilder.orderBy(sort);
+        long start = System.currentTimeMillis();
+        long rows;
+        try {
+            rows = FORMAT_CSV.equals(format)
+                    ? exportCsv(sql, builder, out)
+                    : exportXlsx(sql, builder, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("Exported {} sales data rows as {} in {} ms", rows, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private long exportCsv(String sql, SalesDataQueryBuilder builder, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        // BOM so that Excel opens the UTF-8 file with the right encoding
+        writer.write('\uFEFF');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, COLUMNS[i][0]);
+        }
+        writer.write("\r\n");
+
+        long[] count = {0};
+        streamingJdbcTemplate.query(sql, builder.getParameters(), (RowCallbackHandler) rs -> {
+            try {
+                int index = 1;
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    String raw = rs.getString(index++);
+                    Object typed = COLUMNS[i][2] != null ? rs.getObject(index++) : null;
+                    writeCsvField(writer, typed != null ? formatTyped(typed) : raw);
+                }
+                writer.write("\r\n");
+                count[0]++;
+            } catch (IOException e) {
+                // Client went away; abort the query
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return count[0];
+    }
+
+    private long exportXlsx(String sql, SalesDataQueryBuilder builder, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+
+            long[] count = {0};
+            SXSSFSheet[] sheet = {newSheet(workbook, 1, headerStyle)};
+            int[] rowNum = {1};
+            streamingJdbcTemplate.query(sql, builder.getParameters(), (RowCallbackHandler) rs -> {
+                if (rowNum[0] > XLSX_ROWS_PER_SHEET) {
+                    sheet[0] = newSheet(workbook, workbook.getNumberOfSheets() + 1, headerStyle);
+                    rowNum[0] = 1;
+                }
+                writeXlsxRow(sheet[0].createRow(rowNum[0]++), rs);
+                count[0]++;
+            });
+            workbook.write(out);
+            out.flush();
+            return count[0];
+        } finally {
+            // Delete the temp files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static SXSSFSheet newSheet(SXSSFWorkbook workbook, int number, CellStyle headerStyle) {
+        SXSSFSheet sheet = workbook.createSheet(number == 1 ? "Sales Data" : "Sales Data " + number);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(COLUMNS[i][0]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    private static void writeXlsxRow(Row row, ResultSet rs) throws SQLException {
+        int index = 1;
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String raw = rs.getString(index++);
+            Object typed = COLUMNS[i][2] != null ? rs.getObject(index++) : null;
+            if (typed instanceof Number) {
+                row.createCell(i).setCellValue(((Number) typed).doubleValue());
+            } else if (typed != null) {
+                row.createCell(i).setCellValue(formatTyped(typed));
+            } else if (raw != null) {
+                row.createCell(i).setCellValue(raw);
+            }
+        }
+    }
+
+    /**
+     * Dates as yyyy-MM-dd (like the template), decimals without trailing zeros or exponent.
+     */
+    private static String formatTyped(Object typed) {
+        if (typed instanceof BigDecimal) {
+            return ((BigDecimal) typed).stripTrailingZeros().toPlainString();
+        }
+        return typed.toString();
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
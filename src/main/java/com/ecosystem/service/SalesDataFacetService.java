@@ -0,0 +1,531 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.SalesDataFacetsResponse;
+import com.ecosystem.dto.buyer.SalesDataFacetsResponse.FacetValue;
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.index.CompressedBitmap;
+import com.ecosystem.index.TrigramIndex;
+import com.ecosystem.repository.SalesDataFilter;
+import com.ecosystem.repository.SalesDataQueryBuilder;
+import com.ecosystem.repository.SalesDataShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Facet counts (value → matching rows) of the sales-data filter panel.
+ *
+ * Keeps one {@link CompressedBitmap} of row ids per distinct value of each facet column. A request
+ * resolves the non-facet filters (dates, ranges, keyword, ...) to a row bitmap with one id query,
+ * the facet filters to unions of value bitmaps, and counts every value by intersection. Facets are
+ * counted disjunctively: each facet ignores its own filter.
+ *
+ * Built in the background at startup and kept in sync through {@link SalesDataChangedEvent};
+ * until it is loaded, counts come from one GROUP BY query per facet. With sharded sales_data
+ * the bitmaps are off and the GROUP BY counts of the shards are added up.
+ */
+@Slf4j
+@Service
+public class SalesDataFacetService {
+
+    private static final int MAX_FACET_LIMIT = 500;
+    private static final int DEFAULT_FACET_LIMIT = 50;
+
+    private enum Facet {
+        PRODUCT_HIERARCHY_3("productHierarchy3", "Product Hierarchy 3",
+                SalesDataFilter::getProductHierarchy3, SalesDataFilter::setProductHierarchy3),
+        BRAND_CODE("brandCode", "Brand Code", SalesDataFilter::getBrandCode, SalesDataFilter::setBrandCode),
+        SECTOR("sector", "Sector", SalesDataFilter::getSector, SalesDataFilter::setSector),
+        SUB_SECTOR("subSector", "SubSector", SalesDataFilter::getSubSector, SalesDataFilter::setSubSector),
+        UOM("uom", "UOM", SalesDataFilter::getUom, SalesDataFilter::setUom),
+        MATERIAL("material", "Material", SalesDataFilter::getMaterial, SalesDataFilter::setMaterial),
+        SOURCE("source", "Source", SalesDataFilter::getSource, SalesDataFilter::setSource);
+
+        private final String key;
+        private final String column;
+        private final Function<SalesDataFilter, String> getter;
+        private final BiConsumer<SalesDataFilter, String> setter;
+
+        Facet(String key, String column, Function<SalesDataFilter, String> getter,
+              BiConsumer<SalesDataFilter, String> setter) {
+            this.key = key;
+            this.column = column;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private static final Facet[] FACETS = Facet.values();
+    private static final String COLUMN_LIST;
+
+    static {
+        StringBuilder sb = new StringBuilder("id");
+        for (Facet facet : FACETS) {
+            sb.append(", `").append(facet.column).append('`');
+        }
+        COLUMN_LIST = sb.toString();
+    }
+
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMN_LIST + " FROM ecoschema.sales_data ORDER BY id";
+    private static final String SELECT_BY_IDS_SQL = "SELECT " + COLUMN_LIST + " FROM ecoschema.sales_data WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ExecutorService rebuildExecutor;
+
+    private final SalesDataShardRouter shardRouter;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile boolean rebuildRequested;
+
+    // Guarded by lock
+    private volatile FacetIndex index;
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+    private long lastBuildMillis;
+    private long lastBuildAt;
+
+    public SalesDataFacetService(JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 SalesDataCountCache salesDataCountCache,
+                                 SalesDataShardRouter shardRouter,
+                                 @Value("${sales-data.facets.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.salesDataCountCache = salesDataCountCache;
+        this.shardRouter = shardRouter;
+        this.enabled = shardRouter.allowsReadModel("Facet bitmaps", enabled);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "sales-data-facets");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Reload the facet bitmaps in the background. Returns false if a reload is already running
+     * (a follow-up reload is then queued).
+     */
+    public boolean scheduleRebuild() {
+        shardRouter.requireSingleShard("Facet bitmaps");
+        rebuildRequested = true;
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildExecutor.submit(this::rebuild);
+        return true;
+    }
+
+    /**
+     * Value counts of every facet for the filter, and the number of rows matching the whole filter.
+     *
+     * @param filter     Same filter as the sales-data listing (categoryExact is not supported)
+     * @param facetLimit Values returned per facet, highest counts first
+     */
+    public SalesDataFacetsResponse getFacets(SalesDataFilter filter, int facetLimit) {
+        if (facetLimit < 1) {
+            facetLimit = DEFAULT_FACET_LIMIT;
+        }
+        facetLimit = Math.min(facetLimit, MAX_FACET_LIMIT);
+        if (enabled && index != null) {
+            SalesDataFacetsResponse response = facetsFromBitmaps(filter, facetLimit);
+            if (response != null) {
+                return response;
+            }
+        }
+        return facetsFromSql(filter, facetLimit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesDataChanged(SalesDataChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleRebuild();
+            return;
+        }
+        try {
+            applyChanges(event.getUpsertedIds(), event.getDeletedIds());
+        } catch (Exception e) {
+            log.error("Failed to apply sales_data change to facet bitmaps, scheduling reload", e);
+            scheduleRebuild();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ready", index != null);
+            stats.put("rebuilding", rebuilding.get());
+            if (index != null) {
+                stats.put("rows", index.rows.cardinality());
+                stats.put("memoryBytes", index.memoryBytes());
+                Map<String, Object> distinctValues = new LinkedHashMap<>();
+                for (Facet facet : FACETS) {
+                    distinctValues.put(facet.key, index.values.get(facet.ordinal()).size());
+                }
+                stats.put("distinctValues", distinctValues);
+            }
+            stats.put("lastBuildMillis", lastBuildMillis);
+            stats.put("lastBuildAt", lastBuildAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the facets, or null when the bitmaps are not loaded
+     */
+    private SalesDataFacetsResponse facetsFromBitmaps(SalesDataFilter filter, int facetLimit) {
+        // Every filter that is not a facet column is resolved to row ids with a single query
+        SalesDataFilter rest = filter.toBuilder().category(null).build();
+        for (Facet facet : FACETS) {
+            facet.setter.accept(rest, null);
+        }
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(rest);
+        CompressedBitmap restRows = null;
+        if (!builder.isUnfiltered()) {
+            CompressedBitmap rows = new CompressedBitmap();
+            namedParameterJdbcTemplate.query("SELECT id FROM ecoschema.sales_data " + builder.whereClause() + " ORDER BY id",
+                    builder.getParameters(), (RowCallbackHandler) rs -> rows.add(rs.getInt(1)));
+            restRows = rows;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return null;
+            }
+            List<CompressedBitmap> common = new ArrayList<>();
+            if (restRows != null) {
+                common.add(restRows);
+            }
+            String category = filter.getCategory();
+            if (category != null && !"all".equals(category)) {
+                common.add(index.matching(Facet.PRODUCT_HIERARCHY_3, category)
+                        .or(index.matching(Facet.SECTOR, category)));
+            }
+            CompressedBitmap[] selected = new CompressedBitmap[FACETS.length];
+            for (Facet facet : FACETS) {
+                String value = facet.getter.apply(filter);
+                if (value != null) {
+                    selected[facet.ordinal()] = index.matching(facet, value);
+                }
+            }
+
+            Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+            for (Facet facet : FACETS) {
+                List<CompressedBitmap> others = new ArrayList<>(common);
+                for (int i = 0; i < selected.length; i++) {
+                    if (i != facet.ordinal() && selected[i] != null) {
+                        others.add(selected[i]);
+                    }
+                }
+                facets.put(facet.key, countValues(index.values.get(facet.ordinal()), intersect(others), facetLimit));
+            }
+
+            List<CompressedBitmap> all = new ArrayList<>(common);
+            for (CompressedBitmap bitmap : selected) {
+                if (bitmap != null) {
+                    all.add(bitmap);
+                }
+            }
+            // The id query may see rows the bitmaps have not caught up with yet
+            all.add(index.rows);
+            CompressedBitmap matching = intersect(all);
+            return new SalesDataFacetsResponse(facets, (long) matching.cardinality(), "bitmap");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SalesDataFacetsResponse facetsFromSql(SalesDataFilter filter, int facetLimit) {
+        Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+        for (Facet facet : FACETS) {
+            SalesDataFilter others = filter.toBuilder().build();
+            facet.setter.accept(others, null);
+            String select = "SELECT `" + facet.column + "`, COUNT(*) AS cnt FROM ecoschema.sales_data ";
+            String grouping = " AND `" + facet.column + "` IS NOT NULL AND TRIM(`" + facet.column + "`) <> ''"
+                    + " GROUP BY `" + facet.column + "` ORDER BY cnt DESC, `" + facet.column + "`";
+            if (!shardRouter.isEnabled()) {
+                SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(others);
+                MapSqlParameterSource params = new MapSqlParameterSource(builder.getParameters())
+                        .addValue("facetLimit", facetLimit);
+                facets.put(facet.key, namedParameterJdbcTemplate.query(
+                        select + builder.whereClause() + grouping + " LIMIT :facetLimit", params,
+                        (rs, rowNum) -> new FacetValue(rs.getString(1), rs.getLong(2))));
+                continue;
+            }
+            // A value's top count on one shard says nothing about its total, so every value is counted
+            List<List<FacetValue>> shardCounts = shardRouter.onShards(shardRouter.shardsFor(others), shard -> {
+                SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(shardRouter.filterForShard(others, shard));
+                return shardRouter.template(shard).query(select + builder.whereClause() + grouping,
+                        builder.getParameters(), (rs, rowNum) -> new FacetValue(rs.getString(1), rs.getLong(2)));
+            });
+            facets.put(facet.key, sumCounts(shardCounts, facetLimit));
+        }
+        return new SalesDataFacetsResponse(facets, salesDataCountCache.getExactCount(filter), "sql");
+    }
+
+    /**
+     * Per-value sum of the shards' counts, highest first. Values are grouped as the column
+     * collation compares them (case and trailing spaces ignored) under the first spelling seen.
+     */
+    private static List<FacetValue> sumCounts(List<List<FacetValue>> shardCounts, int facetLimit) {
+        Map<String, FacetValue> totals = new HashMap<>();
+        for (List<FacetValue> counts : shardCounts) {
+            for (FacetValue count : counts) {
+                totals.merge(count.getValue().stripTrailing().toUpperCase(Locale.ROOT), count,
+                        (a, b) -> new FacetValue(a.getValue(), a.getCount() + b.getCount()));
+            }
+        }
+        List<FacetValue> merged = new ArrayList<>(totals.values());
+        merged.sort(Comparator.comparing(FacetValue::getCount).reversed().thenComparing(FacetValue::getValue));
+        return merged.size() > facetLimit ? new ArrayList<>(merged.subList(0, facetLimit)) : merged;
+    }
+
+    /**
+     * Intersection of the bitmaps, smallest first; null when there is nothing to intersect.
+     */
+    private static CompressedBitmap intersect(List<CompressedBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) {
+            return null;
+        }
+        bitmaps.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap result = bitmaps.get(0);
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+            result = result.and(bitmaps.get(i));
+        }
+        return result;
+    }
+
+    private static List<FacetValue> countValues(Map<String, CompressedBitmap> values, CompressedBitmap rows,
+                                                int facetLimit) {
+        List<FacetValue> counts = new ArrayList<>();
+        if (rows != null && rows.isEmpty()) {
+            return counts;
+        }
+        for (Map.Entry<String, CompressedBitmap> entry : values.entrySet()) {
+            int count = rows == null ? entry.getValue().cardinality() : rows.andCardinality(entry.getValue());
+            if (count > 0) {
+                counts.add(new FacetValue(entry.getKey(), (long) count));
+            }
+        }
+        counts.sort(Comparator.comparing(FacetValue::getCount).reversed().thenComparing(FacetValue::getValue));
+        return counts.size() > facetLimit ? new ArrayList<>(counts.subList(0, facetLimit)) : counts;
+    }
+
+    private void rebuild() {
+        try {
+            rebuildRequested = false;
+            rebuildOnce();
+        } catch (Exception e) {
+            log.error("Failed to load sales_data facet bitmaps", e);
+        } finally {
+            rebuilding.set(false);
+        }
+        if (rebuildRequested) {
+            scheduleRebuild();
+        }
+    }
+
+    private void rebuildOnce() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        FacetIndex built = new FacetIndex();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ALL_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams rows one by one with this fetch size
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            built.add(rs.getInt(1), readValues(rs));
+        });
+        built.trim();
+
+        List<Long> changed;
+        lock.writeLock().lock();
+        try {
+            index = built;
+            // Rows written while the scan was running may be missing from its snapshot
+            changed = new ArrayList<>(changedDuringRebuild);
+            changedDuringRebuild.clear();
+            lastBuildMillis = System.currentTimeMillis() - start;
+            lastBuildAt = System.currentTimeMillis();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!changed.isEmpty()) {
+            applyChanges(changed, List.of());
+        }
+        log.info("Facet bitmaps loaded: {} rows, ~{} MB in {} ms",
+                built.rows.cardinality(), built.memoryBytes() / (1024 * 1024), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-read the changed rows; rows that no longer exist are removed from the bitmaps.
+     */
+    private void applyChanges(List<Long> upsertedIds, List<Long> deletedIds) {
+        Map<Integer, String[]> loaded = new HashMap<>();
+        for (int from = 0; from < upsertedIds.size(); from += 1000) {
+            List<Long> chunk = upsertedIds.subList(from, Math.min(from + 1000, upsertedIds.size()));
+            namedParameterJdbcTemplate.query(SELECT_BY_IDS_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+                loaded.put(rs.getInt(1), readValues(rs));
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                for (Long id : upsertedIds) {
+                    index.remove(id.intValue());
+                }
+                for (Long id : deletedIds) {
+                    index.remove(id.intValue());
+                }
+                loaded.forEach(index::add);
+            }
+            if (rebuilding.get()) {
+                changedDuringRebuild.addAll(upsertedIds);
+                changedDuringRebuild.addAll(deletedIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String[] readValues(ResultSet rs) throws SQLException {
+        String[] values = new String[FACETS.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getString(i + 2);
+        }
+        return values;
+    }
+
+    /**
+     * Row bitmaps per facet value, plus the bitmap of all rows.
+     */
+    private static final class FacetIndex {
+        private final CompressedBitmap rows = new CompressedBitmap();
+        private final List<Map<String, CompressedBitmap>> values = new ArrayList<>();
+
+        FacetIndex() {
+            for (int i = 0; i < FACETS.length; i++) {
+                values.add(new HashMap<>());
+            }
+        }
+
+        void add(int id, String[] rowValues) {
+            rows.add(id);
+            for (int i = 0; i < rowValues.length; i++) {
+                String value = rowValues[i];
+                // Blank values are not offered as facet values (same as the SQL fallback)
+                if (value != null && !value.trim().isEmpty()) {
+                    values.get(i).computeIfAbsent(value, v -> new CompressedBitmap()).add(id);
+                }
+            }
+        }
+
+        void remove(int id) {
+            if (!rows.contains(id)) {
+                return;
+            }
+            rows.remove(id);
+            for (Map<String, CompressedBitmap> facetValues : values) {
+                Iterator<CompressedBitmap> it = facetValues.values().iterator();
+                while (it.hasNext()) {
+                    CompressedBitmap bitmap = it.next();
+                    bitmap.remove(id);
+                    if (bitmap.isEmpty()) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Rows whose value contains the filter text, like the listing's LOWER(col) LIKE '%text%'.
+         */
+        CompressedBitmap matching(Facet facet, String text) {
+            String needle = TrigramIndex.normalize(text);
+            CompressedBitmap result = new CompressedBitmap();
+            for (Map.Entry<String, CompressedBitmap> entry : values.get(facet.ordinal()).entrySet()) {
+                if (TrigramIndex.normalize(entry.getKey()).contains(needle)) {
+                    result = result.or(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        void trim() {
+            rows.trim();
+            for (Map<String, CompressedBitmap> facetValues : values) {
+                facetValues.values().forEach(CompressedBitmap::trim);
+            }
+        }
+
+        long memoryBytes() {
+            long bytes = rows.memoryBytes();
+            for (Map<String, CompressedBitmap> facetValues : values) {
+                for (Map.Entry<String, CompressedBitmap> entry : facetValues.entrySet()) {
+                    bytes += 48L + 2L * entry.getKey().length() + entry.getValue().memoryBytes();
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,553 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.PaginationResponse;
+import com.ecosystem.dto.buyer.SalesDataImportErrorsResponse;
+import com.ecosystem.dto.buyer.SalesDataImportJobResponse;
+import com.ecosystem.dto.buyer.SalesDataRequest;
+import com.ecosystem.entity.SalesDataImportJob;
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.importer.SalesDataRowStream;
+import com.ecosystem.repository.SalesDataImportJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs sales_data bulk imports as background jobs.
+ *
+ * An upload is stored in the import work directory and queued on a bounded worker pool, so
+ * concurrent uploads wait for a worker instead of competing for database connections. Rows are
+ * streamed from the file and written in chunks by SalesDataBatchWriter; after every chunk the
+ * job's counters, row errors and checkpoint (last committed sheet row) are saved. A job
+ * interrupted by a restart is resumed from its checkpoint at startup, a failed one on request.
+ */
+@Slf4j
+@Service
+public class SalesDataImportJobService {
+
+    // Parsed import rows buffered between the file reader and the row processing
+    private static final int IMPORT_QUEUE_CAPACITY = 1000;
+    // Validated import rows written per batch (one lookup query + batched INSERT/UPDATE)
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int MAX_ERRORS_PAGE_SIZE = 500;
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private static final String SAVE_CHECKPOINT_SQL =
+            "UPDATE ecoschema.sales_data_import_jobs SET rows_parsed = ?, rows_written = ?, rows_unchanged = ?, " +
+            "rows_failed = ?, checkpoint_row = ? WHERE id = ?";
+    private static final String INSERT_ERROR_SQL =
+            "INSERT INTO ecoschema.sales_data_import_job_errors (job_id, row_num, message) VALUES (?, ?, ?)";
+    private static final String DELETE_ERRORS_AFTER_SQL =
+            "DELETE FROM ecoschema.sales_data_import_job_errors WHERE job_id = ? AND row_num > ?";
+    private static final String COUNT_ERRORS_SQL =
+            "SELECT COUNT(*) FROM ecoschema.sales_data_import_job_errors WHERE job_id = ?";
+    private static final String SELECT_ERRORS_SQL =
+            "SELECT row_num, message FROM ecoschema.sales_data_import_job_errors WHERE job_id = ? " +
+            "ORDER BY row_num, id LIMIT ? OFFSET ?";
+    private static final String START_SQL =
+            "UPDATE ecoschema.sales_data_import_jobs SET status = 'RUNNING', error_message = NULL, " +
+            "started_at = COALESCE(started_at, ?) WHERE id = ? AND status IN ('QUEUED', 'RUNNING')";
+    private static final String FINISH_SQL =
+            "UPDATE ecoschema.sales_data_import_jobs SET status = ?, error_message = ?, finished_at = ?, " +
+            "file_path = ? WHERE id = ?";
+    private static final String CANCEL_QUEUED_SQL =
+            "UPDATE ecoschema.sales_data_import_jobs SET status = 'CANCELLED', cancel_requested = 1, finished_at = ? " +
+            "WHERE id = ? AND status = 'QUEUED'";
+    private static final String REQUEST_CANCEL_SQL =
+            "UPDATE ecoschema.sales_data_import_jobs SET cancel_requested = 1 WHERE id = ?";
+    private static final String SELECT_CANCEL_REQUESTED_SQL =
+            "SELECT cancel_requested FROM ecoschema.sales_data_import_jobs WHERE id = ?";
+    private static final String REQUEUE_SQL =
+            "UPDATE ecoschema.sales_data_import_jobs SET status = 'QUEUED', error_message = NULL, finished_at = NULL " +
+            "WHERE id = ?";
+
+    private final SalesDataImportJobRepository jobRepository;
+    private final SalesDataBatchWriter salesDataBatchWriter;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final Path workDir;
+    private final boolean resumeOnStartup;
+
+    // Live progress of queued and running jobs
+    private final Map<String, JobProgress> activeJobs = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    public SalesDataImportJobService(SalesDataImportJobRepository jobRepository,
+                                     SalesDataBatchWriter salesDataBatchWriter,
+                                     SalesDataCountCache salesDataCountCache,
+                                     ApplicationEventPublisher eventPublisher,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${sales-data.import.workers:2}") int workerCount,
+                                     @Value("${sales-data.import.queue-capacity:50}") int queueCapacity,
+                                     @Value("${sales-data.import.work-dir:${java.io.tmpdir}/sales-data-imports}") String workDir,
+                                     @Value("${sales-data.import.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.jobRepository = jobRepository;
+        this.salesDataBatchWriter = salesDataBatchWriter;
+        this.salesDataCountCache = salesDataCountCache;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workDir = Paths.get(workDir);
+        this.resumeOnStartup = resumeOnStartup;
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(1, workerCount);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "sales-data-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs stop at their next row and stay RUNNING, to be resumed at the next startup
+        shuttingDown = true;
+        workers.shutdownNow();
+    }
+
+    /**
+     * Re-queue the jobs that were queued or running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        try {
+            List<SalesDataImportJob> jobs = jobRepository.findByStatusInOrderByCreatedAtAsc(
+                    List.of(SalesDataImportJob.QUEUED, SalesDataImportJob.RUNNING));
+            for (SalesDataImportJob job : jobs) {
+                log.info("Resuming import job {} ({}) from row {}", job.getId(), job.getStatus(), job.getCheckpointRow());
+                try {
+                    enqueue(job);
+                } catch (RuntimeException e) {
+                    markFinished(job.getId(), SalesDataImportJob.FAILED, e.getMessage(), job.getFilePath());
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Import jobs not resumed (is the V14 migration applied?): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Store the uploaded file and queue its import.
+     *
+     * @param userId Submitting user; only they can see and control the job
+     */
+    public SalesDataImportJobResponse submit(MultipartFile file, String userId) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("File is empty or not provided");
+        }
+        String fileName = file.getOriginalFilename();
+        if (fileName == null || (!fileName.endsWith(".xlsx") && !fileName.endsWith(".xls"))) {
+            throw new RuntimeException("Unsupported file format. Only .xlsx and .xls files are supported");
+        }
+        if (workers.getQueue().remainingCapacity() == 0) {
+            throw new RuntimeException("Too many imports are waiting, please try again later");
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path stored = workDir.resolve(jobId + (fileName.endsWith(".xlsx") ? ".xlsx" : ".xls"));
+        try {
+            Files.createDirectories(workDir);
+            file.transferTo(stored);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store import file: " + e.getMessage(), e);
+        }
+
+        SalesDataImportJob job = new SalesDataImportJob();
+        job.setId(jobId);
+        job.setUserId(userId);
+        job.setFileName(fileName);
+        job.setFilePath(stored.toString());
+        job.setStatus(SalesDataImportJob.QUEUED);
+        job.setCreatedAt(LocalDateTime.now());
+        try {
+            job = jobRepository.save(job);
+        } catch (RuntimeException e) {
+            deleteFile(stored.toString());
+            throw e;
+        }
+
+        try {
+            enqueue(job);
+        } catch (RuntimeException e) {
+            markFinished(jobId, SalesDataImportJob.FAILED, e.getMessage(), null);
+            deleteFile(stored.toString());
+            throw e;
+        }
+        log.info("Queued import job {} for file {} ({} bytes)", jobId, fileName, file.getSize());
+        return toResponse(job, activeJobs.get(jobId));
+    }
+
+    public SalesDataImportJobResponse getJob(String jobId, String userId) {
+        SalesDataImportJob job = findJob(jobId, userId);
+        return toResponse(job, activeJobs.get(jobId));
+    }
+
+    /**
+     * The user's 20 most recent jobs, newest first.
+     */
+    public List<SalesDataImportJobResponse> getJobs(String userId) {
+        return jobRepository.findTop20ByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(job -> toResponse(job, activeJobs.get(job.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Row errors of a job, ordered by row number.
+     */
+    public SalesDataImportErrorsResponse getErrors(String jobId, String userId, int page, int limit) {
+        findJob(jobId, userId);
+        if (page < 1)
+            page = 1;
+        if (limit < 1)
+            limit = 100;
+        if (limit > MAX_ERRORS_PAGE_SIZE)
+            limit = MAX_ERRORS_PAGE_SIZE;
+
+        Long total = jdbcTemplate.queryForObject(COUNT_ERRORS_SQL, Long.class, jobId);
+        long count = total != null ? total : 0L;
+        List<SalesDataImportErrorsResponse.RowError> errors = jdbcTemplate.query(SELECT_ERRORS_SQL,
+                (rs, rowNum) -> new SalesDataImportErrorsResponse.RowError(rs.getInt(1), rs.getString(2)),
+                jobId, limit, (long) (page - 1) * limit);
+        int totalPages = (int) Math.ceil((double) count / limit);
+        return new SalesDataImportErrorsResponse(jobId, errors, new PaginationResponse(page, limit, count, totalPages));
+    }
+
+    /**
+     * Cancel a queued or running job. Chunks a running job has already written stay written.
+     */
+    public SalesDataImportJobResponse cancel(String jobId, String userId) {
+        SalesDataImportJob job = findJob(jobId, userId);
+        if (!SalesDataImportJob.QUEUED.equals(job.getStatus()) && !SalesDataImportJob.RUNNING.equals(job.getStatus())) {
+            throw new RuntimeException("Import job is not queued or running (status: " + job.getStatus() + ")");
+        }
+        JobProgress progress = activeJobs.get(jobId);
+        if (progress != null) {
+            progress.cancelRequested = true;
+        }
+        if (jdbcTemplate.update(CANCEL_QUEUED_SQL, Timestamp.valueOf(LocalDateTime.now()), jobId) > 0) {
+            // Not started yet: the worker will skip it
+            activeJobs.remove(jobId);
+            deleteFile(job.getFilePath());
+            log.info("Cancelled queued import job {}", jobId);
+        } else {
+            jdbcTemplate.update(REQUEST_CANCEL_SQL, jobId);
+            log.info("Cancellation requested for running import job {}", jobId);
+        }
+        return getJob(jobId, userId);
+    }
+
+    /**
+     * Re-queue a failed job; it continues after its last committed chunk.
+     */
+    public SalesDataImportJobResponse resume(String jobId, String userId) {
+        SalesDataImportJob job = findJob(jobId, userId);
+        boolean interrupted = SalesDataImportJob.RUNNING.equals(job.getStatus()) && !activeJobs.containsKey(jobId);
+        if (!SalesDataImportJob.FAILED.equals(job.getStatus()) && !interrupted) {
+            throw new RuntimeException("Only failed or interrupted import jobs can be resumed (status: "
+                    + job.getStatus() + ")");
+        }
+        if (job.getFilePath() == null || !Files.exists(Paths.get(job.getFilePath()))) {
+            throw new RuntimeException("The file of this import job is no longer available, please upload it again");
+        }
+        jdbcTemplate.update(REQUEUE_SQL, jobId);
+        job.setStatus(SalesDataImportJob.QUEUED);
+        job.setErrorMessage(null);
+        job.setFinishedAt(null);
+        enqueue(job);
+        log.info("Resuming import job {} from row {}", jobId, job.getCheckpointRow());
+        return toResponse(job, activeJobs.get(jobId));
+    }
+
+    private SalesDataImportJob findJob(String jobId, String userId) {
+        Optional<SalesDataImportJob> job = jobRepository.findById(jobId);
+        if (job.isEmpty() || (job.get().getUserId() != null && !job.get().getUserId().equals(userId))) {
+            throw new RuntimeException("Import job not found: " + jobId);
+        }
+        return job.get();
+    }
+
+    private void enqueue(SalesDataImportJob job) {
+        JobProgress progress = new JobProgress(job);
+        if (activeJobs.putIfAbsent(job.getId(), progress) != null) {
+            throw new RuntimeException("Import job is already queued or running");
+        }
+        try {
+            workers.execute(() -> run(job.getId(), progress));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            throw new RuntimeException("Too many imports are waiting, please try again later");
+        }
+    }
+
+    private void run(String jobId, JobProgress progress) {
+        SalesDataImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || progress.cancelRequested || Boolean.TRUE.equals(job.getCancelRequested())
+                || !(SalesDataImportJob.QUEUED.equals(job.getStatus()) || SalesDataImportJob.RUNNING.equals(job.getStatus()))) {
+            // Cancelled while queued
+            activeJobs.remove(jobId);
+            return;
+        }
+
+        int checkpoint = job.getCheckpointRow();
+        boolean resumed = checkpoint > 0;
+        Set<String> affectedItemCodes = new HashSet<>();
+        String finalStatus = SalesDataImportJob.COMPLETED;
+        String errorMessage = null;
+        try {
+            // Errors of rows after the checkpoint are produced again
+            if (jdbcTemplate.update(START_SQL, Timestamp.valueOf(LocalDateTime.now()), jobId) == 0) {
+                // Cancelled after it was picked up
+                activeJobs.remove(jobId);
+                return;
+            }
+            jdbcTemplate.update(DELETE_ERRORS_AFTER_SQL, jobId, checkpoint);
+            progress.start();
+
+            boolean xlsx = job.getFilePath().endsWith(".xlsx");
+            List<SalesDataBatchWriter.PendingRow> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            List<SalesDataImportErrorsResponse.RowError> pendingErrors = new ArrayList<>();
+            int lastRow = checkpoint;
+            long dataRows = 0;
+            try (SalesDataRowStream rows = SalesDataRowStream.open(new File(job.getFilePath()), xlsx,
+                    IMPORT_QUEUE_CAPACITY)) {
+                SalesDataRowStream.ImportRow row;
+                while ((row = rows.next()) != null) {
+                    dataRows++;
+                    if (row.getRowNum() <= checkpoint) {
+                        // Committed before the interruption
+                        continue;
+                    }
+                    if (progress.cancelRequested) {
+                        finalStatus = SalesDataImportJob.CANCELLED;
+                        break;
+                    }
+                    progress.rowsParsed++;
+                    lastRow = row.getRowNum();
+
+                    String error = SalesDataBatchWriter.validate(row.getRequest());
+                    if (error != null) {
+                        pendingErrors.add(new SalesDataImportErrorsResponse.RowError(row.getRowNum(), error));
+                        progress.rowsFailed++;
+                    } else {
+                        chunk.add(new SalesDataBatchWriter.PendingRow(row.getRowNum(), row.getRequest()));
+                    }
+                    if (chunk.size() + pendingErrors.size() >= IMPORT_CHUNK_SIZE) {
+                        writeChunk(jobId, chunk, pendingErrors, lastRow, progress, affectedItemCodes);
+                    }
+                }
+            }
+            writeChunk(jobId, chunk, pendingErrors, lastRow, progress, affectedItemCodes);
+            if (dataRows == 0) {
+                finalStatus = SalesDataImportJob.FAILED;
+                errorMessage = "Excel file must have at least a header row and one data row";
+            }
+        } catch (Exception e) {
+            if (shuttingDown) {
+                // Left RUNNING: resumed from the checkpoint at the next startup
+                log.info("Import job {} interrupted by shutdown at row {}", jobId, progress.checkpointRow);
+                activeJobs.remove(jobId);
+                return;
+            }
+            log.error("Import job {} failed: {}", jobId, e.getMessage(), e);
+            finalStatus = SalesDataImportJob.FAILED;
+            errorMessage = "Error processing file: " + e.getMessage();
+        }
+
+        // The file is kept for a failed job so that it can be resumed
+        String filePath = SalesDataImportJob.FAILED.equals(finalStatus) ? job.getFilePath() : null;
+        markFinished(jobId, finalStatus, errorMessage, filePath);
+        if (filePath == null) {
+            deleteFile(job.getFilePath());
+        }
+        activeJobs.remove(jobId);
+        log.info("Import job {} {}: parsed={}, written={} ({} unchanged), failed={}", jobId, finalStatus,
+                progress.rowsParsed, progress.rowsWritten, progress.rowsUnchanged, progress.rowsFailed);
+
+        if (progress.rowsChanged > 0) {
+            salesDataCountCache.invalidate();
+            // Item codes of chunks written before an interruption are not known
+            eventPublisher.publishEvent(resumed ? SalesDataChangedEvent.bulk() : SalesDataChangedEvent.bulk(affectedItemCodes));
+        }
+    }
+
+    /**
+     * Write a chunk and commit the job's counters, row errors and checkpoint. The cancel flag is
+     * read back at each checkpoint, so a cancel received by another instance stops the job too.
+     */
+    private void writeChunk(String jobId, List<SalesDataBatchWriter.PendingRow> chunk,
+                            List<SalesDataImportErrorsResponse.RowError> pendingErrors, int lastRow,
+                            JobProgress progress, Set<String> affectedItemCodes) {
+        if (!chunk.isEmpty()) {
+            SalesDataBatchWriter.ChunkResult result = salesDataBatchWriter.write(chunk);
+            result.getErrors().forEach((rowNum, message) ->
+                    pendingErrors.add(new SalesDataImportErrorsResponse.RowError(rowNum, message)));
+            affectedItemCodes.addAll(result.getItemCodes());
+            progress.rowsWritten += result.getSucceeded();
+            progress.rowsUnchanged += result.getUnchanged();
+            progress.rowsChanged += result.getSucceeded() - result.getUnchanged();
+            progress.rowsFailed += result.getErrors().size();
+            chunk.clear();
+        }
+        if (lastRow <= progress.checkpointRow && pendingErrors.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> errorRows = pendingErrors.stream()
+                .map(error -> new Object[]{jobId, error.getRowNum(), truncate(error.getMessage())})
+                .collect(Collectors.toList());
+        Boolean cancelRequested = transactionTemplate.execute(status -> {
+            if (!errorRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ERROR_SQL, errorRows);
+            }
+            jdbcTemplate.update(SAVE_CHECKPOINT_SQL, progress.rowsParsed, progress.rowsWritten,
+                    progress.rowsUnchanged, progress.rowsFailed, lastRow, jobId);
+            return jdbcTemplate.queryForObject(SELECT_CANCEL_REQUESTED_SQL, Boolean.class, jobId);
+        });
+        pendingErrors.clear();
+        progress.checkpointRow = lastRow;
+        if (Boolean.TRUE.equals(cancelRequested)) {
+            progress.cancelRequested = true;
+        }
+    }
+
+    private void markFinished(String jobId, String status, String errorMessage, String filePath) {
+        try {
+            jdbcTemplate.update(FINISH_SQL, status, truncate(errorMessage), Timestamp.valueOf(LocalDateTime.now()),
+                    filePath, jobId);
+        } catch (DataAccessException e) {
+            log.error("Failed to record status {} of import job {}: {}", status, jobId, e.getMessage());
+        }
+    }
+
+    private void deleteFile(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            log.warn("Failed to delete import file {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    private SalesDataImportJobResponse toResponse(SalesDataImportJob job, JobProgress progress) {
+        SalesDataImportJobResponse response = new SalesDataImportJobResponse();
+        response.setJobId(job.getId());
+        response.setFileName(job.getFileName());
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        if (progress != null) {
+            // Live counters, ahead of the last checkpoint
+            response.setStatus(progress.running ? SalesDataImportJob.RUNNING : SalesDataImportJob.QUEUED);
+            response.setRowsParsed(progress.rowsParsed);
+            response.setRowsWritten(progress.rowsWritten);
+            response.setRowsUnchanged(progress.rowsUnchanged);
+            response.setRowsFailed(progress.rowsFailed);
+            response.setRowsPerSecond(progress.rowsPerSecond());
+        } else {
+            response.setStatus(job.getStatus());
+            response.setRowsParsed(job.getRowsParsed());
+            response.setRowsWritten(job.getRowsWritten());
+            response.setRowsUnchanged(job.getRowsUnchanged());
+            response.setRowsFailed(job.getRowsFailed());
+            if (job.getStartedAt() != null && job.getFinishedAt() != null) {
+                long millis = Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis();
+                response.setRowsPerSecond(millis > 0 ? round(job.getRowsParsed() * 1000.0 / millis) : null);
+            }
+        }
+        return response;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * Counters of a queued or running job, written by its worker only.
+     */
+    private static final class JobProgress {
+        private volatile boolean running;
+        private volatile boolean cancelRequested;
+        private volatile long rowsParsed;
+        private volatile long rowsWritten;
+        private volatile long rowsUnchanged;
+        private volatile long rowsFailed;
+        private volatile int checkpointRow;
+        // Rows inserted or updated in this run
+        private long rowsChanged;
+        private long runStartedAt;
+        private long rowsParsedAtStart;
+
+        JobProgress(SalesDataImportJob job) {
+            this.rowsParsed = job.getRowsParsed();
+            this.rowsWritten = job.getRowsWritten();
+            this.rowsUnchanged = job.getRowsUnchanged();
+            this.rowsFailed = job.getRowsFailed();
+            this.checkpointRow = job.getCheckpointRow();
+            this.cancelRequested = Boolean.TRUE.equals(job.getCancelRequested());
+        }
+
+        void start() {
+            runStartedAt = System.nanoTime();
+            rowsParsedAtStart = rowsParsed;
+            running = true;
+        }
+
+        Double rowsPerSecond() {
+            if (!running) {
+                return null;
+            }
+            double seconds = (System.nanoTime() - runStartedAt) / 1_000_000_000.0;
+            return seconds > 0 ? round((rowsParsed - rowsParsedAtStart) / seconds) : null;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.index.IntArrayList;
+import com.ecosystem.index.LongIntHashMap;
+import com.ecosystem.index.PostingListCodec;
+import com.ecosystem.index.TrigramIndex;
+import com.ecosystem.repository.SalesDataQueryBuilder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the text columns of sales_data that the keyword searches scan
+ * with LIKE '%kw%'. It returns candidate row ids; callers still apply the LIKE predicates on
+ * those ids only, so results are exactly the same as a full scan.
+ *
+ * Layout: an immutable, compressed base segment built from a streaming scan, a small delta
+ * segment for rows written since the build, and a mask of base rows that were updated or
+ * deleted. The delta is folded in by a background rebuild once it grows large.
+ */
+@Slf4j
+@Service
+public class SalesDataKeywordIndexService {
+
+    // Union of the columns searched by the listing keyword filter, fullTextSearch and searchByMultipleKeywords
+    static final String[] INDEXED_COLUMNS;
+
+    static {
+        Set<String> columns = new LinkedHashSet<>();
+        columns.addAll(Arrays.asList(SalesDataQueryBuilder.KEYWORD_COLUMNS));
+        columns.addAll(Arrays.asList(SalesDataQueryBuilder.FULL_TEXT_COLUMNS));
+        columns.addAll(Arrays.asList(SalesDataQueryBuilder.MULTI_KEYWORD_COLUMNS));
+        INDEXED_COLUMNS = columns.toArray(new String[0]);
+    }
+
+    private static final String COLUMN_LIST = "id, `" + String.join("`, `", INDEXED_COLUMNS) + "`";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMN_LIST + " FROM ecoschema.sales_data ORDER BY id";
+    private static final String SELECT_BY_IDS_SQL = "SELECT " + COLUMN_LIST + " FROM ecoschema.sales_data WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ExecutorService rebuildExecutor;
+
+    @Value("${sales-data.keyword-index.enabled:true}")
+    private boolean enabled;
+
+    // Above this many candidates the IN list costs more than the scan it saves
+    @Value("${sales-data.keyword-index.max-candidates:10000}")
+    private int maxCandidates;
+
+    @Value("${sales-data.keyword-index.max-delta-documents:50000}")
+    private int maxDeltaDocuments;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile boolean rebuildRequested;
+
+    // Guarded by lock
+    private TrigramIndex base;
+    private BitSet masked = new BitSet();
+    private LongIntHashMap deltaDictionary = new LongIntHashMap();
+    private List<IntArrayList> deltaPostings = new ArrayList<>();
+    private int deltaDocuments;
+    private final IntArrayList changedDuringRebuild = new IntArrayList();
+    private long lastBuildMillis;
+    private long lastBuildAt;
+
+    public SalesDataKeywordIndexService(JdbcTemplate jdbcTemplate,
+                                        NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "sales-data-keyword-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Rebuild the base segment in the background. Returns false if a rebuild is already running
+     * (a follow-up rebuild is then queued).
+     */
+    public boolean scheduleRebuild() {
+        // Set before the CAS so a rebuild that is just finishing still sees the request
+        rebuildRequested = true;
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildExecutor.submit(this::rebuild);
+        return true;
+    }
+
+    /**
+     * Sorted ids of the rows that may contain every keyword (as substring of any indexed column).
+     *
+     * @return the candidates, or null when the index cannot narrow the search (not built yet,
+     *         every keyword shorter than three characters, or too many candidates)
+     */
+    public int[] candidateIds(List<String> keywords) {
+        if (!enabled || keywords == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (base == null) {
+                return null;
+            }
+            int[] result = null;
+            for (String keyword : keywords) {
+                if (keyword == null) {
+                    continue;
+                }
+                long[] grams = TrigramIndex.trigrams(TrigramIndex.normalize(keyword.trim()));
+                if (grams.length == 0) {
+                    // Too short to constrain; the SQL predicate still applies it
+                    continue;
+                }
+                int[] ids = candidatesFor(grams, result);
+                result = result == null ? ids : PostingListCodec.intersect(result, ids);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            if (result == null || result.length > maxCandidates) {
+                return null;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keep the index in sync with committed writes (no transaction: right away).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesDataChanged(SalesDataChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isBulk()) {
+            scheduleRebuild();
+            return;
+        }
+        try {
+            applyChanges(event.getUpsertedIds(), event.getDeletedIds());
+        } catch (Exception e) {
+            // A missed change must not leave stale results: fall back to a full rebuild
+            log.error("Failed to apply sales_data change to keyword index, scheduling rebuild", e);
+            scheduleRebuild();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ready", base != null);
+            stats.put("rebuilding", rebuilding.get());
+            stats.put("documents", base != null ? base.getDocumentCount() : 0);
+            stats.put("trigrams", base != null ? base.getTrigramCount() : 0);
+            stats.put("baseMemoryBytes", base != null ? base.memoryBytes() : 0);
+            stats.put("deltaDocuments", deltaDocuments);
+            stats.put("maskedDocuments", masked.cardinality());
+            stats.put("lastBuildMillis", lastBuildMillis);
+            stats.put("lastBuildAt", lastBuildAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] candidatesFor(long[] grams, int[] restrictTo) {
+        // Rarest trigram first keeps the intermediate candidate sets small
+        long[] order = new long[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            order[i] = ((long) base.documentFrequency(grams[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] candidates = restrictTo;
+        for (long entry : order) {
+            long gram = grams[(int) entry];
+            int[] fromBase = candidates == null ? base.postings(gram) : base.intersectPostings(gram, candidates);
+            fromBase = removeMasked(fromBase);
+            int[] fromDelta = deltaPostings(gram);
+            if (candidates != null && fromDelta.length > 0) {
+                fromDelta = PostingListCodec.intersect(candidates, fromDelta);
+            }
+            candidates = PostingListCodec.union(fromBase, fromDelta);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private int[] removeMasked(int[] ids) {
+        if (masked.isEmpty()) {
+            return ids;
+        }
+        int n = 0;
+        int[] out = new int[ids.length];
+        for (int id : ids) {
+            if (!masked.get(id)) {
+                out[n++] = id;
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(out, n);
+    }
+
+    private int[] deltaPostings(long gram) {
+        int slot = deltaDictionary.get(gram, -1);
+        return slot < 0 ? new int[0] : deltaPostings.get(slot).toSortedDistinctArray();
+    }
+
+    private void rebuild() {
+        try {
+            rebuildRequested = false;
+            rebuildOnce();
+        } catch (Exception e) {
+            log.error("Failed to build sales_data keyword index", e);
+        } finally {
+            rebuilding.set(false);
+        }
+        if (rebuildRequested) {
+            scheduleRebuild();
+        }
+    }
+
+    private void rebuildOnce() {
+        long start = System.currentTimeMillis();
+        log.info("Building sales_data keyword index over columns {}", Arrays.toString(INDEXED_COLUMNS));
+        lock.writeLock().lock();
+        try {
+            // Changes notified so far were committed before the scan below starts, so it sees them
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TrigramIndex.Builder builder = new TrigramIndex.Builder();
+        TrigramIndex.LongArrayAccumulator accumulator = new TrigramIndex.LongArrayAccumulator();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ALL_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams rows one by one with this fetch size
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            builder.add(toDocumentId(rs.getLong(1)), documentTrigrams(rs, accumulator));
+        });
+        TrigramIndex built = builder.build();
+
+        int[] changed;
+        lock.writeLock().lock();
+        try {
+            base = built;
+            masked = new BitSet();
+            deltaDictionary = new LongIntHashMap();
+            deltaPostings = new ArrayList<>();
+            deltaDocuments = 0;
+            // Rows written while the scan was running may be missing from its snapshot
+            changed = changedDuringRebuild.toSortedDistinctArray();
+            changedDuringRebuild.clear();
+            lastBuildMillis = System.currentTimeMillis() - start;
+            lastBuildAt = System.currentTimeMillis();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (changed.length > 0) {
+            List<Long> ids = new ArrayList<>(changed.length);
+            for (int id : changed) {
+                ids.add((long) id);
+            }
+            applyChanges(ids, List.of());
+        }
+        log.info("Keyword index built: {} documents, {} trigrams, ~{} MB in {} ms",
+                built.getDocumentCount(), built.getTrigramCount(), built.memoryBytes() / (1024 * 1024),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Mask the changed rows in the base segment and add their current text to the delta segment.
+     * Rows that no longer exist stay masked only.
+     */
+    private void applyChanges(List<Long> upsertedIds, List<Long> deletedIds) {
+        Map<Integer, long[]> documents = new LinkedHashMap<>();
+        if (!upsertedIds.isEmpty()) {
+            TrigramIndex.LongArrayAccumulator accumulator = new TrigramIndex.LongArrayAccumulator();
+            for (int from = 0; from < upsertedIds.size(); from += 1000) {
+                List<Long> chunk = upsertedIds.subList(from, Math.min(from + 1000, upsertedIds.size()));
+                namedParameterJdbcTemplate.query(SELECT_BY_IDS_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+                    documents.put(toDocumentId(rs.getLong(1)), documentTrigrams(rs, accumulator));
+                });
+            }
+        }
+
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            for (Long id : upsertedIds) {
+                mark(toDocumentId(id));
+            }
+            for (Long id : deletedIds) {
+                mark(toDocumentId(id));
+            }
+            // Older delta entries of the same rows stay behind; they only add candidates that
+            // fail the SQL check, and disappear at the next rebuild
+            for (Map.Entry<Integer, long[]> document : documents.entrySet()) {
+                for (long gram : document.getValue()) {
+                    int slot = deltaDictionary.get(gram, -1);
+                    if (slot < 0) {
+                        slot = deltaPostings.size();
+                        deltaPostings.add(new IntArrayList(4));
+                        deltaDictionary.put(gram, slot);
+                    }
+                    deltaPostings.get(slot).add(document.getKey());
+                }
+                deltaDocuments++;
+            }
+            compact = deltaDocuments > maxDeltaDocuments;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            scheduleRebuild();
+        }
+    }
+
+    private void mark(int id) {
+        masked.set(id);
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    private static long[] documentTrigrams(ResultSet rs, TrigramIndex.LongArrayAccumulator accumulator)
+            throws SQLException {
+        accumulator.clear();
+        for (int i = 0; i < INDEXED_COLUMNS.length; i++) {
+            String value = rs.getString(i + 2);
+            if (value != null && value.length() >= 3) {
+                TrigramIndex.collectTrigrams(TrigramIndex.normalize(value), accumulator);
+            }
+        }
+        return accumulator.distinct();
+    }
+
+    private static int toDocumentId(long id) {
+        if (id <= 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("sales_data id " + id + " does not fit the keyword index");
+        }
+        return (int) id;
+    }
+}
@@ -0,0 +1,207 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.SalesDataIngestLineResult;
+import com.ecosystem.dto.buyer.SalesDataRequest;
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.importer.NdjsonLineInputStream;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Newline-delimited JSON ingest of SalesDataRequest objects for programmatic writers.
+ *
+ * Each line is parsed incrementally by a Jackson streaming parser reading straight from the
+ * request body through {@link NdjsonLineInputStream}, which ends the parser's input at the
+ * newline and fails a line as soon as it grows past MAX_LINE_BYTES, so no line is ever buffered
+ * whole. A malformed or oversized line only fails itself: the rest of it is skipped and parsing
+ * resumes at the next line. Valid lines are validated with the import rules and written through
+ * SalesDataBatchWriter in chunks. After every chunk one result line per input line is written to
+ * the response and flushed, so a client can stream a large payload and read results while it is
+ * still sending.
+ */
+@Slf4j
+@Service
+public class SalesDataNdjsonIngestService {
+
+    // Lines written per batch, and the longest a client waits for results while sending
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final SalesDataBatchWriter salesDataBatchWriter;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SalesDataNdjsonIngestService(ObjectMapper objectMapper,
+                                        SalesDataBatchWriter salesDataBatchWriter,
+                                        SalesDataCountCache salesDataCountCache,
+                                        ApplicationEventPublisher eventPublisher) {
+        this.requestReader = objectMapper.readerFor(SalesDataRequest.class);
+        this.resultWriter = objectMapper.writerFor(SalesDataIngestLineResult.class);
+        this.salesDataBatchWriter = salesDataBatchWriter;
+        this.salesDataCountCache = salesDataCountCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Ingest the NDJSON body and stream the per-line results, ending with a "done" summary line.
+     * Blank lines are ignored.
+     */
+    public void ingest(InputStream in, OutputStream out) throws IOException {
+        NdjsonLineInputStream lines = new NdjsonLineInputStream(in, MAX_LINE_BYTES);
+        Batch batch = new Batch();
+        while (lines.nextLine()) {
+            PendingLine line = parse(lines);
+            if (line == null) {
+                continue;
+            }
+            batch.add(line);
+            if (batch.lines.size() >= CHUNK_SIZE) {
+                batch.flush(out);
+            }
+        }
+        batch.flush(out);
+
+        writeResult(out, SalesDataIngestLineResult.done(batch.success, batch.failed, batch.unchanged));
+        out.flush();
+        log.info("NDJSON ingest completed: lines={}, success={} ({} unchanged), failed={}",
+                lines.getLineNumber(), batch.success, batch.unchanged, batch.failed);
+    }
+
+    /**
+     * Parse the current line from the stream.
+     *
+     * @return the parsed or failed line, or null for a blank line
+     */
+    private PendingLine parse(NdjsonLineInputStream lines) throws IOException {
+        int lineNumber = lines.getLineNumber();
+        SalesDataRequest request;
+        try (JsonParser parser = requestReader.createParser(lines)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return null;
+            }
+            if (first != JsonToken.START_OBJECT) {
+                return PendingLine.failed(lineNumber, null, "Line is not a JSON object");
+            }
+            request = requestReader.readValue(parser);
+            if (parser.nextToken() != null) {
+                return PendingLine.failed(lineNumber, request != null ? request.getTxNo() : null,
+                        "Unexpected content after the JSON object");
+            }
+        } catch (NdjsonLineInputStream.LineTooLongException e) {
+            return PendingLine.failed(lineNumber, null, "Line exceeds " + MAX_LINE_BYTES + " bytes");
+        } catch (JsonProcessingException e) {
+            return PendingLine.failed(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (request == null) {
+            return PendingLine.failed(lineNumber, null, "Line is not a JSON object");
+        }
+        String error = SalesDataBatchWriter.validate(request);
+        if (error != null) {
+            return PendingLine.failed(lineNumber, request.getTxNo(), error);
+        }
+        return new PendingLine(lineNumber, new SalesDataBatchWriter.PendingRow(lineNumber, request), null);
+    }
+
+    private void writeResult(OutputStream out, SalesDataIngestLineResult result) throws IOException {
+        out.write(resultWriter.writeValueAsBytes(result));
+        out.write('\n');
+    }
+
+    /**
+     * Input lines waiting for their chunk to be written, in input order.
+     */
+    private final class Batch {
+        private final List<PendingLine> lines = new ArrayList<>();
+        private int success;
+        private int failed;
+        private int unchanged;
+
+        void add(PendingLine line) {
+            lines.add(line);
+        }
+
+        void flush(OutputStream out) throws IOException {
+            if (lines.isEmpty()) {
+                return;
+            }
+            List<SalesDataBatchWriter.PendingRow> rows = new ArrayList<>();
+            for (PendingLine line : lines) {
+                if (line.row != null) {
+                    rows.add(line.row);
+                }
+            }
+            SalesDataBatchWriter.ChunkResult result = salesDataBatchWriter.write(rows);
+            publishChanges(result);
+
+            for (PendingLine line : lines) {
+                String error = line.row != null ? result.getErrors().get(line.lineNumber) : line.error;
+                String txNo = line.row != null ? line.row.getTxNo() : line.txNo;
+                if (error != null) {
+                    failed++;
+                    writeResult(out, SalesDataIngestLineResult.error(line.lineNumber, txNo, error));
+                } else if (result.isUnchanged(line.lineNumber)) {
+                    success++;
+                    unchanged++;
+                    writeResult(out, SalesDataIngestLineResult.unchanged(line.lineNumber, txNo));
+                } else {
+                    success++;
+                    writeResult(out, SalesDataIngestLineResult.written(line.lineNumber, txNo));
+                }
+            }
+            out.flush();
+            lines.clear();
+        }
+    }
+
+    /**
+     * Row-level change event for the written rows, so listeners apply them incrementally.
+     */
+    private void publishChanges(SalesDataBatchWriter.ChunkResult result) {
+        if (result.getWrittenIds().isEmpty()) {
+            return;
+        }
+        // Ids come from the shards the rows were written to
+        List<Long> ids = new ArrayList<>(result.getWrittenIds());
+        salesDataCountCache.invalidate();
+        eventPublisher.publishEvent(new SalesDataChangedEvent(ids, null, result.getItemCodes(), false));
+    }
+
+    private static final class PendingLine {
+        private final int lineNumber;
+        // null when the line failed before writing
+        private final SalesDataBatchWriter.PendingRow row;
+        private final String error;
+        private final String txNo;
+
+        PendingLine(int lineNumber, SalesDataBatchWriter.PendingRow row, String error) {
+            this(lineNumber, row, error, null);
+        }
+
+        private PendingLine(int lineNumber, SalesDataBatchWriter.PendingRow row, String error, String txNo) {
+            this.lineNumber = lineNumber;
+            this.row = row;
+            this.error = error;
+            this.txNo = txNo;
+        }
+
+        static PendingLine failed(int lineNumber, String txNo, String error) {
+            return new PendingLine(lineNumber, null, error, txNo);
+        }
+    }
+}
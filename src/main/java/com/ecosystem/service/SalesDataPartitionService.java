@@ -0,0 +1,316 @@
+package com.ecosystem.service;
+
+import com.ecosystem.event.SalesDataChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the yearly RANGE partitions of sales_data (V19).
+ *
+ * Partitions for the coming years are split off p_future ahead of time, so new rows never land
+ * in the catch-all partition. An old year is archived by exchanging its partition with an empty
+ * table of the same structure (sales_data_archive_&lt;year&gt;) and dropping the then empty
+ * partition: both are metadata operations, no rows are deleted from sales_data. Rows derived
+ * from the archived ones (sales_data_search, cart_items) are removed afterwards in short
+ * primary-key batches; product_master drops the products on its next full build. With cold
+ * storage enabled the archive table is then moved to compressed segment files
+ * (SalesDataColdStorageService), which keeps the rows visible to history queries.
+ */
+@Slf4j
+@Service
+public class SalesDataPartitionService {
+
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final Pattern YEAR_PARTITION = Pattern.compile("p(\\d{4})");
+    private static final Pattern ARCHIVABLE_PARTITION = Pattern.compile("p(\\d{4})|p_before_\\d{4}");
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+
+    private static final String SELECT_PARTITIONS_SQL =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM INFORMATION_SCHEMA.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = 'ecoschema' AND TABLE_NAME = 'sales_data' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final String TABLE_EXISTS_SQL =
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'ecoschema' AND TABLE_NAME = ?";
+    private static final String DELETE_SEARCH_ROWS_SQL =
+            "DELETE FROM ecoschema.sales_data_search WHERE id IN (:ids)";
+    private static final String DELETE_CART_ITEMS_SQL =
+            "DELETE FROM ecoschema.cart_items WHERE product_id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SalesDataCountCache salesDataCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SalesDataColdStorageService salesDataColdStorageService;
+    // DDL on sales_data is never run concurrently
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Value("${sales-data.partitioning.enabled:true}")
+    private boolean enabled;
+
+    // Years after the current one that must already have their own partition
+    @Value("${sales-data.partitioning.future-years:1}")
+    private int futureYears;
+
+    // Only partitions that end at least this many years before the current year may be archived
+    @Value("${sales-data.partitioning.retain-years:10}")
+    private int retainYears;
+
+    // > 0: the maintenance run also archives years older than this; 0 = archive only on request
+    @Value("${sales-data.partitioning.archive-after-years:0}")
+    private int archiveAfterYears;
+
+    public SalesDataPartitionService(JdbcTemplate jdbcTemplate,
+                                     NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                     SalesDataCountCache salesDataCountCache,
+                                     ApplicationEventPublisher eventPublisher,
+                                     SalesDataColdStorageService salesDataColdStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.salesDataCountCache = salesDataCountCache;
+        this.eventPublisher = eventPublisher;
+        this.salesDataColdStorageService = salesDataColdStorageService;
+    }
+
+    @Scheduled(cron = "${sales-data.partitioning.maintenance-cron:0 0 3 1 * *}")
+    public void scheduledMaintenance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain();
+        } catch (Exception e) {
+            log.error("sales_data partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Partitions of sales_data in range order: name, upper bound (exclusive) and estimated rows.
+     * Empty when the table is not partitioned (migration V19 not applied).
+     */
+    public List<Map<String, Object>> listPartitions() {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        jdbcTemplate.query(SELECT_PARTITIONS_SQL, rs -> {
+            Map<String, Object> partition = new LinkedHashMap<>();
+            partition.put("name", rs.getString(1));
+            partition.put("lessThan", unquote(rs.getString(2)));
+            partition.put("estimatedRows", rs.getLong(3));
+            partitions.add(partition);
+        });
+        return partitions;
+    }
+
+    /**
+     * Split the partitions up to {@code future-years} after the current year off p_future and,
+     * with {@code archive-after-years} set, archive the years older than that.
+     *
+     * @return Names of the partitions created and archived
+     */
+    public Map<String, List<String>> maintain() {
+        lock.lock();
+        try {
+            List<Map<String, Object>> partitions = listPartitions();
+            Map<String, List<String>> result = new LinkedHashMap<>();
+            result.put("created", new ArrayList<>());
+            result.put("archived", new ArrayList<>());
+            if (partitions.isEmpty()) {
+                log.warn("sales_data is not partitioned (migration V19 not applied?), skipping partition maintenance");
+                return result;
+            }
+
+            result.get("created").addAll(addFuturePartitions(partitions));
+
+            if (archiveAfterYears > 0) {
+                int cutoffYear = LocalDate.now().getYear() - Math.max(archiveAfterYears, retainYears);
+                for (Map<String, Object> partition : partitions) {
+                    String name = (String) partition.get("name");
+                    Integer endYear = endYear(partition);
+                    if (ARCHIVABLE_PARTITION.matcher(name).matches() && endYear != null && endYear <= cutoffYear) {
+                        archivePartition(name);
+                        result.get("archived").add(name);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move one partition's rows to sales_data_archive_&lt;suffix&gt; and drop the partition.
+     *
+     * @param partitionName pYYYY or p_before_YYYY
+     * @throws IllegalArgumentException if the partition does not exist, is not an archivable
+     *                                  partition or is within the retained years
+     * @throws IllegalStateException    if the archive table already exists
+     */
+    public ArchiveResult archivePartition(String partitionName) {
+        lock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            if (partitionName == null || !ARCHIVABLE_PARTITION.matcher(partitionName).matches()) {
+                throw new IllegalArgumentException("Not an archivable partition: " + partitionName);
+            }
+            Map<String, Object> partition = listPartitions().stream()
+                    .filter(p -> partitionName.equals(p.get("name")))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Partition not found: " + partitionName));
+            Integer endYear = endYear(partition);
+            int cutoffYear = LocalDate.now().getYear() - retainYears;
+            if (endYear == null || endYear > cutoffYear) {
+                throw new IllegalArgumentException("Partition " + partitionName + " ends after "
+                        + cutoffYear + "-01-01 and is retained (sales-data.partitioning.retain-years)");
+            }
+
+            String archiveTable = "sales_data_archive_" + partitionName.replaceFirst("^p_?", "");
+            Integer exists = jdbcTemplate.queryForObject(TABLE_EXISTS_SQL, Integer.class, archiveTable);
+            if (exists != null && exists > 0) {
+                throw new IllegalStateException("Archive table " + archiveTable + " already exists");
+            }
+
+            // Same definition as sales_data without partitioning (required by EXCHANGE PARTITION)
+            jdbcTemplate.execute("CREATE TABLE ecoschema." + archiveTable + " LIKE ecoschema.sales_data");
+            jdbcTemplate.execute("ALTER TABLE ecoschema." + archiveTable + " REMOVE PARTITIONING");
+            jdbcTemplate.execute("ALTER TABLE ecoschema.sales_data EXCHANGE PARTITION " + partitionName
+                    + " WITH TABLE ecoschema." + archiveTable);
+            jdbcTemplate.execute("ALTER TABLE ecoschema.sales_data DROP PARTITION " + partitionName);
+
+            long rows = removeDerivedRows(archiveTable);
+            salesDataCountCache.invalidate();
+            eventPublisher.publishEvent(SalesDataChangedEvent.bulk());
+
+            if (salesDataColdStorageService.isEnabled()) {
+                try {
+                    salesDataColdStorageService.archiveTable(archiveTable);
+                } catch (RuntimeException e) {
+                    // The rows stay in the archive table; retry with POST /admin/sales-data/cold-storage/archive
+                    log.error("Failed to move {} to cold storage", archiveTable, e);
+                }
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("Archived sales_data partition {} ({} rows) to {} in {} ms",
+                    partitionName, rows, archiveTable, elapsed);
+            return new ArchiveResult(partitionName, archiveTable, rows, elapsed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<String> addFuturePartitions(List<Map<String, Object>> partitions) {
+        boolean hasFuture = false;
+        int lastYear = 0;
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("name");
+            Matcher matcher = YEAR_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                lastYear = Math.max(lastYear, Integer.parseInt(matcher.group(1)));
+            } else if (FUTURE_PARTITION.equals(name)) {
+                hasFuture = true;
+            }
+        }
+        List<String> created = new ArrayList<>();
+        int targetYear = LocalDate.now().getYear() + futureYears;
+        if (!hasFuture || lastYear == 0 || lastYear >= targetYear) {
+            return created;
+        }
+
+        StringBuilder definitions = new StringBuilder();
+        for (int year = lastYear + 1; year <= targetYear; year++) {
+            definitions.append("PARTITION p").append(year)
+                    .append(" VALUES LESS THAN ('").append(year + 1).append("-01-01'), ");
+            created.add("p" + year);
+        }
+        definitions.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE)");
+        // p_future normally holds no rows, so reorganizing it does not copy data
+        jdbcTemplate.execute("ALTER TABLE ecoschema.sales_data REORGANIZE PARTITION " + FUTURE_PARTITION
+                + " INTO (" + definitions + ")");
+        log.info("Added sales_data partitions {}", created);
+        return created;
+    }
+
+    /**
+     * Delete the sales_data_search and cart_items rows of the archived ids, one short
+     * primary-key DELETE per batch.
+     *
+     * @return Number of archived rows
+     */
+    private long removeDerivedRows(String archiveTable) {
+        String selectIds = "SELECT id FROM ecoschema." + archiveTable + " WHERE id > ? ORDER BY id LIMIT ?";
+        long lastId = 0;
+        long rows = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(selectIds, Long.class, lastId, CLEANUP_BATCH_SIZE);
+            if (ids.isEmpty()) {
+                return rows;
+            }
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+            namedParameterJdbcTemplate.update(DELETE_SEARCH_ROWS_SQL, params);
+            namedParameterJdbcTemplate.update(DELETE_CART_ITEMS_SQL, params);
+            rows += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Year of the exclusive upper bound ('2017-01-01' -> 2017), null for MAXVALUE
+    private static Integer endYear(Map<String, Object> partition) {
+        String lessThan = (String) partition.get("lessThan");
+        if (lessThan == null || lessThan.length() < 4 || !Character.isDigit(lessThan.charAt(0))) {
+            return null;
+        }
+        return Integer.parseInt(lessThan.substring(0, 4));
+    }
+
+    private static String unquote(String description) {
+        if (description != null && description.length() >= 2 && description.startsWith("'")
+                && description.endsWith("'")) {
+            return description.substring(1, description.length() - 1);
+        }
+        return description;
+    }
+
+    public static class ArchiveResult {
+        private final String partition;
+        private final String archiveTable;
+        private final long rows;
+        private final long elapsedMillis;
+
+        public ArchiveResult(String partition, String archiveTable, long rows, long elapsedMillis) {
+            this.partition = partition;
+            this.archiveTable = archiveTable;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getPartition() {
+            return partition;
+        }
+
+        public String getArchiveTable() {
+            return archiveTable;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
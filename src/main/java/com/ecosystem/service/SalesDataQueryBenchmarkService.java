@@ -0,0 +1,331 @@
+package com.ecosystem.service;
+
+import com.ecosystem.entity.SalesData;
+import com.ecosystem.repository.SalesDataFilter;
+import com.ecosystem.repository.SalesDataRepository;
+import com.ecosystem.repository.SalesDataSlice;
+import com.ecosystem.repository.SalesDataSort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares the latency of the legacy catch-all query (SalesDataRepository.findAllWithFilters)
+ * with the dynamic predicate builder used by SalesDataService.getSalesData, for the filter
+ * combinations the buyer portal sends most often. Both sides fetch the first page and its total.
+ *
+ * {@link #runPartitionPruning} measures a date-window query on the partitioned table (V19) with
+ * and without the tx_partition_date bounds, i.e. reading only the window's years versus all.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesDataQueryBenchmarkService {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String WINDOW_WHERE = "WHERE `tx_date_typed` >= ? AND `tx_date_typed` <= ?";
+    private static final String PRUNED_WHERE = WINDOW_WHERE
+            + " AND `tx_partition_date` >= ? AND `tx_partition_date` <= ?";
+
+    private final SalesDataRepository salesDataRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Run every scenario {@code iterations} times per variant (after one warm-up run each).
+     * Scenario values that are not given are sampled from the newest sales_data row.
+     *
+     * @return Per-scenario latency statistics in milliseconds
+     */
+    public List<ScenarioResult> run(int iterations, String category, String buyerCode,
+                                    String minDate, String maxDate, String keyword) {
+        if (iterations < 1) {
+            iterations = 10;
+        }
+
+        SalesDataSlice sample = salesDataRepository.findSlice(
+                new SalesDataFilter(), SalesDataSort.NEWEST, null, 0, 1);
+        SalesData sampleRow = sample.getRows().isEmpty() ? null : sample.getRows().get(0);
+
+        if (category == null) {
+            List<String> categories = salesDataRepository.findDistinctCategories();
+            category = categories.isEmpty() ? "a" : categories.get(0);
+        }
+        if (buyerCode == null) {
+            buyerCode = sampleRow != null && sampleRow.getBuyerCode() != null ? sampleRow.getBuyerCode() : "a";
+        }
+        if (maxDate == null) {
+            maxDate = sampleRow != null && sampleRow.getTxDateTyped() != null
+                    ? sampleRow.getTxDateTyped().toString() : LocalDate.now().toString();
+        }
+        if (minDate == null) {
+            minDate = LocalDate.parse(maxDate).minusYears(1).toString();
+        }
+        if (keyword == null) {
+            keyword = sampleKeyword(sampleRow);
+        }
+
+        Map<String, SalesDataFilter> scenarios = new LinkedHashMap<>();
+        scenarios.put("category", SalesDataFilter.builder().category(category).build());
+        scenarios.put("buyer+dateRange", SalesDataFilter.builder()
+                .buyerCode(buyerCode).minDate(minDate).maxDate(maxDate).build());
+        scenarios.put("keyword", SalesDataFilter.builder().keyword(keyword).build());
+
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Map.Entry<String, SalesDataFilter> scenario : scenarios.entrySet()) {
+            SalesDataFilter filter = scenario.getValue();
+            long[] legacy = measure(iterations, () -> runLegacy(filter));
+            long[] builder = measure(iterations, () -> runBuilder(filter));
+
+            ScenarioResult result = new ScenarioResult(scenario.getKey(), filter.toString(),
+                    summarize(legacy), summarize(builder), runLegacy(filter), runBuilder(filter));
+            log.info("Benchmark {}: legacy avg {} ms / p95 {} ms, builder avg {} ms / p95 {} ms",
+                    result.getScenario(), result.getLegacy().get("avgMs"), result.getLegacy().get("p95Ms"),
+                    result.getBuilder().get("avgMs"), result.getBuilder().get("p95Ms"));
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Time the first page (newest first) and the total of a date window, once reading all
+     * partitions and once with the partition bounds that SalesDataQueryBuilder adds.
+     * Without dates the window is the year up to the newest transaction.
+     */
+    public PruningResult runPartitionPruning(int iterations, String minDate, String maxDate) {
+        if (iterations < 1) {
+            iterations = 10;
+        }
+        if (maxDate == null) {
+            SalesDataSlice sample = salesDataRepository.findSlice(
+                    new SalesDataFilter(), SalesDataSort.NEWEST, null, 0, 1);
+            SalesData sampleRow = sample.getRows().isEmpty() ? null : sample.getRows().get(0);
+            maxDate = sampleRow != null && sampleRow.getTxDateTyped() != null
+                    ? sampleRow.getTxDateTyped().toString() : LocalDate.now().toString();
+        }
+        if (minDate == null) {
+            minDate = LocalDate.parse(maxDate).minusYears(1).toString();
+        }
+        Date min = Date.valueOf(LocalDate.parse(minDate));
+        Date max = Date.valueOf(LocalDate.parse(maxDate));
+        Object[] windowArgs = {min, max};
+        Object[] prunedArgs = {min, max, min, max};
+
+        long[] all = measure(iterations, () -> runWindow(WINDOW_WHERE, windowArgs));
+        long[] pruned = measure(iterations, () -> runWindow(PRUNED_WHERE, prunedArgs));
+
+        PruningResult result = new PruningResult(minDate, maxDate,
+                explainPartitions(WINDOW_WHERE, windowArgs), explainPartitions(PRUNED_WHERE, prunedArgs),
+                summarize(all), summarize(pruned),
+                runWindow(WINDOW_WHERE, windowArgs), runWindow(PRUNED_WHERE, prunedArgs));
+        log.info("Partition pruning benchmark {}..{}: all partitions avg {} ms, pruned ({}) avg {} ms",
+                minDate, maxDate, result.getAllPartitions().get("avgMs"), result.getPrunedPartitionNames(),
+                result.getPruned().get("avgMs"));
+        return result;
+    }
+
+    private long runWindow(String where, Object[] args) {
+        jdbcTemplate.queryForList("SELECT id FROM ecoschema.sales_data " + where
+                + " ORDER BY `tx_date_typed` DESC, id DESC LIMIT " + PAGE_SIZE, Long.class, args);
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ecoschema.sales_data " + where,
+                Long.class, args);
+        return total != null ? total : 0;
+    }
+
+    // "partitions" column of EXPLAIN for the count query
+    private String explainPartitions(String where, Object[] args) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT COUNT(*) FROM ecoschema.sales_data " + where, args);
+        return plan.isEmpty() ? null : (String) plan.get(0).get("partitions");
+    }
+
+    private long runLegacy(SalesDataFilter f) {
+        Page<SalesData> page = salesDataRepository.findAllWithFilters(
+                f.getMinDate(), f.getMaxDate(), f.getTxNo(), f.getMinQty(), f.getMaxQty(),
+                f.getMinPrice(), f.getMaxPrice(), f.getMinValue(), f.getMaxValue(),
+                f.getBuyerCode(), f.getBuyerName(),
+                f.getItemCode(), f.getItemName(), f.getProductHierarchy3(), f.getItemType(),
+                f.getModel(), f.getMaterial(), f.getUom(),
+                f.getBrandCode(), f.getPerformance(), f.getPerformance1(),
+                f.getMinUnitCost(), f.getMaxUnitCost(), f.getFunction(),
+                f.getSector(), f.getSubSector(),
+                f.getSource(),
+                f.getCategory(), f.getKeyword(), SalesDataSort.NEWEST.getParam(),
+                PageRequest.of(0, PAGE_SIZE));
+        return page.getTotalElements();
+    }
+
+    private long runBuilder(SalesDataFilter f) {
+        salesDataRepository.findSlice(f, SalesDataSort.NEWEST, null, 0, PAGE_SIZE);
+        return salesDataRepository.countMatching(f);
+    }
+
+    private static long[] measure(int iterations, LongSupplier query) {
+        query.getAsLong(); // warm-up
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            query.getAsLong();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static Map<String, Object> summarize(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("avgMs", toMs((long) Arrays.stream(sorted).average().orElse(0)));
+        stats.put("p50Ms", toMs(sorted[(sorted.length - 1) / 2]));
+        stats.put("p95Ms", toMs(sorted[(int) Math.ceil(sorted.length * 0.95) - 1]));
+        stats.put("minMs", toMs(sorted[0]));
+        stats.put("maxMs", toMs(sorted[sorted.length - 1]));
+        return stats;
+    }
+
+    private static double toMs(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static String sampleKeyword(SalesData row) {
+        if (row != null && row.getItemName() != null) {
+            for (String token : row.getItemName().split("\\s+")) {
+                if (token.length() >= 3) {
+                    return token;
+                }
+            }
+        }
+        return "valve";
+    }
+
+    /**
+     * Latency statistics of one scenario for both query variants.
+     */
+    public static class ScenarioResult {
+        private final String scenario;
+        private final String filter;
+        private final Map<String, Object> legacy;
+        private final Map<String, Object> builder;
+        private final long legacyTotal;
+        private final long builderTotal;
+
+        public ScenarioResult(String scenario, String filter, Map<String, Object> legacy,
+                              Map<String, Object> builder, long legacyTotal, long builderTotal) {
+            this.scenario = scenario;
+            this.filter = filter;
+            this.legacy = legacy;
+            this.builder = builder;
+            this.legacyTotal = legacyTotal;
+            this.builderTotal = builderTotal;
+        }
+
+        public String getScenario() {
+            return scenario;
+        }
+
+        public String getFilter() {
+            return filter;
+        }
+
+        public Map<String, Object> getLegacy() {
+            return legacy;
+        }
+
+        public Map<String, Object> getBuilder() {
+            return builder;
+        }
+
+        public long getLegacyTotal() {
+            return legacyTotal;
+        }
+
+        public long getBuilderTotal() {
+            return builderTotal;
+        }
+
+        /**
+         * Both variants must agree on the number of matching rows.
+         */
+        public boolean isTotalsMatch() {
+            return legacyTotal == builderTotal;
+        }
+    }
+
+    /**
+     * Latency of one date window with and without partition pruning.
+     */
+    public static class PruningResult {
+        private final String minDate;
+        private final String maxDate;
+        private final String allPartitionNames;
+        private final String prunedPartitionNames;
+        private final Map<String, Object> allPartitions;
+        private final Map<String, Object> pruned;
+        private final long allTotal;
+        private final long prunedTotal;
+
+        public PruningResult(String minDate, String maxDate, String allPartitionNames,
+                             String prunedPartitionNames, Map<String, Object> allPartitions,
+                             Map<String, Object> pruned, long allTotal, long prunedTotal) {
+            this.minDate = minDate;
+            this.maxDate = maxDate;
+            this.allPartitionNames = allPartitionNames;
+            this.prunedPartitionNames = prunedPartitionNames;
+            this.allPartitions = allPartitions;
+            this.pruned = pruned;
+            this.allTotal = allTotal;
+            this.prunedTotal = prunedTotal;
+        }
+
+        public String getMinDate() {
+            return minDate;
+        }
+
+        public String getMaxDate() {
+            return maxDate;
+        }
+
+        public String getAllPartitionNames() {
+            return allPartitionNames;
+        }
+
+        public String getPrunedPartitionNames() {
+            return prunedPartitionNames;
+        }
+
+        public Map<String, Object> getAllPartitions() {
+            return allPartitions;
+        }
+
+        public Map<String, Object> getPruned() {
+            return pruned;
+        }
+
+        public long getAllTotal() {
+            return allTotal;
+        }
+
+        public long getPrunedTotal() {
+            return prunedTotal;
+        }
+
+        /**
+         * Both variants must agree on the number of matching rows.
+         */
+        public boolean isTotalsMatch() {
+            return allTotal == prunedTotal;
+        }
+    }
+}
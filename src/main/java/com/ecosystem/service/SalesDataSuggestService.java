@@ -0,0 +1,190 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.SuggestionResponse;
+import com.ecosystem.event.SalesDataChangedEvent;
+import com.ecosystem.index.SuggestIndex;
+import com.ecosystem.repository.SalesDataShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Typeahead suggestions for the search box: completions of ItemName, ItemCode, Brand Code, Model
+ * and Product Hierarchy 3 values, weighted by the number of sales_data transactions carrying the
+ * value, served from an in-memory {@link SuggestIndex}.
+ *
+ * The index is built from one streaming scan of every shard in the background and replaced as
+ * a whole through a volatile reference, so lookups never lock or see a half-built index. Writes
+ * only mark it stale; a periodic check rebuilds it, so a burst of writes costs one rebuild.
+ */
+@Slf4j
+@Service
+public class SalesDataSuggestService {
+
+    // Field codes of the index are the positions in this array
+    static final String[] COLUMNS = {"ItemName", "ItemCode", "Brand Code", "Model", "Product Hierarchy 3"};
+    static final String[] FIELD_NAMES = {"itemName", "itemCode", "brandCode", "model", "category"};
+
+    private static final String SELECT_SQL =
+            "SELECT `" + String.join("`, `", COLUMNS) + "` FROM ecoschema.sales_data";
+
+    private final SalesDataShardRouter shardRouter;
+    private final ExecutorService rebuildExecutor;
+
+    @Value("${sales-data.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sales-data.suggest.max-limit:20}")
+    private int maxLimit;
+
+    private volatile SuggestIndex index;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile boolean rebuildRequested;
+    // Set by writes, cleared when a rebuild starts
+    private volatile boolean stale;
+    private volatile long lastBuildMillis;
+    private volatile long lastBuildAt;
+
+    public SalesDataSuggestService(SalesDataShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "sales-data-suggest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Completions of the prefix, most frequent first; empty until the first build finished.
+     */
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        SuggestIndex current = index;
+        if (!enabled || current == null || prefix == null) {
+            return Collections.emptyList();
+        }
+        int k = Math.max(1, Math.min(limit, maxLimit));
+        List<SuggestionResponse> suggestions = new ArrayList<>(k);
+        for (SuggestIndex.Suggestion suggestion : current.complete(prefix, k)) {
+            suggestions.add(new SuggestionResponse(suggestion.getText(), FIELD_NAMES[suggestion.getField()],
+                    suggestion.getWeight()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Rebuild the index in the background. Returns false if a rebuild is already running
+     * (a follow-up rebuild is then queued).
+     */
+    public boolean scheduleRebuild() {
+        // Set before the CAS so a rebuild that is just finishing still sees the request
+        rebuildRequested = true;
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildExecutor.submit(this::rebuild);
+        return true;
+    }
+
+    /**
+     * Committed writes change the weights and add values; the next periodic check rebuilds.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesDataChanged(SalesDataChangedEvent event) {
+        if (enabled) {
+            stale = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sales-data.suggest.refresh-interval-ms:300000}",
+            initialDelayString = "${sales-data.suggest.refresh-interval-ms:300000}")
+    public void refreshIfStale() {
+        if (enabled && stale && index != null) {
+            scheduleRebuild();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        SuggestIndex current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", current != null);
+        stats.put("rebuilding", rebuilding.get());
+        stats.put("stale", stale);
+        stats.put("terms", current != null ? current.getTermCount() : 0);
+        stats.put("keys", current != null ? current.getKeyCount() : 0);
+        stats.put("memoryBytes", current != null ? current.memoryBytes() : 0);
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("lastBuildAt", lastBuildAt);
+        return stats;
+    }
+
+    private void rebuild() {
+        try {
+            rebuildRequested = false;
+            // Writes committed from here on are either seen by the scan or mark the index stale again
+            stale = false;
+            rebuildOnce();
+        } catch (Exception e) {
+            stale = true;
+            log.error("Failed to build sales_data suggest index", e);
+        } finally {
+            rebuilding.set(false);
+        }
+        if (rebuildRequested) {
+            scheduleRebuild();
+        }
+    }
+
+    private void rebuildOnce() {
+        long start = System.currentTimeMillis();
+        SuggestIndex.Builder builder = new SuggestIndex.Builder();
+        // Weights are counts over every shard
+        for (int shard : shardRouter.allShards()) {
+            shardRouter.template(shard).getJdbcTemplate().query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL Connector/J streams rows one by one with this fetch size
+                ps.setFetchSize(Integer.MIN_VALUE);
+                return ps;
+            }, rs -> {
+                for (int field = 0; field < COLUMNS.length; field++) {
+                    builder.add(field, rs.getString(field + 1), 1);
+                }
+            });
+        }
+        SuggestIndex built = builder.build();
+        index = built;
+        lastBuildMillis = System.currentTimeMillis() - start;
+        lastBuildAt = System.currentTimeMillis();
+        log.info("Suggest index built: {} terms, {} keys, ~{} MB in {} ms", built.getTermCount(),
+                built.getKeyCount(), built.memoryBytes() / (1024 * 1024), lastBuildMillis);
+    }
+}
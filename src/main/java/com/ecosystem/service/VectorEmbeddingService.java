@@ -29,6 +29,7 @@ public class VectorEmbeddingService {
     private final EmbeddingService embeddingService;
     private final CohereEmbeddingService cohereEmbeddingService;
     private final QdrantService qdrantService;
+    private final ProductCanonicalService productCanonicalService;
 
     /**
      * Generate embeddings and store vectors in Qdrant for all records that have embedding_text.
@@ -57,9 +58,11 @@ public class VectorEmbeddingService {
         while (productMasterPage.hasContent()) {
             List<ProductMaster> productMasterList = productMasterPage.getContent();
             
-            // Filter records that have embedding_text but may not have vectors in Qdrant
+            // Filter records that have embedding_text but may not have vectors in Qdrant;
+            // near-duplicates share the vector of their canonical product
             List<ProductMaster> recordsToProcess = productMasterList.stream()
                     .filter(pm -> pm.getEmbeddingText() != null && !pm.getEmbeddingText().trim().isEmpty())
+                    .filter(pm -> productCanonicalService.isCanonical(pm.getProductUid()))
                     .collect(Collectors.toList());
             
             if (recordsToProcess.isEmpty()) {
@@ -226,6 +229,58 @@ public class VectorEmbeddingService {
         return qdrantService.insertVectors(ids, vectors);
     }
 
+    /**
+     * Generate and store vectors for the given canonical records that have embedding_text, in Cohere
+     * batches of 10 with the same rate limit delay as generateAndStoreVectors.
+     * Used by incremental updates, which only re-embed the records whose text changed.
+     *
+     * @param productMasters The ProductMaster records
+     * @return true if every vector was stored
+     */
+    public boolean storeVectors(List<ProductMaster> productMasters) {
+        List<ProductMaster> recordsToProcess = productMasters.stream()
+                .filter(pm -> pm.getEmbeddingText() != null && !pm.getEmbeddingText().trim().isEmpty())
+                .filter(pm -> productCanonicalService.isCanonical(pm.getProductUid()))
+                .collect(Collectors.toList());
+        if (recordsToProcess.isEmpty()) {
+            return true;
+        }
+
+        if (!qdrantService.collectionExists()) {
+            qdrantService.createCollection();
+        }
+
+        int cohereBatchSize = 10;
+        for (int i = 0; i < recordsToProcess.size(); i += cohereBatchSize) {
+            List<ProductMaster> batch = recordsToProcess.subList(i, Math.min(i + cohereBatchSize, recordsToProcess.size()));
+            List<List<Float>> vectors = cohereEmbeddingService.generateEmbeddings(batch.stream()
+                    .map(ProductMaster::getEmbeddingText)
+                    .collect(Collectors.toList()));
+            if (vectors.size() != batch.size()) {
+                log.error("Cohere returned {} vectors for {} texts", vectors.size(), batch.size());
+                return false;
+            }
+
+            // Same point ids as generateAndStoreVectors
+            List<Long> ids = batch.stream()
+                    .map(pm -> Math.abs((long) pm.getProductUid().hashCode()))
+                    .collect(Collectors.toList());
+            if (!qdrantService.insertVectors(ids, vectors)) {
+                return false;
+            }
+
+            if (i + cohereBatchSize < recordsToProcess.size()) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Search for similar products using vector similarity search.
      * 
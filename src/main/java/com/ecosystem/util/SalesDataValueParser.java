@@ -0,0 +1,83 @@
+package com.ecosystem.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.List;
+
+/**
+ * Parsing helpers for the VARCHAR columns of sales_data (TXDate, TXQty, TXP1, Unit Cost, Value).
+ * Shared by the read path, the import paths and the typed-column backfill so that all of them
+ * agree on which raw values are valid.
+ */
+public final class SalesDataValueParser {
+
+    // Supported date formats, tried in order (only the date part before a space is parsed).
+    // STRICT rejects impossible dates such as 2024-02-30 like STR_TO_DATE in the CSV ingest does,
+    // instead of clamping them to the end of the month; STRICT needs uuuu (year) rather than yyyy.
+    private static final List<DateTimeFormatter> DATE_FORMATTERS = List.of(
+            DateTimeFormatter.ofPattern("uuuu-MM-dd").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("uuuu/MM/dd").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("MM/dd/uuuu").withResolverStyle(ResolverStyle.STRICT)
+    );
+
+    private SalesDataValueParser() {
+    }
+
+    /**
+     * Parse a date string in any of the supported formats.
+     *
+     * @return the parsed date, or null if the value is empty
+     * @throws IllegalArgumentException if the value is not empty but cannot be parsed
+     */
+    public static LocalDate parseDate(String dateStr) {
+        if (dateStr == null || dateStr.isEmpty()) {
+            return null;
+        }
+        String datePart = dateStr.trim().split(" ")[0];
+        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
+            try {
+                return LocalDate.parse(datePart, formatter);
+            } catch (DateTimeParseException e) {
+                // Continue trying next format
+            }
+        }
+        throw new IllegalArgumentException("Unable to parse date: " + dateStr);
+    }
+
+    /**
+     * Parse a date string, returning null instead of throwing for unparsable values.
+     */
+    public static LocalDate parseDateOrNull(String dateStr) {
+        try {
+            return parseDate(dateStr);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static Integer parseInteger(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static BigDecimal parseBigDecimal(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- ============================================
+-- V11: Add typed shadow columns to sales_data
+-- ============================================
+-- TXDate / TXQty / TXP1 / Unit Cost / Value are stored as VARCHAR(255), so every
+-- filter and sort had to go through STR_TO_DATE / CAST per row. These typed copies
+-- are maintained by the application write paths and populated for existing rows by
+-- the backfill job (POST /api/admin/sales-data/backfill-typed-columns).
+
+ALTER TABLE ecoschema.sales_data
+    ADD COLUMN tx_date_typed DATE NULL COMMENT 'Parsed TXDate',
+    ADD COLUMN tx_qty_typed INT NULL COMMENT 'Parsed TXQty',
+    ADD COLUMN txp1_typed DECIMAL(18,4) NULL COMMENT 'Parsed TXP1',
+    ADD COLUMN unit_cost_typed DECIMAL(18,4) NULL COMMENT 'Parsed Unit Cost',
+    ADD COLUMN value_typed DECIMAL(18,4) NULL COMMENT 'Parsed Value';
+
+-- Indexes for range filters and the newest / price_asc / price_desc sorts
+CREATE INDEX idx_tx_date_typed ON ecoschema.sales_data(tx_date_typed, id);
+CREATE INDEX idx_txp1_typed ON ecoschema.sales_data(txp1_typed, id);
+CREATE INDEX idx_category_tx_date_typed ON ecoschema.sales_data(`Product Hierarchy 3`, tx_date_typed);
+CREATE INDEX idx_item_code_tx_date_typed ON ecoschema.sales_data(`ItemCode`, tx_date_typed);
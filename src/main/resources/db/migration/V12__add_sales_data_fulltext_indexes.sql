@@ -0,0 +1,32 @@
+-- ============================================
+-- V12: Add FULLTEXT (ngram) indexes to sales_data
+-- ============================================
+-- Used by SalesDataRepository.fullTextSearchRanked / searchByMultipleKeywordsRanked
+-- (MATCH ... AGAINST in boolean mode). The ngram parser indexes every 2-character
+-- sequence (ngram_token_size, default 2), so CJK text without spaces is searchable
+-- and a quoted term behaves like a substring match.
+--
+-- The column lists must stay identical to the MATCH(...) column lists in the
+-- repository queries, otherwise MySQL rejects the query.
+
+-- With the ngram parser every token that contains a stopword is dropped, and the
+-- default stopword list contains single letters ("a", "i"). Disable stopwords for
+-- the index builds below (session scope, read when the index is created).
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+-- Same columns as SalesDataRepository.fullTextSearch
+ALTER TABLE ecoschema.sales_data
+    ADD FULLTEXT INDEX ft_sales_data_full_text (
+        `ItemName`, `ItemCode`, `BuyerName`, `BuyerCode`, `Product Hierarchy 3`, `Function`,
+        `Brand Code`, `Model`, `ItemType`, `Material`, `Sector`, `SubSector`
+    ) WITH PARSER ngram;
+
+-- Same columns as SalesDataRepository.searchByMultipleKeywords
+-- (InnoDB builds only one FULLTEXT index per ALTER TABLE statement)
+ALTER TABLE ecoschema.sales_data
+    ADD FULLTEXT INDEX ft_sales_data_multi_keyword (
+        `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`,
+        `Brand Code`, `UOM`, `ItemName`, `ItemCode`
+    ) WITH PARSER ngram;
+
+SET SESSION innodb_ft_enable_stopword = ON;
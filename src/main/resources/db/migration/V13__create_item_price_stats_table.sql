@@ -0,0 +1,27 @@
+-- ============================================
+-- V13: Create item_price_stats table
+-- ============================================
+-- Per-ItemCode price statistics, so product detail and material history read one row
+-- by primary key instead of aggregating every transaction of the item.
+--
+-- Maintained by ItemPriceStatsService: the sales_data write paths and the bulk import
+-- recompute the rows of the item codes they touched, and a nightly job (or
+-- POST /api/admin/sales-data/price-stats/rebuild) recomputes all of them to repair drift,
+-- e.g. after rows were changed outside the application or after the typed column backfill.
+--
+-- Prices only count rows with txp1_typed > 0 (missing or zero TXP1 is not a price);
+-- transaction_count and the dates count every row of the item.
+
+CREATE TABLE IF NOT EXISTS ecoschema.item_price_stats (
+    item_code VARCHAR(255) NOT NULL PRIMARY KEY COMMENT 'sales_data.ItemCode',
+    item_name VARCHAR(255) DEFAULT NULL COMMENT 'ItemName of the newest transaction',
+    transaction_count BIGINT NOT NULL DEFAULT 0 COMMENT 'Number of transactions',
+    priced_count BIGINT NOT NULL DEFAULT 0 COMMENT 'Number of transactions with TXP1 > 0',
+    min_price DECIMAL(18,4) DEFAULT NULL COMMENT 'Lowest TXP1',
+    max_price DECIMAL(18,4) DEFAULT NULL COMMENT 'Highest TXP1',
+    avg_price DECIMAL(18,4) DEFAULT NULL COMMENT 'Average TXP1',
+    latest_price DECIMAL(18,4) DEFAULT NULL COMMENT 'TXP1 of the newest priced transaction',
+    latest_date DATE DEFAULT NULL COMMENT 'Newest transaction date',
+    first_date DATE DEFAULT NULL COMMENT 'Oldest transaction date',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Last recomputation'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Per-item price statistics of sales_data';
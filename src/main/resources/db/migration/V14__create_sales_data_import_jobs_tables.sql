@@ -0,0 +1,41 @@
+-- ============================================
+-- V14: Create sales_data import job tables
+-- ============================================
+-- Bulk imports run as background jobs (SalesDataImportJobService): the upload is stored
+-- in the import work directory and processed on a bounded worker pool, in chunks.
+--
+-- After every written chunk the job row records its counters and checkpoint_row, the last
+-- sheet row whose outcome is committed. An interrupted job (application restart, failure)
+-- is resumed from there: rows up to checkpoint_row are parsed again but not re-written.
+--
+-- Row errors are stored per job and returned page by page.
+
+CREATE TABLE IF NOT EXISTS ecoschema.sales_data_import_jobs (
+    id VARCHAR(36) NOT NULL PRIMARY KEY COMMENT 'Job id (UUID)',
+    user_id VARCHAR(255) DEFAULT NULL COMMENT 'Submitting user',
+    file_name VARCHAR(255) DEFAULT NULL COMMENT 'Original file name',
+    file_path VARCHAR(1024) DEFAULT NULL COMMENT 'Stored upload, removed when the job completes or is cancelled',
+    status VARCHAR(20) NOT NULL COMMENT 'QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED',
+    rows_parsed BIGINT NOT NULL DEFAULT 0 COMMENT 'Data rows read up to the checkpoint',
+    rows_written BIGINT NOT NULL DEFAULT 0 COMMENT 'Rows inserted, updated or already up to date',
+    rows_unchanged BIGINT NOT NULL DEFAULT 0 COMMENT 'Rows of rows_written that were already up to date',
+    rows_failed BIGINT NOT NULL DEFAULT 0 COMMENT 'Rows rejected by validation or by the database',
+    checkpoint_row INT NOT NULL DEFAULT 0 COMMENT 'Last sheet row whose outcome is committed',
+    cancel_requested TINYINT(1) NOT NULL DEFAULT 0 COMMENT 'Set by a cancel request, checked by the worker',
+    error_message VARCHAR(1000) DEFAULT NULL COMMENT 'Failure reason of a FAILED job',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at DATETIME DEFAULT NULL,
+    finished_at DATETIME DEFAULT NULL,
+    INDEX idx_status (status),
+    INDEX idx_user_created (user_id, created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Background sales_data bulk import jobs';
+
+CREATE TABLE IF NOT EXISTS ecoschema.sales_data_import_job_errors (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_id VARCHAR(36) NOT NULL COMMENT 'sales_data_import_jobs.id',
+    row_num INT NOT NULL COMMENT 'Sheet row number (1-based)',
+    message VARCHAR(1000) NOT NULL,
+    INDEX idx_job_row (job_id, row_num),
+    CONSTRAINT fk_import_job_errors_job FOREIGN KEY (job_id)
+        REFERENCES ecoschema.sales_data_import_jobs (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Row errors of sales_data import jobs';
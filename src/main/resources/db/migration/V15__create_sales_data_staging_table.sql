@@ -0,0 +1,52 @@
+-- ============================================
+-- V15: Create sales_data_staging table
+-- ============================================
+-- Landing table of the CSV/TSV ingest (SalesDataCsvIngestService). A load writes its rows
+-- here (LOAD DATA LOCAL INFILE, or multi-row INSERTs), then set-based statements normalize
+-- and validate them and merge the valid ones into sales_data. Rows are removed when the load
+-- finishes.
+--
+-- Raw columns are one character wider than in sales_data so that over-long values can be
+-- reported instead of being truncated silently.
+
+CREATE TABLE IF NOT EXISTS ecoschema.sales_data_staging (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    load_id VARCHAR(36) NOT NULL COMMENT 'Ingest run',
+    row_num INT NOT NULL COMMENT 'Line of the record in the file (header = 1)',
+    `TXNo` VARCHAR(256) DEFAULT NULL,
+    `TXDate` VARCHAR(256) DEFAULT NULL,
+    `TXQty` VARCHAR(256) DEFAULT NULL,
+    `TXP1` VARCHAR(256) DEFAULT NULL,
+    `BuyerCode` VARCHAR(256) DEFAULT NULL,
+    `BuyerName` VARCHAR(256) DEFAULT NULL,
+    `ItemCode` VARCHAR(256) DEFAULT NULL,
+    `ItemName` VARCHAR(256) DEFAULT NULL,
+    `Product Hierarchy 3` VARCHAR(256) DEFAULT NULL,
+    `Function` VARCHAR(256) DEFAULT NULL,
+    `ItemType` VARCHAR(256) DEFAULT NULL,
+    `Model` VARCHAR(256) DEFAULT NULL,
+    `Performance` VARCHAR(256) DEFAULT NULL,
+    `Performance.1` VARCHAR(256) DEFAULT NULL,
+    `Material` VARCHAR(256) DEFAULT NULL,
+    `UOM` VARCHAR(256) DEFAULT NULL,
+    `Brand Code` VARCHAR(256) DEFAULT NULL,
+    `Unit Cost` VARCHAR(256) DEFAULT NULL,
+    `Sector` VARCHAR(256) DEFAULT NULL,
+    `SubSector` VARCHAR(256) DEFAULT NULL,
+    `Value` VARCHAR(256) DEFAULT NULL,
+    `Rationale` VARCHAR(256) DEFAULT NULL,
+    `www` VARCHAR(256) DEFAULT NULL,
+    `Source` VARCHAR(256) DEFAULT NULL,
+    tx_date_typed DATE DEFAULT NULL,
+    tx_qty_typed INT DEFAULT NULL,
+    txp1_typed DECIMAL(18,4) DEFAULT NULL,
+    unit_cost_typed DECIMAL(18,4) DEFAULT NULL,
+    value_typed DECIMAL(18,4) DEFAULT NULL,
+    target_id BIGINT DEFAULT NULL COMMENT 'sales_data.id of the record with the same TXNo',
+    previous_item_code VARCHAR(255) DEFAULT NULL COMMENT 'ItemCode of the target before the merge',
+    superseded TINYINT(1) NOT NULL DEFAULT 0 COMMENT 'A later row of the load has the same TXNo',
+    unchanged TINYINT(1) NOT NULL DEFAULT 0 COMMENT 'The target already has these values',
+    error_message VARCHAR(255) DEFAULT NULL COMMENT 'Validation error; the row is not merged',
+    INDEX idx_load_row (load_id, row_num),
+    INDEX idx_load_tx_no (load_id, `TXNo`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Staging rows of CSV/TSV sales_data loads';
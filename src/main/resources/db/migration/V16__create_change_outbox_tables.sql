@@ -0,0 +1,28 @@
+-- ============================================
+-- V16: Create change outbox tables
+-- ============================================
+-- Transactional outbox of sales_data and product_master changes. Every write path appends
+-- one row per changed record in the transaction of the write itself (ChangeOutboxWriter),
+-- so a change is recorded if and only if it is committed.
+--
+-- ChangeOutboxDispatcher reads the table in id order and hands batches to the registered
+-- consumers (embedding text refresh, Qdrant vectors, ...). Each consumer's position is kept
+-- in change_outbox_offsets and only advances after the consumer handled a batch, so delivery
+-- is at least once. Rows that every consumer has passed are purged after the retention period.
+
+CREATE TABLE IF NOT EXISTS ecoschema.change_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(32) NOT NULL COMMENT 'sales_data or product_master',
+    aggregate_id VARCHAR(64) NOT NULL COMMENT 'sales_data.id or product_master.product_uid',
+    change_type VARCHAR(16) NOT NULL COMMENT 'UPSERT or DELETE',
+    item_code VARCHAR(255) DEFAULT NULL COMMENT 'ItemCode after the change (before it for DELETE)',
+    previous_item_code VARCHAR(255) DEFAULT NULL COMMENT 'ItemCode before an update, when it changed',
+    created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Outbox of sales_data and product_master changes';
+
+CREATE TABLE IF NOT EXISTS ecoschema.change_outbox_offsets (
+    consumer VARCHAR(100) NOT NULL PRIMARY KEY COMMENT 'ChangeOutboxConsumer name',
+    last_id BIGINT NOT NULL DEFAULT 0 COMMENT 'Last change_outbox.id handled by the consumer',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Position of each outbox consumer';
@@ -0,0 +1,45 @@
+-- ============================================
+-- V17: product_master materialization
+-- ============================================
+-- product_master holds one row per distinct product of sales_data, identified by
+-- product_fingerprint: ItemCode, ItemName, Product Hierarchy 3, Function, ItemType, Model,
+-- Performance, Performance.1, Material, UOM and Brand Code, each TRIM + UPPER, joined with '|'
+-- (the format of the original one-off build in database/buyer_portal_schema.sql, so existing
+-- product_uid values are kept).
+--
+-- ProductMasterMaterializer maintains it: a full build streams all of sales_data, incremental
+-- runs only read rows above the high-water mark in materializer_state plus the rows reported
+-- as changed by the change outbox (V16). last_tx_id is the newest transaction whose attribute
+-- values (original spelling) the row carries.
+
+CREATE TABLE IF NOT EXISTS ecoschema.product_master (
+    product_uid CHAR(16) NOT NULL PRIMARY KEY,
+    product_fingerprint VARCHAR(255) NOT NULL,
+    item_code VARCHAR(64) DEFAULT NULL,
+    item_name VARCHAR(255) DEFAULT NULL,
+    product_hierarchy_3 VARCHAR(255) DEFAULT NULL,
+    function_name VARCHAR(255) DEFAULT NULL,
+    item_type VARCHAR(255) DEFAULT NULL,
+    model VARCHAR(255) DEFAULT NULL,
+    performance_micron VARCHAR(255) DEFAULT NULL,
+    performance_efficiency VARCHAR(255) DEFAULT NULL,
+    material VARCHAR(255) DEFAULT NULL,
+    uom VARCHAR(64) DEFAULT NULL,
+    brand_code VARCHAR(255) DEFAULT NULL,
+    embedding_text TEXT NULL,
+    embedding_hash CHAR(64) NULL,
+    qdrant_point_id CHAR(36) NULL,
+    UNIQUE INDEX uk_product_fingerprint (product_fingerprint),
+    INDEX idx_pm_item_code (item_code),
+    INDEX idx_pm_embedding_hash (embedding_hash)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Distinct products of sales_data';
+
+ALTER TABLE ecoschema.product_master
+    ADD COLUMN last_tx_id BIGINT DEFAULT NULL COMMENT 'sales_data.id of the newest transaction of the product';
+
+CREATE TABLE IF NOT EXISTS ecoschema.materializer_state (
+    name VARCHAR(64) NOT NULL PRIMARY KEY COMMENT 'Materialized table',
+    high_water_mark BIGINT NOT NULL DEFAULT 0 COMMENT 'Highest sales_data.id already processed',
+    full_build_at DATETIME DEFAULT NULL COMMENT 'Completion of the last full build',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Progress of incremental materializations';
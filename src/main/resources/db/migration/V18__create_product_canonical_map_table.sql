@@ -0,0 +1,17 @@
+-- ============================================
+-- V18: Create product_canonical_map table
+-- ============================================
+-- Near-duplicate consolidation of product_master (ProductCanonicalService): products whose
+-- embedding text differs only in spacing, casing, punctuation or small abbreviations are
+-- grouped (MinHash + LSH over character shingles) and mapped to one canonical product.
+--
+-- Only non-canonical products have a row; a product without a row is its own canonical
+-- product. The table is replaced as a whole by every consolidation run.
+
+CREATE TABLE IF NOT EXISTS ecoschema.product_canonical_map (
+    product_uid CHAR(16) NOT NULL PRIMARY KEY COMMENT 'product_master.product_uid of the duplicate',
+    canonical_uid CHAR(16) NOT NULL COMMENT 'product_master.product_uid of the canonical product',
+    similarity DECIMAL(5,4) NOT NULL COMMENT 'Estimated Jaccard similarity to the canonical product',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_canonical_uid (canonical_uid)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Near-duplicate products mapped to a canonical product';
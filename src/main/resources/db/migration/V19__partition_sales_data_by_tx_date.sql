@@ -0,0 +1,108 @@
+-- ============================================
+-- V19: RANGE-partition sales_data by transaction year
+-- ============================================
+-- Historical queries filter or sort by tx_date_typed (V11). Partitioning by year lets MySQL
+-- skip the years outside a date window, and lets an old year be moved to an archive table
+-- with EXCHANGE PARTITION instead of a long-running DELETE (SalesDataPartitionService).
+--
+-- MySQL requires the partitioning column in every unique key, and primary key columns must
+-- be NOT NULL, while tx_date_typed is NULL for unparsable dates. The table is therefore
+-- partitioned on tx_partition_date, a stored copy of tx_date_typed with NULL mapped to
+-- 1000-01-01 (partition p_undated). Queries must repeat their tx_date_typed bounds on
+-- tx_partition_date for pruning, see SalesDataQueryBuilder.dateRange.
+--
+-- Partitioned InnoDB tables support neither FULLTEXT indexes nor foreign keys that
+-- reference them:
+--   * the V12 FULLTEXT indexes move to sales_data_search, a copy of the searched columns kept
+--     in sync by triggers (repository *Ranked queries join it);
+--   * the cart_items.product_id foreign key is dropped; SalesDataService.deleteSalesData
+--     and the partition archive remove cart items of deleted rows instead.
+--
+-- The ALTERs rebuild sales_data; run during a maintenance window. Creating triggers needs
+-- the TRIGGER privilege (and SUPER or log_bin_trust_function_creators with binary logging).
+
+-- 1. cart_items: the product_id foreign key is the second one of the table (V6)
+ALTER TABLE ecoschema.cart_items DROP FOREIGN KEY cart_items_ibfk_2;
+
+-- 2. FULLTEXT side table (column types copied from sales_data)
+CREATE TABLE IF NOT EXISTS ecoschema.sales_data_search (PRIMARY KEY (id))
+    ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    COMMENT='FULLTEXT copy of the searched sales_data columns'
+    SELECT id, `ItemName`, `ItemCode`, `BuyerName`, `BuyerCode`, `Product Hierarchy 3`, `Function`,
+           `Brand Code`, `Model`, `ItemType`, `Material`, `Sector`, `SubSector`,
+           `Performance`, `Performance.1`, `UOM`
+    FROM ecoschema.sales_data;
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+-- Same columns as SalesDataRepository.fullTextSearchRanked
+ALTER TABLE ecoschema.sales_data_search
+    ADD FULLTEXT INDEX ft_sales_data_full_text (
+        `ItemName`, `ItemCode`, `BuyerName`, `BuyerCode`, `Product Hierarchy 3`, `Function`,
+        `Brand Code`, `Model`, `ItemType`, `Material`, `Sector`, `SubSector`
+    ) WITH PARSER ngram;
+
+-- Same columns as SalesDataRepository.searchByMultipleKeywordsRanked
+ALTER TABLE ecoschema.sales_data_search
+    ADD FULLTEXT INDEX ft_sales_data_multi_keyword (
+        `Function`, `ItemType`, `Model`, `Performance`, `Performance.1`, `Material`,
+        `Brand Code`, `UOM`, `ItemName`, `ItemCode`
+    ) WITH PARSER ngram;
+
+SET SESSION innodb_ft_enable_stopword = ON;
+
+CREATE TRIGGER ecoschema.trg_sales_data_search_insert AFTER INSERT ON ecoschema.sales_data
+    FOR EACH ROW
+    INSERT INTO ecoschema.sales_data_search
+        (id, `ItemName`, `ItemCode`, `BuyerName`, `BuyerCode`, `Product Hierarchy 3`, `Function`,
+         `Brand Code`, `Model`, `ItemType`, `Material`, `Sector`, `SubSector`,
+         `Performance`, `Performance.1`, `UOM`)
+    VALUES (NEW.id, NEW.`ItemName`, NEW.`ItemCode`, NEW.`BuyerName`, NEW.`BuyerCode`,
+            NEW.`Product Hierarchy 3`, NEW.`Function`, NEW.`Brand Code`, NEW.`Model`, NEW.`ItemType`,
+            NEW.`Material`, NEW.`Sector`, NEW.`SubSector`, NEW.`Performance`, NEW.`Performance.1`,
+            NEW.`UOM`);
+
+CREATE TRIGGER ecoschema.trg_sales_data_search_update AFTER UPDATE ON ecoschema.sales_data
+    FOR EACH ROW
+    REPLACE INTO ecoschema.sales_data_search
+        (id, `ItemName`, `ItemCode`, `BuyerName`, `BuyerCode`, `Product Hierarchy 3`, `Function`,
+         `Brand Code`, `Model`, `ItemType`, `Material`, `Sector`, `SubSector`,
+         `Performance`, `Performance.1`, `UOM`)
+    VALUES (NEW.id, NEW.`ItemName`, NEW.`ItemCode`, NEW.`BuyerName`, NEW.`BuyerCode`,
+            NEW.`Product Hierarchy 3`, NEW.`Function`, NEW.`Brand Code`, NEW.`Model`, NEW.`ItemType`,
+            NEW.`Material`, NEW.`Sector`, NEW.`SubSector`, NEW.`Performance`, NEW.`Performance.1`,
+            NEW.`UOM`);
+
+CREATE TRIGGER ecoschema.trg_sales_data_search_delete AFTER DELETE ON ecoschema.sales_data
+    FOR EACH ROW
+    DELETE FROM ecoschema.sales_data_search WHERE id = OLD.id;
+
+ALTER TABLE ecoschema.sales_data DROP INDEX ft_sales_data_full_text;
+ALTER TABLE ecoschema.sales_data DROP INDEX ft_sales_data_multi_keyword;
+
+-- 3. Partitioning column and primary key
+ALTER TABLE ecoschema.sales_data
+    ADD COLUMN tx_partition_date DATE AS (COALESCE(tx_date_typed, '1000-01-01')) STORED NOT NULL
+        COMMENT 'tx_date_typed, 1000-01-01 when NULL (partitioning key)',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, tx_partition_date);
+
+-- 4. One partition per year; SalesDataPartitionService splits new years off p_future
+ALTER TABLE ecoschema.sales_data
+    PARTITION BY RANGE COLUMNS (tx_partition_date) (
+        PARTITION p_undated VALUES LESS THAN ('1000-01-02'),
+        PARTITION p_before_2016 VALUES LESS THAN ('2016-01-01'),
+        PARTITION p2016 VALUES LESS THAN ('2017-01-01'),
+        PARTITION p2017 VALUES LESS THAN ('2018-01-01'),
+        PARTITION p2018 VALUES LESS THAN ('2019-01-01'),
+        PARTITION p2019 VALUES LESS THAN ('2020-01-01'),
+        PARTITION p2020 VALUES LESS THAN ('2021-01-01'),
+        PARTITION p2021 VALUES LESS THAN ('2022-01-01'),
+        PARTITION p2022 VALUES LESS THAN ('2023-01-01'),
+        PARTITION p2023 VALUES LESS THAN ('2024-01-01'),
+        PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+        PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+        PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+        PARTITION p2027 VALUES LESS THAN ('2028-01-01'),
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,9 @@
+-- ============================================
+-- V20: product catalog indexes
+-- ============================================
+-- The product-level catalog (GET /api/buyer/catalog, ProductCatalogRepository) lists
+-- product_master joined with item_price_stats by item_code, one row per product instead of
+-- one per transaction. Category pages filter product_master on Product Hierarchy 3.
+
+ALTER TABLE ecoschema.product_master
+    ADD INDEX idx_pm_product_hierarchy_3 (product_hierarchy_3);
@@ -0,0 +1,20 @@
+-- ============================================
+-- V21: Create item_co_purchase table
+-- ============================================
+-- "Frequently bought together" neighbours per ItemCode, from BuyerCode x ItemCode
+-- co-occurrence in sales_data (ItemCoPurchaseService): two items co-occur once for every
+-- buyer that bought both. Each item keeps its top-N neighbours by cosine similarity
+-- (co_buyers / sqrt(buyers(a) * buyers(b))) or normalized PMI.
+--
+-- Replaced as a whole by the full build (nightly, or POST /api/admin/sales-data/co-purchase/rebuild);
+-- the rows of items touched by new transactions are replaced from the change outbox (V16).
+
+CREATE TABLE IF NOT EXISTS ecoschema.item_co_purchase (
+    item_code VARCHAR(255) NOT NULL COMMENT 'sales_data.ItemCode',
+    rank_no SMALLINT NOT NULL COMMENT '1 = strongest neighbour',
+    neighbour_item_code VARCHAR(255) NOT NULL COMMENT 'sales_data.ItemCode of the neighbour',
+    score DECIMAL(10,6) NOT NULL COMMENT 'Cosine similarity or normalized PMI',
+    co_buyers INT NOT NULL COMMENT 'Number of buyers that bought both items',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (item_code, rank_no)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Co-purchase neighbours of items';
@@ -0,0 +1,23 @@
+-- ============================================
+-- V22: Unique key on sales_data TXNo
+-- ============================================
+-- The bulk write paths resolve a TXNo with a lookup and insert it when no record was found
+-- (SalesDataBatchWriter, SalesDataCsvIngestService). Two writers importing the same new TXNo at
+-- the same time (import workers, NDJSON and CSV ingest) could both insert it. With this key the
+-- second insert turns into an update through INSERT ... ON DUPLICATE KEY UPDATE.
+--
+-- MySQL requires the partitioning column in every unique key of a partitioned table (V19), so
+-- the key is (TXNo, tx_partition_date): a TXNo is unique per transaction date. Rows without
+-- TXNo (NULL) are not constrained. POST /api/sales-data with an existing TXNo and date is now
+-- rejected instead of creating a second record.
+--
+-- The ALTER fails while duplicates exist. Find them first and remove or renumber the extra rows:
+--   SELECT `TXNo`, tx_partition_date, COUNT(*) FROM ecoschema.sales_data
+--   WHERE `TXNo` IS NOT NULL GROUP BY `TXNo`, tx_partition_date HAVING COUNT(*) > 1;
+--
+-- With sharded sales_data (sales-data.sharding) apply this to every shard. Archive tables are
+-- created LIKE sales_data when a partition is archived, so they get the key as well.
+
+ALTER TABLE ecoschema.sales_data
+    ADD UNIQUE INDEX uk_sales_data_tx_no (`TXNo`, tx_partition_date),
+    DROP INDEX idx_tx_no;
@@ -0,0 +1,26 @@
+-- ============================================
+-- V23: Change outbox gap tracking and dispatcher lease
+-- ============================================
+-- ChangeOutboxDispatcher passes a missing id (an append whose transaction has not committed)
+-- after sales-data.outbox.gap-wait-seconds. change_outbox_gaps remembers the ids it passed per
+-- consumer; they are looked up again until gap-retention-minutes, so a transaction that stays
+-- open longer than the wait (a large merge window, a lock wait) is still delivered.
+--
+-- change_outbox_lease holds the dispatcher lease: only the instance that owns the row
+-- dispatches, and it renews the lease in every transaction that advances a consumer position.
+
+CREATE TABLE IF NOT EXISTS ecoschema.change_outbox_gaps (
+    consumer VARCHAR(100) NOT NULL COMMENT 'ChangeOutboxConsumer name',
+    from_id BIGINT NOT NULL COMMENT 'First missing change_outbox.id',
+    to_id BIGINT NOT NULL COMMENT 'Last missing change_outbox.id',
+    skipped_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT 'When the gap was first passed',
+    PRIMARY KEY (consumer, from_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Outbox ids passed while uncommitted';
+
+CREATE TABLE IF NOT EXISTS ecoschema.change_outbox_lease (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    owner VARCHAR(255) DEFAULT NULL COMMENT 'host/uuid of the dispatching instance',
+    expires_at DATETIME(3) NOT NULL DEFAULT '1970-01-01 00:00:00.000'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Change outbox dispatcher lease';
+
+INSERT IGNORE INTO ecoschema.change_outbox_lease (name) VALUES ('dispatcher');
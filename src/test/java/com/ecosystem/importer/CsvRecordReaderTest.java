@@ -0,0 +1,110 @@
+package com.ecosystem.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void splitsPlainFields() throws IOException {
+        List<String[]> records = readAll("a,b,c\n1,,3\n", ',');
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[]{"a", "b", "c"}, records.get(0));
+        assertArrayEquals(new String[]{"1", "", "3"}, records.get(1));
+    }
+
+    @Test
+    void quotedFieldsKeepDelimitersQuotesAndLineBreaks() throws IOException {
+        List<String[]> records = readAll("\"Valve, brass\",\"12\"\" pipe\",\"two\nlines\"\nnext,row", ',');
+
+        assertArrayEquals(new String[]{"Valve, brass", "12\" pipe", "two\nlines"}, records.get(0));
+        assertArrayEquals(new String[]{"next", "row"}, records.get(1));
+    }
+
+    @Test
+    void acceptsCrLfAndCrLineEnds() throws IOException {
+        List<String[]> records = readAll("a,b\r\nc,d\re,f", ',');
+
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[]{"c", "d"}, records.get(1));
+        assertArrayEquals(new String[]{"e", "f"}, records.get(2));
+    }
+
+    @Test
+    void skipsTheByteOrderMark() throws IOException {
+        List<String[]> records = readAll("\uFEFFTXNo,ItemCode\n", ',');
+
+        assertArrayEquals(new String[]{"TXNo", "ItemCode"}, records.get(0));
+    }
+
+    @Test
+    void emptyLineIsOneEmptyField() throws IOException {
+        List<String[]> records = readAll("a\n\nb\n", ',');
+
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[]{""}, records.get(1));
+    }
+
+    @Test
+    void tabDelimiterLeavesCommasAlone() throws IOException {
+        List<String[]> records = readAll("1,5\tpcs\n", '\t');
+
+        assertArrayEquals(new String[]{"1,5", "pcs"}, records.get(0));
+    }
+
+    @Test
+    void reportsTheLineEachRecordStartsOn() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("h\n\"multi\nline\"\nlast\n"), ',');
+
+        reader.next();
+        assertEquals(1, reader.getRecordLine());
+        reader.next();
+        assertEquals(2, reader.getRecordLine());
+        reader.next();
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void unterminatedQuoteFails() {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("ok\n\"open,field\n"), ',');
+
+        IOException e = assertThrows(IOException.class, () -> {
+            while (reader.next() != null) {
+                // read to the broken record
+            }
+        });
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+
+    @Test
+    void recordsLongerThanTheBufferAreRead() throws IOException {
+        String longField = "x".repeat(200_000);
+
+        List<String[]> records = readAll("a," + longField + "\nb,c\n", ',');
+
+        assertEquals(longField, records.get(0)[1]);
+        assertArrayEquals(new String[]{"b", "c"}, records.get(1));
+    }
+
+    private static List<String[]> readAll(String input, char delimiter) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(input), delimiter);
+        List<String[]> records = new ArrayList<>();
+        String[] record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecosystem.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTest {
+
+    @Test
+    void addContainsAndRemove() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(3);
+        bitmap.add(70_000);
+        bitmap.add(3);
+
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(4));
+        assertEquals(2, bitmap.cardinality());
+
+        bitmap.remove(3);
+        bitmap.remove(5);
+        assertFalse(bitmap.contains(3));
+        assertEquals(1, bitmap.cardinality());
+
+        bitmap.remove(70_000);
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void denseContainerConvertsToWordsAndBack() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i * 2);
+        }
+        assertEquals(10_000, bitmap.cardinality());
+        assertTrue(bitmap.contains(19_998));
+        assertFalse(bitmap.contains(19_999));
+
+        // Below half of the array limit the container goes back to a sorted array
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.remove(i * 2);
+        }
+        assertEquals(1_000, bitmap.cardinality());
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(18_000));
+        bitmap.add(1);
+        assertTrue(bitmap.contains(1));
+        assertEquals(1_001, bitmap.cardinality());
+    }
+
+    @Test
+    void setOperationsMatchAReferenceSet() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            Set<Integer> a = new HashSet<>();
+            Set<Integer> b = new HashSet<>();
+            CompressedBitmap left = randomBitmap(random, a);
+            CompressedBitmap right = randomBitmap(random, b);
+
+            Set<Integer> and = new HashSet<>(a);
+            and.retainAll(b);
+            Set<Integer> or = new HashSet<>(a);
+            or.addAll(b);
+
+            assertEquals(and.size(), left.andCardinality(right), "round " + round);
+            assertMatches(and, left.and(right));
+            assertMatches(or, left.or(right));
+            // Operands are not modified
+            assertMatches(a, left);
+            assertMatches(b, right);
+        }
+    }
+
+    @Test
+    void copyAndTrimKeepTheValues() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        Set<Integer> values = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            bitmap.add(i * 1_000);
+            values.add(i * 1_000);
+        }
+        CompressedBitmap copy = bitmap.copy();
+        bitmap.trim();
+        bitmap.add(5);
+        values.add(5);
+
+        assertMatches(values, bitmap);
+        assertEquals(300, copy.cardinality());
+        assertFalse(copy.contains(5));
+    }
+
+    // Mixes sparse containers with dense ones (more than 4096 values under one high key)
+    private static CompressedBitmap randomBitmap(Random random, Set<Integer> reference) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int count = random.nextInt(20_000);
+        for (int i = 0; i < count; i++) {
+            int value = random.nextBoolean() ? random.nextInt(12_000) : random.nextInt(1 << 22);
+            bitmap.add(value);
+            reference.add(value);
+        }
+        return bitmap;
+    }
+
+    private static void assertMatches(Set<Integer> expected, CompressedBitmap actual) {
+        assertEquals(expected.size(), actual.cardinality());
+        for (int value : expected) {
+            assertTrue(actual.contains(value), "missing " + value);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecosystem.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongIntHashMapTest {
+
+    @Test
+    void addToStartsAtZeroAndReturnsTheNewValue() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertEquals(3, map.addTo(42L, 3));
+        assertEquals(5, map.addTo(42L, 2));
+        assertEquals(-1, map.addTo(-7L, -1));
+        assertEquals(5, map.get(42L, 0));
+        assertEquals(0, map.get(43L, 0));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void putOverwritesAndGetReturnsTheMissingValue() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(0L, 1);
+        map.put(0L, 9);
+
+        assertEquals(9, map.get(0L, -1));
+        assertEquals(-1, map.get(1L, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void forEachVisitsEveryEntryAfterGrowing() {
+        // Starts at 16 slots, so the table is rehashed several times
+        LongIntHashMap map = new LongIntHashMap(1);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(10_000) * 0x1_0000_0001L;
+            int delta = random.nextInt(5) + 1;
+            int expected = reference.merge(key, delta, Integer::sum);
+            assertEquals(expected, map.addTo(key, delta));
+        }
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+
+        assertEquals(reference, visited);
+        assertEquals(reference.size(), map.size());
+    }
+
+    @Test
+    void minValueIsReserved() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.addTo(Long.MIN_VALUE, 1));
+        assertEquals(0, map.size());
+    }
+}
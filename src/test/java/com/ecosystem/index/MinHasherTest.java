@@ -0,0 +1,84 @@
+package com.ecosystem.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHasherTest {
+
+    @Test
+    void shinglesAreSortedAndDistinct() {
+        int[] shingles = MinHasher.shingles("abcabc", 3);
+
+        // abc, bca, cab, abc
+        assertEquals(3, shingles.length);
+        for (int i = 1; i < shingles.length; i++) {
+            assertTrue(shingles[i - 1] < shingles[i]);
+        }
+    }
+
+    @Test
+    void shortAndEmptyTexts() {
+        assertEquals(1, MinHasher.shingles("ab", 3).length);
+        assertEquals(0, MinHasher.shingles("", 3).length);
+    }
+
+    @Test
+    void signaturesDependOnlyOnTheSeed() {
+        int[] shingles = MinHasher.shingles("ball valve dn25", 3);
+        int[] a = new int[64];
+        int[] b = new int[64];
+
+        new MinHasher(64, 1L).signature(shingles, a, 0);
+        new MinHasher(64, 1L).signature(shingles, b, 0);
+
+        assertArrayEquals(a, b);
+    }
+
+    @Test
+    void similarityEstimatesJaccard() {
+        MinHasher hasher = new MinHasher(256, 42L);
+        int[] signatures = new int[3 * hasher.numHashes()];
+        hasher.signature(MinHasher.shingles("brass ball valve dn25 pn16", 3), signatures, 0);
+        hasher.signature(MinHasher.shingles("brass ball valve dn25 pn16", 3), signatures, hasher.numHashes());
+        hasher.signature(MinHasher.shingles("stainless steel hex bolt m8", 3), signatures, 2 * hasher.numHashes());
+
+        assertEquals(1.0, hasher.similarity(signatures, 0, 1));
+        assertTrue(hasher.similarity(signatures, 0, 2) < 0.2);
+    }
+
+    @Test
+    void similarityIsCloseToTheExactJaccardOfTheShingles() {
+        MinHasher hasher = new MinHasher(512, 5L);
+        int[] left = MinHasher.shingles("ball valve brass dn25 full bore", 3);
+        int[] right = MinHasher.shingles("ball valve brass dn32 full bore", 3);
+        int[] signatures = new int[2 * hasher.numHashes()];
+        hasher.signature(left, signatures, 0);
+        hasher.signature(right, signatures, hasher.numHashes());
+
+        assertEquals(jaccard(left, right), hasher.similarity(signatures, 0, 1), 0.1);
+    }
+
+    @Test
+    void equalBandsHashEquallyAndBandsAreDistinguished() {
+        MinHasher hasher = new MinHasher(16, 9L);
+        int[] signatures = new int[2 * hasher.numHashes()];
+        int[] shingles = MinHasher.shingles("gate valve", 3);
+        hasher.signature(shingles, signatures, 0);
+        hasher.signature(shingles, signatures, hasher.numHashes());
+
+        assertEquals(hasher.bandHash(signatures, 0, 2, 4), hasher.bandHash(signatures, 1, 2, 4));
+        // The same rows in another band must not collide
+        int[] constant = new int[16];
+        assertNotEquals(hasher.bandHash(constant, 0, 0, 4), hasher.bandHash(constant, 0, 1, 4));
+    }
+
+    // Both arrays sorted and distinct
+    private static double jaccard(int[] a, int[] b) {
+        int common = PostingListCodec.intersect(a, b).length;
+        return (double) common / (a.length + b.length - common);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecosystem.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostingListCodecTest {
+
+    @Test
+    void varIntsTakeOneByteBelow128AndFiveForLargeValues() {
+        byte[] buffer = new byte[16];
+
+        assertEquals(1, PostingListCodec.writeVarInt(buffer, 0, 127));
+        assertEquals(2, PostingListCodec.writeVarInt(buffer, 0, 128));
+        assertEquals(5, PostingListCodec.writeVarInt(buffer, 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void deltasDecodeToTheSortedIds() {
+        int[] ids = {0, 1, 127, 128, 300, 16_384, 2_000_000, Integer.MAX_VALUE};
+
+        assertArrayEquals(ids, PostingListCodec.decode(encode(ids), ids.length));
+    }
+
+    @Test
+    void intersectAndUnionOfSortedArrays() {
+        int[] a = {1, 3, 5, 7, 9};
+        int[] b = {2, 3, 4, 9, 10};
+
+        assertArrayEquals(new int[]{3, 9}, PostingListCodec.intersect(a, b));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 7, 9, 10}, PostingListCodec.union(a, b));
+        assertArrayEquals(new int[0], PostingListCodec.intersect(a, new int[0]));
+        assertArrayEquals(a, PostingListCodec.union(new int[0], a));
+    }
+
+    @Test
+    void intersectEncodedMatchesIntersectOfTheDecodedList() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int[] postings = randomSorted(random, random.nextInt(500), 5_000);
+            int[] candidates = randomSorted(random, random.nextInt(500), 5_000);
+
+            int[] expected = PostingListCodec.intersect(candidates, postings);
+
+            assertArrayEquals(expected, PostingListCodec.intersectEncoded(candidates, encode(postings), postings.length),
+                    "round " + round);
+        }
+    }
+
+    private static byte[] encode(int[] ids) {
+        byte[] buffer = new byte[5 * ids.length];
+        int length = 0;
+        int previous = 0;
+        for (int id : ids) {
+            length = PostingListCodec.writeVarInt(buffer, length, id - previous);
+            previous = id;
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static int[] randomSorted(Random random, int count, int bound) {
+        TreeSet<Integer> values = new TreeSet<>();
+        while (values.size() < count) {
+            values.add(random.nextInt(bound));
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,111 @@
+package com.ecosystem.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestIndexTest {
+
+    private static final int ITEM_NAME = 0;
+    private static final int BUYER_NAME = 1;
+
+    @Test
+    void normalizeCollapsesWhitespaceAndStripsAccents() {
+        assertEquals("cafe creme", SuggestIndex.normalize("  Café \t Crème "));
+        assertEquals("", SuggestIndex.normalize(null));
+    }
+
+    @Test
+    void weightsAccumulatePerNormalizedValueAndKeepTheFirstSpelling() {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder();
+        builder.add(ITEM_NAME, " Ball Valve ", 2);
+        builder.add(ITEM_NAME, "BALL  VALVE", 3);
+        builder.add(BUYER_NAME, "Ball Valve", 1);
+        SuggestIndex index = builder.build();
+
+        List<SuggestIndex.Suggestion> suggestions = index.complete("ball", 10);
+
+        assertEquals(2, index.getTermCount());
+        assertEquals(2, suggestions.size());
+        assertEquals("Ball Valve", suggestions.get(0).getText());
+        assertEquals(ITEM_NAME, suggestions.get(0).getField());
+        assertEquals(5, suggestions.get(0).getWeight());
+        assertEquals(BUYER_NAME, suggestions.get(1).getField());
+    }
+
+    @Test
+    void completesOnAnyWordStartHeaviestFirst() {
+        SuggestIndex index = build("ball valve", 5, "gate valve", 9, "valve seat", 1, "pump", 20);
+
+        assertEquals(List.of("gate valve", "ball valve", "valve seat"), texts(index.complete("Val", 10)));
+        assertEquals(List.of("gate valve"), texts(index.complete("val", 1)));
+        assertEquals(List.of("pump"), texts(index.complete("p", 10)));
+        assertTrue(index.complete("alve", 10).isEmpty());
+    }
+
+    @Test
+    void aTermMatchingOnSeveralKeysIsReturnedOnce() {
+        SuggestIndex index = build("valve valve body", 3, "valve", 1);
+
+        assertEquals(List.of("valve valve body", "valve"), texts(index.complete("valve", 10)));
+    }
+
+    @Test
+    void onlyTheFirstWordStartsGetKeys() {
+        SuggestIndex index = build("a1 b2 c3 d4 e5 f6 g7 h8 i9 j10", 1, "x", 1);
+
+        // The text itself, then 8 word starts; "j10" is past the limit
+        assertEquals(10, index.getKeyCount());
+        assertEquals(1, index.complete("i9", 10).size());
+        assertTrue(index.complete("j10", 10).isEmpty());
+    }
+
+    @Test
+    void topKMatchesAFullSortOfTheMatchingTerms() {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add(ITEM_NAME, "part " + i, (i * 37L) % 101);
+        }
+        SuggestIndex index = builder.build();
+
+        List<SuggestIndex.Suggestion> top = index.complete("part 1", 10);
+
+        assertEquals(10, top.size());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).getWeight() >= top.get(i).getWeight());
+        }
+        long best = 0;
+        for (int i = 0; i < 500; i++) {
+            if (String.valueOf(i).startsWith("1")) {
+                best = Math.max(best, (i * 37L) % 101);
+            }
+        }
+        assertEquals(best, top.get(0).getWeight());
+    }
+
+    @Test
+    void emptyPrefixesAndIndexesReturnNothing() {
+        SuggestIndex index = build("valve", 1);
+
+        assertTrue(index.complete(" ", 10).isEmpty());
+        assertTrue(index.complete("valve", 0).isEmpty());
+        assertTrue(SuggestIndex.empty().complete("valve", 10).isEmpty());
+    }
+
+    // Pairs of item name and weight
+    private static SuggestIndex build(Object... termsAndWeights) {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder();
+        for (int i = 0; i < termsAndWeights.length; i += 2) {
+            builder.add(ITEM_NAME, (String) termsAndWeights[i], ((Number) termsAndWeights[i + 1]).longValue());
+        }
+        return builder.build();
+    }
+
+    private static List<String> texts(List<SuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestIndex.Suggestion::getText).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecosystem.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrigramIndexTest {
+
+    @Test
+    void normalizeLowerCasesAndStripsAccents() {
+        assertEquals("cafe creme", TrigramIndex.normalize("Café Crème"));
+        assertEquals("valve", TrigramIndex.normalize("VALVE"));
+        assertEquals("", TrigramIndex.normalize(null));
+    }
+
+    @Test
+    void trigramsAreDistinct() {
+        assertEquals(2, TrigramIndex.trigrams("abcd").length);
+        // "aaaa" has the trigram "aaa" twice
+        assertEquals(1, TrigramIndex.trigrams("aaaa").length);
+        assertEquals(0, TrigramIndex.trigrams("ab").length);
+    }
+
+    @Test
+    void postingsListTheDocumentsOfATrigram() {
+        TrigramIndex index = build("ball valve", "gate valve", "pump", "valve seat");
+        long val = TrigramIndex.trigrams("val")[0];
+
+        assertArrayEquals(new int[]{0, 1, 3}, index.postings(val));
+        assertEquals(3, index.documentFrequency(val));
+        assertEquals(4, index.getDocumentCount());
+        assertArrayEquals(new int[0], index.postings(TrigramIndex.trigrams("xyz")[0]));
+    }
+
+    @Test
+    void intersectingEveryTrigramOfASubstringFindsItsDocuments() {
+        TrigramIndex index = build("ball valve dn25", "gate valve dn50", "valve seat dn25", "pump dn25");
+
+        int[] candidates = null;
+        for (long trigram : TrigramIndex.trigrams(TrigramIndex.normalize("Valve DN25"))) {
+            candidates = candidates == null ? index.postings(trigram) : index.intersectPostings(trigram, candidates);
+        }
+
+        assertArrayEquals(new int[]{0}, candidates);
+    }
+
+    @Test
+    void documentsMustBeAddedInAscendingOrder() {
+        TrigramIndex.Builder builder = new TrigramIndex.Builder();
+        builder.add(5, TrigramIndex.trigrams("valve"));
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(5, TrigramIndex.trigrams("pump")));
+    }
+
+    @Test
+    void accumulatorCollectsTheDistinctTrigramsOfSeveralFields() {
+        TrigramIndex.LongArrayAccumulator accumulator = new TrigramIndex.LongArrayAccumulator();
+        TrigramIndex.collectTrigrams("valve", accumulator);
+        TrigramIndex.collectTrigrams("valves", accumulator);
+
+        assertArrayEquals(TrigramIndex.trigrams("valves"), accumulator.distinct());
+    }
+
+    @Test
+    void emptyIndexHasNoPostings() {
+        TrigramIndex index = TrigramIndex.empty();
+
+        assertEquals(0, index.getTrigramCount());
+        assertArrayEquals(new int[0], index.postings(TrigramIndex.trigrams("abc")[0]));
+    }
+
+    private static TrigramIndex build(String... documents) {
+        TrigramIndex.Builder builder = new TrigramIndex.Builder();
+        for (int id = 0; id < documents.length; id++) {
+            builder.add(id, TrigramIndex.trigrams(TrigramIndex.normalize(documents[id])));
+        }
+        return builder.build();
+    }
+}
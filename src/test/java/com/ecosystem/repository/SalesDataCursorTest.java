@@ -0,0 +1,85 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesDataCursorTest {
+
+    @Test
+    void dateKeyRoundTrips() {
+        SalesDataCursor cursor = SalesDataCursor.after(row(41L, LocalDate.of(2023, 12, 31), null), SalesDataSort.NEWEST);
+
+        SalesDataCursor decoded = SalesDataCursor.decode(cursor.encode(), SalesDataSort.NEWEST);
+
+        assertEquals(SalesDataSort.NEWEST, decoded.getSort());
+        assertEquals(LocalDate.of(2023, 12, 31), decoded.getLastKey());
+        assertEquals(41L, decoded.getLastId());
+    }
+
+    @Test
+    void priceKeyRoundTripsWithItsScale() {
+        SalesDataCursor cursor = SalesDataCursor.after(row(5L, null, new BigDecimal("12.50")), SalesDataSort.PRICE_DESC);
+
+        SalesDataCursor decoded = SalesDataCursor.decode(cursor.encode(), SalesDataSort.PRICE_DESC);
+
+        assertEquals(new BigDecimal("12.50"), decoded.getLastKey());
+        assertEquals(5L, decoded.getLastId());
+    }
+
+    @Test
+    void nullKeyRoundTrips() {
+        SalesDataCursor cursor = SalesDataCursor.after(row(9L, null, null), SalesDataSort.PRICE_ASC);
+
+        SalesDataCursor decoded = SalesDataCursor.decode(cursor.encode(), SalesDataSort.PRICE_ASC);
+
+        assertNull(decoded.getLastKey());
+        assertEquals(9L, decoded.getLastId());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = SalesDataCursor.after(row(Long.MAX_VALUE, null, new BigDecimal("-0.000001")),
+                SalesDataSort.PRICE_ASC).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String token = SalesDataCursor.after(row(1L, LocalDate.of(2024, 1, 1), null), SalesDataSort.NEWEST).encode();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> SalesDataCursor.decode(token, SalesDataSort.PRICE_ASC));
+        assertTrue(e.getMessage().contains("cannot be used with sort 'price_asc'"), e.getMessage());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        for (String raw : new String[]{"v1|NEWEST|2024-01-01", "v2|NEWEST||1", "v1|OLDEST||1",
+                "v1|NEWEST|2024-02-30|1", "v1|PRICE_ASC|abc|1", "v1|NEWEST||x"}) {
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> SalesDataCursor.decode(token, SalesDataSort.NEWEST), raw);
+            assertEquals("Malformed pagination cursor", e.getMessage(), raw);
+        }
+        assertThrows(RuntimeException.class, () -> SalesDataCursor.decode("not base64!", SalesDataSort.NEWEST));
+    }
+
+    private static SalesData row(long id, LocalDate date, BigDecimal price) {
+        SalesData row = new SalesData();
+        row.setId(id);
+        row.setTxDateTyped(date);
+        row.setTxP1Typed(price);
+        return row;
+    }
+}
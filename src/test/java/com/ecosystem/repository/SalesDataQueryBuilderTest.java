@@ -0,0 +1,158 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesDataQueryBuilderTest {
+
+    @Test
+    void emptyFilterHasNoPredicates() {
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(new SalesDataFilter());
+
+        assertEquals("WHERE 1=1", builder.whereClause());
+        assertTrue(builder.isUnfiltered());
+    }
+
+    @Test
+    void onlySetFiltersAreEmitted() {
+        SalesDataFilter filter = SalesDataFilter.builder()
+                .itemName("Ball Valve")
+                .minPrice(new BigDecimal("10"))
+                .buyerCodeExact("B001")
+                .build();
+
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(filter);
+
+        assertEquals("WHERE 1=1 AND `txp1_typed` >= :minPrice AND `BuyerCode` = :buyerCodeExact"
+                + " AND LOWER(`ItemName`) LIKE :itemName", builder.whereClause());
+        Map<String, Object> parameters = builder.getParameters();
+        assertEquals(3, parameters.size());
+        assertEquals(new BigDecimal("10"), parameters.get("minPrice"));
+        assertEquals("B001", parameters.get("buyerCodeExact"));
+        assertEquals("%ball valve%", parameters.get("itemName"));
+        assertFalse(builder.isUnfiltered());
+    }
+
+    @Test
+    void dateBoundsAreRepeatedOnThePartitionColumn() {
+        SalesDataFilter filter = SalesDataFilter.builder().minDate("2024-01-01").build();
+
+        String where = SalesDataQueryBuilder.forFilter(filter).whereClause();
+
+        assertTrue(where.contains("`tx_date_typed` >= STR_TO_DATE(:minDate, '%Y-%m-%d')"));
+        assertTrue(where.contains("`tx_partition_date` >= STR_TO_DATE(:minDate, '%Y-%m-%d')"));
+        assertFalse(where.contains(":maxDate"));
+    }
+
+    @Test
+    void categoryAllIsNotAFilter() {
+        SalesDataFilter filter = SalesDataFilter.builder().category("all").build();
+
+        assertTrue(SalesDataQueryBuilder.forFilter(filter).isUnfiltered());
+    }
+
+    @Test
+    void keywordSearchesEveryKeywordColumn() {
+        SalesDataFilter filter = SalesDataFilter.builder().keyword("Pump").build();
+
+        SalesDataQueryBuilder builder = SalesDataQueryBuilder.forFilter(filter);
+
+        for (String column : SalesDataQueryBuilder.KEYWORD_COLUMNS) {
+            assertTrue(builder.whereClause().contains("LOWER(`" + column + "`) LIKE :keyword"), column);
+        }
+        assertEquals(Map.of("keyword", "%pump%"), builder.getParameters());
+    }
+
+    @Test
+    void candidateIdsAreInlinedButNotPartOfTheFingerprint() {
+        SalesDataFilter filter = SalesDataFilter.builder().itemCode("VAL").build();
+        SalesDataFilter restricted = filter.toBuilder().candidateIds(new int[]{3, 7, 42}).build();
+        SalesDataFilter none = filter.toBuilder().candidateIds(new int[0]).build();
+
+        assertTrue(SalesDataQueryBuilder.forFilter(restricted).whereClause().endsWith(" AND id IN (3,7,42)"));
+        assertTrue(SalesDataQueryBuilder.forFilter(none).whereClause().endsWith(" AND 1=0"));
+        assertEquals(SalesDataQueryBuilder.forFilter(filter).fingerprint(),
+                SalesDataQueryBuilder.forFilter(restricted).fingerprint());
+    }
+
+    @Test
+    void fingerprintIgnoresNumericScaleAndCase() {
+        SalesDataFilter a = SalesDataFilter.builder().maxPrice(new BigDecimal("10.50")).itemName("Valve").build();
+        SalesDataFilter b = SalesDataFilter.builder().maxPrice(new BigDecimal("10.5")).itemName("VALVE").build();
+        SalesDataFilter c = SalesDataFilter.builder().maxPrice(new BigDecimal("10.6")).itemName("Valve").build();
+
+        assertEquals(SalesDataQueryBuilder.forFilter(a).fingerprint(), SalesDataQueryBuilder.forFilter(b).fingerprint());
+        assertFalse(SalesDataQueryBuilder.forFilter(a).fingerprint().equals(SalesDataQueryBuilder.forFilter(c).fingerprint()));
+    }
+
+    @Test
+    void orderByBreaksTiesById() {
+        assertEquals("ORDER BY `tx_date_typed` DESC, id DESC", SalesDataQueryBuilder.orderBy(SalesDataSort.NEWEST));
+        assertEquals("ORDER BY `txp1_typed` ASC, id ASC", SalesDataQueryBuilder.orderBy(SalesDataSort.PRICE_ASC));
+    }
+
+    @Test
+    void seekAfterValueInAscendingOrder() {
+        SalesDataQueryBuilder builder = unfiltered()
+                .seekAfter(SalesDataSort.PRICE_ASC, cursor(SalesDataSort.PRICE_ASC, 7L, null, new BigDecimal("9.99")));
+
+        assertEquals("WHERE 1=1 AND (`txp1_typed` > :lastKey OR (`txp1_typed` = :lastKey AND id > :lastId))",
+                builder.whereClause());
+        assertEquals(new BigDecimal("9.99"), builder.getParameters().get("lastKey"));
+        assertEquals(7L, builder.getParameters().get("lastId"));
+    }
+
+    @Test
+    void seekAfterNullInAscendingOrderContinuesWithTheValues() {
+        // NULLs sort first ascending: the remaining NULLs, then every non-NULL price
+        SalesDataQueryBuilder builder = unfiltered()
+                .seekAfter(SalesDataSort.PRICE_ASC, cursor(SalesDataSort.PRICE_ASC, 7L, null, null));
+
+        assertEquals("WHERE 1=1 AND ((`txp1_typed` IS NULL AND id > :lastId) OR `txp1_typed` IS NOT NULL)",
+                builder.whereClause());
+        assertFalse(builder.getParameters().containsKey("lastKey"));
+    }
+
+    @Test
+    void seekAfterValueInDescendingOrderEndsWithTheNulls() {
+        SalesDataQueryBuilder builder = unfiltered()
+                .seekAfter(SalesDataSort.NEWEST, cursor(SalesDataSort.NEWEST, 12L, LocalDate.of(2024, 3, 1), null));
+
+        assertEquals("WHERE 1=1 AND (`tx_date_typed` < :lastKey OR (`tx_date_typed` = :lastKey AND id < :lastId)"
+                + " OR `tx_date_typed` IS NULL)", builder.whereClause());
+        assertEquals(LocalDate.of(2024, 3, 1), builder.getParameters().get("lastKey"));
+    }
+
+    @Test
+    void seekAfterNullInDescendingOrderStaysWithinTheNulls() {
+        SalesDataQueryBuilder builder = unfiltered()
+                .seekAfter(SalesDataSort.NEWEST, cursor(SalesDataSort.NEWEST, 12L, null, null));
+
+        assertEquals("WHERE 1=1 AND (`tx_date_typed` IS NULL AND id < :lastId)", builder.whereClause());
+    }
+
+    @Test
+    void seekAfterWithoutCursorAddsNothing() {
+        assertEquals("WHERE 1=1", unfiltered().seekAfter(SalesDataSort.NEWEST, null).whereClause());
+    }
+
+    private static SalesDataQueryBuilder unfiltered() {
+        return SalesDataQueryBuilder.forFilter(new SalesDataFilter());
+    }
+
+    private static SalesDataCursor cursor(SalesDataSort sort, long id, LocalDate date, BigDecimal price) {
+        SalesData row = new SalesData();
+        row.setId(id);
+        row.setTxDateTyped(date);
+        row.setTxP1Typed(price);
+        return SalesDataCursor.after(row, sort);
+    }
+}
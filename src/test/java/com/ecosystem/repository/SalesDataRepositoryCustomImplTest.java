@@ -0,0 +1,238 @@
+package com.ecosystem.repository;
+
+import com.ecosystem.entity.SalesData;
+import com.ecosystem.index.ColdSegment;
+import com.ecosystem.index.SalesDataColumns;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SalesDataRepositoryCustomImplTest {
+
+    @TempDir
+    Path coldDirectory;
+
+    @Test
+    void mergesSortedListsInOrder() {
+        Comparator<SalesData> order = SalesDataFilterMatcher.order(SalesDataSort.NEWEST);
+        // Newest first, NULL dates last, ties by id descending
+        List<SalesData> hot = List.of(dated(9, "2024-05-01"), dated(4, "2024-05-01"), dated(8, "2024-01-10"),
+                dated(7, null));
+        List<SalesData> cold = List.of(dated(3, "2024-03-15"), dated(2, "2023-12-31"), dated(6, null));
+        List<SalesData> other = List.of(dated(5, "2024-05-01"), dated(1, null));
+
+        List<SalesData> merged = SalesDataRepositoryCustomImpl.mergeSorted(List.of(hot, cold, other), order, 100);
+
+        assertEquals(List.of(9L, 5L, 4L, 3L, 8L, 2L, 7L, 6L, 1L), ids(merged));
+    }
+
+    @Test
+    void stopsAtMax() {
+        Comparator<SalesData> order = SalesDataFilterMatcher.order(SalesDataSort.PRICE_ASC);
+        // Ascending price puts NULL prices first
+        List<SalesData> a = List.of(priced(10, null), priced(11, "1.00"), priced(12, "5.00"));
+        List<SalesData> b = List.of(priced(20, "0.50"), priced(21, "1.00"), priced(22, "7.25"));
+
+        List<SalesData> merged = SalesDataRepositoryCustomImpl.mergeSorted(List.of(a, b), order, 4);
+
+        assertEquals(List.of(10L, 20L, 11L, 21L), ids(merged));
+    }
+
+    @Test
+    void skipsEmptyLists() {
+        Comparator<SalesData> order = SalesDataFilterMatcher.order(SalesDataSort.PRICE_DESC);
+        List<SalesData> only = List.of(priced(3, "9.00"), priced(1, "2.00"));
+
+        assertEquals(List.of(3L, 1L), ids(SalesDataRepositoryCustomImpl.mergeSorted(
+                List.of(List.of(), only, List.of()), order, 10)));
+        assertTrue(SalesDataRepositoryCustomImpl.mergeSorted(List.of(List.of(), List.of()), order, 10).isEmpty());
+    }
+
+    @Test
+    void matchesAFullSortOfTheUnion() {
+        Comparator<SalesData> order = SalesDataFilterMatcher.order(SalesDataSort.PRICE_DESC);
+        List<List<SalesData>> lists = new ArrayList<>();
+        List<SalesData> all = new ArrayList<>();
+        long id = 1;
+        for (int list = 0; list < 5; list++) {
+            List<SalesData> rows = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                long n = id++;
+                rows.add(priced(n, n % 7 == 0 ? null : String.valueOf((n * 37) % 23)));
+            }
+            rows.sort(order);
+            lists.add(rows);
+            all.addAll(rows);
+        }
+        all.sort(order);
+
+        assertEquals(ids(all.subList(0, 50)), ids(SalesDataRepositoryCustomImpl.mergeSorted(lists, order, 50)));
+    }
+
+    @Test
+    void federatedSliceKeepsPagingWhenTheColdTierAddsNothing() throws IOException {
+        List<SalesData> hot = List.of(item(15, "VAL-25", "2024-05-05"), item(14, "VAL-25", "2024-05-04"),
+                item(13, "VAL-25", "2024-05-03"), item(12, "VAL-25", "2024-05-02"), item(11, "VAL-25", "2024-05-01"));
+        // Archived rows of another item only: the cold side of every page is empty
+        SalesDataRepositoryCustomImpl repository = repository(hot, List.of(item(2, "PMP-10", "2021-06-01")));
+        SalesDataFilter filter = SalesDataFilter.builder().itemCode("VAL-25").build();
+
+        SalesDataSlice first = repository.findSlice(filter, SalesDataSort.NEWEST, null, 0, 2);
+
+        assertEquals(List.of(15L, 14L), ids(first.getRows()));
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(15L, 14L, 13L, 12L, 11L), walk(repository, filter, 2));
+    }
+
+    @Test
+    void federatedSliceMergesHotAndColdRowsAcrossPages() throws IOException {
+        List<SalesData> hot = List.of(item(15, "VAL-25", "2024-05-05"), item(14, "VAL-25", "2023-02-01"),
+                item(13, "VAL-25", "2022-01-01"));
+        List<SalesData> cold = List.of(item(4, "VAL-25", "2023-06-30"), item(3, "VAL-25", "2022-01-01"),
+                item(2, "PMP-10", "2022-03-01"), item(1, "VAL-25", "2021-09-15"));
+        SalesDataRepositoryCustomImpl repository = repository(hot, cold);
+        SalesDataFilter filter = SalesDataFilter.builder().itemCode("VAL-25").build();
+
+        assertEquals(List.of(15L, 4L, 14L, 13L, 3L, 1L), walk(repository, filter, 2));
+        SalesDataSlice offsetPage = repository.findSlice(filter, SalesDataSort.NEWEST, null, 2, 3);
+        assertEquals(List.of(14L, 13L, 3L), ids(offsetPage.getRows()));
+        assertNotNull(offsetPage.getNextCursor());
+    }
+
+    @Test
+    void upperDateBoundAloneReachesTheColdTier() throws IOException {
+        List<SalesData> cold = List.of(item(3, "VAL-25", "2022-11-30"), item(2, "PMP-10", "2021-06-01"),
+                item(1, "VAL-25", "2023-04-01"));
+        SalesDataRepositoryCustomImpl repository = repository(List.of(), cold);
+        SalesDataFilter filter = SalesDataFilter.builder().maxDate("2022-12-31").build();
+
+        SalesDataSlice slice = repository.findSlice(filter, SalesDataSort.NEWEST, null, 0, 10);
+
+        assertEquals(List.of(3L, 2L), ids(slice.getRows()));
+        assertNull(slice.getNextCursor());
+    }
+
+    @Test
+    void unboundedListingSkipsTheColdTier() throws IOException {
+        List<SalesData> hot = List.of(item(15, "VAL-25", "2024-05-05"), item(14, "PMP-10", "2024-05-04"));
+        SalesDataRepositoryCustomImpl repository = repository(hot, List.of(item(1, "VAL-25", "2021-09-15")));
+
+        SalesDataSlice slice = repository.findSlice(new SalesDataFilter(), SalesDataSort.NEWEST, null, 0, 10);
+
+        assertEquals(List.of(15L, 14L), ids(slice.getRows()));
+    }
+
+    /**
+     * Repository over an unsharded sales_data holding the hot rows and a cold tier of one segment.
+     * The native query answers like MySQL would for an ItemCode filter: the rows after the bound
+     * (lastKey, lastId) in NEWEST order, up to :limit.
+     */
+    private SalesDataRepositoryCustomImpl repository(List<SalesData> hot, List<SalesData> cold) throws IOException {
+        Path segment = coldDirectory.resolve("sales_data-0000" + SalesDataColdStore.SEGMENT_SUFFIX);
+        try (ColdSegment.Writer writer = new ColdSegment.Writer(segment, 2)) {
+            for (SalesData row : cold) {
+                String[] values = new String[ColdSegment.STRING_COLUMNS.length];
+                values[1] = row.getTxDateTyped().toString();
+                values[6] = row.getItemCode();
+                writer.add(row.getId(), SalesDataColumns.encodeDate(row.getTxDateTyped()), SalesDataColumns.NULL_INT,
+                        SalesDataColumns.NULL_AMOUNT, SalesDataColumns.NULL_AMOUNT, SalesDataColumns.NULL_AMOUNT,
+                        values);
+            }
+            writer.finish();
+        }
+        SalesDataColdStore coldStore = new SalesDataColdStore(false, coldDirectory.toString());
+        coldStore.register(segment);
+
+        Map<String, Object> parameters = new HashMap<>();
+        Query query = mock(Query.class);
+        when(query.setParameter(anyString(), any())).thenAnswer(invocation -> {
+            parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+            return query;
+        });
+        when(query.getResultList()).thenAnswer(invocation -> {
+            SalesData bound = new SalesData();
+            bound.setId((Long) parameters.getOrDefault("lastId", Long.MAX_VALUE));
+            bound.setTxDateTyped((LocalDate) parameters.get("lastKey"));
+            Comparator<SalesData> order = SalesDataFilterMatcher.order(SalesDataSort.NEWEST);
+            String itemCode = (String) parameters.get("itemCode");
+            return hot.stream()
+                    .filter(row -> !parameters.containsKey("lastId") || order.compare(row, bound) > 0)
+                    .filter(row -> itemCode == null
+                            || itemCode.equals("%" + row.getItemCode().toLowerCase(Locale.ROOT) + "%"))
+                    .sorted(order)
+                    .limit((Integer) parameters.get("limit"))
+                    .collect(Collectors.toList());
+        });
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.createNativeQuery(anyString(), eq(SalesData.class))).thenAnswer(invocation -> {
+            parameters.clear();
+            return query;
+        });
+
+        SalesDataRepositoryCustomImpl repository =
+                new SalesDataRepositoryCustomImpl(coldStore, mock(SalesDataShardRouter.class));
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        return repository;
+    }
+
+    // Ids of every page, following the next cursors
+    private static List<Long> walk(SalesDataRepositoryCustomImpl repository, SalesDataFilter filter, int limit) {
+        List<Long> ids = new ArrayList<>();
+        SalesDataCursor cursor = null;
+        do {
+            SalesDataSlice slice = repository.findSlice(filter, SalesDataSort.NEWEST, cursor, 0, limit);
+            ids.addAll(ids(slice.getRows()));
+            cursor = slice.getNextCursor() != null
+                    ? SalesDataCursor.decode(slice.getNextCursor(), SalesDataSort.NEWEST) : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static SalesData item(long id, String itemCode, String date) {
+        SalesData row = dated(id, date);
+        row.setItemCode(itemCode);
+        return row;
+    }
+
+    private static SalesData dated(long id, String date) {
+        SalesData row = new SalesData();
+        row.setId(id);
+        row.setTxDateTyped(date == null ? null : LocalDate.parse(date));
+        return row;
+    }
+
+    private static SalesData priced(long id, String price) {
+        SalesData row = new SalesData();
+        row.setId(id);
+        row.setTxP1Typed(price == null ? null : new BigDecimal(price));
+        return row;
+    }
+
+    private static List<Long> ids(List<SalesData> rows) {
+        return rows.stream().map(SalesData::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecosystem.service;
+
+import com.ecosystem.dto.buyer.SalesDataRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SalesDataBatchWriterTest {
+
+    /**
+     * Digest of the stored row as MySQL computes it in SELECT_EXISTING_SQL:
+     * SHA1(CONCAT_WS(CHAR(1), IFNULL(`TXNo`, CHAR(0)), ..., IFNULL(`Source`, CHAR(0)))) over the
+     * VARCHAR values "TX-1001", "2024-03-15", "12", "19.90", "B001", "Acme Ltd", "VAL-25",
+     * "Ball valve DN25", NULL x 6, "Brass", "PCS", NULL, "15.50", NULL, NULL, "238.80", NULL, NULL, "ERP".
+     */
+    private static final String SQL_ROW_HASH = "e95f4b555097c139aa15e87f84bdcb9ae395376b";
+
+    @Test
+    void javaHashMatchesTheSqlHashOfTheStoredRow() {
+        assertEquals(SQL_ROW_HASH, SalesDataBatchWriter.rowHash(request()));
+    }
+
+    @Test
+    void nullAndEmptyValuesHashDifferently() {
+        SalesDataRequest empty = request();
+        empty.setBrandCode("");
+
+        assertNotEquals(SQL_ROW_HASH, SalesDataBatchWriter.rowHash(empty));
+    }
+
+    @Test
+    void valuesAreHashedInColumnOrder() {
+        SalesDataRequest swapped = request();
+        swapped.setBuyerCode("Acme Ltd");
+        swapped.setBuyerName("B001");
+
+        assertNotEquals(SQL_ROW_HASH, SalesDataBatchWriter.rowHash(swapped));
+    }
+
+    @Test
+    void numbersAreHashedAsStoredWithTheirScale() {
+        SalesDataRequest rescaled = request();
+        rescaled.setTxP1(new BigDecimal("19.9"));
+
+        assertNotEquals(SQL_ROW_HASH, SalesDataBatchWriter.rowHash(rescaled));
+    }
+
+    private static SalesDataRequest request() {
+        SalesDataRequest request = new SalesDataRequest();
+        request.setTxNo("TX-1001");
+        request.setTxDate(LocalDate.of(2024, 3, 15));
+        request.setTxQty(12);
+        request.setTxP1(new BigDecimal("19.90"));
+        request.setBuyerCode("B001");
+        request.setBuyerName("Acme Ltd");
+        request.setItemCode("VAL-25");
+        request.setItemName("Ball valve DN25");
+        request.setMaterial("Brass");
+        request.setUom("PCS");
+        request.setUnitCost(new BigDecimal("15.50"));
+        request.setValue(new BigDecimal("238.80"));
+        request.setSource("ERP");
+        return request;
+    }
+}